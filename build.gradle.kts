@@ -1,5 +1,6 @@
 plugins {
     id("java")
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "com.microsoft"
@@ -11,11 +12,12 @@ repositories {
 
 dependencies {
     implementation("org.jetbrains:annotations:24.0.1")
-    implementation("com.fasterxml.jackson.dataformat:jackson-dataformat-xml:2.17.2")
+    implementation("com.fasterxml.jackson.core:jackson-core:2.17.2")
     implementation("ch.qos.logback:logback-classic:1.4.12")
 
     testImplementation(platform("org.junit:junit-bom:5.10.0"))
     testImplementation("org.junit.jupiter:junit-jupiter")
+    testImplementation("com.fasterxml.jackson.core:jackson-databind:2.17.2")
     testImplementation ("org.awaitility:awaitility-kotlin:4.2.2")
 }
 
@@ -0,0 +1,118 @@
+package com.microsoft.execution;
+
+import com.microsoft.execution.retry.NoRetryStrategy;
+import com.microsoft.model.IDagNode;
+import com.microsoft.model.INodeWithDependencies;
+import com.microsoft.parser.DagParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the affinity engines against the regular platform thread engines on chain-heavy and tree-shaped DAGs.
+ * Every node reads the buffer its dependency wrote and writes its own, so a node that runs on the engine of its
+ * dependency finds that buffer warm in cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AffinityBenchmark {
+
+    public enum Shape {
+        /**
+         * Independent linear chains.
+         */
+        CHAINS,
+
+        /**
+         * A binary tree fanning out from a single root.
+         */
+        TREE
+    }
+
+    @Param({"PLATFORM_THREADS", "AFFINITY"})
+    public EngineMode engineMode;
+
+    @Param({"CHAINS", "TREE"})
+    public Shape shape;
+
+    @Param({"1024"})
+    public int numNodes;
+
+    @Param({"32"})
+    public int chainLength;
+
+    @Param({"4096"})
+    public int bufferSize;
+
+    private IDagExecutor dagExecutor;
+    private DagRequest request;
+    private long[][] buffers;
+
+    @Setup
+    public void setup() {
+        buffers = new long[numNodes][bufferSize];
+        DagNodeExecutorOptions options = DagNodeExecutorOptions.DEFAULT.withEngineMode(engineMode);
+        DagNodeExecutor dagNodeExecutor = new DagNodeExecutor(Runtime.getRuntime().availableProcessors(), 0.0f, NoRetryStrategy.INSTANCE, options);
+        dagExecutor = new DagExecutor(new DagParser(this::bufferNode), dagNodeExecutor);
+        request = new DagRequest(switch (shape) {
+            case CHAINS -> chainsDagXml(numNodes, chainLength);
+            case TREE -> treeDagXml(numNodes);
+        });
+    }
+
+    @Benchmark
+    public DagResponse processRequest() throws ExecutionException, InterruptedException {
+        return dagExecutor.processRequestAsync(request).get();
+    }
+
+    private IDagNode bufferNode(INodeWithDependencies node) {
+        int id = node.id();
+        int dependency = node.dependencies().stream().mapToInt(INodeWithDependencies::id).findFirst().orElse(-1);
+        return new IDagNode() {
+            @Override
+            public Integer id() {
+                return id;
+            }
+
+            @Override
+            public void execute() {
+                long[] input = dependency >= 0 ? buffers[dependency] : buffers[id];
+                long[] output = buffers[id];
+                for (int i = 0; i < output.length; i++) {
+                    output[i] = input[i] * 31 + i;
+                }
+            }
+        };
+    }
+
+    // Node i depends on node i - 1, unless it starts a new chain
+    private static String chainsDagXml(int numNodes, int chainLength) {
+        StringBuilder xmlBuilder = new StringBuilder("<DAG><Nodes>");
+        for (int i = 0; i < numNodes; i++) {
+            xmlBuilder.append("<Node Id=\"").append(i).append("\"><dependencies>");
+            if (i % chainLength != 0) {
+                xmlBuilder.append("<Node Id=\"").append(i - 1).append("\"/>");
+            }
+            xmlBuilder.append("</dependencies></Node>");
+        }
+        return xmlBuilder.append("</Nodes></DAG>").toString();
+    }
+
+    // Node i depends on its parent (i - 1) / 2
+    private static String treeDagXml(int numNodes) {
+        StringBuilder xmlBuilder = new StringBuilder("<DAG><Nodes>");
+        for (int i = 0; i < numNodes; i++) {
+            xmlBuilder.append("<Node Id=\"").append(i).append("\"><dependencies>");
+            if (i > 0) {
+                xmlBuilder.append("<Node Id=\"").append((i - 1) / 2).append("\"/>");
+            }
+            xmlBuilder.append("</dependencies></Node>");
+        }
+        return xmlBuilder.append("</Nodes></DAG>").toString();
+    }
+}
@@ -0,0 +1,85 @@
+package com.microsoft.execution;
+
+import com.microsoft.execution.retry.NoRetryStrategy;
+import com.microsoft.model.IDagNode;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Compares platform and virtual thread engines with many concurrent blocking nodes. Besides the time to drain a batch
+ * of nodes, the auxiliary counters report the peak number of live platform threads and the heap in use after every
+ * batch. Run with {@code -prof gc} to also compare allocation rates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xss256k")
+public class EngineModeBenchmark {
+
+    @Param({"PLATFORM_THREADS", "VIRTUAL_THREADS"})
+    public EngineMode engineMode;
+
+    @Param({"10000"})
+    public int numNodes;
+
+    @Param({"10"})
+    public long blockingTimeInMillis;
+
+    private DagNodeExecutor dagNodeExecutor;
+    private IDagNode[] nodes;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Footprint {
+        public long peakPlatformThreads;
+        public long usedHeapMegabytes;
+    }
+
+    @Setup
+    public void setup() {
+        DagNodeExecutorOptions options = DagNodeExecutorOptions.DEFAULT.withEngineMode(engineMode);
+        // As many engines as nodes, so the only limit on concurrency is the cost of the threads themselves
+        dagNodeExecutor = new DagNodeExecutor(numNodes, 0.0f, NoRetryStrategy.INSTANCE, options);
+        nodes = IntStream.range(0, numNodes).mapToObj(this::blockingNode).toArray(IDagNode[]::new);
+    }
+
+    @Benchmark
+    public void executeBlockingNodes(Footprint footprint) {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[numNodes];
+        for (int i = 0; i < numNodes; i++) {
+            futures[i] = dagNodeExecutor.executeAsync(nodes[i]);
+        }
+        CompletableFuture.allOf(futures).join();
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        footprint.peakPlatformThreads = threads.getPeakThreadCount();
+        footprint.usedHeapMegabytes = memory.getHeapMemoryUsage().getUsed() >> 20;
+    }
+
+    private IDagNode blockingNode(int id) {
+        return new IDagNode() {
+            @Override
+            public Integer id() {
+                return id;
+            }
+
+            @Override
+            public void execute() {
+                try {
+                    Thread.sleep(blockingTimeInMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+    }
+}
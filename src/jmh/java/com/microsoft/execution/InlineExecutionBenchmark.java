@@ -0,0 +1,60 @@
+package com.microsoft.execution;
+
+import com.microsoft.execution.retry.NoRetryStrategy;
+import com.microsoft.parser.DagParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the request latency of small DAGs executed inline on the request thread against the regular path, which
+ * hands every node off to the engines. Sample time mode reports the p50 alongside the other percentiles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class InlineExecutionBenchmark {
+
+    @Param({"0", "16"})
+    public int inlineExecutionThreshold;
+
+    @Param({"1", "4", "8"})
+    public int numNodes;
+
+    private IDagExecutor dagExecutor;
+    private DagRequest request;
+
+    @Setup
+    public void setup() {
+        DagNodeExecutor dagNodeExecutor = new DagNodeExecutor(4, 0.0f, NoRetryStrategy.INSTANCE);
+        DagExecutorOptions options = DagExecutorOptions.DEFAULT.withInlineExecutionThreshold(inlineExecutionThreshold);
+        dagExecutor = new DagExecutor(new DagParser(), dagNodeExecutor, options);
+        request = new DagRequest(diamondDagXml(numNodes));
+    }
+
+    @Benchmark
+    public DagResponse processRequest() throws ExecutionException, InterruptedException {
+        return dagExecutor.processRequestAsync(request).get();
+    }
+
+    // Node 0 fans out to the middle nodes, which all fan in to the last node
+    private static String diamondDagXml(int numNodes) {
+        StringBuilder xmlBuilder = new StringBuilder("<DAG><Nodes>");
+        for (int i = 0; i < numNodes; i++) {
+            xmlBuilder.append("<Node Id=\"").append(i).append("\"><dependencies>");
+            if (i > 0 && (i < numNodes - 1 || numNodes == 2)) {
+                xmlBuilder.append("<Node Id=\"0\"/>");
+            } else if (i > 0) {
+                for (int j = 1; j < numNodes - 1; j++) {
+                    xmlBuilder.append("<Node Id=\"").append(j).append("\"/>");
+                }
+            }
+            xmlBuilder.append("</dependencies></Node>");
+        }
+        return xmlBuilder.append("</Nodes></DAG>").toString();
+    }
+}
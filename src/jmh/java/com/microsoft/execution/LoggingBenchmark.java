@@ -0,0 +1,68 @@
+package com.microsoft.execution;
+
+import com.microsoft.execution.log.EventLog;
+import com.microsoft.execution.log.EventLogOptions;
+import com.microsoft.execution.retry.NoRetryStrategy;
+import com.microsoft.model.IDagNode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Measures what logging the failed attempts costs on the node hot path: every node of the batch fails, and is logged
+ * either directly or through the {@link EventLog}. Both go through the logback backend of the build, with its default
+ * console configuration. Run with {@code -prof gc} to compare the allocation per node.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LoggingBenchmark {
+
+    private static final RuntimeException FAILURE = new RuntimeException("Benchmark failure");
+
+    @Param({"false", "true"})
+    public boolean eventLog;
+
+    @Param({"1024"})
+    public int numNodes;
+
+    private EventLog log;
+    private DagNodeExecutor dagNodeExecutor;
+    private List<IDagNode> batch;
+
+    @Setup
+    public void setup() {
+        log = eventLog ? new EventLog(EventLogOptions.DEFAULT) : null;
+        DagNodeExecutorOptions options = DagNodeExecutorOptions.DEFAULT.withEventLog(log);
+        dagNodeExecutor = new DagNodeExecutor(4, 0.0f, NoRetryStrategy.INSTANCE, options);
+        batch = IntStream.range(0, numNodes).<IDagNode>mapToObj(FailingNode::new).toList();
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (log != null) {
+            log.close();
+        }
+    }
+
+    @Benchmark
+    public void executeFailingBatch() throws InterruptedException {
+        CountDownLatch completed = new CountDownLatch(numNodes);
+        dagNodeExecutor.executeBatchAsync(batch, NodeExecutionListener.NONE, (_, _) -> completed.countDown());
+        completed.await();
+    }
+
+    private record FailingNode(Integer id) implements IDagNode {
+
+        @Override
+        public void execute() {
+            throw FAILURE;
+        }
+    }
+}
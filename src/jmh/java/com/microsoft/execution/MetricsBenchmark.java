@@ -0,0 +1,63 @@
+package com.microsoft.execution;
+
+import com.microsoft.execution.metrics.DagMetrics;
+import com.microsoft.execution.metrics.LatencyHistogram;
+import com.microsoft.execution.retry.NoRetryStrategy;
+import com.microsoft.model.DagNode;
+import com.microsoft.model.IDagNode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Measures what the metrics cost on the node hot path: a batch of trivial nodes is executed with and without metrics,
+ * which adds the metered engine pool and the node listener, so the difference is the overhead of recording. Recording
+ * into a single latency histogram from several threads measures its behavior under contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MetricsBenchmark {
+
+    @Param({"false", "true"})
+    public boolean metrics;
+
+    @Param({"1024"})
+    public int numNodes;
+
+    private DagNodeExecutor dagNodeExecutor;
+    private NodeExecutionListener listener;
+    private List<IDagNode> batch;
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    @Setup
+    public void setup() {
+        DagMetrics dagMetrics = metrics ? new DagMetrics("benchmark") : null;
+        DagNodeExecutorOptions options = DagNodeExecutorOptions.DEFAULT.withMetrics(dagMetrics);
+        dagNodeExecutor = new DagNodeExecutor(4, 0.0f, NoRetryStrategy.INSTANCE, options);
+        listener = metrics ? new MetricsNodeExecutionListener(NodeExecutionListener.NONE, dagMetrics, numNodes) : NodeExecutionListener.NONE;
+        batch = IntStream.range(0, numNodes).<IDagNode>mapToObj(DagNode::new).toList();
+    }
+
+    @Benchmark
+    public void executeBatch() throws InterruptedException {
+        CountDownLatch completed = new CountDownLatch(numNodes);
+        for (IDagNode node : batch) {
+            listener.onNodeReady(node);
+        }
+        dagNodeExecutor.executeBatchAsync(batch, listener, (_, _) -> completed.countDown());
+        completed.await();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordLatency() {
+        histogram.record(System.nanoTime() & 0xFFFFF);
+    }
+}
@@ -0,0 +1,78 @@
+package com.microsoft.execution;
+
+import com.microsoft.execution.retry.NoRetryStrategy;
+import com.microsoft.model.DagNode;
+import com.microsoft.model.ExecutionDag;
+import com.microsoft.model.csr.CsrDag;
+import com.microsoft.model.csr.CsrDagWriter;
+import com.microsoft.workload.DagGenerator;
+import com.microsoft.workload.DagGeneratorOptions;
+import com.microsoft.workload.DagShape;
+import com.microsoft.workload.GeneratedDag;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the execution of a memory-mapped {@link CsrDag} by the {@link OutOfCoreDagExecutor} against the execution
+ * of the same DAG, already parsed into an {@link ExecutionDag}, by the {@link DagExecutor}. The nodes do no work, so
+ * the scheduling overhead dominates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class OutOfCoreBenchmark {
+
+    @Param({"LAYERED", "CHAINS"})
+    public DagShape shape;
+
+    @Param({"100000"})
+    public int numNodes;
+
+    private DagNodeExecutor dagNodeExecutor;
+    private IDagExecutor dagExecutor;
+    private OutOfCoreDagExecutor outOfCoreDagExecutor;
+    private Path file;
+    private CsrDag csrDag;
+
+    @Setup
+    public void setup() throws IOException {
+        GeneratedDag generated = new DagGenerator(DagGeneratorOptions.DEFAULT.withShape(shape).withNodes(numNodes)).generate();
+        dagNodeExecutor = new DagNodeExecutor(Runtime.getRuntime().availableProcessors(), 0.0f, NoRetryStrategy.INSTANCE);
+
+        ExecutionDag executionDag = generated.toExecutionDag();
+        dagExecutor = new DagExecutor(_ -> executionDag, dagNodeExecutor);
+
+        file = Files.createTempFile("benchmark", ".csr");
+        CsrDagWriter.write(file, generated.size(), consumer -> {
+            for (int id = 0; id < generated.size(); id++) {
+                consumer.accept(id, generated.dependencies()[id]);
+            }
+        });
+        csrDag = CsrDag.open(file);
+        outOfCoreDagExecutor = new OutOfCoreDagExecutor(dagNodeExecutor);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        csrDag.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public DagResponse inHeap() throws ExecutionException, InterruptedException {
+        return dagExecutor.processRequestAsync(new DagRequest("")).get();
+    }
+
+    @Benchmark
+    public DagResponse outOfCore() throws InterruptedException {
+        return outOfCoreDagExecutor.execute(csrDag, DagNode::new);
+    }
+}
@@ -4,11 +4,20 @@ import com.microsoft.execution.*;
 import com.microsoft.execution.retry.NoRetryStrategy;
 import com.microsoft.parser.DagParser;
 import com.microsoft.parser.IDagParser;
+import com.microsoft.workload.*;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 
 public class Main {
     public static void main(String[] args) throws ExecutionException, InterruptedException {
+        if (args.length > 0 && args[0].equals("load")) {
+            runLoadTest(args);
+            return;
+        }
+
         // Example of how to use the DAG executor.
         final IDagNodeExecutor dagNodeExecutor = new DagNodeExecutor(4, 0, NoRetryStrategy.INSTANCE);
         final IDagParser dagParser = new DagParser();
@@ -37,4 +46,42 @@ public class Main {
         DagResponse dagResponse = dagExecutor.processRequestAsync(request).get();
         System.out.println("Dag response: " + dagResponse);
     }
-}
\ No newline at end of file
+
+    /**
+     * Load-tests the executor with a generated DAG, e.g.
+     * {@code load shape=LAYERED nodes=10000 width=100 degree=3 seed=1 mode=OPEN rate=5 concurrency=4 requests=100 engines=4},
+     * every option being optional.
+     */
+    private static void runLoadTest(String[] args) throws InterruptedException {
+        Map<String, String> arguments = new HashMap<>();
+        for (int i = 1; i < args.length; i++) {
+            String[] argument = args[i].split("=", 2);
+            if (argument.length != 2) {
+                throw new IllegalArgumentException("Expected key=value but got " + args[i]);
+            }
+            arguments.put(argument[0], argument[1]);
+        }
+
+        DagGeneratorOptions generatorOptions = DagGeneratorOptions.DEFAULT
+                .withShape(DagShape.valueOf(arguments.getOrDefault("shape", DagGeneratorOptions.DEFAULT.shape().name())))
+                .withNodes(Integer.parseInt(arguments.getOrDefault("nodes", String.valueOf(DagGeneratorOptions.DEFAULT.nodes()))))
+                .withWidth(Integer.parseInt(arguments.getOrDefault("width", String.valueOf(DagGeneratorOptions.DEFAULT.width()))))
+                .withDegree(Integer.parseInt(arguments.getOrDefault("degree", String.valueOf(DagGeneratorOptions.DEFAULT.degree()))))
+                .withSeed(Long.parseLong(arguments.getOrDefault("seed", "0")));
+        LoadDriverOptions driverOptions = new LoadDriverOptions(
+                ArrivalMode.valueOf(arguments.getOrDefault("mode", LoadDriverOptions.DEFAULT.arrivalMode().name())),
+                Double.parseDouble(arguments.getOrDefault("rate", "0")),
+                Integer.parseInt(arguments.getOrDefault("concurrency", "1")),
+                Integer.parseInt(arguments.getOrDefault("requests", String.valueOf(LoadDriverOptions.DEFAULT.requests())))
+        );
+        int engines = Integer.parseInt(arguments.getOrDefault("engines", String.valueOf(Runtime.getRuntime().availableProcessors())));
+
+        GeneratedDag dag = new DagGenerator(generatorOptions).generate();
+        System.out.println("Generated " + generatorOptions.shape() + " DAG with " + dag.size() + " nodes and " + dag.edges() + " edges");
+
+        IDagExecutor dagExecutor = new DagExecutor(new DagParser(), new DagNodeExecutor(engines, 0, NoRetryStrategy.INSTANCE));
+        LoadReport report = new LoadDriver(dagExecutor, driverOptions).run(List.of(new DagRequest(dag.toXml())));
+        System.out.println(report);
+        System.exit(0); // The engines are not daemon threads
+    }
+}
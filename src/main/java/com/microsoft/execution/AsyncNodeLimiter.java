@@ -0,0 +1,52 @@
+package com.microsoft.execution;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * Bounds the number of asynchronous nodes in flight. Starts that exceed the limit are parked and launched when an
+ * outstanding node completes, so no thread ever blocks waiting for a permit.
+ */
+class AsyncNodeLimiter {
+
+    private final int maxOutstanding;
+    private final Queue<Runnable> pending = new ArrayDeque<>();
+    private int outstanding;
+
+    AsyncNodeLimiter(int maxOutstanding) {
+        this.maxOutstanding = maxOutstanding;
+    }
+
+    /**
+     * Runs {@code start} now if there is room for another node in flight, or once there is. Every start must be
+     * paired with a call to {@link #release()} when the node completes.
+     */
+    void submit(Runnable start) {
+        synchronized (this) {
+            if (outstanding >= maxOutstanding) {
+                pending.add(start);
+                return;
+            }
+            outstanding++;
+        }
+
+        start.run();
+    }
+
+    void release() {
+        Runnable next;
+        synchronized (this) {
+            next = pending.poll();
+            if (next == null) {
+                outstanding--;
+                return;
+            }
+        }
+
+        next.run(); // The permit is handed over to the parked start
+    }
+
+    synchronized int getOutstanding() {
+        return outstanding;
+    }
+}
@@ -0,0 +1,15 @@
+package com.microsoft.execution;
+
+/**
+ * Receives the results of a batch submitted to {@link IDagNodeExecutor#executeBatchAsync}, one node at a time and as
+ * soon as each node completes.
+ */
+@FunctionalInterface
+public interface BatchCompletionHandler {
+
+    /**
+     * @param index  The position of the node in the batch.
+     * @param result 0 if success, < 0 otherwise.
+     */
+    void onNodeCompleted(int index, int result);
+}
@@ -1,104 +1,721 @@
 package com.microsoft.execution;
 
+import com.microsoft.execution.events.NodeEventPublisher;
+import com.microsoft.execution.history.DurationEstimate;
+import com.microsoft.execution.history.DurationHistoryStore;
+import com.microsoft.execution.jfr.*;
+import com.microsoft.model.ChainDagNode;
+import com.microsoft.model.DagExpansion;
 import com.microsoft.model.ExecutionDag;
+import com.microsoft.model.IDagNode;
+import com.microsoft.model.IExpandingDagNode;
+import com.microsoft.model.partition.Partitioning;
 import com.microsoft.parser.IDagParser;
+import com.microsoft.parser.IStreamingDagParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class DagExecutor implements IDagExecutor {
 
     private static final Logger logger = LoggerFactory.getLogger(DagExecutor.class);
 
+    private static final List<Integer> POISON_PILL = List.of(-1);
+    // The in-degree of a completed node of a DAG with expanding nodes: the nodes added to its dependents don't wait for it
+    private static final int COMPLETED = -1;
+
     private final IDagParser dagParser;
     private final IDagNodeExecutor dagNodeExecutor;
+    private final DagExecutorOptions options;
     private final ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicLong dagIds = new AtomicLong(); // Identifies the DAG runs in the JFR events
 
     public DagExecutor(IDagParser dagParser, IDagNodeExecutor dagNodeExecutor) {
+        this(dagParser, dagNodeExecutor, DagExecutorOptions.DEFAULT);
+    }
+
+    public DagExecutor(IDagParser dagParser, IDagNodeExecutor dagNodeExecutor, DagExecutorOptions options) {
+        if (options.pipelinedParsing() && !(dagParser instanceof IStreamingDagParser)) {
+            throw new IllegalArgumentException("pipelinedParsing needs an IStreamingDagParser");
+        }
         this.dagParser = dagParser;
         this.dagNodeExecutor = dagNodeExecutor;
+        this.options = options;
     }
 
     @Override
     public CompletableFuture<DagResponse> processRequestAsync(DagRequest request) {
-        return CompletableFuture.supplyAsync(() -> {
+        return processRequestAsync(request, NodeExecutionListener.NONE);
+    }
+
+    @Override
+    public CompletableFuture<DagResponse> processRequestAsync(DagRequest request, NodeEventPublisher publisher) {
+        CompletableFuture<DagResponse> response = processRequestAsync(request, (NodeExecutionListener) publisher);
+        CompletableFuture<DagResponse> result = response.whenComplete((_, _) -> publisher.close());
+        result.whenComplete((_, _) -> {
+            if (result.isCancelled()) {
+                response.cancel(false);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Cancelling the returned future stops the execution of the DAG: no more nodes are dispatched, and its leases on
+     * shared nodes are released.
+     */
+    private CompletableFuture<DagResponse> processRequestAsync(DagRequest request, NodeExecutionListener listener) {
+        CompletableFuture<DagResponse> response = new CompletableFuture<>();
+        long dagId = dagIds.incrementAndGet();
+        if (options.metrics() != null) {
+            long requestTimeInNanos = System.nanoTime();
+            options.metrics().onDagStarted();
+            response.whenComplete((dagResponse, ex) -> options.metrics().onDagCompleted(
+                    System.nanoTime() - requestTimeInNanos,
+                    ex != null || dagResponse.hasFailed(),
+                    response.isCancelled()
+            ));
+        }
+        executorService.execute(() -> {
             try {
+                if (options.pipelinedParsing()) {
+                    response.complete(executePipelined(dagId, request.dagXml(), listener, response));
+                    return;
+                }
+
+                DagParseEvent parseEvent = new DagParseEvent();
+                parseEvent.begin();
                 ExecutionDag dag = dagParser.parseDag(request.dagXml());
-                return executeDag(dag);
+                parseEvent.end();
+                if (parseEvent.shouldCommit()) {
+                    parseEvent.dagId = dagId;
+                    parseEvent.xmlLength = request.dagXml().length();
+                    parseEvent.nodes = dag.getAdjacencyList().size();
+                    parseEvent.commit();
+                }
+
+                response.complete(executeDag(dagId, dag, listener, response));
             } catch (InterruptedException ex) {
                 logger.error("Dag execution failed", ex);
-                return new DagResponse(true);
+                response.complete(new DagResponse(true));
+            } catch (Throwable ex) {
+                response.completeExceptionally(ex);
             }
-        }, executorService);
+        });
+        return response;
+    }
+
+    private DagResponse executeDag(
+            long dagId,
+            ExecutionDag dag,
+            NodeExecutionListener listener,
+            CompletableFuture<DagResponse> response
+    ) throws InterruptedException {
+        Collection<SharedNodeRegistry.Lease> leases = new ConcurrentLinkedQueue<>();
+        DurationRecordingListener recorder = options.durationHistory() != null ? new DurationRecordingListener(listener) : null;
+        NodeExecutionListener runListener = recorder != null ? recorder : listener;
+        if (options.metrics() != null) {
+            runListener = new MetricsNodeExecutionListener(runListener, options.metrics(), dag.getAdjacencyList().size());
+        }
+        if (options.traceRecorder() != null) {
+            runListener = options.traceRecorder().wrap(dagId, dag, runListener);
+        }
+        runListener = new RunListener(dagId, JfrNodeExecutionListener.wrap(dagId, runListener));
+        boolean isExpandable = dag.isExpandable();
+        boolean isInline = dag.getAdjacencyList().size() <= options.inlineExecutionThreshold() && !isExpandable;
+
+        DagExecutionEvent executionEvent = new DagExecutionEvent();
+        executionEvent.begin();
+        DagResponse dagResponse = null;
+        try {
+            dagResponse = isInline ? executeInline(dag, runListener, leases) : new DagRun(dagId, dag, runListener, leases, isExpandable).execute(response);
+            return dagResponse;
+        } finally {
+            leases.forEach(SharedNodeRegistry.Lease::release); // Shared nodes still needed by other DAGs keep running
+            if (recorder != null) {
+                options.durationHistory().recordAsync(recorder.getDurationsInMillis());
+            }
+
+            executionEvent.end();
+            if (executionEvent.shouldCommit()) {
+                executionEvent.dagId = dagId;
+                executionEvent.nodes = dag.getAdjacencyList().size();
+                executionEvent.inline = isInline;
+                executionEvent.failed = dagResponse == null || dagResponse.hasFailed();
+                executionEvent.cancelled = response.isCancelled();
+                executionEvent.commit();
+            }
+        }
+    }
+
+    private DagResponse executePipelined(
+            long dagId,
+            String dagXml,
+            NodeExecutionListener listener,
+            CompletableFuture<DagResponse> response
+    ) throws InterruptedException {
+        NodeExecutionListener runListener = new RunListener(dagId, JfrNodeExecutionListener.wrap(dagId, listener));
+        PipelinedDagRun run = new PipelinedDagRun(dagId, (IStreamingDagParser) dagParser, dagNodeExecutor, options, runListener);
+
+        DagExecutionEvent executionEvent = new DagExecutionEvent();
+        executionEvent.begin();
+        DagResponse dagResponse = null;
+        try {
+            dagResponse = run.execute(dagXml, response);
+            return dagResponse;
+        } finally {
+            executionEvent.end();
+            if (executionEvent.shouldCommit()) {
+                executionEvent.dagId = dagId;
+                executionEvent.nodes = run.getDeclaredNodes();
+                executionEvent.failed = dagResponse == null || dagResponse.hasFailed();
+                executionEvent.cancelled = response.isCancelled();
+                executionEvent.commit();
+            }
+        }
+    }
+
+    /**
+     * Estimates the critical path of every node from the duration history. The nodes that never ran, or have no key,
+     * are assumed to take as long as the average node that did, or 1ms if none did.
+     */
+    private double[] estimateCriticalPaths(ExecutionDag dag) {
+        DurationHistoryStore history = options.durationHistory();
+        double[] durations = new double[dag.getAdjacencyList().size()];
+        double knownDurations = 0;
+        int knownNodes = 0;
+        for (int i = 0; i < durations.length; i++) {
+            durations[i] = history.estimate(dag.getNode(i)).map(DurationEstimate::ewmaInMillis).orElse(Double.NaN);
+            if (!Double.isNaN(durations[i])) {
+                knownDurations += durations[i];
+                knownNodes++;
+            }
+        }
+
+        double unknownDuration = knownNodes > 0 ? knownDurations / knownNodes : 1;
+        return dag.computeCriticalPaths(node -> Double.isNaN(durations[node.id()]) ? unknownDuration : durations[node.id()]);
+    }
+
+    /**
+     * Finds the chains to fuse. Chains with shared nodes aren't fused, as those nodes may run as part of another DAG.
+     */
+    private Map<Integer, List<Integer>> findChains(ExecutionDag dag) {
+        Map<Integer, List<Integer>> chains = dag.findChains();
+        if (options.sharedNodes() != null) {
+            chains.values().removeIf(chain -> chain.stream().anyMatch(node -> dag.getNode(node).key() != null));
+        }
+        return chains;
+    }
+
+    /**
+     * @return The lease on the node if it's shared across DAGs, {@code null} otherwise. Expanding nodes are never
+     * shared, as their expansion belongs to the DAG running them.
+     */
+    private SharedNodeRegistry.Lease acquireLease(IDagNode node, Collection<SharedNodeRegistry.Lease> leases) {
+        if (options.sharedNodes() == null || node.key() == null || node instanceof IExpandingDagNode) {
+            return null;
+        }
+
+        SharedNodeRegistry.Lease lease = options.sharedNodes().acquire(node.key());
+        leases.add(lease);
+        return lease;
+    }
+
+    private Partitioning partition(ExecutionDag dag) {
+        if (options.partitioner() == null || !(dagNodeExecutor instanceof ShardedDagNodeExecutor sharded)) {
+            return null;
+        }
+
+        Partitioning partitioning = options.partitioner().partition(dag, sharded.getNumberOfShards());
+        logger.info("Partitioned DAG {}: {}", dag.hashCode(), partitioning);
+        return partitioning;
     }
 
-    private DagResponse executeDag(ExecutionDag dag) throws InterruptedException {
+    private void dispatch(
+            List<IDagNode> batch,
+            Partitioning partitioning,
+            NodeExecutionListener listener,
+            BatchCompletionHandler handler
+    ) {
+        if (partitioning == null) {
+            dagNodeExecutor.executeBatchAsync(batch, listener, handler);
+            return;
+        }
+
+        // A fused chain shares the id of its first node, so it is placed with it
+        ((ShardedDagNodeExecutor) dagNodeExecutor).executeBatchAsync(
+                batch,
+                unitOfExecution -> partitioning.shardOf(unitOfExecution.id()),
+                listener,
+                handler
+        );
+    }
+
+    /**
+     * Executes the DAG in topological order on the current thread. For small DAGs this is faster than handing every
+     * node off to the engines and waiting for it to come back.
+     */
+    private DagResponse executeInline(ExecutionDag dag, NodeExecutionListener listener, Collection<SharedNodeRegistry.Lease> leases) {
         List<List<Integer>> adjacencyList = dag.getAdjacencyList();
         Map<Integer, Integer> inDegree = dag.getInDegree();
-        int dagSize = adjacencyList.size();
 
-        // Queue to store nodes that are ready to be executed
-        BlockingQueue<Integer> q = new LinkedBlockingQueue<>(); // using max capacity to avoid blocking on add
-        for (int i = 0; i < inDegree.size(); i++) {
-            if (inDegree.get(i) == 0) {
-                q.put(i);
+        int[] pendingDependencies = new int[adjacencyList.size()];
+        Deque<Integer> ready = new ArrayDeque<>();
+        for (int i = 0; i < pendingDependencies.length; i++) {
+            pendingDependencies[i] = inDegree.get(i);
+            if (pendingDependencies[i] == 0) {
+                listener.onNodeReady(dag.getNode(i));
+                ready.add(i);
             }
         }
 
-        ConcurrentHashMap<Integer, Integer> concurrentInDegree = new ConcurrentHashMap<>(inDegree);
-        AtomicBoolean hasFailed = new AtomicBoolean(false);
-        Semaphore semaphore = new Semaphore(0);
-        int nodesScheduledForExecution = 0;
+        while (!ready.isEmpty()) {
+            int node = ready.poll();
 
-        while (nodesScheduledForExecution < dagSize) {
-            logger.info("Blocking execution for DAG {}", dag.hashCode());
-            int node = q.take();
-            logger.info("Taking item for DAG {}", dag.hashCode());
+            if (executeInline(dag.getNode(node), listener, leases) < 0) {
+                logger.error("Node execution failed: {}", node);
+                return new DagResponse(true);
+            }
 
-            if(node < 0) {
-                // Poison pill received, stop executing
-                break;
+            for (int nodeId : adjacencyList.get(node)) {
+                if (--pendingDependencies[nodeId] == 0) {
+                    listener.onNodeReady(dag.getNode(nodeId));
+                    ready.add(nodeId);
+                }
             }
+        }
 
-            // Execute the node
-            dagNodeExecutor.executeAsync(dag.getNode(node))
-                    .thenAccept(result -> {
-                        if (result < 0) {
-                            throw new RuntimeException("Node execution failed");
-                        }
+        return new DagResponse(false);
+    }
+
+    private int executeInline(IDagNode node, NodeExecutionListener listener, Collection<SharedNodeRegistry.Lease> leases) {
+        SharedNodeRegistry.Lease lease = acquireLease(node, leases);
+        if (lease == null) {
+            return dagNodeExecutor.execute(node, listener);
+        }
 
-                        semaphore.release();
+        if (lease.isOwner()) {
+            int result = dagNodeExecutor.execute(node, listener);
+            lease.complete(result);
+            return result;
+        }
 
-                        // Decrease inDegree of neighbors
-                        for (int nodeId : adjacencyList.get(node)) {
-                            int newInDegree = concurrentInDegree.merge(nodeId, -1, Integer::sum);
+        try {
+            return lease.result().join();
+        } catch (CancellationException | CompletionException ex) {
+            return -1;
+        }
+    }
+
+    /**
+     * The execution of a DAG on the engines. Ready nodes are handed over to the thread of the DAG through a queue,
+     * which dispatches them in batches. With a node executor that has {@link IDagNodeExecutor#hasEngineAffinity()
+     * engine affinity}, the nodes released by a completion are dispatched right away from the engine that completed
+     * it instead, so they are queued on that same engine.
+     * <p>
+     * {@link IExpandingDagNode Expanding nodes} add nodes to the DAG as they complete, so the run counts the nodes
+     * left rather than the size of the DAG. Their chains aren't fused, so that every node releases its own dependents.
+     */
+    private final class DagRun {
+
+        private final long dagId;
+        private final ExecutionDag dag;
+        private final NodeExecutionListener listener;
+        private final NodeExecutionListener executionListener;
+        private final Collection<SharedNodeRegistry.Lease> leases;
+        private final List<List<Integer>> adjacencyList;
+        private final int dagSize; // Before any expansion
+        private final boolean isExpandable;
+        private final Map<Integer, List<Integer>> chains;
+        private final Partitioning partitioning;
+        private final boolean dispatchOnCompletion = dagNodeExecutor.hasEngineAffinity();
+        private final double[] criticalPaths;
+
+        // Queue to store nodes that are ready to be executed. The nodes released together are queued as a single entry.
+        private final BlockingQueue<List<Integer>> q = new LinkedBlockingQueue<>(); // using max capacity to avoid blocking on add
+        private final ConcurrentHashMap<Integer, Integer> concurrentInDegree;
+        // The attempt that succeeded for every expanding node whose expansion isn't applied yet
+        private final Map<Integer, Integer> succeededAttempts = new ConcurrentHashMap<>();
+        private final AtomicBoolean hasFailed = new AtomicBoolean(false);
+        private final AtomicInteger remainingNodes;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile boolean stopped;
+
+        private DagRun(long dagId, ExecutionDag dag, NodeExecutionListener listener, Collection<SharedNodeRegistry.Lease> leases, boolean isExpandable) {
+            DagPlanEvent planEvent = new DagPlanEvent();
+            planEvent.begin();
+
+            this.dagId = dagId;
+            this.dag = dag;
+            this.listener = listener;
+            this.executionListener = isExpandable ? new ExpansionAwareListener() : listener;
+            this.leases = leases;
+            this.adjacencyList = dag.getAdjacencyList();
+            this.dagSize = adjacencyList.size();
+            this.isExpandable = isExpandable;
+            this.chains = options.chainFusion() && !isExpandable ? findChains(dag) : Map.of();
+            this.partitioning = partition(dag);
+            this.criticalPaths = options.durationHistory() != null ? estimateCriticalPaths(dag) : null;
+            this.concurrentInDegree = new ConcurrentHashMap<>(dag.getInDegree());
+            this.remainingNodes = new AtomicInteger(dagSize);
+
+            planEvent.end();
+            if (planEvent.shouldCommit()) {
+                planEvent.dagId = dagId;
+                planEvent.nodes = dagSize;
+                planEvent.fusedChains = chains.size();
+                planEvent.partitioned = partitioning != null;
+                planEvent.prioritized = criticalPaths != null;
+                planEvent.commit();
+            }
+        }
+
+        private DagResponse execute(CompletableFuture<DagResponse> response) throws InterruptedException {
+            List<Integer> roots = new ArrayList<>();
+            for (int i = 0; i < dagSize; i++) {
+                if (concurrentInDegree.get(i) == 0) {
+                    listener.onNodeReady(dag.getNode(i));
+                    roots.add(i);
+                }
+            }
+
+            response.whenComplete((_, _) -> {
+                if (response.isCancelled()) {
+                    logger.info("DAG {} was cancelled", dagId);
+                    stop();
+                }
+            });
+
+            if (dagSize == 0) {
+                finish();
+            } else if (dispatchOnCompletion) {
+                schedule(List.of(roots));
+            } else {
+                enqueue(roots);
+                dispatchFromQueue();
+            }
+
+            done.await(); // Wait for all executions to complete or for one to fail.
+
+            if (options.metrics() != null) {
+                // Nodes left in the queue by a failed or cancelled run
+                List<List<Integer>> undispatched = new ArrayList<>();
+                q.drainTo(undispatched);
+                onDequeued(undispatched);
+            }
 
-                            if (newInDegree == 0) { // If inDegree becomes 0, push it to the queue
-                                q.add(nodeId);
-                            } else if (newInDegree < 0) { // Should never happen if the DAG is correct
-                                throw new IllegalStateException("Negative inDegree detected");
-                            }
+            return new DagResponse(hasFailed.get());
+        }
+
+        private void dispatchFromQueue() throws InterruptedException {
+            List<List<Integer>> readyNodes = new ArrayList<>();
+            while (true) {
+                boolean isDebugEnabled = logger.isDebugEnabled(); // Spares boxing the arguments of every batch
+                if (isDebugEnabled) {
+                    logger.debug("Blocking execution for DAG {}", dagId);
+                }
+                readyNodes.clear();
+                readyNodes.add(q.take());
+                q.drainTo(readyNodes); // Coalesce everything that became ready meanwhile
+                onDequeued(readyNodes);
+                if (isDebugEnabled) {
+                    logger.debug("Taking {} items for DAG {}", readyNodes.size(), dagId);
+                }
+
+                if (readyNodes.contains(POISON_PILL)) {
+                    // Poison pill received, stop executing
+                    break;
+                }
+
+                schedule(readyNodes);
+            }
+        }
+
+        /**
+         * Dispatches the ready nodes to the node executor in batches.
+         */
+        private void schedule(List<List<Integer>> readyNodes) {
+            List<List<Integer>> chainsOfBatch = new ArrayList<>();
+            List<SharedNodeRegistry.Lease> leasesOfBatch = new ArrayList<>();
+            List<IDagNode> batch = new ArrayList<>();
+            for (int node : prioritize(readyNodes)) {
+                // A fused chain is executed as a single unit of execution
+                List<Integer> chain = chains.getOrDefault(node, List.of(node));
+
+                SharedNodeRegistry.Lease lease = acquireLease(dag.getNode(node), leases);
+                if (lease != null && !lease.isOwner()) {
+                    // Another DAG is executing this node, wait for its result instead
+                    lease.result().whenComplete((result, ex) -> onCompleted(chain, ex == null ? result : -1));
+                    continue;
+                }
+
+                chainsOfBatch.add(chain);
+                leasesOfBatch.add(lease);
+                batch.add(chain.size() == 1 ? dag.getNode(node) : new ChainDagNode(node, chain.stream().map(dag::getNode).toList()));
+            }
+
+            for (int from = 0; from < batch.size(); from += options.maxDispatchBatchSize()) {
+                int offset = from;
+                int to = Math.min(from + options.maxDispatchBatchSize(), batch.size());
+                commitDispatchEvents(chainsOfBatch.subList(from, to));
+                if (options.metrics() != null) {
+                    options.metrics().onNodesDispatched(to - from);
+                }
+                dispatch(batch.subList(from, to), partitioning, executionListener, (index, result) -> {
+                    SharedNodeRegistry.Lease lease = leasesOfBatch.get(offset + index);
+                    if (lease != null) {
+                        lease.complete(result);
+                    }
+                    onCompleted(chainsOfBatch.get(offset + index), result);
+                });
+            }
+        }
+
+        private void enqueue(List<Integer> readyNodes) {
+            if (options.metrics() != null) {
+                options.metrics().onNodesEnqueued(readyNodes.size());
+            }
+            q.add(readyNodes);
+        }
+
+        private void onDequeued(List<List<Integer>> readyNodes) {
+            if (options.metrics() == null) {
+                return;
+            }
+            int dequeued = 0;
+            for (List<Integer> released : readyNodes) {
+                if (released != POISON_PILL) {
+                    dequeued += released.size();
+                }
+            }
+            options.metrics().onNodesDequeued(dequeued);
+        }
+
+        private void commitDispatchEvents(List<List<Integer>> chainsOfBatch) {
+            for (List<Integer> chain : chainsOfBatch) {
+                NodeDispatchEvent event = new NodeDispatchEvent();
+                if (!event.shouldCommit()) {
+                    return;
+                }
+                event.dagId = dagId;
+                event.nodeId = chain.getFirst();
+                event.chainLength = chain.size();
+                event.batchSize = chainsOfBatch.size();
+                event.commit();
+            }
+        }
+
+        /**
+         * @return The ready nodes, with the longest critical path first if the durations are known.
+         */
+        private List<Integer> prioritize(List<List<Integer>> readyNodes) {
+            List<Integer> nodes = readyNodes.size() == 1 ? readyNodes.getFirst() : new ArrayList<>();
+            if (readyNodes.size() > 1) {
+                readyNodes.forEach(nodes::addAll);
+            }
+            if (criticalPaths == null || nodes.size() < 2) {
+                return nodes;
+            }
+
+            List<Integer> prioritized = new ArrayList<>(nodes);
+            prioritized.sort((a, b) -> Double.compare(criticalPath(b), criticalPath(a)));
+            return prioritized;
+        }
+
+        private double criticalPath(int node) {
+            return node < criticalPaths.length ? criticalPaths[node] : 0; // Added by an expansion
+        }
+
+        /**
+         * Called with the nodes of a unit of execution once it completes: a fused chain releases the dependents of its
+         * last node. An expanding node grows the DAG before releasing its dependents, so they also wait for the nodes
+         * it added.
+         */
+        private void onCompleted(List<Integer> chain, int result) {
+            try {
+                if (result < 0) {
+                    throw new RuntimeException("Node execution failed");
+                }
+
+                int nodeId = chain.getLast();
+                List<Integer> released = new ArrayList<>();
+                if (dag.getNode(nodeId) instanceof IExpandingDagNode expandingNode) {
+                    Integer attempt = succeededAttempts.remove(nodeId); // null if the node executor reports no attempts
+                    int[] addedIds;
+                    try {
+                        addedIds = expand(nodeId, expandingNode);
+                    } catch (RuntimeException ex) {
+                        if (attempt != null) {
+                            listener.onNodeFailed(expandingNode, attempt, ex);
                         }
-                    })
-                    .exceptionally(
-                            ex -> {
-                                logger.error("Node execution failed", ex);
-                                hasFailed.set(true);
-                                semaphore.release(dagSize); // Release all the permits to unblock the DAG execution.
-                                q.add(-1); // send poison pill to unblock thread waiting on the queue
-                                return null;
-                            }
-                    );
+                        throw ex;
+                    }
+                    if (attempt != null) {
+                        listener.onNodeSucceeded(expandingNode, attempt);
+                    }
+                    for (int id : addedIds) {
+                        release(id, released);
+                    }
+                }
 
-            nodesScheduledForExecution++;
+                // Decrease inDegree of neighbors
+                List<Integer> dependents = adjacencyList.get(nodeId);
+                synchronized (dependents) { // An expansion may be adding dependents
+                    if (isExpandable) {
+                        concurrentInDegree.put(nodeId, COMPLETED);
+                    }
+                    for (int dependentId : dependents) {
+                        release(dependentId, released);
+                    }
+                }
+
+                if (!released.isEmpty() && !stopped) {
+                    if (dispatchOnCompletion) {
+                        schedule(List.of(released));
+                    } else {
+                        enqueue(released);
+                    }
+                }
+                if (remainingNodes.addAndGet(-chain.size()) == 0) {
+                    finish();
+                }
+            } catch (RuntimeException ex) {
+                logger.error("Node execution failed", ex);
+                hasFailed.set(true);
+                stop();
+            }
         }
 
-        semaphore.acquire(dagSize); // Wait for all executions to complete or for one to fail.
+        /**
+         * Adds the nodes of the expansion to the run, each held back by one extra dependency until the caller releases
+         * it.
+         *
+         * @return The ids of the new nodes.
+         * @throws IllegalArgumentException If the expansion is invalid, which fails the node.
+         */
+        private int[] expand(int nodeId, IExpandingDagNode expandingNode) {
+            DagExpansion expansion = new DagExpansion();
+            expandingNode.expand(expansion);
+            if (expansion.isEmpty()) {
+                return new int[0];
+            }
+
+            int[] ids = dag.expand(nodeId, expansion, new ExecutionDag.ExpansionListener() {
+                @Override
+                public void onNodeAdded(int id) {
+                    concurrentInDegree.put(id, 1);
+                }
 
-        return new DagResponse(hasFailed.get());
+                @Override
+                public void onDependencyAdded(int dependent, int dependency) {
+                    if (concurrentInDegree.get(dependency) != COMPLETED) {
+                        concurrentInDegree.merge(dependent, 1, Integer::sum);
+                    }
+                }
+            });
+            logger.debug("Node {} of DAG {} added {} nodes", nodeId, dagId, ids.length);
+
+            remainingNodes.addAndGet(ids.length);
+            return ids;
+        }
+
+        private void release(int nodeId, List<Integer> released) {
+            int newInDegree = concurrentInDegree.merge(nodeId, -1, Integer::sum);
+
+            if (newInDegree == 0) { // If inDegree becomes 0, push it to the queue
+                listener.onNodeReady(dag.getNode(nodeId));
+                released.add(nodeId);
+            } else if (newInDegree < 0) { // Should never happen if the DAG is correct
+                throw new IllegalStateException("Negative inDegree detected");
+            }
+        }
+
+        /**
+         * Holds back the success of the expanding nodes until their expansion is applied, since an invalid expansion
+         * fails them instead.
+         */
+        private final class ExpansionAwareListener implements NodeExecutionListener {
+
+            @Override
+            public long runId() {
+                return listener.runId();
+            }
+
+            @Override
+            public void onNodeReady(IDagNode node) {
+                listener.onNodeReady(node);
+            }
+
+            @Override
+            public void onNodeStarted(IDagNode node, int attempt) {
+                listener.onNodeStarted(node, attempt);
+            }
+
+            @Override
+            public void onNodeRetrying(IDagNode node, int attempt, long delayInMillis, Throwable cause) {
+                listener.onNodeRetrying(node, attempt, delayInMillis, cause);
+            }
+
+            @Override
+            public void onNodeSucceeded(IDagNode node, int attempt) {
+                if (node instanceof IExpandingDagNode) {
+                    succeededAttempts.put(node.id(), attempt);
+                } else {
+                    listener.onNodeSucceeded(node, attempt);
+                }
+            }
+
+            @Override
+            public void onNodeFailed(IDagNode node, int attempt, Throwable cause) {
+                listener.onNodeFailed(node, attempt, cause);
+            }
+        }
+
+        private void finish() {
+            done.countDown();
+            q.add(POISON_PILL); // Unblock the thread waiting on the queue
+        }
+
+        private void stop() {
+            stopped = true;
+            done.countDown(); // Unblock the DAG execution.
+            q.add(POISON_PILL); // send poison pill to unblock thread waiting on the queue
+        }
+    }
+
+    /**
+     * Tells the node executor which run the callbacks belong to, and forwards them to the listener of the run.
+     */
+    private record RunListener(long runId, NodeExecutionListener delegate) implements NodeExecutionListener {
+
+        @Override
+        public void onNodeReady(IDagNode node) {
+            delegate.onNodeReady(node);
+        }
+
+        @Override
+        public void onNodeStarted(IDagNode node, int attempt) {
+            delegate.onNodeStarted(node, attempt);
+        }
+
+        @Override
+        public void onNodeRetrying(IDagNode node, int attempt, long delayInMillis, Throwable cause) {
+            delegate.onNodeRetrying(node, attempt, delayInMillis, cause);
+        }
+
+        @Override
+        public void onNodeSucceeded(IDagNode node, int attempt) {
+            delegate.onNodeSucceeded(node, attempt);
+        }
+
+        @Override
+        public void onNodeFailed(IDagNode node, int attempt, Throwable cause) {
+            delegate.onNodeFailed(node, attempt, cause);
+        }
     }
 }
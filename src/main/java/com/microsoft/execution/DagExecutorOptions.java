@@ -0,0 +1,93 @@
+package com.microsoft.execution;
+
+import com.microsoft.execution.history.DurationHistoryStore;
+import com.microsoft.execution.metrics.DagMetrics;
+import com.microsoft.execution.trace.TraceRecorder;
+import com.microsoft.model.partition.IDagPartitioner;
+
+/**
+ * Tuning options for the {@link DagExecutor}.
+ *
+ * @param chainFusion              Whether maximal linear chains are fused and executed as a single task on one engine.
+ * @param inlineExecutionThreshold DAGs with at most this many nodes are executed in topological order on the request
+ *                                 thread, skipping the ready queue and the hand-off to the engines. Inline DAGs
+ *                                 are therefore not bounded by the number of engines.
+ * @param partitioner              Places the nodes on the shards of a {@link ShardedDagNodeExecutor}, keeping dependent
+ *                                 nodes together. {@code null} places them by id.
+ * @param maxDispatchBatchSize     Maximum number of ready nodes handed to the node executor in a single batch.
+ * @param sharedNodes              Registry through which concurrent DAGs execute the nodes they share, identified by
+ *                                 their key, only once. {@code null} executes every node in every DAG.
+ * @param durationHistory          Records how long the nodes with a key took after every run, and dispatches the ready
+ *                                 nodes with the longest estimated critical path first. {@code null} dispatches them
+ *                                 in the order they became ready.
+ * @param metrics                  Records the DAG and node counters and latencies. {@code null} records nothing.
+ * @param traceRecorder            Records the timeline of the node attempts on the engines, to export it as a Chrome
+ *                                 trace. {@code null} records nothing.
+ * @param pipelinedParsing         Whether the nodes start running while the XML is still being parsed, as soon as
+ *                                 the nodes they depend on were read and completed. Needs an
+ *                                 {@link com.microsoft.parser.IStreamingDagParser}. If the rest of the document turns
+ *                                 out to be invalid, no more nodes are dispatched, and once the nodes already running
+ *                                 complete the request fails as it would have without pipelining; the nodes that ran
+ *                                 are not undone. Chain fusion, inline execution, partitioning, shared nodes, the
+ *                                 duration history, the trace recorder and the node latencies of the metrics need the
+ *                                 whole DAG upfront, and don't apply.
+ */
+public record DagExecutorOptions(
+        boolean chainFusion,
+        int inlineExecutionThreshold,
+        IDagPartitioner partitioner,
+        int maxDispatchBatchSize,
+        SharedNodeRegistry sharedNodes,
+        DurationHistoryStore durationHistory,
+        DagMetrics metrics,
+        TraceRecorder traceRecorder,
+        boolean pipelinedParsing
+) {
+
+    public static final DagExecutorOptions DEFAULT = new DagExecutorOptions(false, 0, null, 256, null, null, null, null, false);
+
+    public DagExecutorOptions {
+        if (inlineExecutionThreshold < 0) {
+            throw new IllegalArgumentException("inlineExecutionThreshold must be greater than or equal to 0");
+        }
+        if (maxDispatchBatchSize <= 0) {
+            throw new IllegalArgumentException("maxDispatchBatchSize must be greater than 0");
+        }
+    }
+
+    public DagExecutorOptions withChainFusion(boolean chainFusion) {
+        return new DagExecutorOptions(chainFusion, inlineExecutionThreshold, partitioner, maxDispatchBatchSize, sharedNodes, durationHistory, metrics, traceRecorder, pipelinedParsing);
+    }
+
+    public DagExecutorOptions withInlineExecutionThreshold(int inlineExecutionThreshold) {
+        return new DagExecutorOptions(chainFusion, inlineExecutionThreshold, partitioner, maxDispatchBatchSize, sharedNodes, durationHistory, metrics, traceRecorder, pipelinedParsing);
+    }
+
+    public DagExecutorOptions withPartitioner(IDagPartitioner partitioner) {
+        return new DagExecutorOptions(chainFusion, inlineExecutionThreshold, partitioner, maxDispatchBatchSize, sharedNodes, durationHistory, metrics, traceRecorder, pipelinedParsing);
+    }
+
+    public DagExecutorOptions withMaxDispatchBatchSize(int maxDispatchBatchSize) {
+        return new DagExecutorOptions(chainFusion, inlineExecutionThreshold, partitioner, maxDispatchBatchSize, sharedNodes, durationHistory, metrics, traceRecorder, pipelinedParsing);
+    }
+
+    public DagExecutorOptions withSharedNodes(SharedNodeRegistry sharedNodes) {
+        return new DagExecutorOptions(chainFusion, inlineExecutionThreshold, partitioner, maxDispatchBatchSize, sharedNodes, durationHistory, metrics, traceRecorder, pipelinedParsing);
+    }
+
+    public DagExecutorOptions withDurationHistory(DurationHistoryStore durationHistory) {
+        return new DagExecutorOptions(chainFusion, inlineExecutionThreshold, partitioner, maxDispatchBatchSize, sharedNodes, durationHistory, metrics, traceRecorder, pipelinedParsing);
+    }
+
+    public DagExecutorOptions withMetrics(DagMetrics metrics) {
+        return new DagExecutorOptions(chainFusion, inlineExecutionThreshold, partitioner, maxDispatchBatchSize, sharedNodes, durationHistory, metrics, traceRecorder, pipelinedParsing);
+    }
+
+    public DagExecutorOptions withTraceRecorder(TraceRecorder traceRecorder) {
+        return new DagExecutorOptions(chainFusion, inlineExecutionThreshold, partitioner, maxDispatchBatchSize, sharedNodes, durationHistory, metrics, traceRecorder, pipelinedParsing);
+    }
+
+    public DagExecutorOptions withPipelinedParsing(boolean pipelinedParsing) {
+        return new DagExecutorOptions(chainFusion, inlineExecutionThreshold, partitioner, maxDispatchBatchSize, sharedNodes, durationHistory, metrics, traceRecorder, pipelinedParsing);
+    }
+}
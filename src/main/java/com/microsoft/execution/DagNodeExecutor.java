@@ -1,60 +1,528 @@
 package com.microsoft.execution;
 
+import com.microsoft.execution.fault.Fault;
+import com.microsoft.execution.fault.FaultModel;
+import com.microsoft.execution.fault.IFaultInjector;
+import com.microsoft.execution.log.EventLog;
 import com.microsoft.execution.retry.*;
+import com.microsoft.model.ChainDagNode;
+import com.microsoft.model.IAsyncDagNode;
 import com.microsoft.model.IDagNode;
+import com.microsoft.model.Resources;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 
 public class DagNodeExecutor implements IDagNodeExecutor {
 
     private static final Logger logger = LoggerFactory.getLogger(DagNodeExecutor.class);
 
-    private final ScheduledExecutorService executorService;
-    private final float failureRate;
+    private final EnginePool engines;
+    private final int numberOfEngines;
+    private final EngineMode engineMode;
+    private final IFaultInjector faultInjector;
+    private final VirtualClock virtualClock;
+    private final EnginePool.VirtualClockEnginePool virtualEngines;
+    private final long startTimeInNanos = System.nanoTime();
     private final RetryStrategy retryStrategy;
+    private final AsyncNodeLimiter asyncNodeLimiter;
+    private final ResourceScheduler resourceScheduler;
+    private final EventLog eventLog;
 
     public DagNodeExecutor(int numberOfEngines, float failureRate, RetryStrategy retryStrategy) {
+        this(numberOfEngines, failureRate, retryStrategy, DagNodeExecutorOptions.DEFAULT);
+    }
+
+    public DagNodeExecutor(int numberOfEngines, float failureRate, RetryStrategy retryStrategy, DagNodeExecutorOptions options) {
         if (failureRate < 0 || failureRate > 1) {
             throw new IllegalArgumentException("Failure rate must be between 0 and 1");
         }
-        this.executorService = Executors.newScheduledThreadPool(numberOfEngines);
-        this.failureRate = failureRate;
+        if (numberOfEngines <= 0) {
+            throw new IllegalArgumentException("Number of engines must be greater than 0");
+        }
+        this.virtualEngines = options.virtualClock() != null ? EnginePool.create(options.virtualClock(), numberOfEngines) : null;
+        EnginePool engines = virtualEngines != null ? virtualEngines : EnginePool.create(options.engineMode(), numberOfEngines);
+        if (options.metrics() != null) {
+            options.metrics().onEnginesAdded(numberOfEngines);
+            engines = new EnginePool.MeteredEnginePool(engines, options.metrics(), retryStrategy.getClass().getSimpleName());
+        }
+        this.engines = engines;
+        this.numberOfEngines = numberOfEngines;
+        this.engineMode = options.engineMode();
+        this.faultInjector = options.faultInjector() != null ? options.faultInjector()
+                : failureRate > 0 ? independentFailures(failureRate)
+                : IFaultInjector.NONE;
+        this.virtualClock = options.virtualClock();
         this.retryStrategy = retryStrategy;
+        this.asyncNodeLimiter = new AsyncNodeLimiter(options.maxOutstandingAsyncNodes());
+        this.resourceScheduler = options.resourceCapacity() != null ? new ResourceScheduler(options.resourceCapacity()) : null;
+        this.eventLog = options.eventLog();
+    }
+
+    /**
+     * Fails every attempt with an independent draw, so that the failures differ from one DAG to the next. Seed a
+     * {@link FaultModel} to reproduce them instead.
+     */
+    private static IFaultInjector independentFailures(float failureRate) {
+        Fault failure = new Fault(0, true);
+        return (_, _, _, _) -> ThreadLocalRandom.current().nextFloat() < failureRate ? failure : Fault.NONE;
+    }
+
+    /**
+     * @return How the nodes are using the resource capacity, if one was configured.
+     */
+    public Optional<ResourceUtilization> getResourceUtilization() {
+        return Optional.ofNullable(resourceScheduler).map(ResourceScheduler::getUtilization);
+    }
+
+    @Override
+    public boolean hasEngineAffinity() {
+        return engineMode == EngineMode.AFFINITY;
     }
 
     @Override
     public CompletableFuture<Integer> executeAsync(IDagNode unitOfExecution) {
-        return executeWithRetry(unitOfExecution, 0);
+        return executeAsync(unitOfExecution, NodeExecutionListener.NONE);
     }
 
-    private CompletableFuture<Integer> executeWithRetry(IDagNode unitOfExecution, int attempt) {
-        return CompletableFuture.supplyAsync(() -> {
-                    if (Math.random() < failureRate) {
-                        throw new RuntimeException("Simulated failure for node: " + unitOfExecution.id());
+    @Override
+    public CompletableFuture<Integer> executeAsync(IDagNode unitOfExecution, NodeExecutionListener listener) {
+        if (unitOfExecution instanceof ChainDagNode chain) {
+            CompletableFuture<Integer> result = new CompletableFuture<>();
+            if (resourceScheduler == null) {
+                engines.execute(() -> executeChain(chain, 0, 0, listener, result));
+            } else {
+                // The chain holds the resources of its most demanding node until the whole chain is done
+                Resources demand = chain.resources();
+                result.whenComplete((_, _) -> resourceScheduler.release(demand));
+                resourceScheduler.submit(demand, () -> engines.execute(() -> executeChain(chain, 0, 0, listener, result)));
+            }
+            return result;
+        }
+
+        return executeWithRetry(unitOfExecution, 0, listener);
+    }
+
+    /**
+     * Hands the synchronous nodes of the batch to the engines at once: a few drainer tasks, no more than there are
+     * engines, share a cursor over the batch and execute the nodes one after the other. Failed nodes leave the batch
+     * and are retried on their own. Chains and asynchronous nodes are submitted individually, and so is every node when
+     * a resource capacity or a virtual clock is configured.
+     */
+    @Override
+    public void executeBatchAsync(List<? extends IDagNode> batch, NodeExecutionListener listener, BatchCompletionHandler handler) {
+        if (resourceScheduler != null || virtualClock != null) {
+            // Every node needs to be admitted on its own, or to complete after its own virtual latency
+            IDagNodeExecutor.super.executeBatchAsync(batch, listener, handler);
+            return;
+        }
+
+        List<Integer> drainable = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            IDagNode unitOfExecution = batch.get(i);
+            if (unitOfExecution instanceof ChainDagNode || unitOfExecution instanceof IAsyncDagNode) {
+                int index = i;
+                executeAsync(unitOfExecution, listener).whenComplete((result, ex) -> handler.onNodeCompleted(index, ex == null ? result : -1));
+            } else {
+                drainable.add(i);
+            }
+        }
+
+        AtomicInteger cursor = new AtomicInteger();
+        int drainers = Math.min(drainable.size(), numberOfEngines);
+        for (int i = 0; i < drainers; i++) {
+            engines.execute(() -> {
+                for (int next = cursor.getAndIncrement(); next < drainable.size(); next = cursor.getAndIncrement()) {
+                    int index = drainable.get(next);
+                    CompletableFuture<Integer> attempt;
+                    try {
+                        attempt = executeFirstAttempt(batch.get(index), listener);
+                    } catch (Throwable ex) {
+                        // A failing listener must not stop the drainer, or the rest of the batch is never reported
+                        logger.error("Failed to run node {}", batch.get(index).id(), ex);
+                        attempt = CompletableFuture.completedFuture(-1);
                     }
+                    attempt.whenComplete((result, ex) -> handler.onNodeCompleted(index, ex == null ? result : -1));
+                }
+            });
+        }
+    }
 
-                    unitOfExecution.execute();
-                    return 0; // success
-                }, executorService)
-                .exceptionallyCompose(ex -> {
-                    //noinspection StringConcatenationArgumentToLogCall
-                    logger.error("Error executing node: " + unitOfExecution.id(), ex);
+    /**
+     * Runs the first attempt of a synchronous node on the current engine thread. Retries are scheduled as usual.
+     */
+    private CompletableFuture<Integer> executeFirstAttempt(IDagNode unitOfExecution, NodeExecutionListener listener) {
+        try {
+            listener.onNodeStarted(unitOfExecution, 0);
+            executeOnce(unitOfExecution, 0, listener);
+        } catch (Throwable ex) {
+            if (!retryStrategy.shouldRetry(0)) {
+                logFailure(unitOfExecution, 0, ex);
+                listener.onNodeFailed(unitOfExecution, 0, ex);
+                return CompletableFuture.completedFuture(-1);
+            }
 
-                    if (retryStrategy.shouldRetry(attempt)) {
-                        logger.info("Retrying node: {}. Attempt number: {}", unitOfExecution.id(), attempt);
+            long delayInMillis = getRetryDelayInMillis(0);
+            logRetry(unitOfExecution, 0, delayInMillis, ex);
+            listener.onNodeRetrying(unitOfExecution, 0, delayInMillis, ex);
+            return scheduleRetry(unitOfExecution, 1, delayInMillis, listener);
+        }
+
+        listener.onNodeSucceeded(unitOfExecution, 0);
+        return CompletableFuture.completedFuture(0); // success
+    }
+
+    @Override
+    public int execute(IDagNode unitOfExecution) {
+        return execute(unitOfExecution, NodeExecutionListener.NONE);
+    }
+
+    @Override
+    public int execute(IDagNode unitOfExecution, NodeExecutionListener listener) {
+        if (unitOfExecution instanceof ChainDagNode chain) {
+            for (IDagNode node : chain.nodes()) {
+                if (node != chain.nodes().getFirst()) {
+                    listener.onNodeReady(node);
+                }
+                if (executeInlineWithRetry(node, listener) < 0) {
+                    return -1;
+                }
+            }
+            return 0;
+        }
+
+        return executeInlineWithRetry(unitOfExecution, listener);
+    }
+
+    private int executeInlineWithRetry(IDagNode unitOfExecution, NodeExecutionListener listener) {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                listener.onNodeStarted(unitOfExecution, attempt);
+                executeInlineOnce(unitOfExecution, attempt, listener);
+                listener.onNodeSucceeded(unitOfExecution, attempt);
+                return 0; // success
+            } catch (Throwable ex) {
+                if (!retryStrategy.shouldRetry(attempt)) {
+                    logFailure(unitOfExecution, attempt, ex);
+                    listener.onNodeFailed(unitOfExecution, attempt, ex);
+                    return -1;
+                }
+
+                long delayInMillis = getRetryDelayInMillis(attempt);
+                logRetry(unitOfExecution, attempt, delayInMillis, ex);
+                listener.onNodeRetrying(unitOfExecution, attempt, delayInMillis, ex);
+                try {
+                    Thread.sleep(delayInMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    listener.onNodeFailed(unitOfExecution, attempt, e);
+                    return -1;
+                }
+            }
+        }
+    }
+
+    private void executeOnce(IDagNode unitOfExecution, int attempt, NodeExecutionListener listener) {
+        injectFault(unitOfExecution, attempt, listener, null);
+        unitOfExecution.execute();
+    }
 
-                        long delayInMillis = switch (retryStrategy) {
-                            case TimedRetryStrategy timed -> timed.delayInMillis();
-                            case InfiteRetryStrategy infinite -> infinite.delayInMillis();
-                            case ExponentialBackoffRetryStrategy exponential -> exponential.getDelayInMillis(attempt);
-                            case NoRetryStrategy _ -> throw new IllegalStateException("Can't retry with NoRetryStrategy");
-                        };
+    /**
+     * Executes the node on the calling thread, holding one of the outstanding asynchronous nodes if it is one. The
+     * calling thread is not one of the engines, so inline nodes are not bounded by their number.
+     */
+    private void executeInlineOnce(IDagNode unitOfExecution, int attempt, NodeExecutionListener listener) {
+        if (!(unitOfExecution instanceof IAsyncDagNode)) {
+            executeOnceWithResources(unitOfExecution, attempt, listener);
+            return;
+        }
+
+        CompletableFuture<Void> admitted = new CompletableFuture<>();
+        asyncNodeLimiter.submit(() -> admitted.complete(null));
+        admitted.join();
+        try {
+            executeOnceWithResources(unitOfExecution, attempt, listener);
+        } finally {
+            asyncNodeLimiter.release();
+        }
+    }
+
+    /**
+     * Executes the node on the calling thread once its resources are free.
+     */
+    private void executeOnceWithResources(IDagNode unitOfExecution, int attempt, NodeExecutionListener listener) {
+        if (resourceScheduler == null) {
+            executeOnce(unitOfExecution, attempt, listener);
+            return;
+        }
+
+        Resources demand = unitOfExecution.resources();
+        CompletableFuture<Void> admitted = new CompletableFuture<>();
+        resourceScheduler.submit(demand, () -> admitted.complete(null));
+        admitted.join();
+        try {
+            executeOnce(unitOfExecution, attempt, listener);
+        } finally {
+            resourceScheduler.release(demand);
+        }
+    }
+
+    /**
+     * Runs the task on an engine once the resources of the node are free, and frees them as soon as the task is done.
+     */
+    private CompletableFuture<Void> runOnEngine(IDagNode unitOfExecution, Runnable task) {
+        if (resourceScheduler == null) {
+            return CompletableFuture.runAsync(task, engines);
+        }
 
-                        return scheduleRetry(unitOfExecution, attempt + 1, delayInMillis);
+        Resources demand = unitOfExecution.resources();
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        resourceScheduler.submit(demand, () -> engines.execute(() -> {
+            Throwable failure = null;
+            try {
+                task.run();
+            } catch (Throwable ex) {
+                failure = ex;
+            }
+
+            resourceScheduler.release(demand); // Released first, so a retry can be admitted again
+            if (failure != null) {
+                result.completeExceptionally(failure);
+            } else {
+                result.complete(null);
+            }
+        }));
+        return result;
+    }
+
+    /**
+     * Holds the engine for the injected latency, then fails the attempt if a failure is injected. Time doesn't pass
+     * while a task runs on a virtual clock, so there the engine is held past the task instead, and the latency is
+     * handed to {@code virtualLatency} for the caller to delay the completion of the attempt by. Inline attempts on a
+     * virtual clock have no such caller, and get no latency.
+     */
+    private void injectFault(IDagNode unitOfExecution, int attempt, NodeExecutionListener listener, AtomicLong virtualLatency) {
+        if (faultInjector == IFaultInjector.NONE) {
+            return;
+        }
+
+        long elapsedInMillis = virtualClock != null
+                ? virtualClock.millis()
+                : TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTimeInNanos);
+        Fault fault = faultInjector.sample(unitOfExecution, attempt, listener.runId(), elapsedInMillis);
+        if (virtualClock != null) {
+            if (virtualLatency != null) {
+                virtualLatency.set(fault.latencyInMillis());
+                virtualEngines.holdEngine(fault.latencyInMillis());
+            }
+        } else if (fault.latencyInMillis() > 0) {
+            try {
+                Thread.sleep(fault.latencyInMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while delaying node: " + unitOfExecution.id(), e);
+            }
+        }
+        if (fault.fails()) {
+            throw new RuntimeException("Simulated failure for node: " + unitOfExecution.id());
+        }
+    }
+
+    private long getRetryDelayInMillis(int attempt) {
+        return RetryDelays.getDelayInMillis(retryStrategy, attempt);
+    }
+
+    private void logRetry(IDagNode node, int attempt, long delayInMillis, Throwable ex) {
+        if (eventLog != null) {
+            eventLog.nodeRetrying(node.id(), attempt, delayInMillis, ex);
+            return;
+        }
+        logger.error("Error executing node: {}", node.id(), ex);
+        logger.info("Retrying node: {}. Attempt number: {}", node.id(), attempt);
+    }
+
+    private void logFailure(IDagNode node, int attempt, Throwable ex) {
+        if (eventLog != null) {
+            eventLog.nodeFailed(node.id(), attempt, ex);
+            return;
+        }
+        logger.error("Error executing node: {}", node.id(), ex);
+        logger.error("Retries exhausted for node: {}", node.id());
+    }
+
+    /**
+     * Runs a single attempt of the node on an engine. Asynchronous nodes only hold the engine while starting, and are
+     * bounded by the limit of outstanding asynchronous nodes instead.
+     */
+    private CompletableFuture<Void> executeAttempt(IDagNode unitOfExecution, int attempt, NodeExecutionListener listener) {
+        if (virtualClock == null) {
+            return startAttempt(unitOfExecution, attempt, listener, null);
+        }
+
+        AtomicLong virtualLatency = new AtomicLong();
+        CompletableFuture<Void> delayed = new CompletableFuture<>();
+        startAttempt(unitOfExecution, attempt, listener, virtualLatency).whenComplete((_, ex) -> {
+            Runnable complete = () -> {
+                if (ex != null) {
+                    delayed.completeExceptionally(ex);
+                } else {
+                    delayed.complete(null);
+                }
+            };
+            if (virtualLatency.get() > 0) {
+                virtualClock.schedule(virtualLatency.get(), TimeUnit.MILLISECONDS, complete);
+            } else {
+                complete.run();
+            }
+        });
+        return delayed;
+    }
+
+    private CompletableFuture<Void> startAttempt(
+            IDagNode unitOfExecution,
+            int attempt,
+            NodeExecutionListener listener,
+            AtomicLong virtualLatency
+    ) {
+        if (!(unitOfExecution instanceof IAsyncDagNode asyncNode)) {
+            return runOnEngine(unitOfExecution, () -> {
+                listener.onNodeStarted(unitOfExecution, attempt);
+                injectFault(unitOfExecution, attempt, listener, virtualLatency);
+                unitOfExecution.execute();
+            });
+        }
+
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        asyncNodeLimiter.submit(() -> engines.execute(() -> {
+            // Whichever path completes the attempt first hands the permit back
+            AtomicBoolean released = new AtomicBoolean();
+            BiConsumer<Object, Throwable> complete = (_, ex) -> {
+                if (released.compareAndSet(false, true)) {
+                    asyncNodeLimiter.release();
+                }
+                if (ex != null) {
+                    result.completeExceptionally(ex);
+                } else {
+                    result.complete(null);
+                }
+            };
+
+            try {
+                listener.onNodeStarted(asyncNode, attempt);
+                injectFault(asyncNode, attempt, listener, virtualLatency);
+                CompletionStage<Void> stage = asyncNode.executeAsync();
+                if (stage == null) {
+                    throw new IllegalStateException("Node " + asyncNode.id() + " returned no completion stage");
+                }
+                stage.whenComplete(complete);
+            } catch (Throwable ex) {
+                complete.accept(null, ex);
+            }
+        }));
+
+        return result;
+    }
+
+    /**
+     * Records a failed attempt of the node at {@code index} of the chain, and either schedules its retry or fails the
+     * whole chain.
+     */
+    private void handleChainFailure(
+            ChainDagNode chain,
+            int index,
+            int attempt,
+            Throwable ex,
+            NodeExecutionListener listener,
+            CompletableFuture<Integer> result
+    ) {
+        IDagNode node = chain.nodes().get(index);
+        if (retryStrategy.shouldRetry(attempt)) {
+            long delayInMillis = getRetryDelayInMillis(attempt);
+            logRetry(node, attempt, delayInMillis, ex);
+            listener.onNodeRetrying(node, attempt, delayInMillis, ex);
+            engines.schedule(() -> executeChain(chain, index, attempt + 1, listener, result), delayInMillis);
+        } else {
+            logFailure(node, attempt, ex);
+            listener.onNodeFailed(node, attempt, ex);
+            result.complete(-1);
+        }
+    }
+
+    /**
+     * Executes the nodes of the chain in order on the current engine thread, starting from {@code index}.
+     * Every node keeps its own retry budget: a failing node is retried on its own, without re-executing the nodes
+     * that precede it in the chain.
+     */
+    private void executeChain(
+            ChainDagNode chain,
+            int index,
+            int attempt,
+            NodeExecutionListener listener,
+            CompletableFuture<Integer> result
+    ) {
+        List<IDagNode> nodes = chain.nodes();
+        int currentAttempt = attempt;
+
+        for (int i = index; i < nodes.size(); i++) {
+            IDagNode node = nodes.get(i);
+            if (i > 0 && currentAttempt == 0) {
+                listener.onNodeReady(node); // The first node was reported as ready when the chain was dispatched
+            }
+
+            if (node instanceof IAsyncDagNode || virtualClock != null) {
+                // Release the engine while the node is in flight, and resume the chain once it completes. On a virtual
+                // clock, the chain resumes once the injected latency has passed.
+                int asyncIndex = i;
+                int asyncAttempt = currentAttempt;
+                executeAttempt(node, asyncAttempt, listener).whenComplete((_, ex) -> {
+                    if (ex != null) {
+                        handleChainFailure(chain, asyncIndex, asyncAttempt, ex, listener, result);
+                    } else {
+                        listener.onNodeSucceeded(node, asyncAttempt);
+                        engines.execute(() -> executeChain(chain, asyncIndex + 1, 0, listener, result));
+                    }
+                });
+                return;
+            }
+
+            try {
+                listener.onNodeStarted(node, currentAttempt);
+                executeOnce(node, currentAttempt, listener);
+            } catch (Throwable ex) {
+                handleChainFailure(chain, i, currentAttempt, ex, listener, result);
+                return;
+            }
+
+            listener.onNodeSucceeded(node, currentAttempt);
+            currentAttempt = 0; // The next node in the chain starts with a fresh retry budget
+        }
+
+        result.complete(0); // success
+    }
+
+    private CompletableFuture<Integer> executeWithRetry(IDagNode unitOfExecution, int attempt, NodeExecutionListener listener) {
+        return executeAttempt(unitOfExecution, attempt, listener)
+                .thenApply(_ -> {
+                    listener.onNodeSucceeded(unitOfExecution, attempt);
+                    return 0; // success
+                })
+                .exceptionallyCompose(ex -> {
+                    if (retryStrategy.shouldRetry(attempt)) {
+                        long delayInMillis = getRetryDelayInMillis(attempt);
+                        logRetry(unitOfExecution, attempt, delayInMillis, ex);
+                        listener.onNodeRetrying(unitOfExecution, attempt, delayInMillis, ex);
+                        return scheduleRetry(unitOfExecution, attempt + 1, delayInMillis, listener);
                     } else {
-                        logger.error("Retries exhausted for node: {}", unitOfExecution.id());
+                        logFailure(unitOfExecution, attempt, ex);
+                        listener.onNodeFailed(unitOfExecution, attempt, ex);
                         return CompletableFuture.completedFuture(-1);
                     }
                 });
@@ -63,11 +531,12 @@ public class DagNodeExecutor implements IDagNodeExecutor {
     private CompletableFuture<Integer> scheduleRetry(
             IDagNode unitOfExecution,
             int retriesRemaining,
-            long delayInMillis
+            long delayInMillis,
+            NodeExecutionListener listener
     ) {
-        // This conversion of Runnable to CompletableFuture is required because the executor returns a ScheduledFuture instead of CompletableFuture.
+        // This conversion of Runnable to CompletableFuture is required because scheduling doesn't return a CompletableFuture.
         CompletableFuture<Integer> retryFuture = new CompletableFuture<>();
-        Runnable retry = () -> executeWithRetry(unitOfExecution, retriesRemaining).whenComplete((result, ex) -> {
+        Runnable retry = () -> executeWithRetry(unitOfExecution, retriesRemaining, listener).whenComplete((result, ex) -> {
             if (ex != null) {
                 retryFuture.completeExceptionally(ex);
             } else {
@@ -75,7 +544,7 @@ public class DagNodeExecutor implements IDagNodeExecutor {
             }
         });
 
-        executorService.schedule(retry, delayInMillis, TimeUnit.MILLISECONDS);
+        engines.schedule(retry, delayInMillis);
 
         return retryFuture;
     }
@@ -0,0 +1,83 @@
+package com.microsoft.execution;
+
+import com.microsoft.execution.fault.IFaultInjector;
+import com.microsoft.execution.log.EventLog;
+import com.microsoft.execution.metrics.DagMetrics;
+import com.microsoft.model.Resources;
+
+/**
+ * Tuning options for the {@link DagNodeExecutor}.
+ *
+ * @param maxOutstandingAsyncNodes Maximum number of {@link com.microsoft.model.IAsyncDagNode asynchronous nodes} that
+ *                                 can be in flight at the same time. They don't hold an engine while in flight, so
+ *                                 this limit is independent of the number of engines.
+ * @param engineMode               How the engines run the nodes.
+ * @param resourceCapacity         CPU and memory available to run nodes. A node only starts once its
+ *                                 {@link com.microsoft.model.IDagNode#resources() demand} is free, on top of needing an
+ *                                 engine. Asynchronous nodes are not accounted for. {@code null} only limits the nodes
+ *                                 by the number of engines.
+ * @param virtualClock             Runs the engines on this clock instead of the {@code engineMode} threads: nothing
+ *                                 runs until the clock is advanced, and retry delays and injected latency take no
+ *                                 real time. The injected latency still holds an engine on the clock. Meant for tests
+ *                                 and simulations. {@code null} runs the engines in real time.
+ * @param metrics                  Records the saturation of the engines and the retries. {@code null} records nothing.
+ * @param eventLog                 Logs the failed attempts through a ring buffer drained in the background, sampled and
+ *                                 rate-limited. {@code null} logs every failed attempt directly.
+ * @param faultInjector            Fails and slows down the attempts of the nodes, e.g. a seeded
+ *                                 {@link com.microsoft.execution.fault.FaultModel}. It replaces the failure rate of the
+ *                                 node executor. {@code null} only injects the failure rate.
+ */
+public record DagNodeExecutorOptions(
+        int maxOutstandingAsyncNodes,
+        EngineMode engineMode,
+        Resources resourceCapacity,
+        VirtualClock virtualClock,
+        DagMetrics metrics,
+        EventLog eventLog,
+        IFaultInjector faultInjector
+) {
+
+    public static final DagNodeExecutorOptions DEFAULT = new DagNodeExecutorOptions(1024, EngineMode.PLATFORM_THREADS, null, null, null, null, null);
+
+    public DagNodeExecutorOptions {
+        if (maxOutstandingAsyncNodes <= 0) {
+            throw new IllegalArgumentException("maxOutstandingAsyncNodes must be greater than 0");
+        }
+
+        if (engineMode == null) {
+            throw new IllegalArgumentException("engineMode must not be null");
+        }
+
+        if (resourceCapacity != null && (resourceCapacity.cpu() <= 0 || resourceCapacity.memoryInMb() <= 0)) {
+            throw new IllegalArgumentException("resourceCapacity must have some CPU and memory");
+        }
+    }
+
+    public DagNodeExecutorOptions withMaxOutstandingAsyncNodes(int maxOutstandingAsyncNodes) {
+        return new DagNodeExecutorOptions(maxOutstandingAsyncNodes, engineMode, resourceCapacity, virtualClock, metrics, eventLog, faultInjector);
+    }
+
+    public DagNodeExecutorOptions withEngineMode(EngineMode engineMode) {
+        return new DagNodeExecutorOptions(maxOutstandingAsyncNodes, engineMode, resourceCapacity, virtualClock, metrics, eventLog, faultInjector);
+    }
+
+    public DagNodeExecutorOptions withResourceCapacity(Resources resourceCapacity) {
+        return new DagNodeExecutorOptions(maxOutstandingAsyncNodes, engineMode, resourceCapacity, virtualClock, metrics, eventLog, faultInjector);
+    }
+
+    public DagNodeExecutorOptions withVirtualClock(VirtualClock virtualClock) {
+        return new DagNodeExecutorOptions(maxOutstandingAsyncNodes, engineMode, resourceCapacity, virtualClock, metrics, eventLog, faultInjector);
+    }
+
+    public DagNodeExecutorOptions withMetrics(DagMetrics metrics) {
+        return new DagNodeExecutorOptions(maxOutstandingAsyncNodes, engineMode, resourceCapacity, virtualClock, metrics, eventLog, faultInjector);
+    }
+
+    public DagNodeExecutorOptions withEventLog(EventLog eventLog) {
+        return new DagNodeExecutorOptions(maxOutstandingAsyncNodes, engineMode, resourceCapacity, virtualClock, metrics, eventLog, faultInjector);
+    }
+
+    public DagNodeExecutorOptions withFaultInjector(IFaultInjector faultInjector) {
+        return new DagNodeExecutorOptions(maxOutstandingAsyncNodes, engineMode, resourceCapacity, virtualClock, metrics, eventLog, faultInjector);
+    }
+}
@@ -2,7 +2,14 @@ package com.microsoft.execution;
 
 /**
  * Class that encapsulates fields related to a DAG request.
+ *
+ * @param dagXml         The DAG to be executed.
+ * @param idempotencyKey Optional key identifying the request. With a {@link SingleFlightDagExecutor}, only requests
+ *                       with the same DAG and the same key share an execution. May be {@code null}.
  */
-public record DagRequest(String dagXml) {
-}
+public record DagRequest(String dagXml, String idempotencyKey) {
 
+    public DagRequest(String dagXml) {
+        this(dagXml, null);
+    }
+}
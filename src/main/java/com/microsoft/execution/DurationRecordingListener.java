@@ -0,0 +1,62 @@
+package com.microsoft.execution;
+
+import com.microsoft.model.IDagNode;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Measures how long the successful attempt of every node of a DAG run took, and forwards the callbacks to the listener
+ * of the run. Only the nodes with a {@link IDagNode#key() key} are measured, as the others can't be told apart across
+ * DAGs.
+ */
+class DurationRecordingListener implements NodeExecutionListener {
+
+    private final NodeExecutionListener delegate;
+    private final ConcurrentHashMap<Integer, Long> startTimesInNanos = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Double> durationsInMillis = new ConcurrentHashMap<>();
+
+    DurationRecordingListener(NodeExecutionListener delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * @return The durations of the nodes that succeeded, by key.
+     */
+    Map<String, Double> getDurationsInMillis() {
+        return durationsInMillis;
+    }
+
+    @Override
+    public void onNodeReady(IDagNode node) {
+        delegate.onNodeReady(node);
+    }
+
+    @Override
+    public void onNodeStarted(IDagNode node, int attempt) {
+        if (node.key() != null) {
+            startTimesInNanos.put(node.id(), System.nanoTime());
+        }
+        delegate.onNodeStarted(node, attempt);
+    }
+
+    @Override
+    public void onNodeRetrying(IDagNode node, int attempt, long delayInMillis, Throwable cause) {
+        delegate.onNodeRetrying(node, attempt, delayInMillis, cause);
+    }
+
+    @Override
+    public void onNodeSucceeded(IDagNode node, int attempt) {
+        Long startTimeInNanos = startTimesInNanos.remove(node.id());
+        if (startTimeInNanos != null) {
+            durationsInMillis.put(node.key(), (System.nanoTime() - startTimeInNanos) / 1e6);
+        }
+        delegate.onNodeSucceeded(node, attempt);
+    }
+
+    @Override
+    public void onNodeFailed(IDagNode node, int attempt, Throwable cause) {
+        startTimesInNanos.remove(node.id());
+        delegate.onNodeFailed(node, attempt, cause);
+    }
+}
@@ -0,0 +1,24 @@
+package com.microsoft.execution;
+
+/**
+ * How the {@link DagNodeExecutor} runs the nodes on its engines.
+ */
+public enum EngineMode {
+    /**
+     * Every engine is a platform thread of a fixed-size pool.
+     */
+    PLATFORM_THREADS,
+
+    /**
+     * Every node attempt runs on its own virtual thread, and a fair semaphore limits the attempts running at the same
+     * time to the number of engines. Retry delays don't hold any thread.
+     */
+    VIRTUAL_THREADS,
+
+    /**
+     * Every engine is a platform thread with its own local run queue. A node dispatched from an engine, e.g. because
+     * the node it depends on just completed there, is queued on that same engine and runs next, while its data is still
+     * warm in the cache of that core. Idle engines steal work from the others to stay balanced.
+     */
+    AFFINITY
+}
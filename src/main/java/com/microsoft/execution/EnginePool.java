@@ -0,0 +1,222 @@
+package com.microsoft.execution;
+
+import com.microsoft.execution.metrics.DagMetrics;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.*;
+
+/**
+ * The engines on which the {@link DagNodeExecutor} runs node attempts.
+ */
+interface EnginePool extends Executor {
+
+    /**
+     * Runs the task on an engine once the delay has elapsed.
+     */
+    void schedule(Runnable task, long delayInMillis);
+
+    /**
+     * Engines that run every task on the thread advancing the clock, at the virtual time it is due.
+     */
+    static VirtualClockEnginePool create(VirtualClock virtualClock, int numberOfEngines) {
+        if (numberOfEngines <= 0) {
+            throw new IllegalArgumentException("Number of engines must be greater than 0");
+        }
+
+        return new VirtualClockEnginePool(virtualClock, numberOfEngines);
+    }
+
+    static EnginePool create(EngineMode engineMode, int numberOfEngines) {
+        if (numberOfEngines <= 0) {
+            throw new IllegalArgumentException("Number of engines must be greater than 0");
+        }
+
+        return switch (engineMode) {
+            case PLATFORM_THREADS -> new PlatformThreadEnginePool(numberOfEngines);
+            case VIRTUAL_THREADS -> new VirtualThreadEnginePool(numberOfEngines);
+            case AFFINITY -> new AffinityEnginePool(numberOfEngines);
+        };
+    }
+
+    final class PlatformThreadEnginePool implements EnginePool {
+
+        private final ScheduledExecutorService executorService;
+
+        PlatformThreadEnginePool(int numberOfEngines) {
+            this.executorService = Executors.newScheduledThreadPool(numberOfEngines);
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            executorService.execute(task);
+        }
+
+        @Override
+        public void schedule(Runnable task, long delayInMillis) {
+            executorService.schedule(task, delayInMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    final class VirtualThreadEnginePool implements EnginePool {
+
+        private final ExecutorService executorService = Executors.newVirtualThreadPerTaskExecutor();
+        private final Semaphore engines;
+
+        VirtualThreadEnginePool(int numberOfEngines) {
+            this.engines = new Semaphore(numberOfEngines, true);
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            executorService.execute(() -> {
+                engines.acquireUninterruptibly();
+                try {
+                    task.run();
+                } finally {
+                    engines.release();
+                }
+            });
+        }
+
+        @Override
+        public void schedule(Runnable task, long delayInMillis) {
+            // The delay is tracked by the shared timer of CompletableFuture, so no virtual thread is parked meanwhile
+            CompletableFuture.delayedExecutor(delayInMillis, TimeUnit.MILLISECONDS, this).execute(task);
+        }
+    }
+
+    final class AffinityEnginePool implements EnginePool {
+
+        // The work-stealing pool pushes tasks submitted by its own workers to their local queue, and runs the most
+        // recent one first. Idle workers steal the oldest tasks from the others.
+        private final ForkJoinPool pool;
+
+        AffinityEnginePool(int numberOfEngines) {
+            this.pool = new ForkJoinPool(numberOfEngines, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, false);
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            pool.execute(task);
+        }
+
+        @Override
+        public void schedule(Runnable task, long delayInMillis) {
+            CompletableFuture.delayedExecutor(delayInMillis, TimeUnit.MILLISECONDS, pool).execute(task);
+        }
+    }
+
+    /**
+     * Time doesn't pass while a task runs, so a task {@link #holdEngine holds} its engine for a virtual delay instead.
+     * Tasks wait for a free engine in the order they are due.
+     */
+    final class VirtualClockEnginePool implements EnginePool {
+
+        private final VirtualClock virtualClock;
+        private final Queue<Runnable> waiting = new ArrayDeque<>(); // Guarded by this
+        private int freeEngines; // Guarded by this
+        private long holdInMillis; // Only accessed by the task running, as the clock runs one task at a time
+
+        VirtualClockEnginePool(VirtualClock virtualClock, int numberOfEngines) {
+            this.virtualClock = virtualClock;
+            this.freeEngines = numberOfEngines;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            virtualClock.schedule(0, TimeUnit.MILLISECONDS, () -> acquire(task));
+        }
+
+        @Override
+        public void schedule(Runnable task, long delayInMillis) {
+            virtualClock.schedule(delayInMillis, TimeUnit.MILLISECONDS, () -> acquire(task));
+        }
+
+        /**
+         * Keeps the engine of the running task busy for the delay after the task returns.
+         */
+        void holdEngine(long delayInMillis) {
+            holdInMillis = delayInMillis;
+        }
+
+        synchronized int getFreeEngines() {
+            return freeEngines;
+        }
+
+        private void acquire(Runnable task) {
+            synchronized (this) {
+                if (freeEngines == 0) {
+                    waiting.add(task);
+                    return;
+                }
+                freeEngines--;
+            }
+            run(task);
+        }
+
+        private void run(Runnable task) {
+            holdInMillis = 0;
+            try {
+                task.run();
+            } finally {
+                if (holdInMillis > 0) {
+                    virtualClock.schedule(holdInMillis, TimeUnit.MILLISECONDS, this::release);
+                } else {
+                    release();
+                }
+            }
+        }
+
+        private void release() {
+            Runnable next;
+            synchronized (this) {
+                next = waiting.poll();
+                if (next == null) {
+                    freeEngines++;
+                    return;
+                }
+            }
+            // The engine goes straight to the oldest waiting task
+            virtualClock.schedule(0, TimeUnit.MILLISECONDS, () -> run(next));
+        }
+    }
+
+    /**
+     * Counts the busy engines, the tasks waiting for one and the retries scheduled.
+     */
+    final class MeteredEnginePool implements EnginePool {
+
+        private final EnginePool delegate;
+        private final DagMetrics metrics;
+        private final String retryStrategy;
+
+        MeteredEnginePool(EnginePool delegate, DagMetrics metrics, String retryStrategy) {
+            this.delegate = delegate;
+            this.metrics = metrics;
+            this.retryStrategy = retryStrategy;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            metrics.onEngineTaskQueued();
+            delegate.execute(() -> run(task, true));
+        }
+
+        @Override
+        public void schedule(Runnable task, long delayInMillis) {
+            // Engine pools only schedule retries
+            metrics.onRetryScheduled(retryStrategy);
+            delegate.schedule(() -> run(task, false), delayInMillis);
+        }
+
+        private void run(Runnable task, boolean wasQueued) {
+            metrics.onEngineTaskStarted(wasQueued);
+            try {
+                task.run();
+            } finally {
+                metrics.onEngineTaskFinished();
+            }
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.microsoft.execution;
 
+import com.microsoft.execution.events.NodeEventPublisher;
+
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -13,4 +15,16 @@ public interface IDagExecutor {
      * @return The response.
      */
     CompletableFuture<DagResponse> processRequestAsync(DagRequest request);
+
+    /**
+     * Processes a Dag request, publishing the lifecycle events of its nodes while it runs. The publisher is closed
+     * once the response is available.
+     *
+     * @param request   The request to be processed
+     * @param publisher The publisher of the events of this request
+     * @return The response.
+     */
+    default CompletableFuture<DagResponse> processRequestAsync(DagRequest request, NodeEventPublisher publisher) {
+        return processRequestAsync(request).whenComplete((_, _) -> publisher.close());
+    }
 }
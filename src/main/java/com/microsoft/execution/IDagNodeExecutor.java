@@ -2,7 +2,9 @@ package com.microsoft.execution;
 
 import com.microsoft.model.IDagNode;
 
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Execution engine responsible to execute the nodes in the graph.
@@ -15,4 +17,95 @@ public interface IDagNodeExecutor {
      * @return 0 if success, < 0 otherwise.
      */
     CompletableFuture<Integer> executeAsync(IDagNode unitOfExecution);
+
+    /**
+     * Executes a node in the graph, reporting its lifecycle to the listener. Executors that can't observe the
+     * individual attempts only report whether the node succeeded or failed.
+     *
+     * @param unitOfExecution The node to be executed.
+     * @param listener        The listener to notify.
+     * @return 0 if success, < 0 otherwise.
+     */
+    default CompletableFuture<Integer> executeAsync(IDagNode unitOfExecution, NodeExecutionListener listener) {
+        return executeAsync(unitOfExecution).whenComplete((result, ex) -> notifyCompletion(unitOfExecution, result, ex, listener));
+    }
+
+    /**
+     * Executes a node on the calling thread, retrying it as {@link #executeAsync(IDagNode)} would.
+     *
+     * @param unitOfExecution The node to be executed.
+     * @return 0 if success, < 0 otherwise.
+     */
+    default int execute(IDagNode unitOfExecution) {
+        return executeAsync(unitOfExecution).join();
+    }
+
+    /**
+     * Executes a node on the calling thread, reporting its lifecycle to the listener.
+     *
+     * @param unitOfExecution The node to be executed.
+     * @param listener        The listener to notify.
+     * @return 0 if success, < 0 otherwise.
+     */
+    default int execute(IDagNode unitOfExecution, NodeExecutionListener listener) {
+        int result = execute(unitOfExecution);
+        notifyCompletion(unitOfExecution, result, null, listener);
+        return result;
+    }
+
+    /**
+     * Executes a batch of nodes, reporting the result of every node to the handler as soon as it completes. Executors
+     * can override this to hand the whole batch to their engines at once; by default every node is submitted on its
+     * own.
+     *
+     * @param batch    The nodes to be executed.
+     * @param listener The listener to notify.
+     * @param handler  Receives the result of every node, along with its position in the batch.
+     */
+    default void executeBatchAsync(List<? extends IDagNode> batch, NodeExecutionListener listener, BatchCompletionHandler handler) {
+        for (int i = 0; i < batch.size(); i++) {
+            int index = i;
+            executeAsync(batch.get(i), listener).whenComplete((result, ex) -> handler.onNodeCompleted(index, ex == null ? result : -1));
+        }
+    }
+
+    /**
+     * Executes a batch of nodes.
+     *
+     * @param batch The nodes to be executed.
+     * @return The result of every node, in the order of the batch: 0 if success, < 0 otherwise.
+     */
+    default CompletableFuture<int[]> executeBatchAsync(List<? extends IDagNode> batch) {
+        int[] results = new int[batch.size()];
+        CompletableFuture<int[]> future = new CompletableFuture<>();
+        if (batch.isEmpty()) {
+            future.complete(results);
+            return future;
+        }
+
+        AtomicInteger remaining = new AtomicInteger(batch.size());
+        executeBatchAsync(batch, NodeExecutionListener.NONE, (index, result) -> {
+            results[index] = result;
+            if (remaining.decrementAndGet() == 0) { // The atomic update publishes the results written before it
+                future.complete(results);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * @return Whether nodes dispatched from the thread that completed a node are kept on the same engine. The
+     * {@link DagExecutor} then dispatches the nodes released by a completion right away from that thread.
+     */
+    default boolean hasEngineAffinity() {
+        return false;
+    }
+
+    private static void notifyCompletion(IDagNode unitOfExecution, Integer result, Throwable ex, NodeExecutionListener listener) {
+        if (ex == null && result >= 0) {
+            listener.onNodeSucceeded(unitOfExecution, 0);
+        } else {
+            listener.onNodeFailed(unitOfExecution, 0, ex);
+        }
+    }
 }
@@ -0,0 +1,87 @@
+package com.microsoft.execution;
+
+import com.microsoft.execution.metrics.DagMetrics;
+import com.microsoft.model.IDagNode;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records how long the nodes of a DAG run wait for an engine and run, and forwards the callbacks to the listener of the
+ * run. The times of a node are written and read by the threads that hand it over to each other, so plain arrays
+ * indexed by node id are enough. The nodes added by an expansion of the DAG, beyond the arrays, are kept in maps.
+ */
+class MetricsNodeExecutionListener implements NodeExecutionListener {
+
+    private final NodeExecutionListener delegate;
+    private final DagMetrics metrics;
+    private final long[] readyTimesInNanos;
+    private final long[] startTimesInNanos;
+    private final Map<Integer, Long> addedReadyTimesInNanos = new ConcurrentHashMap<>();
+    private final Map<Integer, Long> addedStartTimesInNanos = new ConcurrentHashMap<>();
+
+    /**
+     * @param dagSize The number of nodes of the DAG, whose ids go from 0 to {@code dagSize - 1}.
+     */
+    MetricsNodeExecutionListener(NodeExecutionListener delegate, DagMetrics metrics, int dagSize) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+        this.readyTimesInNanos = new long[dagSize];
+        this.startTimesInNanos = new long[dagSize];
+    }
+
+    @Override
+    public void onNodeReady(IDagNode node) {
+        setReadyTime(node.id(), System.nanoTime());
+        delegate.onNodeReady(node);
+    }
+
+    @Override
+    public void onNodeStarted(IDagNode node, int attempt) {
+        long now = System.nanoTime();
+        int id = node.id();
+        if (id < startTimesInNanos.length) {
+            startTimesInNanos[id] = now;
+        } else {
+            addedStartTimesInNanos.put(id, now);
+        }
+        metrics.onNodeStarted(now - (id < readyTimesInNanos.length ? readyTimesInNanos[id] : addedReadyTimesInNanos.getOrDefault(id, now)));
+        delegate.onNodeStarted(node, attempt);
+    }
+
+    @Override
+    public void onNodeRetrying(IDagNode node, int attempt, long delayInMillis, Throwable cause) {
+        finish(node, false, false);
+        // The retry waits for an engine once its delay is over
+        setReadyTime(node.id(), System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayInMillis));
+        delegate.onNodeRetrying(node, attempt, delayInMillis, cause);
+    }
+
+    @Override
+    public void onNodeSucceeded(IDagNode node, int attempt) {
+        finish(node, true, true);
+        delegate.onNodeSucceeded(node, attempt);
+    }
+
+    @Override
+    public void onNodeFailed(IDagNode node, int attempt, Throwable cause) {
+        finish(node, false, true);
+        delegate.onNodeFailed(node, attempt, cause);
+    }
+
+    private void finish(IDagNode node, boolean hasSucceeded, boolean isFinal) {
+        int id = node.id();
+        long now = System.nanoTime();
+        long startTime = id < startTimesInNanos.length ? startTimesInNanos[id] : addedStartTimesInNanos.getOrDefault(id, now);
+        metrics.onNodeFinished(now - startTime, hasSucceeded, isFinal);
+    }
+
+    private void setReadyTime(int id, long timeInNanos) {
+        if (id < readyTimesInNanos.length) {
+            readyTimesInNanos[id] = timeInNanos;
+        } else {
+            addedReadyTimesInNanos.put(id, timeInNanos);
+        }
+    }
+}
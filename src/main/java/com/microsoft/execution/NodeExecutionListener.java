@@ -0,0 +1,48 @@
+package com.microsoft.execution;
+
+import com.microsoft.model.IDagNode;
+
+/**
+ * Receives the lifecycle of the nodes of a DAG run. Callbacks are invoked on the scheduler and engine threads, so
+ * implementations must be thread-safe and must not block.
+ */
+public interface NodeExecutionListener {
+
+    NodeExecutionListener NONE = new NodeExecutionListener() {
+    };
+
+    /**
+     * @return Identifies the DAG run the callbacks belong to, so the node executor can tell runs apart, e.g. to inject
+     * different faults into every run. 0 if the listener isn't tied to a run.
+     */
+    default long runId() {
+        return 0;
+    }
+
+    /**
+     * All the dependencies of the node have completed.
+     */
+    default void onNodeReady(IDagNode node) {
+    }
+
+    /**
+     * An attempt of the node started executing on an engine. Attempts are numbered from 0.
+     */
+    default void onNodeStarted(IDagNode node, int attempt) {
+    }
+
+    /**
+     * An attempt of the node failed and it will be retried after the delay.
+     */
+    default void onNodeRetrying(IDagNode node, int attempt, long delayInMillis, Throwable cause) {
+    }
+
+    default void onNodeSucceeded(IDagNode node, int attempt) {
+    }
+
+    /**
+     * The node failed and won't be retried anymore.
+     */
+    default void onNodeFailed(IDagNode node, int attempt, Throwable cause) {
+    }
+}
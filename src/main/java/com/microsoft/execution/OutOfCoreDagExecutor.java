@@ -0,0 +1,208 @@
+package com.microsoft.execution;
+
+import com.microsoft.model.IDagNode;
+import com.microsoft.model.csr.CsrDag;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+/**
+ * Executes a memory-mapped {@link CsrDag}, for DAGs too large to be parsed into an
+ * {@link com.microsoft.model.ExecutionDag}. The remaining dependencies of every node and the ready queue live in
+ * off-heap memory, updated atomically by the engines, and the units of execution are only built for the nodes in
+ * flight, so the heap usage is bounded by {@link OutOfCoreOptions#maxInFlightNodes()} whatever the size of the DAG.
+ */
+public class OutOfCoreDagExecutor {
+
+    // Coordinates: the segment and the byte offset
+    private static final VarHandle INT = ValueLayout.JAVA_INT.varHandle();
+
+    private final IDagNodeExecutor dagNodeExecutor;
+    private final OutOfCoreOptions options;
+
+    public OutOfCoreDagExecutor(IDagNodeExecutor dagNodeExecutor) {
+        this(dagNodeExecutor, OutOfCoreOptions.DEFAULT);
+    }
+
+    public OutOfCoreDagExecutor(IDagNodeExecutor dagNodeExecutor, OutOfCoreOptions options) {
+        this.dagNodeExecutor = dagNodeExecutor;
+        this.options = options;
+    }
+
+    public DagResponse execute(CsrDag dag, IntFunction<? extends IDagNode> nodeFactory) throws InterruptedException {
+        return execute(dag, nodeFactory, NodeExecutionListener.NONE);
+    }
+
+    /**
+     * Executes the DAG on the calling thread, which dispatches the ready nodes, until all the nodes completed or one
+     * of them failed.
+     *
+     * @param nodeFactory Builds the unit of execution of a node from its id, right before it is dispatched.
+     * @throws IllegalArgumentException If the DAG contains a cycle, once the nodes outside of it completed.
+     */
+    public DagResponse execute(CsrDag dag, IntFunction<? extends IDagNode> nodeFactory, NodeExecutionListener listener) throws InterruptedException {
+        try (Arena arena = Arena.ofShared()) {
+            return new Run(dag, nodeFactory, listener, arena).execute();
+        }
+    }
+
+    private class Run {
+
+        private final CsrDag dag;
+        private final IntFunction<? extends IDagNode> nodeFactory;
+        private final NodeExecutionListener listener;
+        // The number of dependencies of every node not completed yet
+        private final MemorySegment remainingDependencies;
+        // The ready nodes, + 1 so that 0 marks a slot not published yet. Every node is enqueued at most once.
+        private final MemorySegment readyQueue;
+        private final AtomicLong readyTail = new AtomicLong();
+        private long readyHead; // Owned by the dispatching thread
+        private final Semaphore readySignal = new Semaphore(0);
+        private final Semaphore inFlightPermits = new Semaphore(options.maxInFlightNodes());
+        private final AtomicInteger inFlightNodes = new AtomicInteger();
+        private final AtomicBoolean hasFailed = new AtomicBoolean();
+
+        private Run(CsrDag dag, IntFunction<? extends IDagNode> nodeFactory, NodeExecutionListener listener, Arena arena) {
+            this.dag = dag;
+            this.nodeFactory = nodeFactory;
+            this.listener = listener;
+            long bytes = (long) dag.size() * Integer.BYTES;
+            this.remainingDependencies = arena.allocate(bytes, Integer.BYTES);
+            this.readyQueue = arena.allocate(bytes, Integer.BYTES);
+            MemorySegment.copy(dag.inDegrees(), 0, remainingDependencies, 0, bytes);
+        }
+
+        private DagResponse execute() throws InterruptedException {
+            for (int node = 0; node < dag.size(); node++) {
+                if (dag.inDegree(node) == 0) {
+                    enqueue(node);
+                }
+            }
+
+            try {
+                long dispatched = 0;
+                while (dispatched < dag.size() && !hasFailed.get()) {
+                    List<IDagNode> batch = takeBatch();
+                    if (batch == null) {
+                        break;
+                    }
+                    if (batch.isEmpty()) {
+                        readySignal.acquire();
+                        readySignal.drainPermits(); // All the nodes they announce are taken by the next batch
+                        continue;
+                    }
+
+                    dispatched += batch.size();
+                    dispatch(batch);
+                }
+                return new DagResponse(hasFailed.get());
+            } finally {
+                // Wait for the nodes in flight, so neither a failed DAG nor an exception leaves them running on its arena
+                inFlightPermits.acquireUninterruptibly(options.maxInFlightNodes());
+                inFlightPermits.release(options.maxInFlightNodes());
+            }
+        }
+
+        private void dispatch(List<IDagNode> batch) {
+            // The state of every node of the batch: 0 in flight, 1 completed, 2 never handed over
+            AtomicIntegerArray states = new AtomicIntegerArray(batch.size());
+            inFlightNodes.addAndGet(batch.size());
+            try {
+                dagNodeExecutor.executeBatchAsync(batch, listener, (index, result) -> {
+                    if (states.compareAndSet(index, 0, 1)) {
+                        onCompleted(batch.get(index).id(), result);
+                    }
+                });
+            } catch (RuntimeException | Error e) {
+                // The nodes that didn't complete may never do, so stop waiting for them and ignore them if they do
+                hasFailed.set(true);
+                for (int i = 0; i < batch.size(); i++) {
+                    if (states.compareAndSet(i, 0, 2)) {
+                        inFlightNodes.decrementAndGet();
+                        inFlightPermits.release();
+                    }
+                }
+                throw e;
+            }
+        }
+
+        /**
+         * @return The next ready nodes, an empty batch if none is ready yet, or {@code null} if none ever will be.
+         */
+        private List<IDagNode> takeBatch() throws InterruptedException {
+            // Read in this order, as the completions enqueue their dependents before leaving the nodes in flight
+            int inFlight = inFlightNodes.get();
+            if (readyHead == readyTail.get()) {
+                if (inFlight == 0) {
+                    if (hasFailed.get()) {
+                        return null; // The last nodes in flight failed, rather than waiting on a cycle
+                    }
+                    throw new IllegalArgumentException("The graph contains a cycle");
+                }
+                return List.of();
+            }
+
+            List<IDagNode> batch = new ArrayList<>(Math.min(options.maxDispatchBatchSize(), options.maxInFlightNodes()));
+            while (batch.size() < options.maxDispatchBatchSize() && readyHead < readyTail.get()) {
+                if (!inFlightPermits.tryAcquire()) {
+                    if (!batch.isEmpty()) {
+                        break; // Dispatch what we have before waiting for the nodes in flight
+                    }
+                    inFlightPermits.acquire();
+                }
+                try {
+                    batch.add(nodeFactory.apply(take()));
+                } catch (RuntimeException | Error e) {
+                    inFlightPermits.release(batch.size() + 1);
+                    throw e;
+                }
+            }
+            if (hasFailed.get()) {
+                inFlightPermits.release(batch.size());
+                return null;
+            }
+            return batch;
+        }
+
+        private int take() {
+            long offset = readyHead++ * Integer.BYTES;
+            int slot;
+            while ((slot = (int) INT.getAcquire(readyQueue, offset)) == 0) {
+                Thread.onSpinWait(); // The slot was claimed but its node isn't written yet
+            }
+            return slot - 1;
+        }
+
+        private void enqueue(int node) {
+            long offset = readyTail.getAndIncrement() * Integer.BYTES;
+            INT.setRelease(readyQueue, offset, node + 1);
+        }
+
+        private void onCompleted(int node, int result) {
+            if (result < 0) {
+                hasFailed.set(true);
+            } else {
+                long end = dag.dependentsEnd(node);
+                for (long i = dag.dependentsStart(node); i < end; i++) {
+                    int dependent = dag.dependentAt(i);
+                    if ((int) INT.getAndAdd(remainingDependencies, (long) dependent * Integer.BYTES, -1) == 1) {
+                        enqueue(dependent);
+                    }
+                }
+            }
+            inFlightNodes.decrementAndGet();
+            inFlightPermits.release();
+            readySignal.release();
+        }
+    }
+}
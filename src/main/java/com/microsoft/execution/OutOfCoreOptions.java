@@ -0,0 +1,30 @@
+package com.microsoft.execution;
+
+/**
+ * Tuning options for the {@link OutOfCoreDagExecutor}.
+ *
+ * @param maxInFlightNodes     Maximum number of nodes handed to the node executor and not completed yet. Only these
+ *                             nodes have a unit of execution on the heap.
+ * @param maxDispatchBatchSize Maximum number of ready nodes handed to the node executor in a single batch.
+ */
+public record OutOfCoreOptions(int maxInFlightNodes, int maxDispatchBatchSize) {
+
+    public static final OutOfCoreOptions DEFAULT = new OutOfCoreOptions(16_384, 256);
+
+    public OutOfCoreOptions {
+        if (maxInFlightNodes <= 0) {
+            throw new IllegalArgumentException("maxInFlightNodes must be greater than 0");
+        }
+        if (maxDispatchBatchSize <= 0) {
+            throw new IllegalArgumentException("maxDispatchBatchSize must be greater than 0");
+        }
+    }
+
+    public OutOfCoreOptions withMaxInFlightNodes(int maxInFlightNodes) {
+        return new OutOfCoreOptions(maxInFlightNodes, maxDispatchBatchSize);
+    }
+
+    public OutOfCoreOptions withMaxDispatchBatchSize(int maxDispatchBatchSize) {
+        return new OutOfCoreOptions(maxInFlightNodes, maxDispatchBatchSize);
+    }
+}
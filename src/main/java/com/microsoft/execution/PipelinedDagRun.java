@@ -0,0 +1,324 @@
+package com.microsoft.execution;
+
+import com.microsoft.execution.jfr.DagParseEvent;
+import com.microsoft.execution.metrics.DagMetrics;
+import com.microsoft.model.IDagNode;
+import com.microsoft.parser.IStreamingDagParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.StringReader;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The execution of a DAG while its XML is still being parsed. The parser declares the nodes one at a time on its own
+ * platform thread, and a node is dispatched as soon as the nodes it depends on were declared and completed. The graph
+ * grows under a lock shared with the completions, whose condition wakes up the thread dispatching the ready nodes.
+ * <p>
+ * Cycles are detected as the nodes are declared. Only a node that nodes declared before it depend on can close a
+ * cycle: the nodes depending on it, transitively, are then searched for its own dependencies. Completed nodes can't be
+ * part of a cycle, so the search skips them, and documents listing the dependencies first never search at all.
+ */
+final class PipelinedDagRun {
+
+    private static final Logger logger = LoggerFactory.getLogger(PipelinedDagRun.class);
+
+    private final long dagId;
+    private final IStreamingDagParser dagParser;
+    private final IDagNodeExecutor dagNodeExecutor;
+    private final int maxDispatchBatchSize;
+    private final DagMetrics metrics;
+    private final NodeExecutionListener listener;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    // The declared nodes, and the nodes referenced as dependencies before being declared
+    private final Map<Integer, NodeState> nodes = new HashMap<>();
+    private final List<IDagNode> ready = new ArrayList<>();
+    private int declaredNodes;
+    private int completedNodes;
+    private int inFlightNodes;
+    private int unresolvedReferences;
+    private int searches;
+    private boolean isParsed;
+    private boolean hasFailed;
+    private boolean stopped;
+    private RuntimeException parseFailure;
+
+    PipelinedDagRun(
+            long dagId,
+            IStreamingDagParser dagParser,
+            IDagNodeExecutor dagNodeExecutor,
+            DagExecutorOptions options,
+            NodeExecutionListener listener
+    ) {
+        this.dagId = dagId;
+        this.dagParser = dagParser;
+        this.dagNodeExecutor = dagNodeExecutor;
+        this.maxDispatchBatchSize = options.maxDispatchBatchSize();
+        this.metrics = options.metrics();
+        this.listener = listener;
+    }
+
+    /**
+     * @throws IllegalArgumentException If the document is invalid, once the nodes already dispatched completed.
+     */
+    DagResponse execute(String dagXml, CompletableFuture<DagResponse> response) throws InterruptedException {
+        response.whenComplete((_, _) -> {
+            if (response.isCancelled()) {
+                logger.info("DAG {} was cancelled", dagId);
+                stop();
+            }
+        });
+        // Parsing keeps a core busy: on a virtual thread, it could hold back the dispatch of the nodes it declares
+        Thread.ofPlatform().name("dag-parser-" + dagId).daemon().start(() -> parse(dagXml));
+
+        lock.lock();
+        try {
+            while (true) {
+                while (ready.isEmpty() && !isDone()) {
+                    changed.await();
+                }
+                if (hasFailed || stopped || parseFailure != null || ready.isEmpty()) {
+                    break;
+                }
+
+                List<IDagNode> batch = new ArrayList<>(ready);
+                ready.clear();
+                inFlightNodes += batch.size();
+                lock.unlock();
+                try {
+                    dispatch(batch);
+                } finally {
+                    lock.lock();
+                }
+            }
+
+            // Nothing runs once the request completed
+            while (inFlightNodes > 0) {
+                changed.await();
+            }
+            if (metrics != null) {
+                metrics.onNodesDequeued(ready.size()); // Left by a failed or cancelled run
+            }
+            if (parseFailure != null) {
+                throw parseFailure;
+            }
+            return new DagResponse(hasFailed);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getDeclaredNodes() {
+        lock.lock();
+        try {
+            return declaredNodes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isDone() {
+        return hasFailed || stopped || parseFailure != null || (isParsed && completedNodes == declaredNodes);
+    }
+
+    private void parse(String dagXml) {
+        DagParseEvent parseEvent = new DagParseEvent();
+        parseEvent.begin();
+        RuntimeException failure = null;
+        try {
+            dagParser.parseDag(new StringReader(dagXml), this::declare);
+        } catch (RuntimeException ex) {
+            failure = ex;
+        } catch (Throwable ex) {
+            failure = new IllegalStateException("Failed to parse DAG " + dagId, ex);
+        }
+        parseEvent.end();
+
+        lock.lock();
+        try {
+            if (failure == null && unresolvedReferences > 0 && !stopped && !hasFailed) {
+                failure = new IllegalArgumentException("The graph contains a reference to a non-existing node");
+            }
+            if (failure != null) {
+                logger.error("DAG {} failed to parse after {} nodes", dagId, declaredNodes, failure);
+            }
+            parseFailure = failure;
+            isParsed = true;
+            changed.signalAll();
+
+            if (parseEvent.shouldCommit()) {
+                parseEvent.dagId = dagId;
+                parseEvent.xmlLength = dagXml.length();
+                parseEvent.nodes = declaredNodes;
+                parseEvent.commit();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds a node read by the parser to the graph, and makes it ready if the nodes it depends on already completed.
+     *
+     * @return Whether to keep parsing.
+     */
+    private boolean declare(IDagNode unitOfExecution, int[] dependencies) {
+        lock.lock();
+        try {
+            if (hasFailed || stopped) {
+                return false;
+            }
+
+            int id = unitOfExecution.id();
+            NodeState node = nodes.get(id);
+            if (node == null) {
+                node = new NodeState();
+                nodes.put(id, node);
+            } else if (node.unitOfExecution != null) {
+                throw new IllegalArgumentException("The graph contains duplicate nodes");
+            } else {
+                unresolvedReferences--;
+            }
+            node.unitOfExecution = unitOfExecution;
+            declaredNodes++;
+
+            for (int dependencyId : dependencies) {
+                if (dependencyId == id) {
+                    throw new IllegalArgumentException("The graph contains a cycle");
+                }
+                NodeState dependency = nodes.get(dependencyId);
+                if (dependency == null) {
+                    dependency = new NodeState();
+                    nodes.put(dependencyId, dependency);
+                    unresolvedReferences++;
+                }
+                if (!dependency.isCompleted) {
+                    dependency.addDependent(id);
+                    node.pendingDependencies++;
+                }
+            }
+            if (node.dependents != null && node.pendingDependencies > 0 && closesCycle(node, dependencies)) {
+                throw new IllegalArgumentException("The graph contains a cycle");
+            }
+
+            if (node.pendingDependencies == 0) {
+                release(node);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Whether any of the dependencies of the node depends on it, transitively.
+     */
+    private boolean closesCycle(NodeState node, int[] dependencies) {
+        int search = ++searches;
+        for (int dependencyId : dependencies) {
+            nodes.get(dependencyId).target = search;
+        }
+
+        Deque<NodeState> pending = new ArrayDeque<>();
+        node.visited = search;
+        pending.push(node);
+        while (!pending.isEmpty()) {
+            NodeState current = pending.pop();
+            if (current.dependents == null) {
+                continue;
+            }
+            for (int dependentId : current.dependents) {
+                NodeState dependent = nodes.get(dependentId);
+                if (dependent.target == search) {
+                    return true;
+                }
+                if (dependent.visited != search && !dependent.isCompleted) {
+                    dependent.visited = search;
+                    pending.push(dependent);
+                }
+            }
+        }
+        return false;
+    }
+
+    private void dispatch(List<IDagNode> batch) {
+        if (metrics != null) {
+            metrics.onNodesDequeued(batch.size());
+        }
+        for (int from = 0; from < batch.size(); from += maxDispatchBatchSize) {
+            List<IDagNode> subBatch = batch.subList(from, Math.min(from + maxDispatchBatchSize, batch.size()));
+            if (metrics != null) {
+                metrics.onNodesDispatched(subBatch.size());
+            }
+            dagNodeExecutor.executeBatchAsync(subBatch, listener, (index, result) -> onCompleted(subBatch.get(index), result));
+        }
+    }
+
+    private void onCompleted(IDagNode unitOfExecution, int result) {
+        lock.lock();
+        try {
+            inFlightNodes--;
+            if (result < 0) {
+                logger.error("Node execution failed: {}", unitOfExecution.id());
+                hasFailed = true;
+            } else {
+                NodeState node = nodes.get(unitOfExecution.id());
+                node.isCompleted = true;
+                completedNodes++;
+                if (node.dependents != null && !hasFailed && !stopped) {
+                    for (int dependentId : node.dependents) {
+                        NodeState dependent = nodes.get(dependentId);
+                        if (--dependent.pendingDependencies == 0) {
+                            release(dependent);
+                        }
+                    }
+                }
+                node.dependents = null;
+            }
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(NodeState node) {
+        listener.onNodeReady(node.unitOfExecution);
+        if (metrics != null) {
+            metrics.onNodesEnqueued(1);
+        }
+        ready.add(node.unitOfExecution);
+        changed.signalAll();
+    }
+
+    private void stop() {
+        lock.lock();
+        try {
+            stopped = true;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class NodeState {
+
+        private IDagNode unitOfExecution; // null until declared
+        private int pendingDependencies;
+        private boolean isCompleted;
+        private List<Integer> dependents; // null until a node depends on it, and once completed
+        private int visited;
+        private int target;
+
+        private void addDependent(int id) {
+            if (dependents == null) {
+                dependents = new ArrayList<>(2);
+            }
+            dependents.add(id);
+        }
+    }
+}
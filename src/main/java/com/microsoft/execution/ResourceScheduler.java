@@ -0,0 +1,143 @@
+package com.microsoft.execution;
+
+import com.microsoft.model.Resources;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Admits node attempts against a CPU and memory capacity. Whenever resources are released, the waiting nodes are
+ * packed with a multi-dimensional bin-packing heuristic: the node whose demand best aligns with the free resources
+ * (highest dot product of both, normalized by the capacity) is admitted first, until nothing else fits.
+ * <p>
+ * Light nodes may overtake a heavy one, but only a bounded number of times: after that the heavy node reserves the
+ * resources it needs and nothing else is admitted until it runs.
+ */
+class ResourceScheduler {
+
+    private static final int MAX_BYPASSES = 32;
+
+    private final Resources capacity;
+    private final List<Pending> pending = new ArrayList<>(); // In arrival order
+    private Resources inUse = new Resources(0, 0);
+
+    private final long createdAtNanos = System.nanoTime();
+    private long lastChangeNanos = createdAtNanos;
+    private double cpuInUseIntegral;
+    private double memoryInUseIntegral;
+    private long admittedNodes;
+    private long totalWaitNanos;
+    private long maxWaitNanos;
+
+    ResourceScheduler(Resources capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Runs {@code start} as soon as the demand fits in the free resources. A demand bigger than the capacity is capped
+     * to it, so the node runs on its own. Every start must be paired with a call to {@link #release} once the node no
+     * longer needs its resources.
+     */
+    void submit(Resources demand, Runnable start) {
+        List<Runnable> admitted;
+        synchronized (this) {
+            pending.add(new Pending(demand.min(capacity), start, System.nanoTime()));
+            admitted = admit();
+        }
+        admitted.forEach(Runnable::run);
+    }
+
+    void release(Resources demand) {
+        List<Runnable> admitted;
+        synchronized (this) {
+            updateIntegrals();
+            inUse = inUse.minus(demand.min(capacity));
+            admitted = admit();
+        }
+        admitted.forEach(Runnable::run);
+    }
+
+    synchronized ResourceUtilization getUtilization() {
+        updateIntegrals();
+        double elapsedNanos = Math.max(1, lastChangeNanos - createdAtNanos);
+        return new ResourceUtilization(
+                capacity,
+                inUse,
+                cpuInUseIntegral / elapsedNanos / capacity.cpu(),
+                memoryInUseIntegral / elapsedNanos / capacity.memoryInMb(),
+                admittedNodes,
+                pending.size(),
+                admittedNodes == 0 ? 0 : totalWaitNanos / 1e6 / admittedNodes,
+                maxWaitNanos / 1e6
+        );
+    }
+
+    /**
+     * @return The starts of the admitted nodes, to be run once the lock is released.
+     */
+    private List<Runnable> admit() {
+        List<Runnable> admitted = new ArrayList<>();
+        while (!pending.isEmpty()) {
+            Resources free = capacity.minus(inUse);
+            Pending oldest = pending.getFirst();
+
+            int best = -1;
+            if (oldest.bypasses >= MAX_BYPASSES) {
+                best = oldest.demand.fitsIn(free) ? 0 : -1; // The oldest node reserves its resources
+            } else {
+                double bestScore = -1;
+                for (int i = 0; i < pending.size(); i++) {
+                    Resources demand = pending.get(i).demand;
+                    double score = alignment(demand, free);
+                    if (demand.fitsIn(free) && score > bestScore) {
+                        best = i;
+                        bestScore = score;
+                    }
+                }
+            }
+
+            if (best < 0) {
+                break;
+            }
+
+            for (int i = 0; i < best; i++) {
+                pending.get(i).bypasses++;
+            }
+            Pending next = pending.remove(best);
+            admitted.add(next.start);
+
+            updateIntegrals();
+            inUse = inUse.plus(next.demand);
+            long waitNanos = lastChangeNanos - next.submittedAtNanos;
+            admittedNodes++;
+            totalWaitNanos += waitNanos;
+            maxWaitNanos = Math.max(maxWaitNanos, waitNanos);
+        }
+        return admitted;
+    }
+
+    private double alignment(Resources demand, Resources free) {
+        return (double) demand.cpu() * free.cpu() / ((double) capacity.cpu() * capacity.cpu())
+                + (double) demand.memoryInMb() * free.memoryInMb() / ((double) capacity.memoryInMb() * capacity.memoryInMb());
+    }
+
+    private void updateIntegrals() {
+        long now = System.nanoTime();
+        cpuInUseIntegral += (double) inUse.cpu() * (now - lastChangeNanos);
+        memoryInUseIntegral += (double) inUse.memoryInMb() * (now - lastChangeNanos);
+        lastChangeNanos = now;
+    }
+
+    private static final class Pending {
+        private final Resources demand;
+        private final Runnable start;
+        private final long submittedAtNanos;
+        private int bypasses;
+
+        private Pending(Resources demand, Runnable start, long submittedAtNanos) {
+            this.demand = demand;
+            this.start = start;
+            this.submittedAtNanos = submittedAtNanos;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.microsoft.execution;
+
+import com.microsoft.model.Resources;
+
+/**
+ * A snapshot of how the {@link DagNodeExecutor} is using its resource capacity.
+ *
+ * @param capacity                 The CPU and memory available to run nodes.
+ * @param inUse                    The CPU and memory held by the running nodes.
+ * @param averageCpuUtilization    Time-weighted average fraction of the CPU capacity in use, between 0 and 1.
+ * @param averageMemoryUtilization Time-weighted average fraction of the memory capacity in use, between 0 and 1.
+ * @param admittedNodes            Number of node attempts admitted so far.
+ * @param waitingNodes             Number of node attempts waiting for resources.
+ * @param averageWaitInMillis      Average time an admitted node attempt waited for its resources.
+ * @param maxWaitInMillis          Longest time an admitted node attempt waited for its resources.
+ */
+public record ResourceUtilization(
+        Resources capacity,
+        Resources inUse,
+        double averageCpuUtilization,
+        double averageMemoryUtilization,
+        long admittedNodes,
+        int waitingNodes,
+        double averageWaitInMillis,
+        double maxWaitInMillis
+) {
+}
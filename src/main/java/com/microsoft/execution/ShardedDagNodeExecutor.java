@@ -0,0 +1,108 @@
+package com.microsoft.execution;
+
+import com.microsoft.model.IDagNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.ToIntFunction;
+
+/**
+ * Spreads the nodes over several executors, e.g. one per engine group or per worker. The {@link DagExecutor} places
+ * the nodes using the partitioning from its {@link DagExecutorOptions#partitioner()}; without one, nodes are placed by
+ * id.
+ */
+public class ShardedDagNodeExecutor implements IDagNodeExecutor {
+
+    private final List<IDagNodeExecutor> shards;
+
+    public ShardedDagNodeExecutor(List<? extends IDagNodeExecutor> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shards = List.copyOf(shards);
+    }
+
+    public int getNumberOfShards() {
+        return shards.size();
+    }
+
+    /**
+     * Executes a node on the given shard.
+     *
+     * @param unitOfExecution The node to be executed.
+     * @param shard           The shard to execute the node on.
+     * @param listener        The listener to notify.
+     * @return 0 if success, < 0 otherwise.
+     */
+    public CompletableFuture<Integer> executeAsync(IDagNode unitOfExecution, int shard, NodeExecutionListener listener) {
+        return shards.get(shard).executeAsync(unitOfExecution, listener);
+    }
+
+    /**
+     * Splits the batch by shard and hands every part to its shard as a batch of its own.
+     *
+     * @param batch    The nodes to be executed.
+     * @param shardOf  The shard of every node.
+     * @param listener The listener to notify.
+     * @param handler  Receives the result of every node, along with its position in the original batch.
+     */
+    public void executeBatchAsync(
+            List<? extends IDagNode> batch,
+            ToIntFunction<IDagNode> shardOf,
+            NodeExecutionListener listener,
+            BatchCompletionHandler handler
+    ) {
+        List<List<IDagNode>> batchByShard = new ArrayList<>(shards.size());
+        List<List<Integer>> indicesByShard = new ArrayList<>(shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            batchByShard.add(new ArrayList<>());
+            indicesByShard.add(new ArrayList<>());
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            int shard = shardOf.applyAsInt(batch.get(i));
+            batchByShard.get(shard).add(batch.get(i));
+            indicesByShard.get(shard).add(i);
+        }
+
+        for (int shard = 0; shard < shards.size(); shard++) {
+            if (!batchByShard.get(shard).isEmpty()) {
+                List<Integer> indices = indicesByShard.get(shard);
+                shards.get(shard).executeBatchAsync(
+                        batchByShard.get(shard),
+                        listener,
+                        (index, result) -> handler.onNodeCompleted(indices.get(index), result)
+                );
+            }
+        }
+    }
+
+    @Override
+    public void executeBatchAsync(List<? extends IDagNode> batch, NodeExecutionListener listener, BatchCompletionHandler handler) {
+        executeBatchAsync(batch, unitOfExecution -> Math.floorMod(unitOfExecution.id(), shards.size()), listener, handler);
+    }
+
+    @Override
+    public CompletableFuture<Integer> executeAsync(IDagNode unitOfExecution) {
+        return shardOf(unitOfExecution).executeAsync(unitOfExecution);
+    }
+
+    @Override
+    public CompletableFuture<Integer> executeAsync(IDagNode unitOfExecution, NodeExecutionListener listener) {
+        return shardOf(unitOfExecution).executeAsync(unitOfExecution, listener);
+    }
+
+    @Override
+    public int execute(IDagNode unitOfExecution) {
+        return shardOf(unitOfExecution).execute(unitOfExecution);
+    }
+
+    @Override
+    public int execute(IDagNode unitOfExecution, NodeExecutionListener listener) {
+        return shardOf(unitOfExecution).execute(unitOfExecution, listener);
+    }
+
+    private IDagNodeExecutor shardOf(IDagNode unitOfExecution) {
+        return shards.get(Math.floorMod(unitOfExecution.id(), shards.size()));
+    }
+}
@@ -0,0 +1,139 @@
+package com.microsoft.execution;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks the nodes with a {@link com.microsoft.model.IDagNode#key() key} that are being executed, so that concurrent
+ * DAGs containing the same node execute it only once. Share one registry between the {@link DagExecutor}s that should
+ * see each other's nodes.
+ * <p>
+ * Every DAG that needs a node holds a {@link Lease} on it. The first DAG owns the execution and publishes its result;
+ * the others wait for it. The execution is only abandoned once every DAG has released its lease without waiting for
+ * the result, e.g. because it was cancelled or has failed.
+ */
+public class SharedNodeRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(SharedNodeRegistry.class);
+
+    private final ConcurrentHashMap<String, SharedNode> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Takes a lease on the node with the given key, joining its execution if it is already in flight.
+     *
+     * @param key The key of the node.
+     * @return The lease. If {@link Lease#isOwner()}, the caller must execute the node and {@link Lease#complete} it.
+     */
+    public Lease acquire(String key) {
+        SharedNode[] created = new SharedNode[1];
+        SharedNode sharedNode = inFlight.compute(key, (_, existing) -> {
+            if (existing != null && existing.retain()) {
+                return existing;
+            }
+            created[0] = new SharedNode(key);
+            return created[0];
+        });
+
+        if (created[0] == null) {
+            logger.info("Joining the execution of shared node {}", key);
+        }
+        return new Lease(sharedNode, created[0] != null);
+    }
+
+    /**
+     * @return The number of shared nodes being executed.
+     */
+    public int getInFlight() {
+        return inFlight.size();
+    }
+
+    private void remove(SharedNode sharedNode) {
+        inFlight.remove(sharedNode.key, sharedNode);
+    }
+
+    /**
+     * The claim of a DAG on the result of a shared node.
+     */
+    public final class Lease {
+
+        private final SharedNode sharedNode;
+        private final boolean owner;
+        private boolean released;
+
+        private Lease(SharedNode sharedNode, boolean owner) {
+            this.sharedNode = sharedNode;
+            this.owner = owner;
+        }
+
+        /**
+         * @return Whether the holder of this lease is responsible for executing the node.
+         */
+        public boolean isOwner() {
+            return owner;
+        }
+
+        /**
+         * @return The result of the node: 0 if success, < 0 otherwise. Cancelled if every lease was released first.
+         */
+        public CompletableFuture<Integer> result() {
+            return sharedNode.result;
+        }
+
+        /**
+         * Publishes the result of the node to every DAG holding a lease on it. Later DAGs execute the node again.
+         */
+        public void complete(int result) {
+            remove(sharedNode);
+            sharedNode.result.complete(result);
+        }
+
+        /**
+         * Gives up the claim on the result. Once no lease is left on a node that hasn't completed, its result is
+         * cancelled.
+         */
+        public synchronized void release() {
+            if (released) {
+                return;
+            }
+            released = true;
+
+            if (sharedNode.release()) {
+                logger.info("Shared node {} is no longer needed", sharedNode.key);
+                remove(sharedNode);
+                sharedNode.result.cancel(false);
+            }
+        }
+    }
+
+    private static final class SharedNode {
+
+        private final String key;
+        private final CompletableFuture<Integer> result = new CompletableFuture<>();
+        private int references = 1;
+
+        private SharedNode(String key) {
+            this.key = key;
+        }
+
+        /**
+         * @return Whether the node can still be joined.
+         */
+        private synchronized boolean retain() {
+            if (references == 0 || result.isDone()) {
+                return false;
+            }
+            references++;
+            return true;
+        }
+
+        /**
+         * @return Whether this was the last reference of a node that hasn't completed.
+         */
+        private synchronized boolean release() {
+            return --references == 0 && !result.isDone();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.microsoft.execution;
+
+import com.microsoft.execution.events.NodeEventPublisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Executes identical concurrent requests only once. Requests with the same DAG (by content hash) and the same
+ * idempotency key share a single execution of the underlying executor, and all of them complete with the same
+ * {@link DagResponse}. A successful response is also handed to identical requests arriving within a configurable
+ * window after it completed; failures are never reused.
+ * <p>
+ * Only the request that started the execution receives the node events; the publishers of the requests that joined
+ * it are closed once the shared response is available.
+ */
+public class SingleFlightDagExecutor implements IDagExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(SingleFlightDagExecutor.class);
+
+    private final IDagExecutor dagExecutor;
+    private final long resultWindowInMillis;
+    private final ConcurrentHashMap<FlightKey, Flight> flights = new ConcurrentHashMap<>();
+    private final LongAdder coalescedRequests = new LongAdder();
+
+    /**
+     * @param dagExecutor          The executor running the DAGs.
+     * @param resultWindowInMillis For how long after its completion a successful response is handed to identical
+     *                             requests. 0 only coalesces requests that overlap in time.
+     */
+    public SingleFlightDagExecutor(IDagExecutor dagExecutor, long resultWindowInMillis) {
+        if (resultWindowInMillis < 0) {
+            throw new IllegalArgumentException("resultWindowInMillis must be greater than or equal to 0");
+        }
+        this.dagExecutor = dagExecutor;
+        this.resultWindowInMillis = resultWindowInMillis;
+    }
+
+    @Override
+    public CompletableFuture<DagResponse> processRequestAsync(DagRequest request) {
+        return processRequestAsync(request, null);
+    }
+
+    @Override
+    public CompletableFuture<DagResponse> processRequestAsync(DagRequest request, NodeEventPublisher publisher) {
+        FlightKey key = new FlightKey(contentHash(request.dagXml()), request.idempotencyKey());
+        Flight newFlight = new Flight();
+        Flight flight = flights.compute(key, (_, existing) -> existing != null && !existing.isExpired() ? existing : newFlight);
+
+        if (flight != newFlight) {
+            logger.info("Attaching request to the execution of DAG {}", key.contentHash());
+            coalescedRequests.increment();
+            if (publisher != null) {
+                flight.response.whenComplete((_, _) -> publisher.close());
+            }
+            return flight.response.copy(); // Callers can't complete or cancel the shared response
+        }
+
+        try {
+            CompletableFuture<DagResponse> execution = publisher == null
+                    ? dagExecutor.processRequestAsync(request)
+                    : dagExecutor.processRequestAsync(request, publisher);
+            execution.whenComplete((response, ex) -> land(key, flight, response, ex));
+        } catch (RuntimeException ex) {
+            land(key, flight, null, ex);
+        }
+        return flight.response.copy();
+    }
+
+    /**
+     * @return The number of requests that didn't start an execution of their own.
+     */
+    public long getCoalescedRequests() {
+        return coalescedRequests.sum();
+    }
+
+    private void land(FlightKey key, Flight flight, DagResponse response, Throwable ex) {
+        if (ex != null || response.hasFailed() || resultWindowInMillis == 0) {
+            flights.remove(key, flight);
+        } else {
+            flight.expiresAtNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(resultWindowInMillis);
+            flight.landed = true; // Publishes expiresAtNanos
+            CompletableFuture.delayedExecutor(resultWindowInMillis, TimeUnit.MILLISECONDS)
+                    .execute(() -> flights.remove(key, flight));
+        }
+
+        // Completed after the flight is settled, so a failed flight is never joined once it has landed
+        if (ex != null) {
+            flight.response.completeExceptionally(ex);
+        } else {
+            flight.response.complete(response);
+        }
+    }
+
+    private static String contentHash(String dagXml) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(dagXml.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e); // Every JVM is required to support it
+        }
+    }
+
+    private record FlightKey(String contentHash, String idempotencyKey) {
+    }
+
+    private static final class Flight {
+        private final CompletableFuture<DagResponse> response = new CompletableFuture<>();
+        private long expiresAtNanos;
+        private volatile boolean landed;
+
+        private boolean isExpired() {
+            return landed && System.nanoTime() - expiresAtNanos >= 0;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.microsoft.execution.distributed;
+
+/**
+ * Tuning options shared by the {@link RemoteDagNodeExecutor coordinator} and its {@link DagWorker workers}.
+ *
+ * @param heartbeatIntervalInMillis     How often both sides send a heartbeat when there is no other traffic.
+ * @param heartbeatTimeoutInMillis      How long a peer can stay silent before it is considered dead.
+ * @param maxBatchSize                  Maximum number of nodes dispatched, or acknowledged, in a single message.
+ * @param workerLossGracePeriodInMillis How long the coordinator waits for a worker to connect when none is alive, before
+ *                                      failing the nodes waiting to be dispatched.
+ */
+public record CoordinatorOptions(
+        long heartbeatIntervalInMillis,
+        long heartbeatTimeoutInMillis,
+        int maxBatchSize,
+        long workerLossGracePeriodInMillis
+) {
+
+    public static final CoordinatorOptions DEFAULT = new CoordinatorOptions(500, 3000, 256, 30_000);
+
+    public CoordinatorOptions {
+        if (heartbeatIntervalInMillis <= 0) {
+            throw new IllegalArgumentException("heartbeatIntervalInMillis must be greater than 0");
+        }
+
+        if (heartbeatTimeoutInMillis <= heartbeatIntervalInMillis) {
+            throw new IllegalArgumentException("heartbeatTimeoutInMillis must be greater than heartbeatIntervalInMillis");
+        }
+
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be greater than 0");
+        }
+
+        if (workerLossGracePeriodInMillis < 0) {
+            throw new IllegalArgumentException("workerLossGracePeriodInMillis must be greater than or equal to 0");
+        }
+    }
+
+    public CoordinatorOptions withWorkerLossGracePeriodInMillis(long workerLossGracePeriodInMillis) {
+        return new CoordinatorOptions(heartbeatIntervalInMillis, heartbeatTimeoutInMillis, maxBatchSize, workerLossGracePeriodInMillis);
+    }
+}
@@ -0,0 +1,226 @@
+package com.microsoft.execution.distributed;
+
+import com.microsoft.execution.DagNodeExecutor;
+import com.microsoft.execution.IDagNodeExecutor;
+import com.microsoft.execution.retry.NoRetryStrategy;
+import com.microsoft.execution.retry.RetryStrategy;
+import com.microsoft.model.ChainDagNode;
+import com.microsoft.model.DagNode;
+import com.microsoft.model.IDagNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Worker side of distributed execution: connects to a {@link RemoteDagNodeExecutor coordinator}, executes the nodes
+ * it dispatches on a local {@link IDagNodeExecutor} and acknowledges them in batches.
+ * <p>
+ * Only the ids of the nodes go over the wire, so the worker rebuilds their units of execution with its node factory.
+ * The default factory builds plain {@link DagNode DagNodes}, which do nothing: to run the logic of the nodes, embed the
+ * worker with a factory building the same nodes as the coordinator's parser does.
+ */
+public class DagWorker implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(DagWorker.class);
+
+    private final SocketAddress coordinatorAddress;
+    private final IDagNodeExecutor dagNodeExecutor;
+    private final CoordinatorOptions options;
+    private final IntFunction<? extends IDagNode> nodeFactory;
+    private final BlockingQueue<Ack> acks = new LinkedBlockingQueue<>();
+    private volatile SocketChannel channel;
+    private volatile long lastSeenNanos;
+
+    private record Ack(long taskId, int result) {
+    }
+
+    public DagWorker(SocketAddress coordinatorAddress, IDagNodeExecutor dagNodeExecutor, CoordinatorOptions options) {
+        this(coordinatorAddress, dagNodeExecutor, options, DagNode::new);
+    }
+
+    /**
+     * @param nodeFactory Builds the unit of execution of a node from the id the coordinator dispatched.
+     */
+    public DagWorker(
+            SocketAddress coordinatorAddress,
+            IDagNodeExecutor dagNodeExecutor,
+            CoordinatorOptions options,
+            IntFunction<? extends IDagNode> nodeFactory
+    ) {
+        this.coordinatorAddress = coordinatorAddress;
+        this.dagNodeExecutor = dagNodeExecutor;
+        this.options = options;
+        this.nodeFactory = nodeFactory;
+    }
+
+    /**
+     * Usage: {@code DagWorker <tcp:host:port|unix:/path> [numberOfEngines] [failureRate] [retryStrategy]}, the retry
+     * strategy being {@code none} by default, {@code timed:maxRetries:delayInMillis},
+     * {@code exponential:maxRetries:baseDelayInMillis:multiplier} or {@code infinite:delayInMillis}. The nodes run as
+     * plain {@link DagNode DagNodes}.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: DagWorker <tcp:host:port|unix:/path> [numberOfEngines] [failureRate] [retryStrategy]");
+            System.exit(2);
+        }
+
+        SocketAddress address = WireProtocol.parseAddress(args[0]);
+        int numberOfEngines = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        float failureRate = args.length > 2 ? Float.parseFloat(args[2]) : 0.0f;
+        RetryStrategy retryStrategy = args.length > 3 ? WireProtocol.parseRetryStrategy(args[3]) : NoRetryStrategy.INSTANCE;
+
+        IDagNodeExecutor dagNodeExecutor = new DagNodeExecutor(numberOfEngines, failureRate, retryStrategy);
+        try (DagWorker worker = new DagWorker(address, dagNodeExecutor, CoordinatorOptions.DEFAULT)) {
+            worker.run();
+        }
+        System.exit(0); // The engines are not daemon threads
+    }
+
+    /**
+     * Serves the coordinator until it shuts the worker down, the connection is lost or the coordinator goes silent.
+     */
+    public void run() throws IOException {
+        channel = WireProtocol.connect(coordinatorAddress);
+        DataInputStream in = WireProtocol.input(channel);
+        DataOutputStream out = WireProtocol.output(channel);
+
+        out.writeByte(WireProtocol.HELLO);
+        out.writeLong(ProcessHandle.current().pid());
+        out.flush();
+        lastSeenNanos = System.nanoTime();
+
+        Thread writer = Thread.ofVirtual().name("worker-writer").start(() -> writeMessages(out));
+        try {
+            readMessages(in);
+        } finally {
+            writer.interrupt();
+            close();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        SocketChannel current = channel;
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    private void readMessages(DataInputStream in) throws IOException {
+        try {
+            while (true) {
+                byte type = in.readByte();
+                lastSeenNanos = System.nanoTime();
+                switch (type) {
+                    case WireProtocol.DISPATCH -> readDispatch(in);
+                    case WireProtocol.HEARTBEAT -> {
+                    }
+                    case WireProtocol.SHUTDOWN -> {
+                        logger.info("Shutdown requested by the coordinator");
+                        return;
+                    }
+                    default -> throw new IOException("Unexpected message type " + type);
+                }
+            }
+        } catch (EOFException ex) {
+            logger.info("Coordinator closed the connection");
+        } catch (IOException ex) {
+            if (channel.isOpen()) {
+                throw ex;
+            }
+            logger.info("Connection with the coordinator closed");
+        }
+    }
+
+    private void readDispatch(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            long taskId = in.readLong();
+            int nodeCount = in.readInt();
+            int[] nodeIds = new int[nodeCount];
+            for (int j = 0; j < nodeCount; j++) {
+                nodeIds[j] = in.readInt();
+            }
+
+            List<IDagNode> nodes;
+            try {
+                nodes = buildNodes(nodeIds);
+            } catch (RuntimeException ex) {
+                logger.error("Failed to build the nodes of task {}", taskId, ex);
+                acks.add(new Ack(taskId, -1));
+                continue;
+            }
+            IDagNode unitOfExecution = nodes.size() == 1 ? nodes.getFirst() : new ChainDagNode(nodes.getFirst().id(), nodes);
+            dagNodeExecutor.executeAsync(unitOfExecution)
+                    .exceptionally(ex -> {
+                        logger.error("Node execution failed", ex);
+                        return -1;
+                    })
+                    .thenAccept(result -> acks.add(new Ack(taskId, result)));
+        }
+    }
+
+    private List<IDagNode> buildNodes(int[] nodeIds) {
+        List<IDagNode> nodes = new ArrayList<>(nodeIds.length);
+        for (int nodeId : nodeIds) {
+            IDagNode node = nodeFactory.apply(nodeId);
+            if (node.id() != nodeId) {
+                throw new IllegalArgumentException("The node factory must preserve the id of the nodes");
+            }
+            nodes.add(node);
+        }
+        return nodes;
+    }
+
+    /**
+     * Sends the acknowledgements in batches, and a heartbeat whenever there was nothing to acknowledge for a whole
+     * heartbeat interval. Also closes the connection if the coordinator went silent.
+     */
+    private void writeMessages(DataOutputStream out) {
+        List<Ack> batch = new ArrayList<>(options.maxBatchSize());
+        try {
+            while (true) {
+                Ack first = acks.poll(options.heartbeatIntervalInMillis(), TimeUnit.MILLISECONDS);
+                if (TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastSeenNanos) > options.heartbeatTimeoutInMillis()) {
+                    logger.warn("Coordinator missed its heartbeats");
+                    close();
+                    return;
+                }
+
+                if (first == null) {
+                    out.writeByte(WireProtocol.HEARTBEAT);
+                    out.flush();
+                    continue;
+                }
+
+                batch.add(first);
+                acks.drainTo(batch, options.maxBatchSize() - 1);
+                out.writeByte(WireProtocol.ACK);
+                out.writeInt(batch.size());
+                for (Ack ack : batch) {
+                    out.writeLong(ack.taskId());
+                    out.writeInt(ack.result());
+                }
+                out.flush();
+                batch.clear();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (IOException ex) {
+            logger.warn("Failed to write to the coordinator", ex);
+        }
+    }
+}
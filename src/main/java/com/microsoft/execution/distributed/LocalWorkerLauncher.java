@@ -0,0 +1,60 @@
+package com.microsoft.execution.distributed;
+
+import com.microsoft.execution.retry.NoRetryStrategy;
+import com.microsoft.execution.retry.RetryStrategy;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.SocketAddress;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Spawns {@link DagWorker} processes on the local machine, running with the same JVM and classpath as the current
+ * process. The workers run {@link com.microsoft.model.DagNode DagNodes} built from the ids they receive: DAGs whose
+ * nodes carry their own logic need workers embedding a {@link DagWorker} with a node factory instead.
+ */
+public final class LocalWorkerLauncher {
+
+    private LocalWorkerLauncher() {
+    }
+
+    public static List<Process> launch(int numberOfWorkers, SocketAddress coordinatorAddress, int enginesPerWorker, float failureRate) throws IOException {
+        return launch(numberOfWorkers, coordinatorAddress, enginesPerWorker, failureRate, NoRetryStrategy.INSTANCE);
+    }
+
+    /**
+     * @param retryStrategy Retries of the nodes, which the workers handle.
+     */
+    public static List<Process> launch(
+            int numberOfWorkers,
+            SocketAddress coordinatorAddress,
+            int enginesPerWorker,
+            float failureRate,
+            RetryStrategy retryStrategy
+    ) throws IOException {
+        String java = ProcessHandle.current().info().command()
+                .orElse(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+
+        List<String> command = new ArrayList<>();
+        command.add(java);
+        if (ManagementFactory.getRuntimeMXBean().getInputArguments().contains("--enable-preview")) {
+            command.add("--enable-preview"); // Required to load classes compiled with preview features
+        }
+        command.addAll(List.of(
+                "-cp", System.getProperty("java.class.path"),
+                DagWorker.class.getName(),
+                WireProtocol.formatAddress(coordinatorAddress),
+                Integer.toString(enginesPerWorker),
+                Float.toString(failureRate),
+                WireProtocol.formatRetryStrategy(retryStrategy)
+        ));
+
+        List<Process> workers = new ArrayList<>(numberOfWorkers);
+        for (int i = 0; i < numberOfWorkers; i++) {
+            workers.add(new ProcessBuilder(command).inheritIO().start());
+        }
+        return workers;
+    }
+}
@@ -0,0 +1,411 @@
+package com.microsoft.execution.distributed;
+
+import com.microsoft.execution.IDagNodeExecutor;
+import com.microsoft.model.ChainDagNode;
+import com.microsoft.model.IDagNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coordinator side of distributed execution: instead of running nodes locally, it dispatches them to
+ * {@link DagWorker worker processes} connected over TCP or Unix domain sockets. Plug it into a
+ * {@link com.microsoft.execution.DagExecutor} to scale a single executor out to several processes.
+ * <p>
+ * Ready nodes are coalesced into batches and sent to the least loaded workers. Workers are monitored with heartbeats,
+ * and the nodes in flight on a worker that dies or goes silent are dispatched again to the remaining workers, so nodes
+ * are executed at least once. Retries are handled by the workers. When no worker is alive for the
+ * {@link CoordinatorOptions#workerLossGracePeriodInMillis() grace period}, the nodes waiting to be dispatched fail.
+ */
+public class RemoteDagNodeExecutor implements IDagNodeExecutor, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RemoteDagNodeExecutor.class);
+
+    private final CoordinatorOptions options;
+    private final ServerSocketChannel serverChannel;
+    private final BlockingQueue<RemoteTask> pending = new LinkedBlockingQueue<>();
+    private final List<WorkerConnection> workers = new CopyOnWriteArrayList<>();
+    private final AtomicLong nextTaskId = new AtomicLong();
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().factory());
+    private final Thread dispatcher;
+    private volatile boolean closed;
+
+    private record RemoteTask(long id, int[] nodeIds, CompletableFuture<Integer> result) {
+    }
+
+    // A message queued for the writer of a worker
+    private record Outgoing(byte type, List<RemoteTask> tasks) {
+    }
+
+    private static final Outgoing HEARTBEAT_MESSAGE = new Outgoing(WireProtocol.HEARTBEAT, List.of());
+    private static final Outgoing SHUTDOWN_MESSAGE = new Outgoing(WireProtocol.SHUTDOWN, List.of());
+
+    public RemoteDagNodeExecutor(SocketAddress bindAddress) throws IOException {
+        this(bindAddress, CoordinatorOptions.DEFAULT);
+    }
+
+    public RemoteDagNodeExecutor(SocketAddress bindAddress, CoordinatorOptions options) throws IOException {
+        this.options = options;
+        this.serverChannel = WireProtocol.bind(bindAddress);
+
+        Thread.ofVirtual().name("coordinator-acceptor").start(this::acceptWorkers);
+        this.dispatcher = Thread.ofVirtual().name("coordinator-dispatcher").start(this::dispatch);
+        heartbeats.scheduleAtFixedRate(
+                this::checkHeartbeats,
+                options.heartbeatIntervalInMillis(),
+                options.heartbeatIntervalInMillis(),
+                TimeUnit.MILLISECONDS
+        );
+    }
+
+    /**
+     * @return The address the workers must connect to.
+     */
+    public SocketAddress getAddress() throws IOException {
+        return serverChannel.getLocalAddress();
+    }
+
+    public int getAliveWorkers() {
+        return workers.size();
+    }
+
+    @Override
+    public CompletableFuture<Integer> executeAsync(IDagNode unitOfExecution) {
+        int[] nodeIds = unitOfExecution instanceof ChainDagNode chain
+                ? chain.nodes().stream().mapToInt(IDagNode::id).toArray()
+                : new int[]{unitOfExecution.id()};
+
+        RemoteTask task = new RemoteTask(nextTaskId.getAndIncrement(), nodeIds, new CompletableFuture<>());
+        if (closed) {
+            task.result().completeExceptionally(new IllegalStateException("The executor is closed"));
+        } else {
+            pending.add(task);
+        }
+        return task.result();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        heartbeats.shutdownNow();
+        dispatcher.interrupt();
+
+        List<RemoteTask> unfinished = new ArrayList<>();
+        for (WorkerConnection worker : workers) {
+            unfinished.addAll(worker.shutdown());
+        }
+        serverChannel.close();
+
+        pending.drainTo(unfinished);
+        for (RemoteTask task : unfinished) {
+            task.result().completeExceptionally(new IllegalStateException("The executor is closed"));
+        }
+    }
+
+    private void acceptWorkers() {
+        while (!closed) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                WorkerConnection worker = new WorkerConnection(channel);
+                Thread.ofVirtual().name("coordinator-worker-reader").start(() -> worker.readMessages());
+            } catch (IOException ex) {
+                if (!closed) {
+                    logger.error("Failed to accept worker connection", ex);
+                }
+            }
+        }
+    }
+
+    private void onWorkerRegistered(WorkerConnection worker) {
+        synchronized (workers) {
+            workers.add(worker);
+            workers.notifyAll();
+        }
+        logger.info("Worker {} connected. Alive workers: {}", worker.pid, workers.size());
+    }
+
+    private void onWorkerFailed(WorkerConnection worker, Collection<RemoteTask> inFlight) {
+        workers.remove(worker);
+        logger.warn("Worker {} lost with {} tasks in flight. Alive workers: {}", worker.pid, inFlight.size(), workers.size());
+
+        for (RemoteTask task : inFlight) {
+            if (!task.result().isDone()) {
+                pending.add(task); // Dispatched again to the remaining workers
+            }
+        }
+    }
+
+    private void dispatch() {
+        List<RemoteTask> batch = new ArrayList<>();
+        try {
+            while (!closed) {
+                batch.add(pending.take());
+                pending.drainTo(batch, options.maxBatchSize() - 1);
+
+                List<WorkerConnection> alive = awaitWorkers();
+                if (alive.isEmpty()) {
+                    failNoWorkerAlive(batch);
+                    continue;
+                }
+                Map<WorkerConnection, List<RemoteTask>> assignments = assign(batch, alive);
+                for (Map.Entry<WorkerConnection, List<RemoteTask>> assignment : assignments.entrySet()) {
+                    if (!assignment.getKey().send(assignment.getValue())) {
+                        pending.addAll(assignment.getValue());
+                    }
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return The alive workers, or an empty list if none connected within the grace period.
+     */
+    private List<WorkerConnection> awaitWorkers() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(options.workerLossGracePeriodInMillis());
+        synchronized (workers) {
+            while (workers.isEmpty()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return List.of();
+                }
+                TimeUnit.NANOSECONDS.timedWait(workers, remaining);
+            }
+            return List.copyOf(workers);
+        }
+    }
+
+    /**
+     * Fails the batch along with every task waiting behind it, which would otherwise wait for a worker forever.
+     */
+    private void failNoWorkerAlive(List<RemoteTask> batch) {
+        pending.drainTo(batch);
+        logger.error("No worker alive for {} ms, failing {} tasks", options.workerLossGracePeriodInMillis(), batch.size());
+        for (RemoteTask task : batch) {
+            task.result().completeExceptionally(new IllegalStateException("No worker is alive"));
+        }
+        batch.clear();
+    }
+
+    /**
+     * Spreads the batch over the workers, always picking the one with the fewest tasks in flight.
+     */
+    private static Map<WorkerConnection, List<RemoteTask>> assign(List<RemoteTask> batch, List<WorkerConnection> workers) {
+        PriorityQueue<Map.Entry<WorkerConnection, Integer>> load = new PriorityQueue<>(Map.Entry.comparingByValue());
+        for (WorkerConnection worker : workers) {
+            load.add(new AbstractMap.SimpleEntry<>(worker, worker.inFlight.size()));
+        }
+
+        Map<WorkerConnection, List<RemoteTask>> assignments = new HashMap<>();
+        for (RemoteTask task : batch) {
+            Map.Entry<WorkerConnection, Integer> leastLoaded = load.poll();
+            assignments.computeIfAbsent(leastLoaded.getKey(), _ -> new ArrayList<>()).add(task);
+            load.add(new AbstractMap.SimpleEntry<>(leastLoaded.getKey(), leastLoaded.getValue() + 1));
+        }
+        return assignments;
+    }
+
+    private void checkHeartbeats() {
+        long now = System.nanoTime();
+        for (WorkerConnection worker : workers) {
+            if (TimeUnit.NANOSECONDS.toMillis(now - worker.lastSeenNanos) > options.heartbeatTimeoutInMillis()) {
+                logger.warn("Worker {} missed its heartbeats", worker.pid);
+                worker.fail();
+            } else {
+                worker.sendHeartbeat();
+            }
+        }
+    }
+
+    private final class WorkerConnection {
+
+        private final SocketChannel channel;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+        private final Map<Long, RemoteTask> inFlight = new ConcurrentHashMap<>();
+        private final BlockingQueue<Outgoing> outbox = new LinkedBlockingQueue<>();
+        private volatile Thread writer;
+        private volatile long lastSeenNanos = System.nanoTime();
+        private long pid;
+        private boolean alive = true; // Guarded by this
+
+        WorkerConnection(SocketChannel channel) {
+            this.channel = channel;
+            this.in = WireProtocol.input(channel);
+            this.out = WireProtocol.output(channel);
+        }
+
+        void readMessages() {
+            try {
+                if (in.readByte() != WireProtocol.HELLO) {
+                    throw new IOException("Expected HELLO from worker");
+                }
+                pid = in.readLong();
+                lastSeenNanos = System.nanoTime();
+                writer = Thread.ofVirtual().name("coordinator-worker-writer").start(this::writeMessages);
+                onWorkerRegistered(this);
+
+                while (true) {
+                    byte type = in.readByte();
+                    lastSeenNanos = System.nanoTime();
+                    switch (type) {
+                        case WireProtocol.ACK -> readAcks();
+                        case WireProtocol.HEARTBEAT -> {
+                        }
+                        default -> throw new IOException("Unexpected message type " + type);
+                    }
+                }
+            } catch (EOFException ex) {
+                fail();
+            } catch (IOException ex) {
+                if (!closed) {
+                    logger.warn("Lost connection with worker {}", pid, ex);
+                }
+                fail();
+            }
+        }
+
+        private void readAcks() throws IOException {
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                long taskId = in.readLong();
+                int result = in.readInt();
+                RemoteTask task = inFlight.remove(taskId);
+                if (task != null) {
+                    task.result().complete(result);
+                }
+            }
+        }
+
+        /**
+         * @return false if the worker is dead and the tasks must be dispatched elsewhere.
+         */
+        boolean send(List<RemoteTask> tasks) {
+            synchronized (this) {
+                if (!alive) {
+                    return false;
+                }
+                for (RemoteTask task : tasks) {
+                    inFlight.put(task.id(), task);
+                }
+                outbox.add(new Outgoing(WireProtocol.DISPATCH, tasks));
+                return true;
+            }
+        }
+
+        /**
+         * Queues a heartbeat unless messages are already on their way, which the worker takes as heartbeats as well.
+         */
+        void sendHeartbeat() {
+            synchronized (this) {
+                if (alive && outbox.isEmpty()) {
+                    outbox.add(HEARTBEAT_MESSAGE);
+                }
+            }
+        }
+
+        /**
+         * Writes the queued messages, so that a worker that stopped reading only blocks its own writer: the heartbeats
+         * still detect it, and failing it closes the channel under the blocked write.
+         */
+        private void writeMessages() {
+            try {
+                while (true) {
+                    Outgoing message = outbox.take();
+                    out.writeByte(message.type());
+                    if (message.type() == WireProtocol.DISPATCH) {
+                        out.writeInt(message.tasks().size());
+                        for (RemoteTask task : message.tasks()) {
+                            out.writeLong(task.id());
+                            out.writeInt(task.nodeIds().length);
+                            for (int nodeId : task.nodeIds()) {
+                                out.writeInt(nodeId);
+                            }
+                        }
+                    }
+                    if (outbox.isEmpty() || message == SHUTDOWN_MESSAGE) {
+                        out.flush(); // Coalesces the messages queued meanwhile
+                    }
+                    if (message == SHUTDOWN_MESSAGE) {
+                        return;
+                    }
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (IOException ex) {
+                if (!closed) {
+                    logger.warn("Failed to write to worker {}", pid, ex);
+                }
+                fail(); // The tasks were registered as in flight, so they are dispatched again
+            }
+        }
+
+        /**
+         * @return The tasks in flight on the worker, which it will never acknowledge.
+         */
+        List<RemoteTask> shutdown() {
+            List<RemoteTask> unfinished;
+            boolean wasAlive;
+            synchronized (this) {
+                wasAlive = alive;
+                if (alive) {
+                    outbox.add(SHUTDOWN_MESSAGE);
+                }
+                alive = false;
+                unfinished = new ArrayList<>(inFlight.values());
+                inFlight.clear();
+            }
+
+            Thread currentWriter = writer;
+            if (wasAlive && currentWriter != null) {
+                try {
+                    // Gives the writer a chance to tell the worker, unless it is stuck writing
+                    currentWriter.join(options.heartbeatTimeoutInMillis());
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            closeChannel();
+            return unfinished;
+        }
+
+        void fail() {
+            List<RemoteTask> lost;
+            synchronized (this) {
+                if (!alive) {
+                    return;
+                }
+                alive = false;
+                lost = new ArrayList<>(inFlight.values());
+                inFlight.clear();
+            }
+
+            closeChannel();
+            onWorkerFailed(this, lost);
+        }
+
+        private void closeChannel() {
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                logger.warn("Failed to close connection with worker {}", pid, ex);
+            }
+            Thread currentWriter = writer;
+            if (currentWriter != null) {
+                currentWriter.interrupt(); // Stops waiting for messages that will never be sent
+            }
+        }
+    }
+}
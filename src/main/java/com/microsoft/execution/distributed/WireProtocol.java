@@ -0,0 +1,145 @@
+package com.microsoft.execution.distributed;
+
+import com.microsoft.execution.retry.*;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+
+/**
+ * Binary protocol between the coordinator and its workers. Every message starts with a one byte type:
+ * <pre>
+ * HELLO      worker -> coordinator   long pid
+ * DISPATCH   coordinator -> worker   int taskCount, taskCount * (long taskId, int nodeCount, nodeCount * int nodeId)
+ * ACK        worker -> coordinator   int ackCount, ackCount * (long taskId, int result)
+ * HEARTBEAT  both directions         (no payload)
+ * SHUTDOWN   coordinator -> worker   (no payload)
+ * </pre>
+ * A task with more than one node is a fused chain, executed in order by the worker.
+ */
+final class WireProtocol {
+
+    static final byte HELLO = 1;
+    static final byte DISPATCH = 2;
+    static final byte ACK = 3;
+    static final byte HEARTBEAT = 4;
+    static final byte SHUTDOWN = 5;
+
+    private static final String TCP_PREFIX = "tcp:";
+    private static final String UNIX_PREFIX = "unix:";
+
+    private WireProtocol() {
+    }
+
+    /**
+     * Parses an address of the form {@code tcp:host:port} or {@code unix:/path/to/socket}.
+     */
+    static SocketAddress parseAddress(String address) {
+        if (address.startsWith(UNIX_PREFIX)) {
+            return UnixDomainSocketAddress.of(address.substring(UNIX_PREFIX.length()));
+        }
+
+        if (address.startsWith(TCP_PREFIX)) {
+            String hostAndPort = address.substring(TCP_PREFIX.length());
+            int separator = hostAndPort.lastIndexOf(':');
+            if (separator > 0) {
+                return new InetSocketAddress(hostAndPort.substring(0, separator), Integer.parseInt(hostAndPort.substring(separator + 1)));
+            }
+        }
+
+        throw new IllegalArgumentException("Invalid address: " + address);
+    }
+
+    static String formatAddress(SocketAddress address) {
+        return switch (address) {
+            case UnixDomainSocketAddress unix -> UNIX_PREFIX + unix.getPath();
+            case InetSocketAddress inet -> TCP_PREFIX + inet.getHostString() + ":" + inet.getPort();
+            default -> throw new IllegalArgumentException("Unsupported address: " + address);
+        };
+    }
+
+    /**
+     * Parses a retry strategy of the form {@code none}, {@code timed:maxRetries:delayInMillis},
+     * {@code exponential:maxRetries:baseDelayInMillis:multiplier} or {@code infinite:delayInMillis}, so the workers
+     * launched as processes retry as the coordinator was configured to.
+     */
+    static RetryStrategy parseRetryStrategy(String retryStrategy) {
+        String[] parts = retryStrategy.split(":");
+        try {
+            return switch (parts[0]) {
+                case "none" -> NoRetryStrategy.INSTANCE;
+                case "timed" -> new TimedRetryStrategy(Integer.parseInt(parts[1]), Long.parseLong(parts[2]));
+                case "exponential" -> new ExponentialBackoffRetryStrategy(Integer.parseInt(parts[1]), Long.parseLong(parts[2]), Float.parseFloat(parts[3]));
+                case "infinite" -> new InfiteRetryStrategy(Long.parseLong(parts[1]));
+                default -> throw new IllegalArgumentException("Invalid retry strategy: " + retryStrategy);
+            };
+        } catch (ArrayIndexOutOfBoundsException ex) {
+            throw new IllegalArgumentException("Invalid retry strategy: " + retryStrategy, ex);
+        }
+    }
+
+    static String formatRetryStrategy(RetryStrategy retryStrategy) {
+        return switch (retryStrategy) {
+            case NoRetryStrategy _ -> "none";
+            case TimedRetryStrategy timed -> "timed:" + timed.maxRetries() + ":" + timed.delayInMillis();
+            case ExponentialBackoffRetryStrategy exponential ->
+                    "exponential:" + exponential.maxRetries() + ":" + exponential.baseDelayInMillis() + ":" + exponential.multiplier();
+            case InfiteRetryStrategy infinite -> "infinite:" + infinite.delayInMillis();
+        };
+    }
+
+    static ServerSocketChannel bind(SocketAddress address) throws IOException {
+        if (address instanceof UnixDomainSocketAddress unix) {
+            Path path = unix.getPath();
+            ServerSocketChannel channel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            path.toFile().deleteOnExit();
+            return channel.bind(unix);
+        }
+
+        return ServerSocketChannel.open().bind(address);
+    }
+
+    static SocketChannel connect(SocketAddress address) throws IOException {
+        return SocketChannel.open(address);
+    }
+
+    // The streams go straight to the channel, which lets one thread block on reads while others write
+
+    static DataInputStream input(SocketChannel channel) {
+        return new DataInputStream(new BufferedInputStream(new InputStream() {
+            @Override
+            public int read() throws IOException {
+                byte[] buffer = new byte[1];
+                return read(buffer, 0, 1) < 0 ? -1 : buffer[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] bytes, int offset, int length) throws IOException {
+                return channel.read(ByteBuffer.wrap(bytes, offset, length));
+            }
+        }));
+    }
+
+    static DataOutputStream output(SocketChannel channel) {
+        return new DataOutputStream(new BufferedOutputStream(new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes, offset, length);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        }));
+    }
+}
@@ -0,0 +1,12 @@
+package com.microsoft.execution.events;
+
+/**
+ * A change in the lifecycle of a node of a DAG run.
+ *
+ * @param type            What happened to the node.
+ * @param nodeId          The id of the node.
+ * @param attempt         The attempt the event refers to, starting from 0. Always 0 for {@link NodeEventType#READY}.
+ * @param timestampNanos  When the event happened, as returned by {@link System#nanoTime()}.
+ */
+public record NodeEvent(NodeEventType type, int nodeId, int attempt, long timestampNanos) {
+}
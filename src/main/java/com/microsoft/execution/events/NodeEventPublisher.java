@@ -0,0 +1,251 @@
+package com.microsoft.execution.events;
+
+import com.microsoft.execution.NodeExecutionListener;
+import com.microsoft.model.IDagNode;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the lifecycle events of the nodes of a single DAG run. Every subscriber gets its own bounded buffer, and
+ * events are delivered on a separate thread as the subscriber requests them. Publishing never blocks: when the buffer
+ * of a slow subscriber is full, the {@link OverflowPolicy} decides which events are lost.
+ * <p>
+ * Subscribe before handing the publisher to {@link com.microsoft.execution.IDagExecutor#processRequestAsync}, so no
+ * event is missed. Subscribers are completed once the DAG run finishes.
+ */
+public class NodeEventPublisher implements Flow.Publisher<NodeEvent>, NodeExecutionListener, AutoCloseable {
+
+    private final int bufferSize;
+    private final OverflowPolicy overflowPolicy;
+    private final Executor deliveryExecutor;
+    private final List<EventSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private volatile boolean closed;
+
+    public NodeEventPublisher(int bufferSize, OverflowPolicy overflowPolicy) {
+        this(bufferSize, overflowPolicy, task -> Thread.ofVirtual().start(task));
+    }
+
+    public NodeEventPublisher(int bufferSize, OverflowPolicy overflowPolicy, Executor deliveryExecutor) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("bufferSize must be greater than 0");
+        }
+        this.bufferSize = bufferSize;
+        this.overflowPolicy = overflowPolicy;
+        this.deliveryExecutor = deliveryExecutor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super NodeEvent> subscriber) {
+        EventSubscription subscription = new EventSubscription(subscriber);
+        subscriptions.add(subscription);
+        subscriber.onSubscribe(subscription);
+        if (closed) {
+            subscription.complete();
+        }
+    }
+
+    /**
+     * @return The number of events that were dropped or conflated across all subscribers.
+     */
+    public long getDroppedEvents() {
+        return subscriptions.stream().mapToLong(subscription -> subscription.dropped.get()).sum();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        subscriptions.forEach(EventSubscription::complete);
+    }
+
+    @Override
+    public void onNodeReady(IDagNode node) {
+        publish(new NodeEvent(NodeEventType.READY, node.id(), 0, System.nanoTime()));
+    }
+
+    @Override
+    public void onNodeStarted(IDagNode node, int attempt) {
+        publish(new NodeEvent(NodeEventType.STARTED, node.id(), attempt, System.nanoTime()));
+    }
+
+    @Override
+    public void onNodeRetrying(IDagNode node, int attempt, long delayInMillis, Throwable cause) {
+        publish(new NodeEvent(NodeEventType.RETRYING, node.id(), attempt, System.nanoTime()));
+    }
+
+    @Override
+    public void onNodeSucceeded(IDagNode node, int attempt) {
+        publish(new NodeEvent(NodeEventType.SUCCEEDED, node.id(), attempt, System.nanoTime()));
+    }
+
+    @Override
+    public void onNodeFailed(IDagNode node, int attempt, Throwable cause) {
+        publish(new NodeEvent(NodeEventType.FAILED, node.id(), attempt, System.nanoTime()));
+    }
+
+    private void publish(NodeEvent event) {
+        for (EventSubscription subscription : subscriptions) {
+            subscription.offer(event);
+        }
+    }
+
+    private class EventSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super NodeEvent> subscriber;
+        private final Queue<NodeEvent> buffer = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger buffered = new AtomicInteger();
+        private final Map<Integer, NodeEvent> conflated = new ConcurrentHashMap<>();
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        // Number of pending signals. Only the thread that moves it away from 0 runs the delivery loop.
+        private final AtomicInteger pendingSignals = new AtomicInteger();
+        private volatile boolean completed;
+        private volatile boolean cancelled;
+        private volatile Throwable error; // Signalled by the delivery loop, never concurrently with onNext
+        private boolean terminated; // Only accessed by the delivery loop
+
+        EventSubscription(Flow.Subscriber<? super NodeEvent> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        void offer(NodeEvent event) {
+            if (cancelled) {
+                return;
+            }
+
+            // Until the conflated events are delivered, newer ones join them, or they would overtake them
+            if (overflowPolicy == OverflowPolicy.CONFLATE && !conflated.isEmpty()) {
+                conflate(event);
+            } else if (reserveSlot()) {
+                buffer.add(event);
+            } else {
+                switch (overflowPolicy) {
+                    case DROP_NEWEST -> dropped.incrementAndGet();
+                    case DROP_OLDEST -> replaceOldest(event);
+                    case CONFLATE -> conflate(event);
+                }
+            }
+
+            signal();
+        }
+
+        /**
+         * Counts the event in the buffer before adding it, so concurrent publishers never fill it beyond its size.
+         */
+        private boolean reserveSlot() {
+            int current;
+            do {
+                current = buffered.get();
+                if (current >= bufferSize) {
+                    return false;
+                }
+            } while (!buffered.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        private void replaceOldest(NodeEvent event) {
+            while (true) {
+                // The slot of the oldest event goes to the new one, so the count doesn't change
+                if (buffer.poll() != null) {
+                    dropped.incrementAndGet();
+                    buffer.add(event);
+                    return;
+                }
+                // The buffer is only counted as full while another thread is between its count and the queue
+                if (reserveSlot()) {
+                    buffer.add(event);
+                    return;
+                }
+                Thread.onSpinWait();
+            }
+        }
+
+        private void conflate(NodeEvent event) {
+            if (conflated.put(event.nodeId(), event) != null) {
+                dropped.incrementAndGet();
+            }
+        }
+
+        void complete() {
+            completed = true;
+            signal();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                error = new IllegalArgumentException("The number of requested events must be positive");
+                cancel();
+                signal();
+                return;
+            }
+
+            demand.accumulateAndGet(n, (current, requested) -> current + requested < 0 ? Long.MAX_VALUE : current + requested);
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+            buffer.clear();
+            conflated.clear();
+        }
+
+        private void signal() {
+            if (pendingSignals.getAndIncrement() == 0) {
+                deliveryExecutor.execute(this::deliver);
+            }
+        }
+
+        private void deliver() {
+            int signals = pendingSignals.get();
+            do {
+                while (!cancelled && !terminated && demand.get() > 0) {
+                    NodeEvent event = poll();
+                    if (event == null) {
+                        break;
+                    }
+
+                    demand.decrementAndGet();
+                    try {
+                        subscriber.onNext(event);
+                    } catch (RuntimeException ex) {
+                        error = ex;
+                        cancel();
+                    }
+                }
+
+                if (error != null && !terminated) {
+                    terminated = true;
+                    subscriber.onError(error);
+                } else if (completed && !cancelled && !terminated && buffer.isEmpty() && conflated.isEmpty()) {
+                    terminated = true;
+                    subscriber.onComplete();
+                }
+
+                signals = pendingSignals.addAndGet(-signals);
+            } while (signals != 0);
+        }
+
+        private NodeEvent poll() {
+            NodeEvent event = buffer.poll();
+            if (event != null) {
+                buffered.decrementAndGet();
+                return event;
+            }
+
+            // Events are only buffered again once the conflated ones are delivered, so the conflated ones are the newest
+            for (Map.Entry<Integer, NodeEvent> entry : conflated.entrySet()) {
+                if (conflated.remove(entry.getKey(), entry.getValue())) {
+                    return entry.getValue();
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.microsoft.execution.events;
+
+public enum NodeEventType {
+    READY,
+    STARTED,
+    RETRYING,
+    SUCCEEDED,
+    FAILED
+}
@@ -0,0 +1,22 @@
+package com.microsoft.execution.events;
+
+/**
+ * What a {@link NodeEventPublisher} does with new events when the buffer of a slow subscriber is full.
+ */
+public enum OverflowPolicy {
+    /**
+     * The new event is discarded.
+     */
+    DROP_NEWEST,
+
+    /**
+     * The oldest buffered event is discarded to make room for the new one.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Only the latest event of every node is kept until the subscriber catches up, so the subscriber always ends up
+     * with the current state of every node.
+     */
+    CONFLATE
+}
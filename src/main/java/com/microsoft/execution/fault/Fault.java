@@ -0,0 +1,18 @@
+package com.microsoft.execution.fault;
+
+/**
+ * What is injected into an attempt of a node.
+ *
+ * @param latencyInMillis How long the engine waits before running the attempt, as a slow node would hold it.
+ * @param fails           Whether the attempt fails instead of running the node.
+ */
+public record Fault(long latencyInMillis, boolean fails) {
+
+    public static final Fault NONE = new Fault(0, false);
+
+    public Fault {
+        if (latencyInMillis < 0) {
+            throw new IllegalArgumentException("latencyInMillis must be greater than or equal to 0");
+        }
+    }
+}
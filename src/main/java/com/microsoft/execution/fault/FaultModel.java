@@ -0,0 +1,135 @@
+package com.microsoft.execution.fault;
+
+import com.microsoft.model.IDagNode;
+import com.microsoft.simulation.INodeDurationModel;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Injects failures and latency drawn from seeded distributions.
+ * <p>
+ * The random numbers of every attempt are derived from the seed, the run, the id of the node and the attempt, rather
+ * than drawn from a shared generator: the engines never contend on it, and a run injects the same faults into the same
+ * attempts whatever the order the engines run them in. Runs of the same DAG get different faults, and the same
+ * sequence of runs gets the same ones.
+ *
+ * @param seed               Seeds the random numbers: the same seed injects the same faults.
+ * @param failureRate        The probability of an attempt failing, for the nodes without a more specific rate.
+ * @param failureRateByNode  The probability of an attempt failing, by {@link IDagNode#key() key} of the node, falling
+ *                           back to its id.
+ * @param failureRateByClass The probability of an attempt failing, by class of the node.
+ * @param latency            The latency added to every attempt. {@code null} adds none.
+ * @param windows            Periods with more failures or latency, on top of the rates above.
+ */
+public record FaultModel(
+        long seed,
+        double failureRate,
+        Map<String, Double> failureRateByNode,
+        Map<Class<?>, Double> failureRateByClass,
+        INodeDurationModel latency,
+        List<FaultWindow> windows
+) implements IFaultInjector {
+
+    public static final FaultModel DEFAULT = new FaultModel(0, 0, Map.of(), Map.of(), null, List.of());
+
+    public FaultModel {
+        validateRate(failureRate);
+        failureRateByNode.values().forEach(FaultModel::validateRate);
+        failureRateByClass.values().forEach(FaultModel::validateRate);
+        failureRateByNode = Map.copyOf(failureRateByNode);
+        failureRateByClass = Map.copyOf(failureRateByClass);
+        windows = List.copyOf(windows);
+    }
+
+    private static void validateRate(double failureRate) {
+        if (failureRate < 0 || failureRate > 1) {
+            throw new IllegalArgumentException("failureRate must be between 0 and 1");
+        }
+    }
+
+    public FaultModel withSeed(long seed) {
+        return new FaultModel(seed, failureRate, failureRateByNode, failureRateByClass, latency, windows);
+    }
+
+    public FaultModel withFailureRate(double failureRate) {
+        return new FaultModel(seed, failureRate, failureRateByNode, failureRateByClass, latency, windows);
+    }
+
+    /**
+     * @param node The {@link IDagNode#key() key} of the node, or its id if it has none.
+     */
+    public FaultModel withFailureRate(String node, double failureRate) {
+        Map<String, Double> rates = new HashMap<>(failureRateByNode);
+        rates.put(node, failureRate);
+        return new FaultModel(seed, this.failureRate, rates, failureRateByClass, latency, windows);
+    }
+
+    public FaultModel withFailureRate(Class<? extends IDagNode> nodeClass, double failureRate) {
+        Map<Class<?>, Double> rates = new HashMap<>(failureRateByClass);
+        rates.put(nodeClass, failureRate);
+        return new FaultModel(seed, this.failureRate, failureRateByNode, rates, latency, windows);
+    }
+
+    public FaultModel withLatency(INodeDurationModel latency) {
+        return new FaultModel(seed, failureRate, failureRateByNode, failureRateByClass, latency, windows);
+    }
+
+    public FaultModel withWindow(FaultWindow window) {
+        List<FaultWindow> allWindows = new ArrayList<>(windows);
+        allWindows.add(window);
+        return new FaultModel(seed, failureRate, failureRateByNode, failureRateByClass, latency, allWindows);
+    }
+
+    @Override
+    public Fault sample(IDagNode node, int attempt, long runId, long elapsedInMillis) {
+        double attemptFailureRate = failureRateOf(node);
+        long latencyInMillis = 0;
+        for (FaultWindow window : windows) {
+            if (window.isOpen(elapsedInMillis)) {
+                // Independent causes: the attempt survives only if it survives all of them
+                attemptFailureRate = 1 - (1 - attemptFailureRate) * (1 - window.failureRate());
+                latencyInMillis += window.latencyInMillis();
+            }
+        }
+        if (attemptFailureRate == 0 && latency == null && latencyInMillis == 0) {
+            return Fault.NONE;
+        }
+
+        long nodeAttempt = ((long) node.id() << 32) | (attempt & 0xFFFFFFFFL);
+        SplittableRandom random = new SplittableRandom(mix(seed + mix(nodeAttempt + mix(runId))));
+        boolean fails = attemptFailureRate > 0 && random.nextDouble() < attemptFailureRate;
+        if (latency != null) {
+            latencyInMillis += Math.round(latency.sampleDurationInMillis(node, random));
+        }
+        return latencyInMillis == 0 && !fails ? Fault.NONE : new Fault(latencyInMillis, fails);
+    }
+
+    private double failureRateOf(IDagNode node) {
+        if (!failureRateByNode.isEmpty()) {
+            Double rate = failureRateByNode.get(node.key() != null ? node.key() : String.valueOf(node.id()));
+            if (rate != null) {
+                return rate;
+            }
+        }
+        if (!failureRateByClass.isEmpty()) {
+            for (Class<?> nodeClass = node.getClass(); nodeClass != null; nodeClass = nodeClass.getSuperclass()) {
+                Double rate = failureRateByClass.get(nodeClass);
+                if (rate != null) {
+                    return rate;
+                }
+            }
+        }
+        return failureRate;
+    }
+
+    // The finalizer of SplitMix64, which spreads the bits of consecutive ids over the whole seed.
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,62 @@
+package com.microsoft.execution.fault;
+
+/**
+ * A period during which the attempts fail more often, or are slower, than usual: an outage of a dependency, or a burst
+ * of errors.
+ *
+ * @param startInMillis    When the window opens, relative to the creation of the node executor.
+ * @param durationInMillis How long the window stays open.
+ * @param periodInMillis   How often the window opens again, or 0 if it only opens once.
+ * @param failureRate      The probability of every attempt failing while the window is open.
+ * @param latencyInMillis  The latency added to every attempt while the window is open.
+ */
+public record FaultWindow(
+        long startInMillis,
+        long durationInMillis,
+        long periodInMillis,
+        double failureRate,
+        long latencyInMillis
+) {
+
+    public FaultWindow {
+        if (startInMillis < 0 || durationInMillis <= 0) {
+            throw new IllegalArgumentException("The window must start at or after 0 and last more than 0ms");
+        }
+        if (periodInMillis < 0 || (periodInMillis > 0 && periodInMillis < durationInMillis)) {
+            throw new IllegalArgumentException("periodInMillis must be 0, or at least durationInMillis");
+        }
+        if (failureRate < 0 || failureRate > 1) {
+            throw new IllegalArgumentException("failureRate must be between 0 and 1");
+        }
+        if (latencyInMillis < 0) {
+            throw new IllegalArgumentException("latencyInMillis must be greater than or equal to 0");
+        }
+    }
+
+    /**
+     * Every attempt fails while the window is open.
+     */
+    public static FaultWindow outage(long startInMillis, long durationInMillis) {
+        return new FaultWindow(startInMillis, durationInMillis, 0, 1, 0);
+    }
+
+    public static FaultWindow burst(long startInMillis, long durationInMillis, double failureRate) {
+        return new FaultWindow(startInMillis, durationInMillis, 0, failureRate, 0);
+    }
+
+    public static FaultWindow slowdown(long startInMillis, long durationInMillis, long latencyInMillis) {
+        return new FaultWindow(startInMillis, durationInMillis, 0, 0, latencyInMillis);
+    }
+
+    public FaultWindow withPeriodInMillis(long periodInMillis) {
+        return new FaultWindow(startInMillis, durationInMillis, periodInMillis, failureRate, latencyInMillis);
+    }
+
+    public boolean isOpen(long elapsedInMillis) {
+        long sinceStart = elapsedInMillis - startInMillis;
+        if (sinceStart < 0) {
+            return false;
+        }
+        return (periodInMillis > 0 ? sinceStart % periodInMillis : sinceStart) < durationInMillis;
+    }
+}
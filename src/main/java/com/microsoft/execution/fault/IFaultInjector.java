@@ -0,0 +1,24 @@
+package com.microsoft.execution.fault;
+
+import com.microsoft.model.IDagNode;
+
+/**
+ * Decides which attempts of the nodes a {@link com.microsoft.execution.DagNodeExecutor} fails or slows down, to test
+ * the scheduler under realistic conditions. Called concurrently by the engines, so implementations must be
+ * thread-safe, and should not share mutable state to stay contention-free.
+ */
+@FunctionalInterface
+public interface IFaultInjector {
+
+    IFaultInjector NONE = (_, _, _, _) -> Fault.NONE;
+
+    /**
+     * @param node            The node about to be attempted.
+     * @param attempt         The attempt, numbered from 0.
+     * @param runId           The {@link com.microsoft.execution.NodeExecutionListener#runId() run} of the node, 0 if
+     *                        unknown.
+     * @param elapsedInMillis Time since the node executor was created, on its virtual clock if it has one.
+     * @return What to inject into the attempt.
+     */
+    Fault sample(IDagNode node, int attempt, long runId, long elapsedInMillis);
+}
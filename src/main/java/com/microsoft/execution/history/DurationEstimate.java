@@ -0,0 +1,13 @@
+package com.microsoft.execution.history;
+
+/**
+ * What the history knows about the duration of a node.
+ *
+ * @param samples      Number of successful executions recorded.
+ * @param ewmaInMillis Exponentially weighted moving average of the durations, favoring the recent executions.
+ * @param p50InMillis  Median duration.
+ * @param p90InMillis  90th percentile of the durations.
+ * @param p99InMillis  99th percentile of the durations.
+ */
+public record DurationEstimate(long samples, double ewmaInMillis, double p50InMillis, double p90InMillis, double p99InMillis) {
+}
@@ -0,0 +1,28 @@
+package com.microsoft.execution.history;
+
+/**
+ * @param ewmaAlpha           Weight of every new duration in the moving average, between 0 (exclusive) and 1.
+ * @param compactionThreshold Records appended to the history file before it is compacted into one record per node.
+ *                            With more nodes than that, the file is compacted after as many records as nodes.
+ */
+public record DurationHistoryOptions(double ewmaAlpha, int compactionThreshold) {
+
+    public static final DurationHistoryOptions DEFAULT = new DurationHistoryOptions(0.2, 10_000);
+
+    public DurationHistoryOptions {
+        if (ewmaAlpha <= 0 || ewmaAlpha > 1) {
+            throw new IllegalArgumentException("ewmaAlpha must be greater than 0 and less than or equal to 1");
+        }
+        if (compactionThreshold <= 0) {
+            throw new IllegalArgumentException("compactionThreshold must be greater than 0");
+        }
+    }
+
+    public DurationHistoryOptions withEwmaAlpha(double ewmaAlpha) {
+        return new DurationHistoryOptions(ewmaAlpha, compactionThreshold);
+    }
+
+    public DurationHistoryOptions withCompactionThreshold(int compactionThreshold) {
+        return new DurationHistoryOptions(ewmaAlpha, compactionThreshold);
+    }
+}
@@ -0,0 +1,253 @@
+package com.microsoft.execution.history;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Persists how long the nodes took across runs: for every node an exponentially weighted moving average and a
+ * {@link DurationSketch quantile sketch} of its durations.
+ * <p>
+ * Durations are recorded asynchronously on a single writer thread, which appends them to the history file. Once enough
+ * records were appended, the file is compacted into a single record per node and atomically replaces the old one.
+ * A record torn by a crash is dropped the next time the file is opened. Estimates are read without blocking the
+ * writer.
+ */
+public class DurationHistoryStore implements IDurationEstimator, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(DurationHistoryStore.class);
+
+    private static final int MAGIC = 0x44485331; // "DHS1"
+    private static final byte SAMPLE = 1;
+    private static final byte SNAPSHOT = 2;
+
+    private final Path file;
+    private final DurationHistoryOptions options;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().daemon().name("duration-history").factory()
+    );
+    private final ConcurrentHashMap<String, DurationEstimate> estimates = new ConcurrentHashMap<>();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    // Only accessed by the writer thread once opened
+    private final Map<String, NodeHistory> histories = new HashMap<>();
+    private DataOutputStream out;
+    private long appendedSinceCompaction;
+
+    private DurationHistoryStore(Path file, DurationHistoryOptions options) {
+        this.file = file;
+        this.options = options;
+    }
+
+    public static DurationHistoryStore open(Path file) throws IOException {
+        return open(file, DurationHistoryOptions.DEFAULT);
+    }
+
+    /**
+     * Opens the history file, creating it if it doesn't exist.
+     */
+    public static DurationHistoryStore open(Path file, DurationHistoryOptions options) throws IOException {
+        DurationHistoryStore store = new DurationHistoryStore(file, options);
+        store.load();
+        return store;
+    }
+
+    @Override
+    public Optional<DurationEstimate> estimate(String nodeIdentity) {
+        return Optional.ofNullable(estimates.get(nodeIdentity));
+    }
+
+    /**
+     * Records the durations of a run.
+     *
+     * @param durationsInMillis The duration of every node that completed, by node key.
+     * @return Completes once the durations are appended to the history file, or exceptionally if the store is closed.
+     */
+    public CompletableFuture<Void> recordAsync(Map<String, Double> durationsInMillis) {
+        Map<String, Double> durations = Map.copyOf(durationsInMillis);
+        return submit(() -> {
+            try {
+                append(durations);
+            } catch (IOException ex) {
+                logger.error("Failed to record the durations in {}", file, ex);
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+
+    /**
+     * Compacts the history file into a single record per node, without waiting for enough records to be appended.
+     */
+    public CompletableFuture<Void> compactAsync() {
+        return submit(() -> {
+            try {
+                compact();
+            } catch (IOException ex) {
+                logger.error("Failed to compact {}", file, ex);
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+
+    // A DAG run may complete after the store was closed: its durations are dropped rather than failing the run
+    private CompletableFuture<Void> submit(Runnable task) {
+        try {
+            return CompletableFuture.runAsync(task, writer);
+        } catch (RejectedExecutionException ex) {
+            logger.warn("Dropped a write to {}, which is closed", file);
+            return CompletableFuture.failedFuture(new IllegalStateException("The duration history is closed", ex));
+        }
+    }
+
+    /**
+     * Waits for the pending durations to be written, and closes the history file. Closing the store again only waits
+     * for the first close to complete.
+     */
+    @Override
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            writer.execute(() -> {
+                try {
+                    out.close();
+                } catch (IOException ex) {
+                    logger.error("Failed to close {}", file, ex);
+                }
+            });
+            writer.shutdown();
+        }
+        try {
+            writer.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void load() throws IOException {
+        boolean isTorn = false;
+        if (Files.exists(file) && Files.size(file) > 0) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                if (in.readInt() != MAGIC) {
+                    throw new IOException("Not a duration history file: " + file);
+                }
+
+                int type;
+                while ((type = in.read()) != -1) {
+                    String identity = in.readUTF();
+                    switch (type) {
+                        case SAMPLE -> {
+                            double durationInMillis = in.readDouble();
+                            histories.computeIfAbsent(identity, _ -> new NodeHistory()).add(durationInMillis, options.ewmaAlpha());
+                        }
+                        case SNAPSHOT -> histories.put(identity, NodeHistory.readFrom(in));
+                        default -> throw new IOException("Unknown record type " + type + " in " + file);
+                    }
+                    appendedSinceCompaction++;
+                }
+            } catch (EOFException ex) {
+                logger.warn("Dropping the torn record at the end of {}", file);
+                isTorn = true;
+            }
+        } else {
+            isTorn = true; // Write the header
+        }
+
+        histories.forEach((identity, history) -> estimates.put(identity, history.estimate()));
+
+        if (isTorn) {
+            compact();
+        } else {
+            out = openForAppend();
+        }
+    }
+
+    private void append(Map<String, Double> durations) throws IOException {
+        for (Map.Entry<String, Double> entry : durations.entrySet()) {
+            NodeHistory history = histories.computeIfAbsent(entry.getKey(), _ -> new NodeHistory());
+            history.add(entry.getValue(), options.ewmaAlpha());
+            estimates.put(entry.getKey(), history.estimate());
+
+            out.writeByte(SAMPLE);
+            out.writeUTF(entry.getKey());
+            out.writeDouble(entry.getValue());
+            appendedSinceCompaction++;
+        }
+        out.flush();
+
+        // Compacting after at least as many appends as there are nodes keeps its cost constant per append
+        if (appendedSinceCompaction >= Math.max(options.compactionThreshold(), histories.size())) {
+            compact();
+        }
+    }
+
+    private void compact() throws IOException {
+        Path compacted = file.resolveSibling(file.getFileName() + ".compacting");
+        try (FileOutputStream stream = new FileOutputStream(compacted.toFile());
+             DataOutputStream compactedOut = new DataOutputStream(new BufferedOutputStream(stream))) {
+            compactedOut.writeInt(MAGIC);
+            for (Map.Entry<String, NodeHistory> entry : histories.entrySet()) {
+                compactedOut.writeByte(SNAPSHOT);
+                compactedOut.writeUTF(entry.getKey());
+                entry.getValue().writeTo(compactedOut);
+            }
+            compactedOut.flush();
+            stream.getFD().sync();
+        }
+
+        if (out != null) {
+            out.close();
+        }
+        Files.move(compacted, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        out = openForAppend();
+        appendedSinceCompaction = histories.size();
+        logger.info("Compacted {} to {} nodes", file, histories.size());
+    }
+
+    private DataOutputStream openForAppend() throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND)
+        ));
+    }
+
+    private static final class NodeHistory {
+
+        private double ewmaInMillis;
+        private DurationSketch sketch = new DurationSketch();
+
+        void add(double durationInMillis, double alpha) {
+            ewmaInMillis = sketch.count() == 0 ? durationInMillis : ewmaInMillis + alpha * (durationInMillis - ewmaInMillis);
+            sketch.add(durationInMillis);
+        }
+
+        DurationEstimate estimate() {
+            return new DurationEstimate(
+                    sketch.count(),
+                    ewmaInMillis,
+                    sketch.quantile(0.5),
+                    sketch.quantile(0.9),
+                    sketch.quantile(0.99)
+            );
+        }
+
+        void writeTo(DataOutput out) throws IOException {
+            out.writeDouble(ewmaInMillis);
+            sketch.writeTo(out);
+        }
+
+        static NodeHistory readFrom(DataInput in) throws IOException {
+            NodeHistory history = new NodeHistory();
+            history.ewmaInMillis = in.readDouble();
+            history.sketch = DurationSketch.readFrom(in);
+            return history;
+        }
+    }
+}
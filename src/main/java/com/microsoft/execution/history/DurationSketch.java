@@ -0,0 +1,124 @@
+package com.microsoft.execution.history;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A quantile sketch of durations with a relative accuracy of 2%: durations are counted in buckets whose bounds grow
+ * geometrically, and only the buckets in use are kept. Past {@link #MAX_BUCKETS} buckets the lowest ones are merged,
+ * so the sketch stays small and the tail quantiles, the ones that matter for scheduling, stay accurate.
+ * <p>
+ * Not thread-safe.
+ */
+final class DurationSketch {
+
+    static final int MAX_BUCKETS = 128;
+
+    private static final double RELATIVE_ACCURACY = 0.02;
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    // Durations below a microsecond are counted as 0
+    private static final double MIN_DURATION_IN_MILLIS = 1e-3;
+
+    private long count;
+    private long zeroCount;
+    private int size;
+    private int[] indexes = new int[4];
+    private long[] counts = new long[4];
+
+    void add(double durationInMillis) {
+        count++;
+        if (durationInMillis < MIN_DURATION_IN_MILLIS) {
+            zeroCount++;
+            return;
+        }
+
+        int index = (int) Math.ceil(Math.log(durationInMillis) / LOG_GAMMA);
+        int position = Arrays.binarySearch(indexes, 0, size, index);
+        if (position >= 0) {
+            counts[position]++;
+            return;
+        }
+
+        insert(-position - 1, index, 1);
+        if (size > MAX_BUCKETS) {
+            collapseLowest();
+        }
+    }
+
+    /**
+     * @param quantile Between 0 and 1.
+     * @return The estimated duration at the quantile, or 0 if the sketch is empty.
+     */
+    double quantile(double quantile) {
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = (long) (quantile * (count - 1));
+        long seen = zeroCount;
+        if (seen > rank) {
+            return 0;
+        }
+        for (int i = 0; i < size; i++) {
+            seen += counts[i];
+            if (seen > rank) {
+                return 2 * Math.pow(GAMMA, indexes[i]) / (GAMMA + 1);
+            }
+        }
+        return 2 * Math.pow(GAMMA, indexes[size - 1]) / (GAMMA + 1);
+    }
+
+    long count() {
+        return count;
+    }
+
+    int buckets() {
+        return size;
+    }
+
+    void writeTo(DataOutput out) throws IOException {
+        out.writeLong(count);
+        out.writeLong(zeroCount);
+        out.writeShort(size);
+        for (int i = 0; i < size; i++) {
+            out.writeInt(indexes[i]);
+            out.writeLong(counts[i]);
+        }
+    }
+
+    static DurationSketch readFrom(DataInput in) throws IOException {
+        DurationSketch sketch = new DurationSketch();
+        sketch.count = in.readLong();
+        sketch.zeroCount = in.readLong();
+        int size = in.readShort();
+        if (size < 0 || size > MAX_BUCKETS) {
+            throw new IOException("Invalid number of buckets: " + size);
+        }
+        for (int i = 0; i < size; i++) {
+            sketch.insert(i, in.readInt(), in.readLong());
+        }
+        return sketch;
+    }
+
+    private void insert(int position, int index, long bucketCount) {
+        if (size == indexes.length) {
+            indexes = Arrays.copyOf(indexes, size * 2);
+            counts = Arrays.copyOf(counts, size * 2);
+        }
+        System.arraycopy(indexes, position, indexes, position + 1, size - position);
+        System.arraycopy(counts, position, counts, position + 1, size - position);
+        indexes[position] = index;
+        counts[position] = bucketCount;
+        size++;
+    }
+
+    private void collapseLowest() {
+        counts[1] += counts[0];
+        System.arraycopy(indexes, 1, indexes, 0, size - 1);
+        System.arraycopy(counts, 1, counts, 0, size - 1);
+        size--;
+    }
+}
@@ -0,0 +1,21 @@
+package com.microsoft.execution.history;
+
+import com.microsoft.model.IDagNode;
+
+import java.util.Optional;
+
+/**
+ * Estimates how long nodes take from their past executions. Nodes are identified across DAGs by their
+ * {@link IDagNode#key() key}: ids are only unique within a DAG, so nodes without a key have no history.
+ */
+public interface IDurationEstimator {
+
+    /**
+     * @return The estimate, or empty if the node never completed before.
+     */
+    Optional<DurationEstimate> estimate(String nodeIdentity);
+
+    default Optional<DurationEstimate> estimate(IDagNode node) {
+        return node.key() != null ? estimate(node.key()) : Optional.empty();
+    }
+}
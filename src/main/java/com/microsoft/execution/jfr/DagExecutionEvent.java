@@ -0,0 +1,27 @@
+package com.microsoft.execution.jfr;
+
+import jdk.jfr.*;
+
+@Name("com.microsoft.dag.DagExecution")
+@Label("DAG Execution")
+@Category("DAG Executor")
+@Description("Execution of a DAG, from its first ready node until it completed, failed or was cancelled")
+@StackTrace(false)
+public class DagExecutionEvent extends Event {
+
+    @Label("DAG Id")
+    public long dagId;
+
+    @Label("Nodes")
+    public int nodes;
+
+    @Label("Inline")
+    @Description("Whether the DAG was executed on the request thread")
+    public boolean inline;
+
+    @Label("Failed")
+    public boolean failed;
+
+    @Label("Cancelled")
+    public boolean cancelled;
+}
@@ -0,0 +1,21 @@
+package com.microsoft.execution.jfr;
+
+import jdk.jfr.*;
+
+@Name("com.microsoft.dag.DagParse")
+@Label("DAG Parse")
+@Category("DAG Executor")
+@Description("Parsing of the XML of a DAG request into an execution DAG")
+@StackTrace(false)
+public class DagParseEvent extends Event {
+
+    @Label("DAG Id")
+    public long dagId;
+
+    @Label("XML Length")
+    @Description("Number of characters of the XML")
+    public int xmlLength;
+
+    @Label("Nodes")
+    public int nodes;
+}
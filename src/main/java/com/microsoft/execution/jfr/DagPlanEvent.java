@@ -0,0 +1,27 @@
+package com.microsoft.execution.jfr;
+
+import jdk.jfr.*;
+
+@Name("com.microsoft.dag.DagPlan")
+@Label("DAG Plan")
+@Category("DAG Executor")
+@Description("Planning of the execution of a DAG: fusing its chains, partitioning it and estimating its critical paths")
+@StackTrace(false)
+public class DagPlanEvent extends Event {
+
+    @Label("DAG Id")
+    public long dagId;
+
+    @Label("Nodes")
+    public int nodes;
+
+    @Label("Fused Chains")
+    public int fusedChains;
+
+    @Label("Partitioned")
+    public boolean partitioned;
+
+    @Label("Prioritized")
+    @Description("Whether the ready nodes are dispatched by estimated critical path")
+    public boolean prioritized;
+}
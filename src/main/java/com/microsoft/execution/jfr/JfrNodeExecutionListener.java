@@ -0,0 +1,96 @@
+package com.microsoft.execution.jfr;
+
+import com.microsoft.execution.NodeExecutionListener;
+import com.microsoft.model.IDagNode;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Emits the JFR events of the nodes of a DAG run, and forwards the callbacks to the listener of the run.
+ */
+public class JfrNodeExecutionListener implements NodeExecutionListener {
+
+    private final long dagId;
+    private final NodeExecutionListener delegate;
+    // The attempts in progress, by node id
+    private final ConcurrentHashMap<Integer, NodeExecutionEvent> executions = new ConcurrentHashMap<>();
+
+    private JfrNodeExecutionListener(long dagId, NodeExecutionListener delegate) {
+        this.dagId = dagId;
+        this.delegate = delegate;
+    }
+
+    /**
+     * @return A listener emitting the node events of the run, or {@code listener} itself if none of them is enabled,
+     * so a run started while JFR is off costs nothing.
+     */
+    public static NodeExecutionListener wrap(long dagId, NodeExecutionListener listener) {
+        boolean isEnabled = new NodeEnqueueEvent().isEnabled()
+                || new NodeExecutionEvent().isEnabled()
+                || new NodeRetryEvent().isEnabled();
+        return isEnabled ? new JfrNodeExecutionListener(dagId, listener) : listener;
+    }
+
+    @Override
+    public void onNodeReady(IDagNode node) {
+        NodeEnqueueEvent event = new NodeEnqueueEvent();
+        if (event.shouldCommit()) {
+            event.dagId = dagId;
+            event.nodeId = node.id();
+            event.commit();
+        }
+        delegate.onNodeReady(node);
+    }
+
+    @Override
+    public void onNodeStarted(IDagNode node, int attempt) {
+        NodeExecutionEvent event = new NodeExecutionEvent();
+        if (event.isEnabled()) {
+            event.dagId = dagId;
+            event.nodeId = node.id();
+            event.attempt = attempt;
+            executions.put(node.id(), event);
+            event.begin();
+        }
+        delegate.onNodeStarted(node, attempt);
+    }
+
+    @Override
+    public void onNodeRetrying(IDagNode node, int attempt, long delayInMillis, Throwable cause) {
+        commitExecution(node, false);
+
+        NodeRetryEvent event = new NodeRetryEvent();
+        if (event.shouldCommit()) {
+            event.dagId = dagId;
+            event.nodeId = node.id();
+            event.attempt = attempt;
+            event.delayInMillis = delayInMillis;
+            event.cause = cause != null ? cause.toString() : null;
+            event.commit();
+        }
+        delegate.onNodeRetrying(node, attempt, delayInMillis, cause);
+    }
+
+    @Override
+    public void onNodeSucceeded(IDagNode node, int attempt) {
+        commitExecution(node, true);
+        delegate.onNodeSucceeded(node, attempt);
+    }
+
+    @Override
+    public void onNodeFailed(IDagNode node, int attempt, Throwable cause) {
+        commitExecution(node, false);
+        delegate.onNodeFailed(node, attempt, cause);
+    }
+
+    private void commitExecution(IDagNode node, boolean succeeded) {
+        NodeExecutionEvent event = executions.remove(node.id());
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.succeeded = succeeded;
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.microsoft.execution.jfr;
+
+import jdk.jfr.*;
+
+@Name("com.microsoft.dag.NodeDispatch")
+@Label("Node Dispatch")
+@Category({"DAG Executor", "Nodes"})
+@Description("A ready node was handed to the node executor")
+@StackTrace(false)
+public class NodeDispatchEvent extends Event {
+
+    @Label("DAG Id")
+    public long dagId;
+
+    @Label("Node Id")
+    public int nodeId;
+
+    @Label("Chain Length")
+    @Description("Number of nodes executed together with the node, itself included, when chains are fused")
+    public int chainLength;
+
+    @Label("Batch Size")
+    public int batchSize;
+}
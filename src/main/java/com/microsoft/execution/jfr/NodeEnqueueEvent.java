@@ -0,0 +1,17 @@
+package com.microsoft.execution.jfr;
+
+import jdk.jfr.*;
+
+@Name("com.microsoft.dag.NodeEnqueue")
+@Label("Node Enqueue")
+@Category({"DAG Executor", "Nodes"})
+@Description("All the dependencies of a node completed, and it was queued for dispatch")
+@StackTrace(false)
+public class NodeEnqueueEvent extends Event {
+
+    @Label("DAG Id")
+    public long dagId;
+
+    @Label("Node Id")
+    public int nodeId;
+}
@@ -0,0 +1,23 @@
+package com.microsoft.execution.jfr;
+
+import jdk.jfr.*;
+
+@Name("com.microsoft.dag.NodeExecution")
+@Label("Node Execution")
+@Category({"DAG Executor", "Nodes"})
+@Description("An attempt of a node, from its start on an engine until it succeeded or failed")
+@StackTrace(false)
+public class NodeExecutionEvent extends Event {
+
+    @Label("DAG Id")
+    public long dagId;
+
+    @Label("Node Id")
+    public int nodeId;
+
+    @Label("Attempt")
+    public int attempt;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
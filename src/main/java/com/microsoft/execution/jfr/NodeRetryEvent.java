@@ -0,0 +1,28 @@
+package com.microsoft.execution.jfr;
+
+import jdk.jfr.*;
+
+@Name("com.microsoft.dag.NodeRetry")
+@Label("Node Retry")
+@Category({"DAG Executor", "Nodes"})
+@Description("An attempt of a node failed, and its next attempt was scheduled")
+@StackTrace(false)
+public class NodeRetryEvent extends Event {
+
+    @Label("DAG Id")
+    public long dagId;
+
+    @Label("Node Id")
+    public int nodeId;
+
+    @Label("Attempt")
+    @Description("The attempt that failed, starting from 0")
+    public int attempt;
+
+    @Label("Delay")
+    @Timespan(Timespan.MILLISECONDS)
+    public long delayInMillis;
+
+    @Label("Cause")
+    public String cause;
+}
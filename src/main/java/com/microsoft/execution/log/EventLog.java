@@ -0,0 +1,215 @@
+package com.microsoft.execution.log;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Low-overhead log of the failed node attempts. The engines append fixed-size binary records to a preallocated ring,
+ * without allocating nor locking, and a background thread turns them into text lines, sampling the retries and
+ * rate-limiting the output. When the ring is full the new events are dropped and counted rather than blocking the
+ * engines.
+ */
+public class EventLog implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventLog.class);
+
+    private static final int RETRYING = 1;
+    private static final int FAILED = 2;
+    private static final int FIELDS = 4; // Timestamp, kind and attempt, node id, retry delay
+
+    private final EventLogOptions options;
+    private final int mask;
+    private final long[] records;
+    private final Throwable[] causes;
+    // The sequence number + 1 of the event stored in each slot once it can be read
+    private final AtomicLongArray sequences;
+    private final AtomicLong cursor = new AtomicLong();
+    private final AtomicLong drained = new AtomicLong();
+    private final LongAdder droppedEvents = new LongAdder();
+    private final AtomicLong writtenEvents = new AtomicLong();
+    private final AtomicLong suppressedEvents = new AtomicLong();
+    private final AtomicLong sampledOutEvents = new AtomicLong();
+    private final Thread drainer;
+    private volatile boolean isClosed;
+
+    // Owned by the drainer
+    private long retries;
+    private long windowStartInMillis;
+    private int linesInWindow;
+    private long suppressedInWindow;
+    private long reportedDrops;
+
+    public EventLog(EventLogOptions options) {
+        int capacity = options.capacity() == 1 ? 1 : Integer.highestOneBit(options.capacity() - 1) << 1;
+        this.options = options;
+        this.mask = capacity - 1;
+        this.records = new long[capacity * FIELDS];
+        this.causes = new Throwable[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        this.drainer = Thread.ofPlatform().daemon().name("event-log-drainer").start(this::drainUntilClosed);
+    }
+
+    /**
+     * An attempt of the node failed and it will be retried after the delay.
+     */
+    public void nodeRetrying(int nodeId, int attempt, long delayInMillis, Throwable cause) {
+        append(RETRYING, nodeId, attempt, delayInMillis, cause);
+    }
+
+    /**
+     * The node failed and won't be retried anymore.
+     */
+    public void nodeFailed(int nodeId, int attempt, Throwable cause) {
+        append(FAILED, nodeId, attempt, 0, cause);
+    }
+
+    /**
+     * @return Number of events written as text lines.
+     */
+    public long getWrittenEvents() {
+        return writtenEvents.get();
+    }
+
+    /**
+     * @return Number of events not written because of the rate limit.
+     */
+    public long getSuppressedEvents() {
+        return suppressedEvents.get();
+    }
+
+    /**
+     * @return Number of retries not written because of the sampling.
+     */
+    public long getSampledOutEvents() {
+        return sampledOutEvents.get();
+    }
+
+    /**
+     * @return Number of events dropped because the ring was full, or appended after the log was closed.
+     */
+    public long getDroppedEvents() {
+        return droppedEvents.sum();
+    }
+
+    private void append(int kind, int nodeId, int attempt, long delayInMillis, Throwable cause) {
+        long sequence;
+        do {
+            sequence = cursor.get();
+            if (isClosed || sequence - drained.get() > mask) {
+                droppedEvents.increment();
+                return;
+            }
+        } while (!cursor.compareAndSet(sequence, sequence + 1));
+
+        int slot = (int) (sequence & mask);
+        int offset = slot * FIELDS;
+        records[offset] = System.currentTimeMillis();
+        records[offset + 1] = (long) kind << 32 | (attempt & 0xFFFFFFFFL);
+        records[offset + 2] = nodeId;
+        records[offset + 3] = delayInMillis;
+        causes[slot] = cause;
+        sequences.setRelease(slot, sequence + 1);
+    }
+
+    private void drainUntilClosed() {
+        long intervalInNanos = options.drainInterval().toNanos();
+        while (!isClosed) {
+            drain();
+            LockSupport.parkNanos(this, intervalInNanos);
+        }
+        drain();
+        reportSuppressed();
+    }
+
+    private void drain() {
+        for (long sequence = drained.get(); ; sequence++) {
+            int slot = (int) (sequence & mask);
+            if (sequences.getAcquire(slot) != sequence + 1) {
+                break; // Not appended yet, or still being written
+            }
+            int offset = slot * FIELDS;
+            long timestamp = records[offset];
+            long kindAndAttempt = records[offset + 1];
+            int nodeId = (int) records[offset + 2];
+            long delayInMillis = records[offset + 3];
+            Throwable cause = causes[slot];
+            causes[slot] = null;
+            drained.set(sequence + 1); // Frees the slot
+
+            write(timestamp, (int) (kindAndAttempt >>> 32), (int) kindAndAttempt, nodeId, delayInMillis, cause);
+        }
+
+        long drops = droppedEvents.sum();
+        if (drops > reportedDrops) {
+            logger.warn("Dropped {} events because the event log was full", drops - reportedDrops);
+            reportedDrops = drops;
+        }
+    }
+
+    private void write(long timestamp, int kind, int attempt, int nodeId, long delayInMillis, Throwable cause) {
+        if (kind == RETRYING && retries++ % options.retrySampling() != 0) {
+            sampledOutEvents.incrementAndGet();
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        if (now - windowStartInMillis >= 1000) {
+            reportSuppressed();
+            windowStartInMillis = now;
+            linesInWindow = 0;
+        }
+        if (linesInWindow >= options.maxLinesPerSecond()) {
+            suppressedInWindow++;
+            suppressedEvents.incrementAndGet();
+            return;
+        }
+        linesInWindow++;
+        writtenEvents.incrementAndGet();
+
+        if (kind == RETRYING) {
+            logger.atWarn()
+                    .setMessage("Error executing node: {}. Retrying attempt {} in {} ms")
+                    .addArgument(nodeId)
+                    .addArgument(attempt)
+                    .addArgument(delayInMillis)
+                    .addKeyValue("eventTime", Instant.ofEpochMilli(timestamp))
+                    .setCause(cause)
+                    .log();
+        } else {
+            logger.atError()
+                    .setMessage("Retries exhausted for node: {} after attempt {}")
+                    .addArgument(nodeId)
+                    .addArgument(attempt)
+                    .addKeyValue("eventTime", Instant.ofEpochMilli(timestamp))
+                    .setCause(cause)
+                    .log();
+        }
+    }
+
+    private void reportSuppressed() {
+        if (suppressedInWindow > 0) {
+            logger.warn("Suppressed {} events over the limit of {} lines per second", suppressedInWindow, options.maxLinesPerSecond());
+            suppressedInWindow = 0;
+        }
+    }
+
+    /**
+     * Writes the events left in the ring and stops the background thread. The events appended afterwards are dropped.
+     */
+    @Override
+    public void close() {
+        isClosed = true;
+        LockSupport.unpark(drainer);
+        try {
+            drainer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.microsoft.execution.log;
+
+import java.time.Duration;
+
+/**
+ * Tuning options for the {@link EventLog}.
+ *
+ * @param capacity          Number of events the ring holds before new ones are dropped, rounded up to a power of two.
+ * @param maxLinesPerSecond Maximum number of lines written per second. The events beyond it are counted and
+ *                          summarized in a single line.
+ * @param retrySampling     Only one in this many retries is written. Nodes that exhausted their retries are always
+ *                          written, within the rate limit.
+ * @param drainInterval     How often the background thread writes the events of the ring.
+ */
+public record EventLogOptions(
+        int capacity,
+        int maxLinesPerSecond,
+        int retrySampling,
+        Duration drainInterval
+) {
+
+    public static final EventLogOptions DEFAULT = new EventLogOptions(1 << 16, 1000, 1, Duration.ofMillis(100));
+
+    public EventLogOptions {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity must be between 1 and 2^30");
+        }
+        if (maxLinesPerSecond <= 0) {
+            throw new IllegalArgumentException("maxLinesPerSecond must be greater than 0");
+        }
+        if (retrySampling <= 0) {
+            throw new IllegalArgumentException("retrySampling must be greater than 0");
+        }
+        if (drainInterval == null || drainInterval.isNegative() || drainInterval.isZero()) {
+            throw new IllegalArgumentException("drainInterval must be positive");
+        }
+    }
+
+    public EventLogOptions withCapacity(int capacity) {
+        return new EventLogOptions(capacity, maxLinesPerSecond, retrySampling, drainInterval);
+    }
+
+    public EventLogOptions withMaxLinesPerSecond(int maxLinesPerSecond) {
+        return new EventLogOptions(capacity, maxLinesPerSecond, retrySampling, drainInterval);
+    }
+
+    public EventLogOptions withRetrySampling(int retrySampling) {
+        return new EventLogOptions(capacity, maxLinesPerSecond, retrySampling, drainInterval);
+    }
+
+    public EventLogOptions withDrainInterval(Duration drainInterval) {
+        return new EventLogOptions(capacity, maxLinesPerSecond, retrySampling, drainInterval);
+    }
+}
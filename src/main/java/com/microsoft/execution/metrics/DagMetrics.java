@@ -0,0 +1,305 @@
+package com.microsoft.execution.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters, gauges and latency histograms of the DAG executors that share it. Counters are {@link LongAdder}s striped
+ * across the recording threads and latencies are {@link LatencyHistogram}s, so recording stays cheap under
+ * contention.
+ * <p>
+ * Hand it to {@link com.microsoft.execution.DagExecutorOptions#withMetrics} and
+ * {@link com.microsoft.execution.DagNodeExecutorOptions#withMetrics}, then read it through JMX after
+ * {@link #registerMBeans()}, or dump it with a {@link MetricsFileReporter}.
+ */
+public class DagMetrics implements DagMetricsMXBean {
+
+    public static final String DOMAIN = "com.microsoft.dag";
+
+    private final String name;
+
+    private final LongAdder dagsStarted = new LongAdder();
+    private final LongAdder dagsSucceeded = new LongAdder();
+    private final LongAdder dagsFailed = new LongAdder();
+    private final LongAdder dagsCancelled = new LongAdder();
+    private final LongAdder nodesDispatched = new LongAdder();
+    private final LongAdder nodesStarted = new LongAdder();
+    private final LongAdder nodesSucceeded = new LongAdder();
+    private final LongAdder nodesFailed = new LongAdder();
+    private final ConcurrentHashMap<String, LongAdder> retriesByStrategy = new ConcurrentHashMap<>();
+
+    private final LongAdder readyQueueDepth = new LongAdder();
+    private final LongAdder inFlightNodes = new LongAdder();
+    private final LongAdder engines = new LongAdder();
+    private final LongAdder busyEngines = new LongAdder();
+    private final LongAdder queuedEngineTasks = new LongAdder();
+
+    private final LatencyHistogram queueWait = new LatencyHistogram();
+    private final LatencyHistogram runTime = new LatencyHistogram();
+    private final LatencyHistogram dagLatency = new LatencyHistogram();
+
+    private final List<ObjectName> registeredNames = new ArrayList<>();
+
+    /**
+     * @param name Identifies these metrics among the MBeans, e.g. the name of the service.
+     */
+    public DagMetrics(String name) {
+        this.name = name;
+    }
+
+    public void onDagStarted() {
+        dagsStarted.increment();
+    }
+
+    /**
+     * @param latencyInNanos Time from the request until its response.
+     */
+    public void onDagCompleted(long latencyInNanos, boolean hasFailed, boolean isCancelled) {
+        dagLatency.record(latencyInNanos);
+        if (isCancelled) {
+            dagsCancelled.increment();
+        } else if (hasFailed) {
+            dagsFailed.increment();
+        } else {
+            dagsSucceeded.increment();
+        }
+    }
+
+    public void onNodesEnqueued(int nodes) {
+        readyQueueDepth.add(nodes);
+    }
+
+    public void onNodesDequeued(int nodes) {
+        readyQueueDepth.add(-nodes);
+    }
+
+    public void onNodesDispatched(int nodes) {
+        nodesDispatched.add(nodes);
+    }
+
+    /**
+     * @param queueWaitInNanos Time from the node being ready, or its retry being due, until the attempt started.
+     */
+    public void onNodeStarted(long queueWaitInNanos) {
+        nodesStarted.increment();
+        inFlightNodes.increment();
+        queueWait.record(queueWaitInNanos);
+    }
+
+    /**
+     * @param runTimeInNanos Time from the start of the attempt until it succeeded or failed.
+     * @param isFinal        Whether the node won't be retried, either because it succeeded or it ran out of retries.
+     */
+    public void onNodeFinished(long runTimeInNanos, boolean hasSucceeded, boolean isFinal) {
+        inFlightNodes.decrement();
+        runTime.record(runTimeInNanos);
+        if (hasSucceeded) {
+            nodesSucceeded.increment();
+        } else if (isFinal) {
+            nodesFailed.increment();
+        }
+    }
+
+    public void onRetryScheduled(String retryStrategy) {
+        retriesByStrategy.computeIfAbsent(retryStrategy, _ -> new LongAdder()).increment();
+    }
+
+    public void onEnginesAdded(int numberOfEngines) {
+        engines.add(numberOfEngines);
+    }
+
+    public void onEngineTaskQueued() {
+        queuedEngineTasks.increment();
+    }
+
+    /**
+     * @param wasQueued Whether the task was counted by {@link #onEngineTaskQueued()}.
+     */
+    public void onEngineTaskStarted(boolean wasQueued) {
+        if (wasQueued) {
+            queuedEngineTasks.decrement();
+        }
+        busyEngines.increment();
+    }
+
+    public void onEngineTaskFinished() {
+        busyEngines.decrement();
+    }
+
+    public LatencyHistogram getQueueWait() {
+        return queueWait;
+    }
+
+    public LatencyHistogram getRunTime() {
+        return runTime;
+    }
+
+    public LatencyHistogram getDagLatency() {
+        return dagLatency;
+    }
+
+    @Override
+    public long getDagsStarted() {
+        return dagsStarted.sum();
+    }
+
+    @Override
+    public long getDagsSucceeded() {
+        return dagsSucceeded.sum();
+    }
+
+    @Override
+    public long getDagsFailed() {
+        return dagsFailed.sum();
+    }
+
+    @Override
+    public long getDagsCancelled() {
+        return dagsCancelled.sum();
+    }
+
+    @Override
+    public long getNodesDispatched() {
+        return nodesDispatched.sum();
+    }
+
+    @Override
+    public long getNodesStarted() {
+        return nodesStarted.sum();
+    }
+
+    @Override
+    public long getNodesSucceeded() {
+        return nodesSucceeded.sum();
+    }
+
+    @Override
+    public long getNodesFailed() {
+        return nodesFailed.sum();
+    }
+
+    @Override
+    public long getRetries() {
+        return retriesByStrategy.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    @Override
+    public Map<String, Long> getRetriesByStrategy() {
+        Map<String, Long> retries = new TreeMap<>();
+        retriesByStrategy.forEach((strategy, count) -> retries.put(strategy, count.sum()));
+        return retries;
+    }
+
+    @Override
+    public long getReadyQueueDepth() {
+        return readyQueueDepth.sum();
+    }
+
+    @Override
+    public long getInFlightNodes() {
+        return inFlightNodes.sum();
+    }
+
+    @Override
+    public long getEngines() {
+        return engines.sum();
+    }
+
+    @Override
+    public long getBusyEngines() {
+        return busyEngines.sum();
+    }
+
+    @Override
+    public long getQueuedEngineTasks() {
+        return queuedEngineTasks.sum();
+    }
+
+    @Override
+    public double getEngineSaturation() {
+        long numberOfEngines = engines.sum();
+        return numberOfEngines == 0 ? 0 : Math.min(1.0, (double) busyEngines.sum() / numberOfEngines);
+    }
+
+    /**
+     * @return Every counter, gauge and latency percentile, by name.
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("dagsStarted", getDagsStarted());
+        snapshot.put("dagsSucceeded", getDagsSucceeded());
+        snapshot.put("dagsFailed", getDagsFailed());
+        snapshot.put("dagsCancelled", getDagsCancelled());
+        snapshot.put("nodesDispatched", getNodesDispatched());
+        snapshot.put("nodesStarted", getNodesStarted());
+        snapshot.put("nodesSucceeded", getNodesSucceeded());
+        snapshot.put("nodesFailed", getNodesFailed());
+        snapshot.put("retries", getRetries());
+        getRetriesByStrategy().forEach((strategy, count) -> snapshot.put("retries." + strategy, count));
+        snapshot.put("readyQueueDepth", getReadyQueueDepth());
+        snapshot.put("inFlightNodes", getInFlightNodes());
+        snapshot.put("engines", getEngines());
+        snapshot.put("busyEngines", getBusyEngines());
+        snapshot.put("queuedEngineTasks", getQueuedEngineTasks());
+        snapshot.put("engineSaturation", getEngineSaturation());
+        putLatency(snapshot, "queueWait", queueWait);
+        putLatency(snapshot, "runTime", runTime);
+        putLatency(snapshot, "dagLatency", dagLatency);
+        return snapshot;
+    }
+
+    /**
+     * Registers these metrics and their latency histograms in the platform MBean server, under the
+     * {@value #DOMAIN} domain.
+     */
+    public synchronized void registerMBeans() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        register(server, new ObjectName(DOMAIN, objectNameProperties("DagMetrics", ObjectName.quote(name))), this);
+        register(server, latencyName("QueueWait"), queueWait);
+        register(server, latencyName("RunTime"), runTime);
+        register(server, latencyName("DagLatency"), dagLatency);
+    }
+
+    public synchronized void unregisterMBeans() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName objectName : registeredNames) {
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        }
+        registeredNames.clear();
+    }
+
+    private void register(MBeanServer server, ObjectName objectName, Object mbean) throws JMException {
+        server.registerMBean(mbean, objectName);
+        registeredNames.add(objectName);
+    }
+
+    private ObjectName latencyName(String latency) throws JMException {
+        Hashtable<String, String> properties = objectNameProperties("Latency", latency);
+        properties.put("metrics", ObjectName.quote(name));
+        return new ObjectName(DOMAIN, properties);
+    }
+
+    private static Hashtable<String, String> objectNameProperties(String type, String name) {
+        Hashtable<String, String> properties = new Hashtable<>();
+        properties.put("type", type);
+        properties.put("name", name);
+        return properties;
+    }
+
+    private static void putLatency(Map<String, Object> snapshot, String latency, LatencyHistogram histogram) {
+        snapshot.put(latency + ".count", histogram.getCount());
+        snapshot.put(latency + ".meanMs", histogram.getMeanInMillis());
+        snapshot.put(latency + ".p50Ms", histogram.getP50InMillis());
+        snapshot.put(latency + ".p90Ms", histogram.getP90InMillis());
+        snapshot.put(latency + ".p99Ms", histogram.getP99InMillis());
+        snapshot.put(latency + ".p999Ms", histogram.getP999InMillis());
+        snapshot.put(latency + ".maxMs", histogram.getMaxInMillis());
+    }
+}
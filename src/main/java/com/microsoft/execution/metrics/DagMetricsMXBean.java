@@ -0,0 +1,60 @@
+package com.microsoft.execution.metrics;
+
+import java.util.Map;
+
+/**
+ * The counters and gauges of the DAG executors. Latency distributions are exposed as separate
+ * {@link LatencyHistogramMXBean}s.
+ */
+public interface DagMetricsMXBean {
+
+    long getDagsStarted();
+
+    long getDagsSucceeded();
+
+    long getDagsFailed();
+
+    long getDagsCancelled();
+
+    long getNodesDispatched();
+
+    long getNodesStarted();
+
+    long getNodesSucceeded();
+
+    long getNodesFailed();
+
+    long getRetries();
+
+    /**
+     * @return The retries scheduled so far, by the simple name of the retry strategy of the node executor.
+     */
+    Map<String, Long> getRetriesByStrategy();
+
+    /**
+     * @return Nodes queued by the DAG executors until they're dispatched to the node executor.
+     */
+    long getReadyQueueDepth();
+
+    /**
+     * @return Node attempts started and not finished yet.
+     */
+    long getInFlightNodes();
+
+    long getEngines();
+
+    /**
+     * @return Tasks running on the engines.
+     */
+    long getBusyEngines();
+
+    /**
+     * @return Tasks waiting for an engine.
+     */
+    long getQueuedEngineTasks();
+
+    /**
+     * @return The fraction of the engines that are busy, between 0 and 1.
+     */
+    double getEngineSaturation();
+}
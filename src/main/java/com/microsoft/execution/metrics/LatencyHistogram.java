@@ -0,0 +1,128 @@
+package com.microsoft.execution.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of latencies in nanoseconds, laid out like an HdrHistogram: values below 128ns are counted
+ * exactly, and every power of two above is split into 64 linear sub-buckets, so any recorded value is known within
+ * 1.6%. Recording is a few shifts and an atomic increment, and never allocates.
+ * <p>
+ * Node latencies are mostly alike, so the engines would all increment the same few buckets: the buckets are striped
+ * by thread, and summed up when read.
+ */
+public class LatencyHistogram implements LatencyHistogramMXBean {
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+    // Enough buckets for every positive long
+    private static final int BUCKETS = SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * HALF_SUB_BUCKETS;
+    private static final int STRIPES = Integer.highestOneBit(Math.min(Runtime.getRuntime().availableProcessors(), 8));
+
+    private final AtomicLongArray counts = new AtomicLongArray(STRIPES * BUCKETS);
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long valueInNanos) {
+        long value = Math.max(valueInNanos, 0);
+        int stripe = (int) Thread.currentThread().threadId() & (STRIPES - 1);
+        counts.incrementAndGet(stripe * BUCKETS + indexOf(value));
+        sum.add(value);
+
+        // Only contended while the maximum grows
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+
+    @Override
+    public long getCount() {
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    @Override
+    public double getMeanInMillis() {
+        long recorded = getCount();
+        return recorded == 0 ? 0 : sum.sum() / (double) recorded / 1e6;
+    }
+
+    @Override
+    public double getP50InMillis() {
+        return getPercentileInMillis(0.50);
+    }
+
+    @Override
+    public double getP90InMillis() {
+        return getPercentileInMillis(0.90);
+    }
+
+    @Override
+    public double getP99InMillis() {
+        return getPercentileInMillis(0.99);
+    }
+
+    @Override
+    public double getP999InMillis() {
+        return getPercentileInMillis(0.999);
+    }
+
+    @Override
+    public double getMaxInMillis() {
+        return max.get() / 1e6;
+    }
+
+    /**
+     * @param percentile Between 0 and 1.
+     * @return The latency at the percentile. The counts are read while values are being recorded, so the result
+     * approximates the distribution at the time of the call.
+     */
+    public double getPercentileInMillis(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            for (int i = 0; i < BUCKETS; i++) {
+                long bucketCount = counts.get(stripe * BUCKETS + i);
+                snapshot[i] += bucketCount;
+                total += bucketCount;
+            }
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(midpointOf(i), max.get()) / 1e6;
+            }
+        }
+        return max.get() / 1e6;
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        int subBucket = (int) (value >>> shift); // Between HALF_SUB_BUCKETS and SUB_BUCKETS
+        return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + (subBucket - HALF_SUB_BUCKETS);
+    }
+
+    static long midpointOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+        long subBucket = (index - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+        return (subBucket << shift) + (1L << (shift - 1));
+    }
+}
@@ -0,0 +1,21 @@
+package com.microsoft.execution.metrics;
+
+/**
+ * The distribution of a latency since the metrics were created.
+ */
+public interface LatencyHistogramMXBean {
+
+    long getCount();
+
+    double getMeanInMillis();
+
+    double getP50InMillis();
+
+    double getP90InMillis();
+
+    double getP99InMillis();
+
+    double getP999InMillis();
+
+    double getMaxInMillis();
+}
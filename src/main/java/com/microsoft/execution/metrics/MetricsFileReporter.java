@@ -0,0 +1,65 @@
+package com.microsoft.execution.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically appends a snapshot of the {@link DagMetrics} to a file, one line per snapshot: the timestamp followed
+ * by space-separated {@code name=value} pairs. A last snapshot is appended when closed.
+ */
+public class MetricsFileReporter implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetricsFileReporter.class);
+
+    private final DagMetrics metrics;
+    private final Path file;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().daemon().name("metrics-reporter").factory()
+    );
+
+    public MetricsFileReporter(DagMetrics metrics, Path file, Duration interval) {
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("interval must be positive");
+        }
+        this.metrics = metrics;
+        this.file = file;
+        scheduler.scheduleAtFixedRate(this::reportQuietly, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Appends a snapshot right away.
+     */
+    public synchronized void report() throws IOException {
+        StringBuilder line = new StringBuilder(Instant.now().toString());
+        for (Map.Entry<String, Object> metric : metrics.snapshot().entrySet()) {
+            line.append(' ').append(metric.getKey()).append('=').append(metric.getValue());
+        }
+        line.append(System.lineSeparator());
+        Files.writeString(file, line, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        reportQuietly();
+    }
+
+    private void reportQuietly() {
+        try {
+            report();
+        } catch (IOException ex) {
+            logger.error("Failed to report the metrics to {}", file, ex);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.microsoft.execution.retry;
+
+/**
+ * How long to wait before every retry of a {@link RetryStrategy}.
+ */
+public final class RetryDelays {
+
+    private RetryDelays() {
+    }
+
+    /**
+     * @param retryStrategy The strategy, which must allow retrying the attempt.
+     * @param attempt       The attempt that failed, starting at 0.
+     * @return The delay before the next attempt.
+     */
+    public static long getDelayInMillis(RetryStrategy retryStrategy, int attempt) {
+        return switch (retryStrategy) {
+            case TimedRetryStrategy timed -> timed.delayInMillis();
+            case InfiteRetryStrategy infinite -> infinite.delayInMillis();
+            case ExponentialBackoffRetryStrategy exponential -> exponential.getDelayInMillis(attempt);
+            case NoRetryStrategy _ -> throw new IllegalStateException("Can't retry with NoRetryStrategy");
+        };
+    }
+}
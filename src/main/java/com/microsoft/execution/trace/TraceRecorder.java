@@ -0,0 +1,356 @@
+package com.microsoft.execution.trace;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.microsoft.execution.NodeExecutionListener;
+import com.microsoft.model.ExecutionDag;
+import com.microsoft.model.IDagNode;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.invoke.VarHandle;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records when every attempt of a node started and ended, and on which engine thread, into a preallocated ring buffer,
+ * and writes them afterwards as a Chrome trace-event JSON file that can be opened in Perfetto or
+ * {@code chrome://tracing}.
+ * <p>
+ * Every DAG run is a process of the trace and every engine thread one of its threads, so the idle gaps of the engines
+ * show between the slices of the nodes. The dependencies between the nodes are drawn as flow arrows.
+ * <p>
+ * Recording takes no lock: a slot of the ring is claimed with a single atomic increment, and once the ring is full the
+ * oldest events are overwritten.
+ */
+public class TraceRecorder {
+
+    private static final byte STARTED = 0;
+    private static final byte SUCCEEDED = 1;
+    private static final byte FAILED = 2;
+
+    private static final int DEFAULT_MAX_DAGS = 64;
+
+    private final int mask;
+    private final long[] timestamps;
+    private final long[] dagIds;
+    private final long[] threadIds;
+    private final int[] nodeIds;
+    private final int[] attempts;
+    private final byte[] kinds;
+    // The sequence number + 1 of the event stored in each slot, 0 while the slot is empty and -1 while it is written
+    private final AtomicLongArray sequences;
+    private final AtomicLong cursor = new AtomicLong();
+
+    private final ConcurrentHashMap<Long, String> threadNames = new ConcurrentHashMap<>();
+    // The most recent DAG runs, to draw their dependencies
+    private final ConcurrentSkipListMap<Long, ExecutionDag> dags = new ConcurrentSkipListMap<>();
+    private final int maxDags;
+
+    /**
+     * @param capacity Number of events kept, rounded up to a power of two. Every attempt of a node takes two events.
+     */
+    public TraceRecorder(int capacity) {
+        this(capacity, DEFAULT_MAX_DAGS);
+    }
+
+    /**
+     * @param capacity Number of events kept, rounded up to a power of two. Every attempt of a node takes two events.
+     * @param maxDags  Number of the most recent DAG runs whose dependencies are kept to draw them.
+     */
+    public TraceRecorder(int capacity, int maxDags) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity must be between 1 and 2^30");
+        }
+        if (maxDags <= 0) {
+            throw new IllegalArgumentException("maxDags must be greater than 0");
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = size - 1;
+        this.timestamps = new long[size];
+        this.dagIds = new long[size];
+        this.threadIds = new long[size];
+        this.nodeIds = new int[size];
+        this.attempts = new int[size];
+        this.kinds = new byte[size];
+        this.sequences = new AtomicLongArray(size);
+        this.maxDags = maxDags;
+    }
+
+    /**
+     * @return A listener recording the attempts of the nodes of the run, and forwarding the callbacks to
+     * {@code listener}.
+     */
+    public NodeExecutionListener wrap(long dagId, ExecutionDag dag, NodeExecutionListener listener) {
+        dags.put(dagId, dag);
+        while (dags.size() > maxDags) {
+            dags.pollFirstEntry();
+        }
+        return new RecordingListener(dagId, listener);
+    }
+
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return Number of events recorded since the creation of the recorder, including the overwritten ones.
+     */
+    public long getRecordedEvents() {
+        return cursor.get();
+    }
+
+    /**
+     * @return Number of events overwritten because the ring was full.
+     */
+    public long getOverwrittenEvents() {
+        return Math.max(0, cursor.get() - getCapacity());
+    }
+
+    private void record(byte kind, long dagId, int nodeId, int attempt) {
+        long timestamp = System.nanoTime();
+        Thread thread = Thread.currentThread();
+        long threadId = thread.threadId();
+        if (!threadNames.containsKey(threadId)) {
+            threadNames.putIfAbsent(threadId, thread.getName());
+        }
+
+        long sequence = cursor.getAndIncrement();
+        int slot = (int) (sequence & mask);
+        sequences.set(slot, -1);
+        VarHandle.storeStoreFence();
+        timestamps[slot] = timestamp;
+        dagIds[slot] = dagId;
+        threadIds[slot] = threadId;
+        nodeIds[slot] = nodeId;
+        attempts[slot] = attempt;
+        kinds[slot] = kind;
+        sequences.setRelease(slot, sequence + 1);
+    }
+
+    /**
+     * Writes the recorded events to the file, replacing it.
+     */
+    public void writeChromeTrace(Path file) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            writeChromeTrace(out);
+        }
+    }
+
+    /**
+     * Writes the recorded events as a Chrome trace-event JSON object. The events are streamed to {@code out} as they
+     * are read from the ring, which is left untouched, so recording can go on meanwhile; the events overwritten or
+     * still being written while the trace is written are skipped.
+     */
+    public void writeChromeTrace(OutputStream out) throws IOException {
+        long end = cursor.get();
+        long begin = Math.max(0, end - getCapacity());
+        long origin = Long.MAX_VALUE;
+        for (long sequence = begin; sequence < end; sequence++) {
+            int slot = (int) (sequence & mask);
+            if (sequences.getAcquire(slot) == sequence + 1) {
+                origin = Math.min(origin, timestamps[slot]);
+            }
+        }
+
+        Map<NodeRef, Started> startedAttempts = new HashMap<>();
+        Map<NodeRef, Slice> succeededSlices = new HashMap<>();
+        Set<Track> tracks = new HashSet<>();
+        JsonFactory factory = new JsonFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        try (JsonGenerator json = factory.createGenerator(out, JsonEncoding.UTF8)) {
+            json.writeStartObject();
+            json.writeStringField("displayTimeUnit", "ms");
+            json.writeArrayFieldStart("traceEvents");
+
+            for (long sequence = begin; sequence < end; sequence++) {
+                int slot = (int) (sequence & mask);
+                long stamp = sequences.getAcquire(slot);
+                if (stamp != sequence + 1) {
+                    continue;
+                }
+                long timestamp = timestamps[slot];
+                long dagId = dagIds[slot];
+                long threadId = threadIds[slot];
+                int nodeId = nodeIds[slot];
+                int attempt = attempts[slot];
+                byte kind = kinds[slot];
+                VarHandle.loadLoadFence();
+                if (sequences.get(slot) != stamp) {
+                    continue; // Overwritten while it was read
+                }
+
+                NodeRef node = new NodeRef(dagId, nodeId);
+                if (kind == STARTED) {
+                    startedAttempts.put(node, new Started(timestamp, threadId, attempt));
+                    continue;
+                }
+                Started started = startedAttempts.remove(node);
+                if (started == null || started.attempt() != attempt) {
+                    continue; // The start was overwritten
+                }
+                // An asynchronous node may complete on another thread, but it ran on the engine that started it
+                Slice slice = new Slice(started.timestamp() - origin, timestamp - origin, started.threadId());
+                tracks.add(new Track(dagId, slice.threadId()));
+                writeSlice(json, node, attempt, kind == SUCCEEDED, slice);
+                if (kind == SUCCEEDED) {
+                    succeededSlices.put(node, slice);
+                }
+            }
+
+            writeDependencies(json, succeededSlices);
+            writeTrackNames(json, tracks);
+
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+    }
+
+    private void writeSlice(JsonGenerator json, NodeRef node, int attempt, boolean hasSucceeded, Slice slice) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("name", nameOf(node));
+        json.writeStringField("cat", "node");
+        json.writeStringField("ph", "X");
+        json.writeNumberField("ts", toMicros(slice.startNanos()));
+        json.writeNumberField("dur", toMicros(slice.endNanos() - slice.startNanos()));
+        json.writeNumberField("pid", node.dagId());
+        json.writeNumberField("tid", slice.threadId());
+        json.writeObjectFieldStart("args");
+        json.writeNumberField("nodeId", node.nodeId());
+        json.writeNumberField("attempt", attempt);
+        json.writeBooleanField("succeeded", hasSucceeded);
+        json.writeEndObject();
+        json.writeEndObject();
+    }
+
+    // A flow arrow from every node to each of its dependents, both bound to the slice of their successful attempt
+    private void writeDependencies(JsonGenerator json, Map<NodeRef, Slice> succeededSlices) throws IOException {
+        long flowId = 0;
+        for (Map.Entry<NodeRef, Slice> entry : succeededSlices.entrySet()) {
+            NodeRef node = entry.getKey();
+            ExecutionDag dag = dags.get(node.dagId());
+            if (dag == null) {
+                continue;
+            }
+            List<Integer> dependents = dag.getAdjacencyList().get(node.nodeId());
+            for (int dependent : dependents) {
+                Slice dependentSlice = succeededSlices.get(new NodeRef(node.dagId(), dependent));
+                if (dependentSlice == null) {
+                    continue;
+                }
+                flowId++;
+                writeFlow(json, "s", flowId, node.dagId(), entry.getValue().threadId(), entry.getValue().startNanos());
+                writeFlow(json, "f", flowId, node.dagId(), dependentSlice.threadId(), dependentSlice.startNanos());
+            }
+        }
+    }
+
+    private static void writeFlow(JsonGenerator json, String phase, long flowId, long dagId, long threadId, long timestampNanos) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("name", "dependency");
+        json.writeStringField("cat", "dependency");
+        json.writeStringField("ph", phase);
+        if (phase.equals("f")) {
+            json.writeStringField("bp", "e"); // Bound to the slice enclosing the event rather than the next one
+        }
+        json.writeNumberField("id", flowId);
+        json.writeNumberField("ts", toMicros(timestampNanos));
+        json.writeNumberField("pid", dagId);
+        json.writeNumberField("tid", threadId);
+        json.writeEndObject();
+    }
+
+    private void writeTrackNames(JsonGenerator json, Set<Track> tracks) throws IOException {
+        Set<Long> dagIdsWritten = new HashSet<>();
+        for (Track track : tracks) {
+            if (dagIdsWritten.add(track.dagId())) {
+                writeMetadata(json, "process_name", track.dagId(), 0, "DAG " + track.dagId());
+            }
+            String threadName = threadNames.getOrDefault(track.threadId(), "thread-" + track.threadId());
+            writeMetadata(json, "thread_name", track.dagId(), track.threadId(), threadName);
+        }
+    }
+
+    private static void writeMetadata(JsonGenerator json, String name, long dagId, long threadId, String value) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("name", name);
+        json.writeStringField("ph", "M");
+        json.writeNumberField("pid", dagId);
+        json.writeNumberField("tid", threadId);
+        json.writeObjectFieldStart("args");
+        json.writeStringField("name", value);
+        json.writeEndObject();
+        json.writeEndObject();
+    }
+
+    private String nameOf(NodeRef node) {
+        ExecutionDag dag = dags.get(node.dagId());
+        String key = dag != null ? dag.getNode(node.nodeId()).key() : null;
+        return key != null ? key : "Node " + node.nodeId();
+    }
+
+    private static double toMicros(long nanos) {
+        return nanos / 1000.0;
+    }
+
+    private record NodeRef(long dagId, int nodeId) {
+    }
+
+    private record Started(long timestamp, long threadId, int attempt) {
+    }
+
+    private record Slice(long startNanos, long endNanos, long threadId) {
+    }
+
+    private record Track(long dagId, long threadId) {
+    }
+
+    private class RecordingListener implements NodeExecutionListener {
+
+        private final long dagId;
+        private final NodeExecutionListener delegate;
+
+        private RecordingListener(long dagId, NodeExecutionListener delegate) {
+            this.dagId = dagId;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void onNodeReady(IDagNode node) {
+            delegate.onNodeReady(node);
+        }
+
+        @Override
+        public void onNodeStarted(IDagNode node, int attempt) {
+            record(STARTED, dagId, node.id(), attempt);
+            delegate.onNodeStarted(node, attempt);
+        }
+
+        @Override
+        public void onNodeRetrying(IDagNode node, int attempt, long delayInMillis, Throwable cause) {
+            record(FAILED, dagId, node.id(), attempt);
+            delegate.onNodeRetrying(node, attempt, delayInMillis, cause);
+        }
+
+        @Override
+        public void onNodeSucceeded(IDagNode node, int attempt) {
+            record(SUCCEEDED, dagId, node.id(), attempt);
+            delegate.onNodeSucceeded(node, attempt);
+        }
+
+        @Override
+        public void onNodeFailed(IDagNode node, int attempt, Throwable cause) {
+            record(FAILED, dagId, node.id(), attempt);
+            delegate.onNodeFailed(node, attempt, cause);
+        }
+    }
+}
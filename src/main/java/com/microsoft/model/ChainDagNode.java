@@ -0,0 +1,34 @@
+package com.microsoft.model;
+
+import java.util.List;
+
+/**
+ * A linear chain of nodes fused into a single unit of execution. The id of the chain is the id of its first node.
+ */
+public record ChainDagNode(Integer id, List<IDagNode> nodes) implements IDagNode {
+
+    public ChainDagNode {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("A chain must contain at least one node");
+        }
+    }
+
+    @Override
+    public void execute() {
+        for (IDagNode node : nodes) {
+            node.execute();
+        }
+    }
+
+    /**
+     * The nodes run one after the other, so the chain needs as much of every resource as its most demanding node.
+     */
+    @Override
+    public Resources resources() {
+        Resources resources = new Resources(0, 0);
+        for (IDagNode node : nodes) {
+            resources = resources.max(node.resources());
+        }
+        return resources;
+    }
+}
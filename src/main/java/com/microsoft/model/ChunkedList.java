@@ -0,0 +1,55 @@
+package com.microsoft.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * An append-only list stored in fixed-size chunks, which never moves its elements as it grows: an append only copies
+ * the array of chunks when it fills up, rather than every element. Appends must come from one thread at a time, and
+ * are published to the concurrent readers through the size.
+ */
+final class ChunkedList<E> extends AbstractList<E> implements RandomAccess {
+
+    private static final int CHUNK_SHIFT = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+    private volatile Object[][] chunks;
+    private volatile int size;
+
+    ChunkedList(int capacity) {
+        chunks = new Object[Math.max(1, (capacity + CHUNK_SIZE - 1) >>> CHUNK_SHIFT)][];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        // Read the size first: the chunks it covers were published before it
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        return (E) chunks[index >>> CHUNK_SHIFT][index & (CHUNK_SIZE - 1)];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean add(E element) {
+        int index = size;
+        int chunk = index >>> CHUNK_SHIFT;
+        Object[][] chunks = this.chunks;
+        if (chunk == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunks.length * 2);
+            this.chunks = chunks;
+        }
+        if (chunks[chunk] == null) {
+            chunks[chunk] = new Object[CHUNK_SIZE];
+        }
+        chunks[chunk][index & (CHUNK_SIZE - 1)] = element;
+        size = index + 1;
+        return true;
+    }
+}
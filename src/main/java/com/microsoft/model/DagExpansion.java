@@ -0,0 +1,91 @@
+package com.microsoft.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * The nodes and dependencies an {@link IExpandingDagNode} adds to the DAG running it. The new nodes only get their ids
+ * once the expansion is applied, so they are referred to by the handles {@link #addNode} returns until then.
+ */
+public final class DagExpansion {
+
+    private final List<IntFunction<? extends IDagNode>> nodeFactories = new ArrayList<>();
+    // New nodes are encoded as -(index + 1), existing nodes by their id
+    private final List<Dependency> dependencies = new ArrayList<>();
+
+    /**
+     * Adds a node, which runs after the node that spawned it.
+     *
+     * @param nodeFactory Builds the unit of execution of the node from the id it is assigned.
+     */
+    public synchronized NewNode addNode(IntFunction<? extends IDagNode> nodeFactory) {
+        nodeFactories.add(nodeFactory);
+        return new NewNode(nodeFactories.size() - 1);
+    }
+
+    public synchronized void addDependency(NewNode dependent, NewNode dependency) {
+        if (dependent.equals(dependency)) {
+            throw new IllegalArgumentException("The graph contains a cycle");
+        }
+        dependencies.add(new Dependency(encode(dependent), encode(dependency)));
+    }
+
+    /**
+     * Makes a new node wait for a node of the DAG, which may have completed already.
+     */
+    public synchronized void addDependency(NewNode dependent, int dependencyId) {
+        dependencies.add(new Dependency(encode(dependent), validateId(dependencyId)));
+    }
+
+    /**
+     * Makes a node of the DAG wait for a new node. Only the nodes depending on the node that spawned the new nodes can
+     * be made to wait for them, as the others may have started already.
+     */
+    public synchronized void addDependency(int dependentId, NewNode dependency) {
+        dependencies.add(new Dependency(validateId(dependentId), encode(dependency)));
+    }
+
+    public synchronized boolean isEmpty() {
+        return nodeFactories.isEmpty() && dependencies.isEmpty();
+    }
+
+    synchronized List<IntFunction<? extends IDagNode>> nodeFactories() {
+        return List.copyOf(nodeFactories);
+    }
+
+    synchronized List<Dependency> dependencies() {
+        return List.copyOf(dependencies);
+    }
+
+    private int encode(NewNode node) {
+        if (node.index() >= nodeFactories.size()) {
+            throw new IllegalArgumentException("The node wasn't added to this expansion");
+        }
+        return -(node.index() + 1);
+    }
+
+    private static int validateId(int id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("The graph contains a reference to a non-existing node");
+        }
+        return id;
+    }
+
+    /**
+     * A node added by the expansion.
+     *
+     * @param index The position of the node in the expansion.
+     */
+    public record NewNode(int index) {
+
+        public NewNode {
+            if (index < 0) {
+                throw new IllegalArgumentException("index must be greater than or equal to 0");
+            }
+        }
+    }
+
+    record Dependency(int dependent, int dependency) {
+    }
+}
@@ -3,12 +3,20 @@ package com.microsoft.model;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public record DagNode(Integer id) implements IDagNode {
+public record DagNode(Integer id, String key, Resources resources) implements IDagNode {
 
     private final static Logger logger = LoggerFactory.getLogger(DagNode.class);
 
+    public DagNode(Integer id) {
+        this(id, null);
+    }
+
+    public DagNode(Integer id, String key) {
+        this(id, key, Resources.DEFAULT);
+    }
+
     @Override
     public void execute() {
-        logger.info("Executing node: {}", id);
+        logger.debug("Executing node: {}", id);
     }
 }
@@ -1,17 +1,42 @@
 package com.microsoft.model;
 
+import com.microsoft.model.csr.IDependencySource;
+
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.ToDoubleFunction;
 
+/**
+ * A DAG of nodes, whose ids go from 0 to n - 1. The {@link IExpandingDagNode expanding nodes} of a running DAG can
+ * {@link #expand} it, so the lists of dependents of the nodes of such a DAG may grow while it runs: read them holding
+ * their lock. The other DAGs are held in plain collections, and may only be expanded while they don't run.
+ */
 public class ExecutionDag {
-    private final List<List<Integer>> adjacencyList = new ArrayList<>();
-    private final Map<Integer, IDagNode> nodeMap = new HashMap<>();
-    private final Map<Integer, Integer> inDegree = new HashMap<>();
+    private List<List<Integer>> adjacencyList;
+    private Map<Integer, IDagNode> nodeMap = new HashMap<>();
+    private Map<Integer, Integer> inDegree = new HashMap<>();
+    private boolean hasExpandingNodes;
+    private volatile boolean isExpandable;
 
     private ExecutionDag() {
 
     }
 
     public static ExecutionDag create(Set<? extends INodeWithDependencies> nodes) {
+        return create(nodes, node -> new DagNode(node.id(), node.key(), node.resources()));
+    }
+
+    /**
+     * Creates a DAG whose units of execution are built by {@code nodeFactory}, e.g. to plug in
+     * {@link IAsyncDagNode asynchronous nodes}.
+     */
+    public static ExecutionDag create(
+            Set<? extends INodeWithDependencies> nodes,
+            Function<? super INodeWithDependencies, ? extends IDagNode> nodeFactory
+    ) {
         ExecutionDag dag = new ExecutionDag();
 
         // Initialize adjacency list
@@ -21,6 +46,7 @@ public class ExecutionDag {
             throw new IllegalArgumentException("The graph is too big");
         }
 
+        dag.adjacencyList = new ArrayList<>(nodesSize);
         for (int i = 0; i < nodesSize; i++) {
             dag.adjacencyList.add(new ArrayList<>());
         }
@@ -30,7 +56,11 @@ public class ExecutionDag {
                 throw new IllegalArgumentException("The graph contains duplicate nodes");
             }
 
-            dag.addNode(new DagNode(node.id()));
+            IDagNode dagNode = nodeFactory.apply(node);
+            if (!node.id().equals(dagNode.id())) {
+                throw new IllegalArgumentException("The node factory must preserve the id of the nodes");
+            }
+            dag.addNode(dagNode);
 
             for (INodeWithDependencies dependency : node.dependencies()) {
                 int targetId = dependency.id();
@@ -44,11 +74,81 @@ public class ExecutionDag {
         if (dag.detectCycle()) {
             throw new IllegalArgumentException("The graph contains a cycle");
         }
+        if (dag.hasExpandingNodes) {
+            dag.makeExpandable();
+        }
+
+        return dag;
+    }
+
+    /**
+     * Creates a DAG from a stream of nodes with their dependencies, which is read once, without building an
+     * {@link INodeWithDependencies} for every node.
+     *
+     * @param nodes       The number of nodes, whose ids go from 0 to {@code nodes - 1}.
+     * @param nodeFactory Builds the unit of execution of a node from its id.
+     */
+    public static ExecutionDag create(int nodes, IDependencySource source, IntFunction<? extends IDagNode> nodeFactory) throws IOException {
+        if (nodes < 0 || nodes == Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The graph is too big");
+        }
+
+        ExecutionDag dag = new ExecutionDag();
+        dag.adjacencyList = new ArrayList<>(nodes);
+        for (int i = 0; i < nodes; i++) {
+            dag.adjacencyList.add(new ArrayList<>());
+        }
+
+        source.forEachNode((id, dependencies) -> {
+            if (id < 0 || id >= nodes) {
+                throw new IllegalArgumentException("The graph contains a node out of range: " + id);
+            }
+            if (dag.nodeMap.get(id) != null) {
+                throw new IllegalArgumentException("The graph contains duplicate nodes");
+            }
+
+            IDagNode dagNode = nodeFactory.apply(id);
+            if (dagNode.id() != id) {
+                throw new IllegalArgumentException("The node factory must preserve the id of the nodes");
+            }
+            dag.addNode(dagNode);
+
+            for (int dependency : dependencies) {
+                if (dependency < 0 || dependency >= nodes) {
+                    throw new IllegalArgumentException("The graph contains a reference to a non-existing node");
+                }
+                dag.addEdge(dependency, id);
+            }
+        });
+        if (dag.nodeMap.size() != nodes) {
+            throw new IllegalArgumentException("The graph has " + dag.nodeMap.size() + " nodes instead of " + nodes);
+        }
+
+        if (dag.detectCycle()) {
+            throw new IllegalArgumentException("The graph contains a cycle");
+        }
+        if (dag.hasExpandingNodes) {
+            dag.makeExpandable();
+        }
 
         return dag;
     }
 
+    /**
+     * Moves the DAG to collections that its expansions can grow while the engines read them: the adjacency list only
+     * gains chunks as it grows, and the maps are concurrent.
+     */
+    private void makeExpandable() {
+        List<List<Integer>> growableAdjacencyList = new ChunkedList<>(adjacencyList.size());
+        growableAdjacencyList.addAll(adjacencyList);
+        adjacencyList = growableAdjacencyList;
+        nodeMap = new ConcurrentHashMap<>(nodeMap);
+        inDegree = new ConcurrentHashMap<>(inDegree);
+        isExpandable = true;
+    }
+
     private void addNode(IDagNode node) {
+        hasExpandingNodes |= node instanceof IExpandingDagNode;
         nodeMap.put(node.id(), node);
         if(!inDegree.containsKey(node.id())) {
             inDegree.put(node.id(), 0);
@@ -72,39 +172,299 @@ public class ExecutionDag {
         return inDegree;
     }
 
-    private boolean detectCycle() {
-        boolean[] visited = new boolean[nodeMap.size()];
-        boolean[] recStack = new boolean[nodeMap.size()];
+    /**
+     * @return Whether the DAG may grow while it runs: it has expanding nodes, or was expanded.
+     */
+    public boolean isExpandable() {
+        return isExpandable;
+    }
+
+    /**
+     * Adds the nodes and dependencies of an expansion to the DAG, with ids following the ids of the DAG. The expansion
+     * is applied entirely or not at all. Expansions are applied one at a time, and may run concurrently with the
+     * execution of a DAG with expanding nodes.
+     *
+     * @param spawningNodeId The node that made the expansion: only the nodes depending on it can gain dependencies.
+     * @param listener       Keeps the state of the run in step with the DAG.
+     * @return The ids of the new nodes, in the order they were added to the expansion.
+     * @throws IllegalArgumentException If the expansion refers to non-existing nodes, makes a node that doesn't
+     *                                  depend on the spawning node wait, or closes a cycle.
+     */
+    public synchronized int[] expand(int spawningNodeId, DagExpansion expansion, ExpansionListener listener) {
+        if (!isExpandable) {
+            makeExpandable();
+        }
+        List<IntFunction<? extends IDagNode>> nodeFactories = expansion.nodeFactories();
+        List<DagExpansion.Dependency> dependencies = expansion.dependencies();
+        int firstId = adjacencyList.size();
+        if ((long) firstId + nodeFactories.size() >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The graph is too big");
+        }
+
+        List<Integer> spawningNodeDependents = adjacencyList.get(spawningNodeId);
+        for (DagExpansion.Dependency dependency : dependencies) {
+            if (dependency.dependency() >= firstId) {
+                throw new IllegalArgumentException("The graph contains a reference to a non-existing node");
+            }
+            int dependent = dependency.dependent();
+            if (dependent >= 0) {
+                synchronized (spawningNodeDependents) {
+                    if (!spawningNodeDependents.contains(dependent)) {
+                        throw new IllegalArgumentException("Node " + dependent + " doesn't depend on node " + spawningNodeId + " and may have started");
+                    }
+                }
+            }
+        }
+        if (closesCycle(nodeFactories.size(), dependencies)) {
+            throw new IllegalArgumentException("The graph contains a cycle");
+        }
+
+        int[] ids = new int[nodeFactories.size()];
+        List<IDagNode> nodes = new ArrayList<>(ids.length);
+        List<List<Integer>> newDependents = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = firstId + i;
+            IDagNode node = nodeFactories.get(i).apply(ids[i]);
+            if (node.id() != ids[i]) {
+                throw new IllegalArgumentException("The node factory must preserve the id of the nodes");
+            }
+            nodes.add(node);
+            newDependents.add(new ArrayList<>());
+        }
+
+        // Nothing runs the new nodes until they are reachable from the DAG, through the dependencies below
+        for (IDagNode node : nodes) {
+            addNode(node);
+            listener.onNodeAdded(node.id());
+        }
+        adjacencyList.addAll(newDependents);
+        for (DagExpansion.Dependency dependency : dependencies) {
+            int dependent = dependency.dependent() >= 0 ? dependency.dependent() : firstId - dependency.dependent() - 1;
+            int dependencyId = dependency.dependency() >= 0 ? dependency.dependency() : firstId - dependency.dependency() - 1;
+            List<Integer> dependents = adjacencyList.get(dependencyId);
+            inDegree.merge(dependent, 1, Integer::sum);
+            synchronized (dependents) {
+                listener.onDependencyAdded(dependent, dependencyId);
+                dependents.add(dependent);
+            }
+        }
+
+        return ids;
+    }
+
+    /**
+     * Peels off the nodes reachable from the new nodes, as {@link #detectCycle()} does: the DAG itself has no cycle, so
+     * any cycle goes through a new node.
+     */
+    private boolean closesCycle(int newNodes, List<DagExpansion.Dependency> dependencies) {
+        // New nodes are encoded as -(index + 1)
+        Map<Integer, List<Integer>> addedDependents = new HashMap<>();
+        for (DagExpansion.Dependency dependency : dependencies) {
+            addedDependents.computeIfAbsent(dependency.dependency(), _ -> new ArrayList<>()).add(dependency.dependent());
+        }
+
+        List<Integer> reachable = new ArrayList<>();
+        Map<Integer, Integer> pendingDependencies = new HashMap<>();
+        for (int i = 0; i < newNodes; i++) {
+            reachable.add(-(i + 1));
+            pendingDependencies.put(-(i + 1), 0);
+        }
+        for (int next = 0; next < reachable.size(); next++) {
+            for (int dependent : dependentsOf(reachable.get(next), addedDependents)) {
+                if (pendingDependencies.merge(dependent, 1, Integer::sum) == 1 && dependent >= 0) {
+                    reachable.add(dependent);
+                }
+            }
+        }
+
+        Deque<Integer> ready = new ArrayDeque<>();
+        pendingDependencies.forEach((node, pending) -> {
+            if (pending == 0) {
+                ready.add(node);
+            }
+        });
+        int peeled = 0;
+        while (!ready.isEmpty()) {
+            peeled++;
+            for (int dependent : dependentsOf(ready.poll(), addedDependents)) {
+                if (pendingDependencies.merge(dependent, -1, Integer::sum) == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        return peeled < pendingDependencies.size();
+    }
+
+    private List<Integer> dependentsOf(int node, Map<Integer, List<Integer>> addedDependents) {
+        List<Integer> added = addedDependents.getOrDefault(node, List.of());
+        if (node < 0) {
+            return added;
+        }
+
+        List<Integer> dependents = adjacencyList.get(node);
+        List<Integer> all;
+        synchronized (dependents) {
+            all = new ArrayList<>(dependents.size() + added.size());
+            all.addAll(dependents);
+        }
+        all.addAll(added);
+        return all;
+    }
+
+    /**
+     * Keeps the state of a run in step with an expansion of its DAG.
+     */
+    public interface ExpansionListener {
+
+        /**
+         * Called for every new node, before it gets any dependency.
+         */
+        void onNodeAdded(int id);
+
+        /**
+         * Called holding the lock of the dependents of {@code dependency}, before {@code dependent} is added to them: a
+         * run releasing the dependents of the dependency under the same lock sees either both or none.
+         */
+        void onDependencyAdded(int dependent, int dependency);
+    }
+
+    /**
+     * Computes the topological level of every node: 0 for nodes without dependencies, and one more than the highest
+     * level among its dependencies otherwise. Nodes of the same level never depend on each other.
+     *
+     * @return The level of every node, indexed by node id.
+     */
+    public int[] computeLevels() {
+        int size = adjacencyList.size();
+        int[] levels = new int[size];
+        int[] pendingDependencies = new int[size];
+        Deque<Integer> ready = new ArrayDeque<>();
+        for (int i = 0; i < size; i++) {
+            pendingDependencies[i] = inDegree.get(i);
+            if (pendingDependencies[i] == 0) {
+                ready.add(i);
+            }
+        }
+
+        while (!ready.isEmpty()) {
+            int node = ready.poll();
+            for (int dependent : adjacencyList.get(node)) {
+                levels[dependent] = Math.max(levels[dependent], levels[node] + 1);
+                if (--pendingDependencies[dependent] == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+
+        return levels;
+    }
+
+    /**
+     * Computes the critical path of every node: the longest path from the node to the end of the DAG, weighing every
+     * node, itself included, by its duration. Running the nodes with the longest critical path first shortens the
+     * makespan.
+     *
+     * @param durations Estimates how long every node takes.
+     * @return The length of the critical path of every node, indexed by node id.
+     */
+    public double[] computeCriticalPaths(ToDoubleFunction<? super IDagNode> durations) {
+        int size = adjacencyList.size();
+        int[] pendingDependencies = new int[size];
+        int[] topologicalOrder = new int[size];
+        int ordered = 0;
+        for (int i = 0; i < size; i++) {
+            pendingDependencies[i] = inDegree.get(i);
+            if (pendingDependencies[i] == 0) {
+                topologicalOrder[ordered++] = i;
+            }
+        }
+        for (int next = 0; next < ordered; next++) {
+            for (int dependent : adjacencyList.get(topologicalOrder[next])) {
+                if (--pendingDependencies[dependent] == 0) {
+                    topologicalOrder[ordered++] = dependent;
+                }
+            }
+        }
 
-        for (int i = 0; i < nodeMap.size(); i++) {
-            if (detectCycleUtil(i, visited, recStack)) {
-                return true;
+        // Dependents come later in topological order, so their critical paths are known first when walking it back
+        double[] criticalPaths = new double[size];
+        for (int i = size - 1; i >= 0; i--) {
+            int node = topologicalOrder[i];
+            double longestDependent = 0;
+            for (int dependent : adjacencyList.get(node)) {
+                longestDependent = Math.max(longestDependent, criticalPaths[dependent]);
             }
+            criticalPaths[node] = durations.applyAsDouble(nodeMap.get(node)) + longestDependent;
         }
 
-        return false;
+        return criticalPaths;
     }
 
-    private boolean detectCycleUtil(int i, boolean[] visited, boolean[] recStack) {
-        if (recStack[i]) {
-            return true;
+    /**
+     * Finds the maximal linear chains of the graph. In a chain every node but the last one has exactly one dependent,
+     * and every node but the first one has exactly one dependency.
+     *
+     * @return The chains with at least two nodes, in execution order and keyed by the id of their first node.
+     */
+    public Map<Integer, List<Integer>> findChains() {
+        int size = adjacencyList.size();
+
+        // A node continues a chain if its only dependency has no other dependents
+        boolean[] continuesChain = new boolean[size];
+        for (List<Integer> dependents : adjacencyList) {
+            if (dependents.size() == 1 && inDegree.get(dependents.getFirst()) == 1) {
+                continuesChain[dependents.getFirst()] = true;
+            }
         }
 
-        if (visited[i]) {
-            return false;
+        Map<Integer, List<Integer>> chains = new HashMap<>();
+        for (int head = 0; head < size; head++) {
+            if (continuesChain[head]) {
+                continue;
+            }
+
+            List<Integer> chain = new ArrayList<>();
+            int current = head;
+            chain.add(current);
+            while (adjacencyList.get(current).size() == 1 && continuesChain[adjacencyList.get(current).getFirst()]) {
+                current = adjacencyList.get(current).getFirst();
+                chain.add(current);
+            }
+
+            if (chain.size() > 1) {
+                chains.put(head, chain);
+            }
         }
 
-        visited[i] = true;
-        recStack[i] = true;
+        return chains;
+    }
 
-        for (int j : adjacencyList.get(i)) {
-            if (detectCycleUtil(j, visited, recStack)) {
-                return true;
+    /**
+     * Peels off the nodes without pending dependencies until none are left: the nodes that are never peeled off are
+     * part of, or depend on, a cycle. Unlike a depth-first search, it doesn't overflow the stack on long paths.
+     */
+    private boolean detectCycle() {
+        int size = adjacencyList.size();
+        int[] pendingDependencies = new int[size];
+        int[] ready = new int[size];
+        int readyCount = 0;
+        for (int i = 0; i < size; i++) {
+            pendingDependencies[i] = inDegree.get(i);
+            if (pendingDependencies[i] == 0) {
+                ready[readyCount++] = i;
             }
         }
 
-        recStack[i] = false;
+        int visited = 0;
+        while (visited < readyCount) {
+            int node = ready[visited++];
+            for (int dependent : adjacencyList.get(node)) {
+                if (--pendingDependencies[dependent] == 0) {
+                    ready[readyCount++] = dependent;
+                }
+            }
+        }
 
-        return false;
+        return visited < size;
     }
 }
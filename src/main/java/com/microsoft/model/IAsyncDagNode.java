@@ -0,0 +1,22 @@
+package com.microsoft.model;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * A node whose work completes asynchronously, e.g. a remote call. Engines only run {@link #executeAsync()} up to the
+ * point where it returns, so waiting for the result doesn't take up an engine.
+ */
+public interface IAsyncDagNode extends IDagNode {
+
+    /**
+     * Starts the execution of the node.
+     *
+     * @return A stage that completes when the node has been executed, or completes exceptionally if it failed.
+     */
+    CompletionStage<Void> executeAsync();
+
+    @Override
+    default void execute() {
+        executeAsync().toCompletableFuture().join();
+    }
+}
@@ -5,4 +5,20 @@ public interface  IDagNode {
     Integer id();
 
     void execute();
+
+    /**
+     * @return Identity of the node across DAGs, or {@code null} if the node only exists within its DAG. Concurrent
+     * DAGs sharing a {@link com.microsoft.execution.SharedNodeRegistry} execute nodes with the same key only once.
+     */
+    default String key() {
+        return null;
+    }
+
+    /**
+     * @return The CPU and memory the node needs while it runs. The {@link com.microsoft.execution.DagNodeExecutor}
+     * only starts the node once they are available.
+     */
+    default Resources resources() {
+        return Resources.DEFAULT;
+    }
 }
@@ -0,0 +1,16 @@
+package com.microsoft.model;
+
+/**
+ * A node that adds nodes to the DAG running it, e.g. one node per input partition it discovered. Only the
+ * {@link com.microsoft.execution.DagExecutor} expands the DAG: other executors run the node without expanding it.
+ */
+public interface IExpandingDagNode extends IDagNode {
+
+    /**
+     * Called once the node succeeded, before the nodes depending on it are released, so a failed attempt never expands
+     * the DAG. An invalid expansion fails the node.
+     *
+     * @param expansion Receives the nodes and dependencies to add to the DAG.
+     */
+    void expand(DagExpansion expansion);
+}
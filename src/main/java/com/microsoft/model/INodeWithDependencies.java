@@ -7,4 +7,18 @@ public interface INodeWithDependencies {
     Integer id();
 
     Set<? extends INodeWithDependencies> dependencies();
+
+    /**
+     * @return Identity of the node across DAGs, or {@code null} if the node only exists within its DAG.
+     */
+    default String key() {
+        return null;
+    }
+
+    /**
+     * @return The CPU and memory the node needs while it runs.
+     */
+    default Resources resources() {
+        return Resources.DEFAULT;
+    }
 }
@@ -0,0 +1,50 @@
+package com.microsoft.model;
+
+/**
+ * An amount of CPU and memory, either demanded by a node or available to run nodes.
+ *
+ * @param cpu         Number of cores.
+ * @param memoryInMb  Memory in megabytes.
+ */
+public record Resources(int cpu, long memoryInMb) {
+
+    /**
+     * The demand of a node that doesn't declare one: a single core and no memory to speak of.
+     */
+    public static final Resources DEFAULT = new Resources(1, 0);
+
+    public Resources {
+        if (cpu < 0) {
+            throw new IllegalArgumentException("cpu must be greater than or equal to 0");
+        }
+        if (memoryInMb < 0) {
+            throw new IllegalArgumentException("memoryInMb must be greater than or equal to 0");
+        }
+    }
+
+    public boolean fitsIn(Resources available) {
+        return cpu <= available.cpu && memoryInMb <= available.memoryInMb;
+    }
+
+    public Resources plus(Resources other) {
+        return new Resources(cpu + other.cpu, memoryInMb + other.memoryInMb);
+    }
+
+    public Resources minus(Resources other) {
+        return new Resources(cpu - other.cpu, memoryInMb - other.memoryInMb);
+    }
+
+    /**
+     * @return The highest amount of every resource among both.
+     */
+    public Resources max(Resources other) {
+        return new Resources(Math.max(cpu, other.cpu), Math.max(memoryInMb, other.memoryInMb));
+    }
+
+    /**
+     * @return The lowest amount of every resource among both.
+     */
+    public Resources min(Resources other) {
+        return new Resources(Math.min(cpu, other.cpu), Math.min(memoryInMb, other.memoryInMb));
+    }
+}
@@ -0,0 +1,120 @@
+package com.microsoft.model.csr;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A DAG memory-mapped from a file written by the {@link CsrDagWriter}, in compressed sparse row (CSR) layout: the
+ * dependents of node {@code i} are {@code dependents[offsets[i]..offsets[i + 1])}. Only the pages being read are in
+ * memory, and none of it is on the heap, so the DAG can be far larger than the heap.
+ * <p>
+ * Layout of the file, in native byte order:
+ * <pre>
+ * int  magic
+ * int  nodes
+ * long edges
+ * int  inDegrees[nodes]           number of dependencies of every node
+ * long offsets[nodes + 1]         aligned on 8 bytes
+ * int  dependents[edges]
+ * </pre>
+ */
+public class CsrDag implements AutoCloseable {
+
+    static final int MAGIC = 0x43535231; // "CSR1"
+    static final long HEADER_SIZE = 16;
+
+    private final Arena arena;
+    private final int nodes;
+    private final long edges;
+    private final MemorySegment inDegrees;
+    private final MemorySegment offsets;
+    private final MemorySegment dependents;
+
+    private CsrDag(Arena arena, MemorySegment file) {
+        if (file.byteSize() < HEADER_SIZE || file.get(ValueLayout.JAVA_INT, 0) != MAGIC) {
+            throw new IllegalArgumentException("Not a CSR DAG file");
+        }
+        this.arena = arena;
+        this.nodes = file.get(ValueLayout.JAVA_INT, 4);
+        this.edges = file.get(ValueLayout.JAVA_LONG, 8);
+        long offsetsStart = offsetsPosition(nodes);
+        long dependentsStart = dependentsPosition(nodes);
+        if (file.byteSize() != dependentsStart + edges * Integer.BYTES) {
+            throw new IllegalArgumentException("The CSR DAG file is truncated");
+        }
+        this.inDegrees = file.asSlice(HEADER_SIZE, (long) nodes * Integer.BYTES);
+        this.offsets = file.asSlice(offsetsStart, (nodes + 1L) * Long.BYTES);
+        this.dependents = file.asSlice(dependentsStart, edges * Integer.BYTES);
+    }
+
+    /**
+     * Maps the file read-only. It stays mapped until the DAG is closed.
+     */
+    public static CsrDag open(Path file) throws IOException {
+        Arena arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new CsrDag(arena, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena));
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    static long offsetsPosition(int nodes) {
+        return (HEADER_SIZE + (long) nodes * Integer.BYTES + 7) & ~7L;
+    }
+
+    static long dependentsPosition(int nodes) {
+        return offsetsPosition(nodes) + (nodes + 1L) * Long.BYTES;
+    }
+
+    public int size() {
+        return nodes;
+    }
+
+    public long edges() {
+        return edges;
+    }
+
+    public int inDegree(int node) {
+        return inDegrees.getAtIndex(ValueLayout.JAVA_INT, node);
+    }
+
+    /**
+     * @return The number of dependencies of every node, indexed by node id.
+     */
+    public MemorySegment inDegrees() {
+        return inDegrees;
+    }
+
+    /**
+     * @return The index in {@link #dependentAt} of the first dependent of the node.
+     */
+    public long dependentsStart(int node) {
+        return offsets.getAtIndex(ValueLayout.JAVA_LONG, node);
+    }
+
+    /**
+     * @return The index in {@link #dependentAt} after the last dependent of the node.
+     */
+    public long dependentsEnd(int node) {
+        return offsets.getAtIndex(ValueLayout.JAVA_LONG, node + 1L);
+    }
+
+    public int dependentAt(long index) {
+        return dependents.getAtIndex(ValueLayout.JAVA_INT, index);
+    }
+
+    /**
+     * Unmaps the file. The DAG must not be used afterwards.
+     */
+    @Override
+    public void close() {
+        arena.close();
+    }
+}
@@ -0,0 +1,112 @@
+package com.microsoft.model.csr;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Lays out a DAG in the file format of {@link CsrDag}, in two passes over its {@link IDependencySource}: the first
+ * counts the dependencies and dependents of every node, the second fills in the dependents. The counters are kept
+ * off-heap and the file is written through a memory mapping, so the heap usage doesn't depend on the size of the DAG.
+ */
+public final class CsrDagWriter {
+
+    private CsrDagWriter() {
+    }
+
+    /**
+     * Writes the DAG to the file, replacing it. The file only appears once complete.
+     *
+     * @param nodes The number of nodes of the DAG, whose ids go from 0 to {@code nodes - 1}.
+     */
+    public static void write(Path file, int nodes, IDependencySource source) throws IOException {
+        if (nodes < 0) {
+            throw new IllegalArgumentException("nodes must be greater than or equal to 0");
+        }
+
+        Path temporaryFile = file.resolveSibling(file.getFileName() + ".writing");
+        try {
+            writeTo(temporaryFile, nodes, source);
+            Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    private static void writeTo(Path file, int nodes, IDependencySource source) throws IOException {
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment inDegrees = arena.allocate((long) nodes * Integer.BYTES, Integer.BYTES);
+            MemorySegment cursors = arena.allocate((nodes + 1L) * Long.BYTES, Long.BYTES); // Dependents, then offsets
+            MemorySegment seen = arena.allocate((nodes + 7L) / 8, 1);
+            long edges = countEdges(nodes, source, inDegrees, cursors, seen);
+
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long size = CsrDag.dependentsPosition(nodes) + edges * Integer.BYTES;
+                MemorySegment mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, size, arena);
+                mapped.set(ValueLayout.JAVA_INT, 0, CsrDag.MAGIC);
+                mapped.set(ValueLayout.JAVA_INT, 4, nodes);
+                mapped.set(ValueLayout.JAVA_LONG, 8, edges);
+                MemorySegment.copy(inDegrees, 0, mapped, CsrDag.HEADER_SIZE, inDegrees.byteSize());
+
+                // Turn the number of dependents of every node into the offset of its first dependent
+                MemorySegment offsets = mapped.asSlice(CsrDag.offsetsPosition(nodes), (nodes + 1L) * Long.BYTES);
+                long offset = 0;
+                for (int node = 0; node < nodes; node++) {
+                    offsets.setAtIndex(ValueLayout.JAVA_LONG, node, offset);
+                    long dependents = cursors.getAtIndex(ValueLayout.JAVA_LONG, node);
+                    cursors.setAtIndex(ValueLayout.JAVA_LONG, node, offset);
+                    offset += dependents;
+                }
+                offsets.setAtIndex(ValueLayout.JAVA_LONG, nodes, offset);
+
+                MemorySegment dependents = mapped.asSlice(CsrDag.dependentsPosition(nodes), edges * Integer.BYTES);
+                source.forEachNode((id, dependencies) -> {
+                    for (int dependency : dependencies) {
+                        long position = cursors.getAtIndex(ValueLayout.JAVA_LONG, dependency);
+                        dependents.setAtIndex(ValueLayout.JAVA_INT, position, id);
+                        cursors.setAtIndex(ValueLayout.JAVA_LONG, dependency, position + 1);
+                    }
+                });
+                mapped.force();
+            }
+        }
+    }
+
+    private static long countEdges(int nodes, IDependencySource source, MemorySegment inDegrees, MemorySegment outDegrees, MemorySegment seen) throws IOException {
+        long[] edges = {0};
+        long[] visited = {0};
+        source.forEachNode((id, dependencies) -> {
+            if (id < 0 || id >= nodes) {
+                throw new IllegalArgumentException("The graph contains a node out of range: " + id);
+            }
+            byte mask = (byte) (1 << (id & 7));
+            byte bits = seen.get(ValueLayout.JAVA_BYTE, id >>> 3);
+            if ((bits & mask) != 0) {
+                throw new IllegalArgumentException("The graph contains duplicate nodes");
+            }
+            seen.set(ValueLayout.JAVA_BYTE, id >>> 3, (byte) (bits | mask));
+            visited[0]++;
+
+            for (int dependency : dependencies) {
+                if (dependency < 0 || dependency >= nodes) {
+                    throw new IllegalArgumentException("The graph contains a reference to a non-existing node");
+                }
+                long dependents = outDegrees.getAtIndex(ValueLayout.JAVA_LONG, dependency);
+                outDegrees.setAtIndex(ValueLayout.JAVA_LONG, dependency, dependents + 1);
+            }
+            inDegrees.setAtIndex(ValueLayout.JAVA_INT, id, dependencies.length);
+            edges[0] += dependencies.length;
+        });
+        if (visited[0] != nodes) {
+            throw new IllegalArgumentException("The graph has " + visited[0] + " nodes instead of " + nodes);
+        }
+        return edges[0];
+    }
+}
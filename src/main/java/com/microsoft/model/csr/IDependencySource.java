@@ -0,0 +1,23 @@
+package com.microsoft.model.csr;
+
+import java.io.IOException;
+
+/**
+ * Streams the nodes of a DAG with their dependencies, so a {@link CsrDagWriter} can lay it out on disk without holding
+ * it in memory. The source is read twice, and must yield the same nodes both times.
+ */
+@FunctionalInterface
+public interface IDependencySource {
+
+    void forEachNode(NodeConsumer consumer) throws IOException;
+
+    @FunctionalInterface
+    interface NodeConsumer {
+
+        /**
+         * @param id           The id of the node, between 0 and the number of nodes - 1.
+         * @param dependencies The ids of the nodes it depends on. Only valid during the call.
+         */
+        void accept(int id, int[] dependencies) throws IOException;
+    }
+}
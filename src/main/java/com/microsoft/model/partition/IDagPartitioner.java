@@ -0,0 +1,18 @@
+package com.microsoft.model.partition;
+
+import com.microsoft.model.ExecutionDag;
+
+/**
+ * Splits the nodes of a DAG into shards, e.g. to place them on different engines or worker processes.
+ */
+public interface IDagPartitioner {
+
+    /**
+     * Assigns every node of the DAG to a shard.
+     *
+     * @param dag             The DAG to be partitioned.
+     * @param numberOfShards  The number of shards.
+     * @return The shard of every node, along with the quality of the partitioning.
+     */
+    Partitioning partition(ExecutionDag dag, int numberOfShards);
+}
@@ -0,0 +1,122 @@
+package com.microsoft.model.partition;
+
+import com.microsoft.model.ExecutionDag;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Streaming Linear Deterministic Greedy (LDG) partitioner. Nodes are streamed level by level in topological order,
+ * so all the dependencies of a node are already placed when it is assigned. Every node goes to the shard holding most
+ * of its dependencies, weighted by how much room that shard has left.
+ * <p>
+ * Besides the overall balance, every topological level is balanced on its own: the nodes of a level can run in
+ * parallel, and piling them up on one shard would serialize them.
+ */
+public class LdgPartitioner implements IDagPartitioner {
+
+    private final double slack;
+
+    public LdgPartitioner() {
+        this(0.1);
+    }
+
+    /**
+     * @param slack How much bigger than the average a shard, or the share of a level on a shard, is allowed to be.
+     */
+    public LdgPartitioner(double slack) {
+        if (slack < 0) {
+            throw new IllegalArgumentException("slack must be greater than or equal to 0");
+        }
+        this.slack = slack;
+    }
+
+    @Override
+    public Partitioning partition(ExecutionDag dag, int numberOfShards) {
+        if (numberOfShards <= 0) {
+            throw new IllegalArgumentException("numberOfShards must be greater than 0");
+        }
+
+        List<List<Integer>> adjacencyList = dag.getAdjacencyList();
+        int size = adjacencyList.size();
+        int[] levels = dag.computeLevels();
+        List<List<Integer>> nodesByLevel = groupByLevel(levels);
+        List<List<Integer>> dependencies = reverse(adjacencyList);
+
+        int[] shardOfNode = new int[size];
+        int[] shardSizes = new int[numberOfShards];
+        double capacity = Math.ceil((double) size / numberOfShards) * (1 + slack);
+
+        int[] levelSizes = new int[numberOfShards];
+        int[] placedDependencies = new int[numberOfShards];
+        for (List<Integer> level : nodesByLevel) {
+            Arrays.fill(levelSizes, 0);
+            double levelCapacity = Math.ceil((double) level.size() / numberOfShards) * (1 + slack);
+
+            for (int node : level) {
+                Arrays.fill(placedDependencies, 0);
+                for (int dependency : dependencies.get(node)) {
+                    placedDependencies[shardOfNode[dependency]]++;
+                }
+
+                int shard = pickShard(placedDependencies, shardSizes, capacity, levelSizes, levelCapacity);
+                shardOfNode[node] = shard;
+                shardSizes[shard]++;
+                levelSizes[shard]++;
+            }
+        }
+
+        return Partitioning.of(numberOfShards, shardOfNode, adjacencyList);
+    }
+
+    private static int pickShard(int[] placedDependencies, int[] shardSizes, double capacity, int[] levelSizes, double levelCapacity) {
+        int best = -1;
+        double bestScore = -1;
+        for (int shard = 0; shard < shardSizes.length; shard++) {
+            if (levelSizes[shard] >= levelCapacity || shardSizes[shard] >= capacity) {
+                continue;
+            }
+
+            double score = placedDependencies[shard] * (1 - shardSizes[shard] / capacity);
+            if (best < 0 || score > bestScore || (score == bestScore && shardSizes[shard] < shardSizes[best])) {
+                best = shard;
+                bestScore = score;
+            }
+        }
+
+        if (best < 0) { // Every shard is full, fall back to the least loaded one
+            best = 0;
+            for (int shard = 1; shard < shardSizes.length; shard++) {
+                if (shardSizes[shard] < shardSizes[best]) {
+                    best = shard;
+                }
+            }
+        }
+        return best;
+    }
+
+    private static List<List<Integer>> groupByLevel(int[] levels) {
+        List<List<Integer>> nodesByLevel = new ArrayList<>();
+        for (int node = 0; node < levels.length; node++) {
+            while (nodesByLevel.size() <= levels[node]) {
+                nodesByLevel.add(new ArrayList<>());
+            }
+            nodesByLevel.get(levels[node]).add(node);
+        }
+        return nodesByLevel;
+    }
+
+    private static List<List<Integer>> reverse(List<List<Integer>> adjacencyList) {
+        List<List<Integer>> dependencies = new ArrayList<>(adjacencyList.size());
+        for (int i = 0; i < adjacencyList.size(); i++) {
+            dependencies.add(new ArrayList<>());
+        }
+        for (int node = 0; node < adjacencyList.size(); node++) {
+            for (int dependent : adjacencyList.get(node)) {
+                dependencies.get(dependent).add(node);
+            }
+        }
+        return dependencies;
+    }
+}
@@ -0,0 +1,79 @@
+package com.microsoft.model.partition;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The assignment of the nodes of a DAG to shards.
+ *
+ * @param numberOfShards The number of shards.
+ * @param shardOfNode    The shard of every node, indexed by node id.
+ * @param cutEdges       Number of dependencies between nodes placed on different shards.
+ * @param totalEdges     Total number of dependencies in the DAG.
+ */
+public record Partitioning(int numberOfShards, int[] shardOfNode, long cutEdges, long totalEdges) {
+
+    public Partitioning {
+        if (numberOfShards <= 0) {
+            throw new IllegalArgumentException("numberOfShards must be greater than 0");
+        }
+    }
+
+    /**
+     * Computes the quality of an assignment of nodes to shards.
+     */
+    public static Partitioning of(int numberOfShards, int[] shardOfNode, List<List<Integer>> adjacencyList) {
+        long cutEdges = 0;
+        long totalEdges = 0;
+        for (int node = 0; node < adjacencyList.size(); node++) {
+            for (int dependent : adjacencyList.get(node)) {
+                totalEdges++;
+                if (shardOfNode[node] != shardOfNode[dependent]) {
+                    cutEdges++;
+                }
+            }
+        }
+        return new Partitioning(numberOfShards, shardOfNode, cutEdges, totalEdges);
+    }
+
+    /**
+     * @return The shard of the node, or a shard picked by id for a node added to the DAG after it was partitioned.
+     */
+    public int shardOf(int nodeId) {
+        return nodeId < shardOfNode.length ? shardOfNode[nodeId] : nodeId % numberOfShards;
+    }
+
+    public int[] shardSizes() {
+        int[] sizes = new int[numberOfShards];
+        for (int shard : shardOfNode) {
+            sizes[shard]++;
+        }
+        return sizes;
+    }
+
+    /**
+     * @return The fraction of the dependencies that cross a shard boundary, between 0 and 1.
+     */
+    public double cutRatio() {
+        return totalEdges == 0 ? 0 : (double) cutEdges / totalEdges;
+    }
+
+    /**
+     * @return The size of the biggest shard divided by the average shard size. 1 is a perfect balance.
+     */
+    public double imbalance() {
+        if (shardOfNode.length == 0) {
+            return 1;
+        }
+        int biggest = Arrays.stream(shardSizes()).max().orElse(0);
+        return biggest / ((double) shardOfNode.length / numberOfShards);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "Partitioning[shards=%d, nodes=%d, cutEdges=%d/%d, cutRatio=%.3f, imbalance=%.3f, shardSizes=%s]",
+                numberOfShards, shardOfNode.length, cutEdges, totalEdges, cutRatio(), imbalance(), Arrays.toString(shardSizes())
+        );
+    }
+}
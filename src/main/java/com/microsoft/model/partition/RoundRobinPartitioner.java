@@ -0,0 +1,19 @@
+package com.microsoft.model.partition;
+
+import com.microsoft.model.ExecutionDag;
+
+/**
+ * Places node {@code i} on shard {@code i % numberOfShards}. Perfectly balanced, but oblivious to the dependencies.
+ */
+public enum RoundRobinPartitioner implements IDagPartitioner {
+    INSTANCE;
+
+    @Override
+    public Partitioning partition(ExecutionDag dag, int numberOfShards) {
+        int[] shardOfNode = new int[dag.getAdjacencyList().size()];
+        for (int i = 0; i < shardOfNode.length; i++) {
+            shardOfNode[i] = i % numberOfShards;
+        }
+        return Partitioning.of(numberOfShards, shardOfNode, dag.getAdjacencyList());
+    }
+}
@@ -1,30 +1,140 @@
 package com.microsoft.parser;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.microsoft.model.DagNode;
 import com.microsoft.model.ExecutionDag;
+import com.microsoft.model.IDagNode;
+import com.microsoft.model.INodeWithDependencies;
+import com.microsoft.model.Resources;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.HashSet;
-import java.util.Set;
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.function.Function;
 
-public class DagParser implements IDagParser {
+public class DagParser implements IStreamingDagParser {
 
-    private final XmlMapper xmlMapper = new XmlMapper();
+    // Stands for the handed over nodes declared without properties nor dependencies
+    private static final DagXml.Node BARE_DECLARATION = DagXml.Node.reference(-1);
 
+    private final Function<? super INodeWithDependencies, ? extends IDagNode> nodeFactory;
+
+    public DagParser() {
+        this(node -> new DagNode(node.id(), node.key(), node.resources()));
+    }
+
+    /**
+     * @param nodeFactory Builds the unit of execution of every parsed node.
+     */
+    public DagParser(Function<? super INodeWithDependencies, ? extends IDagNode> nodeFactory) {
+        this.nodeFactory = nodeFactory;
+    }
+
+    /**
+     * Parses the document in a single pass, flattening the dependency trees: a node declared several times among the
+     * dependencies of other nodes is merged into its first declaration, looked up by id.
+     */
     @Override
     @NotNull
     public ExecutionDag parseDag(String dagXml) {
+        Map<Integer, DagXml.Node> nodes = new LinkedHashMap<>();
+        Set<Integer> listedIds = new HashSet<>();
+        List<DagXml.NodeRange> ranges = new ArrayList<>();
         try {
-            DagXml dagXmlObject = xmlMapper.readValue(dagXml, DagXml.class);
-            Set<DagXml.Node> nodes = new HashSet<>(dagXmlObject.nodes());
-            if(nodes.size() != dagXmlObject.nodes().size()) {
-                throw new IllegalArgumentException("The XML contains duplicate nodes");
-            }
-
-            return ExecutionDag.create(nodes);
-        } catch (JsonProcessingException e) {
+            DagXmlStreamReader.read(new StringReader(dagXml), (node, isTopLevel) -> {
+                if (isTopLevel && !listedIds.add(node.id())) {
+                    throw new IllegalArgumentException("The XML contains duplicate nodes");
+                }
+                nodes.merge(node.id(), node, DagXml.Node::merge);
+                return true;
+            }, ranges::add);
+        } catch (XMLStreamException e) {
             throw new IllegalArgumentException("Failed to parse DAG XML", e);
         }
+
+        return createDag(nodes, ranges);
+    }
+
+    /**
+     * Builds the DAG straight from the declarations and the ranges, without a {@link DagXml.Node} holding the
+     * dependencies of every node of a range.
+     */
+    private ExecutionDag createDag(Map<Integer, DagXml.Node> nodes, List<DagXml.NodeRange> ranges) {
+        DagXml dagXml = new DagXml(new ArrayList<>(nodes.values()), ranges);
+        long size = dagXml.size();
+        if (size >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The graph is too big");
+        }
+
+        NavigableMap<Integer, DagXml.NodeRange> rangesByFirstId = new TreeMap<>();
+        for (DagXml.NodeRange range : ranges) {
+            rangesByFirstId.put(range.firstId(), range);
+        }
+
+        try {
+            return ExecutionDag.create((int) size, dagXml.dependencySource(), id -> {
+                DagXml.Node node = nodes.get(id);
+                if (node == null) {
+                    // Otherwise the source yields it from a range
+                    node = rangesByFirstId.floorEntry(id).getValue().node(id);
+                }
+                return nodeFactory.apply(node);
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // The source is in memory
+        }
+    }
+
+    @Override
+    public void parseDag(Reader dagXml, ParsedNodeConsumer consumer) {
+        try {
+            // Once handed over, a node can't gain dependencies: later declarations may only repeat the first one. Only
+            // the properties and the dependency ids are kept to check them, and just the id for the bare declarations.
+            Map<Integer, DagXml.Node> handedOver = new HashMap<>();
+            Set<Integer> listedIds = new HashSet<>();
+            DagXmlStreamReader.read(dagXml, (node, isTopLevel) -> {
+                if (isTopLevel && !listedIds.add(node.id())) {
+                    throw new IllegalArgumentException("The XML contains duplicate nodes");
+                }
+                DagXml.Node previous = handedOver.putIfAbsent(node.id(), isBare(node) ? BARE_DECLARATION : node);
+                if (previous != null) {
+                    if (previous == BARE_DECLARATION) {
+                        previous = DagXml.Node.reference(node.id());
+                    }
+                    if (previous.merge(node) != previous) {
+                        throw new IllegalArgumentException("The XML declares node " + node.id() + " again with other dependencies after it was read");
+                    }
+                    return true;
+                }
+
+                IDagNode dagNode = nodeFactory.apply(node);
+                if (!node.id().equals(dagNode.id())) {
+                    throw new IllegalArgumentException("The node factory must preserve the id of the nodes");
+                }
+                return consumer.accept(dagNode, node.dependencyIds().clone());
+            }, range -> {
+                // Expanded one node at a time, so the dependencies of the whole range are never held at once
+                for (int id = range.firstId(); id < range.firstId() + range.count(); id++) {
+                    DagXml.Node node = range.node(id);
+                    IDagNode dagNode = nodeFactory.apply(node);
+                    if (!node.id().equals(dagNode.id())) {
+                        throw new IllegalArgumentException("The node factory must preserve the id of the nodes");
+                    }
+                    if (!consumer.accept(dagNode, range.dependenciesOf(id))) {
+                        return false;
+                    }
+                }
+                return true;
+            });
+        } catch (XMLStreamException e) {
+            throw new IllegalArgumentException("Failed to parse DAG XML", e);
+        }
+    }
+
+    private static boolean isBare(DagXml.Node node) {
+        return node.key() == null && node.resources().equals(Resources.DEFAULT) && node.dependencyIds().length == 0;
     }
 }
@@ -1,35 +1,288 @@
 package com.microsoft.parser;
 
-import com.fasterxml.jackson.annotation.JsonCreator;
-import com.fasterxml.jackson.annotation.JsonProperty;
 import com.microsoft.model.INodeWithDependencies;
+import com.microsoft.model.Resources;
+import com.microsoft.model.csr.IDependencySource;
 
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
-public record DagXml(List<Node> nodes) {
-    @JsonCreator
-    public DagXml(@JsonProperty(required = true, value = "Nodes") List<Node> nodes) {
-        this.nodes = nodes;
+/**
+ * A DAG XML document: the {@code Nodes} listed one by one, and the {@code NodeRanges} describing runs of identical
+ * nodes, e.g. a million map nodes feeding a thousand reducers in two elements.
+ */
+public record DagXml(List<Node> nodes, List<NodeRange> nodeRanges) {
+    public DagXml {
+        if (nodes == null && nodeRanges == null) {
+            throw new IllegalArgumentException("The XML contains neither Nodes nor NodeRanges");
+        }
+        nodes = nodes != null ? nodes : List.of();
+        nodeRanges = nodeRanges != null ? nodeRanges : List.of();
+    }
+
+    /**
+     * @return The number of nodes of the DAG, once the ranges are expanded.
+     */
+    public long size() {
+        long size = nodes.size();
+        for (NodeRange range : nodeRanges) {
+            size += range.count();
+        }
+        return size;
+    }
+
+    /**
+     * @return The nodes of the DAG with their dependencies, expanding the ranges one node at a time as they are read,
+     * e.g. to lay the DAG out with a {@link com.microsoft.model.csr.CsrDagWriter}.
+     */
+    public IDependencySource dependencySource() {
+        return consumer -> {
+            for (Node node : nodes) {
+                consumer.accept(node.id(), node.dependencyIds());
+            }
+            for (NodeRange range : nodeRanges) {
+                for (int id = range.firstId(); id < range.firstId() + range.count(); id++) {
+                    consumer.accept(id, range.dependenciesOf(id));
+                }
+            }
+        };
     }
 
-    public record Node(Integer id, Set<Node> dependencies) implements INodeWithDependencies {
-        @JsonCreator
-        public Node(@JsonProperty(required = true, value =  "Id") Integer id,
-                    @JsonProperty(value = "dependencies") Set<Node> dependencies
-        ) {
-            this.id = id;
-            this.dependencies = dependencies != null ? dependencies : Collections.emptySet();
-            validateDependencies();
+    /**
+     * @param dependencyIds The ids of the nodes it depends on, sorted and without duplicates.
+     */
+    public record Node(Integer id, String key, Resources resources, int[] dependencyIds) implements INodeWithDependencies {
+
+        private static final int[] NO_DEPENDENCIES = new int[0];
+
+        public Node(Integer id, String key, Integer cpu, Long memoryInMb, int[] dependencyIds) {
+            this(
+                    id,
+                    key,
+                    new Resources(
+                            cpu != null ? cpu : Resources.DEFAULT.cpu(),
+                            memoryInMb != null ? memoryInMb : Resources.DEFAULT.memoryInMb()
+                    ),
+                    dependencyIds
+            );
+        }
+
+        public Node {
+            if (id == null) {
+                throw new IllegalArgumentException("id must not be null");
+            }
+            dependencyIds = dependencyIds != null ? sortedDistinct(dependencyIds) : NO_DEPENDENCIES;
         }
 
-        private void validateDependencies() {
-            for (Node dependency : dependencies) {
-                if (!dependency.dependencies().isEmpty()) {
-                    throw new IllegalArgumentException("Dependencies of node " + id + " should not have their own dependencies.");
+        /**
+         * @return A dependency on the node with the given id, declared elsewhere.
+         */
+        public static Node reference(int id) {
+            return new Node(id, null, Resources.DEFAULT, null);
+        }
+
+        /**
+         * @return References to the nodes it depends on, built on every call: prefer {@link #dependencyIds()}.
+         */
+        @Override
+        public Set<Node> dependencies() {
+            Set<Node> dependencies = new LinkedHashSet<>();
+            for (int dependencyId : dependencyIds) {
+                dependencies.add(reference(dependencyId));
+            }
+            return dependencies;
+        }
+
+        /**
+         * Merges another declaration of the node into this one: the node depends on the dependencies of both, and
+         * takes the properties either of them sets.
+         *
+         * @return This declaration if the other one adds nothing to it, the merged declaration otherwise.
+         * @throws IllegalArgumentException If the declarations set different properties.
+         */
+        public Node merge(Node other) {
+            if (other.key != null && key != null && !other.key.equals(key)
+                    || !other.resources.equals(Resources.DEFAULT) && !resources.equals(Resources.DEFAULT) && !other.resources.equals(resources)) {
+                throw new IllegalArgumentException("The XML declares node " + id + " with different properties");
+            }
+            boolean addsKey = key == null && other.key != null;
+            boolean addsResources = resources.equals(Resources.DEFAULT) && !other.resources.equals(Resources.DEFAULT);
+            boolean addsDependencies = !containsAll(dependencyIds, other.dependencyIds);
+            if (!addsKey && !addsResources && !addsDependencies) {
+                return this;
+            }
+
+            return new Node(
+                    id,
+                    addsKey ? other.key : key,
+                    addsResources ? other.resources : resources,
+                    addsDependencies ? union(dependencyIds, other.dependencyIds) : dependencyIds
+            );
+        }
+
+        private static int[] sortedDistinct(int[] ids) {
+            for (int i = 1; i < ids.length; i++) {
+                if (ids[i - 1] >= ids[i]) {
+                    return Arrays.stream(ids).sorted().distinct().toArray();
+                }
+            }
+            return ids;
+        }
+
+        // Both arrays are sorted, so they are walked once side by side
+        private static boolean containsAll(int[] ids, int[] others) {
+            int i = 0;
+            for (int other : others) {
+                while (i < ids.length && ids[i] < other) {
+                    i++;
+                }
+                if (i == ids.length || ids[i] != other) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int[] union(int[] ids, int[] others) {
+            int[] union = new int[ids.length + others.length];
+            int i = 0;
+            int j = 0;
+            int size = 0;
+            while (i < ids.length || j < others.length) {
+                if (j == others.length || i < ids.length && ids[i] < others[j]) {
+                    union[size++] = ids[i++];
+                } else if (i == ids.length || others[j] < ids[i]) {
+                    union[size++] = others[j++];
+                } else {
+                    union[size++] = ids[i++];
+                    j++;
+                }
+            }
+            return Arrays.copyOf(union, size);
+        }
+    }
+
+    /**
+     * The nodes with ids from {@code firstId} to {@code firstId + count - 1}, which share their resources and the
+     * pattern of their dependencies.
+     *
+     * @param key The prefix of the keys of the nodes, followed by their position in the range, or {@code null}.
+     */
+    public record NodeRange(int firstId, int count, String key, Resources resources, List<RangeDependency> dependencies) {
+        public NodeRange(int firstId, int count, String key, Integer cpu, Long memoryInMb, List<RangeDependency> dependencies) {
+            this(
+                    firstId,
+                    count,
+                    key,
+                    new Resources(
+                            cpu != null ? cpu : Resources.DEFAULT.cpu(),
+                            memoryInMb != null ? memoryInMb : Resources.DEFAULT.memoryInMb()
+                    ),
+                    dependencies
+            );
+        }
+
+        public NodeRange {
+            if (firstId < 0) {
+                throw new IllegalArgumentException("firstId must be greater than or equal to 0");
+            }
+            if (count <= 0 || (long) firstId + count > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("count must be between 1 and " + (Integer.MAX_VALUE - firstId));
+            }
+            dependencies = dependencies != null ? List.copyOf(dependencies) : List.of();
+        }
+
+        /**
+         * @return The node with the given id, without its dependencies, which {@link #dependenciesOf} computes.
+         */
+        public Node node(int id) {
+            return new Node(id, key != null ? key + (id - firstId) : null, resources, null);
+        }
+
+        /**
+         * @return The ids of the nodes the node with the given id depends on.
+         */
+        public int[] dependenciesOf(int id) {
+            int position = id - firstId;
+            int size = 0;
+            for (RangeDependency dependency : dependencies) {
+                size += dependency.size(position, count);
+            }
+            int[] ids = new int[size];
+            int i = 0;
+            for (RangeDependency dependency : dependencies) {
+                i = dependency.fill(position, count, ids, i);
+            }
+            return ids;
+        }
+    }
+
+    /**
+     * The nodes with ids from {@code firstId} to {@code firstId + count - 1} that the nodes of a range depend on: all
+     * of them, or, for {@link Pattern#MODULO}, those at the positions {@code j} such that
+     * {@code j % rangeCount == position % count}. The smaller of the two ranges is thereby spread round-robin over the
+     * larger one, e.g. reducer {@code r} depends on the map nodes {@code r}, {@code r + reducers}, and so on.
+     *
+     * @param count 1 by default, to depend on a single node.
+     */
+    public record RangeDependency(int firstId, int count, Pattern pattern) {
+        public RangeDependency(int firstId, Integer count, String pattern) {
+            this(firstId, count != null ? count : 1, pattern != null ? Pattern.of(pattern) : Pattern.ALL_OF);
+        }
+
+        public RangeDependency {
+            if (firstId < 0) {
+                throw new IllegalArgumentException("firstId must be greater than or equal to 0");
+            }
+            if (count <= 0 || (long) firstId + count > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("count must be between 1 and " + (Integer.MAX_VALUE - firstId));
+            }
+            if (pattern == null) {
+                throw new IllegalArgumentException("pattern must not be null");
+            }
+        }
+
+        private int size(int position, int rangeCount) {
+            if (pattern == Pattern.ALL_OF) {
+                return count;
+            }
+            int first = position % count;
+            return first < rangeCount ? (count - first + rangeCount - 1) / rangeCount : 0;
+        }
+
+        private int fill(int position, int rangeCount, int[] ids, int from) {
+            int step = pattern == Pattern.ALL_OF ? 1 : rangeCount;
+            int first = pattern == Pattern.ALL_OF ? 0 : position % count;
+            if (first >= rangeCount && pattern == Pattern.MODULO) {
+                return from;
+            }
+            int i = from;
+            for (long j = first; j < count; j += step) {
+                ids[i++] = firstId + (int) j;
+            }
+            return i;
+        }
+
+        public enum Pattern {
+            ALL_OF("AllOf"),
+            MODULO("Modulo");
+
+            private final String xmlName;
+
+            Pattern(String xmlName) {
+                this.xmlName = xmlName;
+            }
+
+            static Pattern of(String xmlName) {
+                for (Pattern pattern : values()) {
+                    if (pattern.xmlName.equals(xmlName.trim())) {
+                        return pattern;
+                    }
                 }
+                throw new IllegalArgumentException("Unknown dependency pattern: " + xmlName);
             }
         }
     }
-}
\ No newline at end of file
+}
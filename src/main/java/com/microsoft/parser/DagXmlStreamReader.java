@@ -0,0 +1,269 @@
+package com.microsoft.parser;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Reader;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Reads the nodes of a DAG XML document one at a time with StAX, in the schema of {@link DagXml}: {@code Nodes}
+ * elements under the root, holding the {@code Node} elements, and {@code NodeRanges} elements holding the
+ * {@code NodeRange} elements. The properties of a node are read from its attributes or from child elements, as Jackson
+ * does.
+ * <p>
+ * The dependencies of a node may declare nodes in turn, with properties or dependencies of their own, so a DAG can be
+ * written as a tree. The tree is flattened as it is read: every declaration is handed over on its own once its element
+ * is closed, before the nodes depending on it, which only keep the ids of their dependencies. A dependency with nothing
+ * but an id only refers to a node declared elsewhere.
+ */
+class DagXmlStreamReader {
+
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+    private static final int[] NO_DEPENDENCIES = new int[0];
+
+    private DagXmlStreamReader() {
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    /**
+     * Hands every node declaration and range over to its consumer as soon as its element is closed. A node declared
+     * several times is handed over every time.
+     *
+     * @param rangeConsumer Returns whether to keep reading.
+     */
+    static void read(
+            Reader dagXml,
+            NodeConsumer nodeConsumer,
+            Predicate<? super DagXml.NodeRange> rangeConsumer
+    ) throws XMLStreamException {
+        XMLStreamReader reader = INPUT_FACTORY.createXMLStreamReader(dagXml);
+        try {
+            reader.nextTag(); // The root
+            boolean hasNodes = false;
+            while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                String element = reader.getLocalName();
+                if (!element.equals("Nodes") && !element.equals("NodeRanges")) {
+                    throw new XMLStreamException("Unexpected element: " + element, reader.getLocation());
+                }
+                hasNodes = true;
+                while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                    boolean keepReading;
+                    if (element.equals("Nodes")) {
+                        expectElement(reader, "Node");
+                        keepReading = readNode(reader, nodeConsumer) != null;
+                    } else {
+                        expectElement(reader, "NodeRange");
+                        keepReading = rangeConsumer.test(readNodeRange(reader));
+                    }
+                    if (!keepReading) {
+                        return;
+                    }
+                }
+            }
+            if (!hasNodes) {
+                throw new XMLStreamException("Missing element: Nodes", reader.getLocation());
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Reads the node and the declarations nested in its dependencies. The nodes whose element is still open are kept on
+     * an explicit stack, so the depth of the tree is not bounded by the stack of the thread.
+     *
+     * @return The id of the node, or {@code null} if the consumer stopped the reading.
+     */
+    private static Integer readNode(XMLStreamReader reader, NodeConsumer consumer) throws XMLStreamException {
+        Deque<OpenNode> ancestors = new ArrayDeque<>();
+        OpenNode node = new OpenNode(reader, true);
+        while (true) {
+            if (node.isInDependencies) {
+                if (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                    expectElement(reader, "Node");
+                    ancestors.push(node);
+                    node = new OpenNode(reader, false);
+                    continue;
+                }
+                node.isInDependencies = false;
+            }
+
+            if (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                switch (reader.getLocalName()) {
+                    case "Id" -> node.id = reader.getElementText();
+                    case "Key" -> node.key = reader.getElementText();
+                    case "Cpu" -> node.cpu = reader.getElementText();
+                    case "Memory" -> node.memory = reader.getElementText();
+                    case "dependencies" -> {
+                        node.isDeclaration = true;
+                        node.isInDependencies = true;
+                    }
+                    default -> throw new XMLStreamException("Unexpected element: " + reader.getLocalName(), reader.getLocation());
+                }
+                continue;
+            }
+
+            Integer nodeId = node.close(reader, consumer);
+            if (nodeId == null || ancestors.isEmpty()) {
+                return nodeId;
+            }
+            node = ancestors.pop();
+            node.addDependency(nodeId);
+        }
+    }
+
+    private static DagXml.NodeRange readNodeRange(XMLStreamReader reader) throws XMLStreamException {
+        Map<String, String> properties = readAttributes(reader, "FirstId", "Count", "Key", "Cpu", "Memory");
+        List<DagXml.RangeDependency> dependencies = new ArrayList<>();
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String element = reader.getLocalName();
+            switch (element) {
+                case "FirstId", "Count", "Key", "Cpu", "Memory" -> properties.put(element, reader.getElementText());
+                case "dependencies" -> {
+                    while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+                        expectElement(reader, "Range");
+                        dependencies.add(readRangeDependency(reader));
+                    }
+                }
+                default -> throw new XMLStreamException("Unexpected element: " + element, reader.getLocation());
+            }
+        }
+
+        return new DagXml.NodeRange(
+                requireInteger(properties, "FirstId", reader),
+                requireInteger(properties, "Count", reader),
+                properties.get("Key"),
+                properties.containsKey("Cpu") ? Integer.valueOf(properties.get("Cpu").trim()) : null,
+                properties.containsKey("Memory") ? Long.valueOf(properties.get("Memory").trim()) : null,
+                dependencies
+        );
+    }
+
+    private static DagXml.RangeDependency readRangeDependency(XMLStreamReader reader) throws XMLStreamException {
+        Map<String, String> properties = readAttributes(reader, "FirstId", "Count", "Pattern");
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            String element = reader.getLocalName();
+            switch (element) {
+                case "FirstId", "Count", "Pattern" -> properties.put(element, reader.getElementText());
+                default -> throw new XMLStreamException("Unexpected element: " + element, reader.getLocation());
+            }
+        }
+
+        return new DagXml.RangeDependency(
+                requireInteger(properties, "FirstId", reader),
+                properties.containsKey("Count") ? Integer.valueOf(properties.get("Count").trim()) : null,
+                properties.get("Pattern")
+        );
+    }
+
+    private static Map<String, String> readAttributes(XMLStreamReader reader, String... names) throws XMLStreamException {
+        Map<String, String> attributes = new HashMap<>();
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String name = reader.getAttributeLocalName(i);
+            if (!Arrays.asList(names).contains(name)) {
+                throw new XMLStreamException("Unexpected attribute: " + name, reader.getLocation());
+            }
+            attributes.put(name, reader.getAttributeValue(i));
+        }
+        return attributes;
+    }
+
+    private static Integer requireInteger(Map<String, String> properties, String name, XMLStreamReader reader) throws XMLStreamException {
+        String value = properties.get(name);
+        if (value == null) {
+            throw new XMLStreamException("Missing property: " + name, reader.getLocation());
+        }
+        return Integer.valueOf(value.trim());
+    }
+
+    /**
+     * A {@code Node} element being read, whose closing tag has not been reached yet.
+     */
+    private static final class OpenNode {
+
+        private final boolean isTopLevel;
+        private boolean isDeclaration;
+        private boolean isInDependencies;
+        private String id;
+        private String key;
+        private String cpu;
+        private String memory;
+        private int[] dependencies = NO_DEPENDENCIES;
+        private int dependencyCount;
+
+        OpenNode(XMLStreamReader reader, boolean isTopLevel) throws XMLStreamException {
+            this.isTopLevel = isTopLevel;
+            this.isDeclaration = isTopLevel;
+            for (int i = 0; i < reader.getAttributeCount(); i++) {
+                String value = reader.getAttributeValue(i);
+                switch (reader.getAttributeLocalName(i)) {
+                    case "Id" -> id = value;
+                    case "Key" -> key = value;
+                    case "Cpu" -> cpu = value;
+                    case "Memory" -> memory = value;
+                    default -> throw new XMLStreamException("Unexpected attribute: " + reader.getAttributeLocalName(i), reader.getLocation());
+                }
+            }
+        }
+
+        void addDependency(int dependencyId) {
+            if (dependencyCount == dependencies.length) {
+                dependencies = Arrays.copyOf(dependencies, Math.max(4, dependencyCount * 2));
+            }
+            dependencies[dependencyCount++] = dependencyId;
+        }
+
+        /**
+         * Hands the node over if its element declares it.
+         *
+         * @return The id of the node, or {@code null} if the consumer stopped the reading.
+         */
+        Integer close(XMLStreamReader reader, NodeConsumer consumer) throws XMLStreamException {
+            isDeclaration |= key != null || cpu != null || memory != null;
+
+            if (id == null) {
+                throw new XMLStreamException("Missing property: Id", reader.getLocation());
+            }
+            Integer nodeId = Integer.valueOf(id.trim());
+            if (isDeclaration) {
+                DagXml.Node node = new DagXml.Node(
+                        nodeId,
+                        key,
+                        cpu != null ? Integer.valueOf(cpu.trim()) : null,
+                        memory != null ? Long.valueOf(memory.trim()) : null,
+                        Arrays.copyOf(dependencies, dependencyCount)
+                );
+                if (!consumer.accept(node, isTopLevel)) {
+                    return null;
+                }
+            }
+            return nodeId;
+        }
+    }
+
+    @FunctionalInterface
+    interface NodeConsumer {
+
+        /**
+         * @param node       A declaration of the node, with the ids of its dependencies.
+         * @param isTopLevel Whether the node is listed under {@code Nodes}, rather than declared as a dependency.
+         * @return Whether to keep reading.
+         */
+        boolean accept(DagXml.Node node, boolean isTopLevel);
+    }
+
+    private static void expectElement(XMLStreamReader reader, String name) throws XMLStreamException {
+        if (!reader.getLocalName().equals(name)) {
+            throw new XMLStreamException("Unexpected element: " + reader.getLocalName(), reader.getLocation());
+        }
+    }
+}
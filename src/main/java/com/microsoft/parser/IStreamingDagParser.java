@@ -0,0 +1,34 @@
+package com.microsoft.parser;
+
+import com.microsoft.model.IDagNode;
+
+import java.io.Reader;
+
+/**
+ * A parser that hands the nodes over one at a time while it reads the document, so they can run before the rest of the
+ * document is read.
+ */
+public interface IStreamingDagParser extends IDagParser {
+
+    /**
+     * Parses a DAG XML document, handing every node over to the consumer as soon as it is read. A node declared again
+     * among the dependencies of other nodes is only handed over once, and its later declarations may not add to it.
+     * References to non-existing nodes and cycles are left to the consumer.
+     *
+     * @param dagXml   The DAG XML document.
+     * @param consumer Receives the nodes in document order.
+     * @throws IllegalArgumentException If the document is invalid. The nodes read before the error were handed over.
+     */
+    void parseDag(Reader dagXml, ParsedNodeConsumer consumer);
+
+    @FunctionalInterface
+    interface ParsedNodeConsumer {
+
+        /**
+         * @param unitOfExecution The node, built by the node factory of the parser.
+         * @param dependencies    The ids of the nodes it depends on, which may not have been read yet.
+         * @return Whether to keep parsing.
+         */
+        boolean accept(IDagNode unitOfExecution, int[] dependencies);
+    }
+}
@@ -0,0 +1,232 @@
+package com.microsoft.simulation;
+
+import com.microsoft.execution.VirtualClock;
+import com.microsoft.execution.retry.RetryDelays;
+import com.microsoft.execution.retry.RetryStrategy;
+import com.microsoft.model.ExecutionDag;
+import com.microsoft.model.IDagNode;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulates the execution of a DAG on a {@link VirtualClock}, to plan capacity without running the nodes: how long a
+ * DAG takes on a number of engines, how busy the engines are and how long the ready nodes queue for them.
+ * <p>
+ * It schedules the nodes as the {@link com.microsoft.execution.DagExecutor} does with a
+ * {@link com.microsoft.execution.DagNodeExecutor}: a node is ready once all its dependencies completed, the ready
+ * nodes take the free engines in the order they became ready, a failure is injected before an attempt runs with the
+ * configured probability, and a failed node releases its engine while waiting for its
+ * {@link RetryStrategy retry delay}. The first node to exhaust its retries fails the DAG.
+ * <p>
+ * A simulation runs on a single thread and only keeps a few arrays per node, so DAGs of millions of nodes take
+ * seconds.
+ */
+public class DagSimulator {
+
+    private final SimulationOptions options;
+
+    public DagSimulator(SimulationOptions options) {
+        this.options = options;
+    }
+
+    public SimulationReport simulate(ExecutionDag dag) {
+        return new Simulation(dag).run();
+    }
+
+    private final class Simulation {
+
+        private final ExecutionDag dag;
+        private final List<List<Integer>> adjacencyList;
+        private final VirtualClock clock = new VirtualClock();
+        private final SplittableRandom random = new SplittableRandom(options.seed());
+        private final RetryStrategy retryStrategy = options.retryStrategy();
+
+        private final int[] pendingDependencies;
+        private final int[] attempt;
+        private final long[] readyAtInNanos;
+
+        // Ready nodes waiting for an engine: a node is queued at most once at a time
+        private final int[] readyQueue;
+        private int readyHead;
+        private int readySize;
+
+        private int freeEngines = options.numberOfEngines();
+        private int completedNodes;
+        private long failedAttempts;
+        private boolean hasFailed;
+        private long endInNanos;
+
+        private long[] queueWaitsInNanos = new long[16];
+        private long[] runStartsInNanos = new long[16];
+        private long[] runEndsInNanos = new long[16];
+        private int attempts;
+        private int runs;
+
+        Simulation(ExecutionDag dag) {
+            this.dag = dag;
+            this.adjacencyList = dag.getAdjacencyList();
+            int size = adjacencyList.size();
+            this.pendingDependencies = new int[size];
+            this.attempt = new int[size];
+            this.readyAtInNanos = new long[size];
+            this.readyQueue = new int[Math.max(size, 1)];
+            for (int i = 0; i < size; i++) {
+                pendingDependencies[i] = dag.getInDegree().get(i);
+            }
+        }
+
+        SimulationReport run() {
+            for (int i = 0; i < pendingDependencies.length; i++) {
+                if (pendingDependencies[i] == 0) {
+                    enqueue(i);
+                }
+            }
+            dispatch();
+            clock.runUntilIdle();
+
+            return report();
+        }
+
+        private void enqueue(int node) {
+            readyAtInNanos[node] = clock.nanoTime();
+            readyQueue[(readyHead + readySize++) % readyQueue.length] = node;
+        }
+
+        private void ready(int node) {
+            if (hasFailed) {
+                return;
+            }
+            enqueue(node);
+            dispatch();
+        }
+
+        private void dispatch() {
+            while (freeEngines > 0 && readySize > 0 && !hasFailed) {
+                int node = readyQueue[readyHead];
+                readyHead = (readyHead + 1) % readyQueue.length;
+                readySize--;
+                start(node);
+            }
+        }
+
+        private void start(int node) {
+            long now = clock.nanoTime();
+            queueWaitsInNanos = ensureCapacity(queueWaitsInNanos, attempts);
+            queueWaitsInNanos[attempts++] = now - readyAtInNanos[node];
+
+            if (random.nextDouble() < options.failureRate()) {
+                // Injected failures happen before the node runs, so they don't hold the engine
+                fail(node);
+                return;
+            }
+
+            IDagNode dagNode = dag.getNode(node);
+            long durationInNanos = Math.round(options.durations().sampleDurationInMillis(dagNode, random) * 1_000_000);
+            if (durationInNanos < 0) {
+                throw new IllegalStateException("Negative duration sampled for node " + node);
+            }
+
+            freeEngines--;
+            runStartsInNanos = ensureCapacity(runStartsInNanos, runs);
+            runEndsInNanos = ensureCapacity(runEndsInNanos, runs);
+            runStartsInNanos[runs] = now;
+            runEndsInNanos[runs++] = now + durationInNanos;
+            clock.schedule(durationInNanos, TimeUnit.NANOSECONDS, () -> complete(node));
+        }
+
+        private void complete(int node) {
+            freeEngines++;
+            completedNodes++;
+            endInNanos = clock.nanoTime();
+            for (int dependent : adjacencyList.get(node)) {
+                if (--pendingDependencies[dependent] == 0) {
+                    enqueue(dependent);
+                }
+            }
+            dispatch();
+        }
+
+        private void fail(int node) {
+            failedAttempts++;
+            int failedAttempt = attempt[node];
+            if (retryStrategy.shouldRetry(failedAttempt)) {
+                attempt[node]++;
+                long delayInMillis = RetryDelays.getDelayInMillis(retryStrategy, failedAttempt);
+                clock.schedule(delayInMillis, TimeUnit.MILLISECONDS, () -> ready(node));
+            } else {
+                hasFailed = true;
+                endInNanos = clock.nanoTime();
+                clock.clear();
+            }
+        }
+
+        private SimulationReport report() {
+            double makespanInMillis = endInNanos / 1e6;
+            int intervals = options.utilizationIntervals();
+            double[] utilizationOverTime = new double[intervals];
+            double intervalInNanos = (double) endInNanos / intervals;
+            double busyInNanos = 0;
+
+            for (int i = 0; i < runs; i++) {
+                // Runs still in progress when the DAG failed are cut at the end of the simulation
+                long start = runStartsInNanos[i];
+                long end = Math.min(runEndsInNanos[i], endInNanos);
+                if (end <= start) {
+                    continue;
+                }
+                busyInNanos += end - start;
+
+                int first = Math.min((int) (start / intervalInNanos), intervals - 1);
+                int last = Math.min((int) (end / intervalInNanos), intervals - 1);
+                for (int interval = first; interval <= last; interval++) {
+                    double overlap = Math.min(end, (interval + 1) * intervalInNanos) - Math.max(start, interval * intervalInNanos);
+                    if (overlap > 0) {
+                        utilizationOverTime[interval] += overlap;
+                    }
+                }
+            }
+
+            double engineNanosPerInterval = intervalInNanos * options.numberOfEngines();
+            for (int interval = 0; interval < intervals; interval++) {
+                utilizationOverTime[interval] = endInNanos > 0 ? utilizationOverTime[interval] / engineNanosPerInterval : 0;
+            }
+            double averageUtilization = endInNanos > 0 ? busyInNanos / ((double) endInNanos * options.numberOfEngines()) : 0;
+
+            long[] waits = Arrays.copyOf(queueWaitsInNanos, attempts);
+            Arrays.sort(waits);
+
+            return new SimulationReport(
+                    hasFailed,
+                    makespanInMillis,
+                    completedNodes,
+                    attempts,
+                    failedAttempts,
+                    averageUtilization,
+                    utilizationOverTime,
+                    intervalInNanos / 1e6,
+                    percentileInMillis(waits, 0.50),
+                    percentileInMillis(waits, 0.90),
+                    percentileInMillis(waits, 0.99),
+                    waits.length > 0 ? waits[waits.length - 1] / 1e6 : 0
+            );
+        }
+    }
+
+    /**
+     * Nearest-rank percentile of sorted values.
+     */
+    private static double percentileInMillis(long[] sortedValuesInNanos, double percentile) {
+        if (sortedValuesInNanos.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile * sortedValuesInNanos.length);
+        return sortedValuesInNanos[Math.max(rank, 1) - 1] / 1e6;
+    }
+
+    private static long[] ensureCapacity(long[] values, int size) {
+        return size < values.length ? values : Arrays.copyOf(values, values.length * 2);
+    }
+}
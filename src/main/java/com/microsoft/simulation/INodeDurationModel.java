@@ -0,0 +1,97 @@
+package com.microsoft.simulation;
+
+import com.microsoft.execution.history.DurationEstimate;
+import com.microsoft.execution.history.IDurationEstimator;
+import com.microsoft.model.IDagNode;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * How long every attempt of a node takes in a simulation.
+ */
+@FunctionalInterface
+public interface INodeDurationModel {
+
+    /**
+     * @param node   The node being attempted.
+     * @param random The random numbers of the simulation, to keep it reproducible.
+     * @return The duration of the attempt, greater than or equal to 0.
+     */
+    double sampleDurationInMillis(IDagNode node, SplittableRandom random);
+
+    static INodeDurationModel constant(double durationInMillis) {
+        if (durationInMillis < 0) {
+            throw new IllegalArgumentException("durationInMillis must be greater than or equal to 0");
+        }
+        return (_, _) -> durationInMillis;
+    }
+
+    static INodeDurationModel uniform(double minInMillis, double maxInMillis) {
+        if (minInMillis < 0 || maxInMillis < minInMillis) {
+            throw new IllegalArgumentException("The bounds must satisfy 0 <= minInMillis <= maxInMillis");
+        }
+        if (minInMillis == maxInMillis) {
+            return constant(minInMillis);
+        }
+        return (_, random) -> random.nextDouble(minInMillis, maxInMillis);
+    }
+
+    static INodeDurationModel exponential(double meanInMillis) {
+        if (meanInMillis <= 0) {
+            throw new IllegalArgumentException("meanInMillis must be greater than 0");
+        }
+        return (_, random) -> -meanInMillis * Math.log(1 - random.nextDouble());
+    }
+
+    /**
+     * Durations whose logarithm is normally distributed, the usual shape of task latencies: most attempts take about
+     * the median, and a long tail takes many times as long.
+     */
+    static INodeDurationModel logNormal(double medianInMillis, double sigma) {
+        if (medianInMillis <= 0) {
+            throw new IllegalArgumentException("medianInMillis must be greater than 0");
+        }
+        if (sigma < 0) {
+            throw new IllegalArgumentException("sigma must be greater than or equal to 0");
+        }
+        double mu = Math.log(medianInMillis);
+        return (_, random) -> Math.exp(mu + sigma * random.nextGaussian());
+    }
+
+    /**
+     * Durations following a Pareto distribution: at least the minimum, with a tail heavier than the log-normal one, so
+     * a few attempts take orders of magnitude longer. The lower {@code alpha}, the heavier the tail.
+     */
+    static INodeDurationModel pareto(double minimumInMillis, double alpha) {
+        if (minimumInMillis <= 0) {
+            throw new IllegalArgumentException("minimumInMillis must be greater than 0");
+        }
+        if (alpha <= 0) {
+            throw new IllegalArgumentException("alpha must be greater than 0");
+        }
+        return (_, random) -> minimumInMillis / Math.pow(1 - random.nextDouble(), 1 / alpha);
+    }
+
+    /**
+     * Replays a historical profile: the nodes are looked up by {@link IDagNode#key() key}, falling back to their id,
+     * and the nodes missing from the profile are sampled from {@code fallback}.
+     */
+    static INodeDurationModel profile(Map<String, Double> durationsInMillis, INodeDurationModel fallback) {
+        Map<String, Double> profile = Map.copyOf(durationsInMillis);
+        return (node, random) -> {
+            Double duration = profile.get(node.key() != null ? node.key() : String.valueOf(node.id()));
+            return duration != null ? duration : fallback.sampleDurationInMillis(node, random);
+        };
+    }
+
+    /**
+     * Replays the recorded durations: every node takes its moving average duration, and the nodes that never ran are
+     * sampled from {@code fallback}.
+     */
+    static INodeDurationModel history(IDurationEstimator estimator, INodeDurationModel fallback) {
+        return (node, random) -> estimator.estimate(node)
+                .map(DurationEstimate::ewmaInMillis)
+                .orElseGet(() -> fallback.sampleDurationInMillis(node, random));
+    }
+}
@@ -0,0 +1,75 @@
+package com.microsoft.simulation;
+
+import com.microsoft.execution.retry.NoRetryStrategy;
+import com.microsoft.execution.retry.RetryStrategy;
+
+/**
+ * @param numberOfEngines      How many nodes can run at the same time, as in
+ *                             {@link com.microsoft.execution.DagNodeExecutor}.
+ * @param failureRate          The probability of every attempt failing, as in
+ *                             {@link com.microsoft.execution.DagNodeExecutor}.
+ * @param retryStrategy        How the failed attempts are retried.
+ * @param durations            How long every attempt takes.
+ * @param seed                 Seeds the random numbers: the same options simulate the same run.
+ * @param utilizationIntervals Into how many intervals of the makespan the engine utilization is broken down.
+ */
+public record SimulationOptions(
+        int numberOfEngines,
+        float failureRate,
+        RetryStrategy retryStrategy,
+        INodeDurationModel durations,
+        long seed,
+        int utilizationIntervals
+) {
+
+    public static final SimulationOptions DEFAULT = new SimulationOptions(
+            Runtime.getRuntime().availableProcessors(),
+            0.0f,
+            NoRetryStrategy.INSTANCE,
+            INodeDurationModel.constant(1),
+            0,
+            100
+    );
+
+    public SimulationOptions {
+        if (numberOfEngines <= 0) {
+            throw new IllegalArgumentException("numberOfEngines must be greater than 0");
+        }
+        if (failureRate < 0 || failureRate > 1) {
+            throw new IllegalArgumentException("failureRate must be between 0 and 1");
+        }
+        if (retryStrategy == null) {
+            throw new IllegalArgumentException("retryStrategy must not be null");
+        }
+        if (durations == null) {
+            throw new IllegalArgumentException("durations must not be null");
+        }
+        if (utilizationIntervals <= 0) {
+            throw new IllegalArgumentException("utilizationIntervals must be greater than 0");
+        }
+    }
+
+    public SimulationOptions withNumberOfEngines(int numberOfEngines) {
+        return new SimulationOptions(numberOfEngines, failureRate, retryStrategy, durations, seed, utilizationIntervals);
+    }
+
+    public SimulationOptions withFailureRate(float failureRate) {
+        return new SimulationOptions(numberOfEngines, failureRate, retryStrategy, durations, seed, utilizationIntervals);
+    }
+
+    public SimulationOptions withRetryStrategy(RetryStrategy retryStrategy) {
+        return new SimulationOptions(numberOfEngines, failureRate, retryStrategy, durations, seed, utilizationIntervals);
+    }
+
+    public SimulationOptions withDurations(INodeDurationModel durations) {
+        return new SimulationOptions(numberOfEngines, failureRate, retryStrategy, durations, seed, utilizationIntervals);
+    }
+
+    public SimulationOptions withSeed(long seed) {
+        return new SimulationOptions(numberOfEngines, failureRate, retryStrategy, durations, seed, utilizationIntervals);
+    }
+
+    public SimulationOptions withUtilizationIntervals(int utilizationIntervals) {
+        return new SimulationOptions(numberOfEngines, failureRate, retryStrategy, durations, seed, utilizationIntervals);
+    }
+}
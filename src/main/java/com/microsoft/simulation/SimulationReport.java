@@ -0,0 +1,45 @@
+package com.microsoft.simulation;
+
+/**
+ * The outcome of a {@link DagSimulator} run, in virtual time.
+ *
+ * @param hasFailed                    Whether a node exhausted its retries, which stops the DAG as in
+ *                                     {@link com.microsoft.execution.DagExecutor}.
+ * @param makespanInMillis             Time from the start of the DAG until its last node completed, or until it failed.
+ * @param completedNodes               Number of nodes that completed.
+ * @param attempts                     Number of node attempts, retries included.
+ * @param failedAttempts               Number of node attempts that failed.
+ * @param averageUtilization           Fraction of the engine time spent running nodes over the makespan, between 0 and 1.
+ * @param utilizationOverTime          The average utilization of the engines over consecutive intervals of
+ *                                     {@code utilizationIntervalInMillis}, covering the makespan.
+ * @param utilizationIntervalInMillis  The length of every interval of {@code utilizationOverTime}.
+ * @param queueWaitP50InMillis         Median time a node attempt waited for an engine once ready.
+ * @param queueWaitP90InMillis         90th percentile of the time a node attempt waited for an engine once ready.
+ * @param queueWaitP99InMillis         99th percentile of the time a node attempt waited for an engine once ready.
+ * @param maxQueueWaitInMillis         Longest time a node attempt waited for an engine once ready.
+ */
+public record SimulationReport(
+        boolean hasFailed,
+        double makespanInMillis,
+        int completedNodes,
+        long attempts,
+        long failedAttempts,
+        double averageUtilization,
+        double[] utilizationOverTime,
+        double utilizationIntervalInMillis,
+        double queueWaitP50InMillis,
+        double queueWaitP90InMillis,
+        double queueWaitP99InMillis,
+        double maxQueueWaitInMillis
+) {
+
+    @Override
+    public String toString() {
+        return String.format(
+                "SimulationReport[hasFailed=%b, makespan=%.1fms, completedNodes=%d, attempts=%d, failedAttempts=%d, " +
+                        "averageUtilization=%.3f, queueWait p50=%.1fms p90=%.1fms p99=%.1fms max=%.1fms]",
+                hasFailed, makespanInMillis, completedNodes, attempts, failedAttempts, averageUtilization,
+                queueWaitP50InMillis, queueWaitP90InMillis, queueWaitP99InMillis, maxQueueWaitInMillis
+        );
+    }
+}
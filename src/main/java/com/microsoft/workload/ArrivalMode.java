@@ -0,0 +1,17 @@
+package com.microsoft.workload;
+
+/**
+ * How the {@link LoadDriver} submits the requests.
+ */
+public enum ArrivalMode {
+    /**
+     * Requests arrive on a fixed schedule at the arrival rate, whether the previous ones completed or not, as
+     * independent clients would.
+     */
+    OPEN,
+    /**
+     * A fixed number of clients each submit their next request once the previous one completed, paced at the arrival
+     * rate if one is set.
+     */
+    CLOSED
+}
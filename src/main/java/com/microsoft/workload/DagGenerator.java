@@ -0,0 +1,165 @@
+package com.microsoft.workload;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Builds large synthetic DAGs of a given {@link DagShape}, to load-test and simulate the execution without writing the
+ * XML by hand. Node ids follow the ids accepted by the {@link com.microsoft.parser.DagParser}: 0 to n - 1.
+ */
+public class DagGenerator {
+
+    // Attempts at drawing a dependency not already drawn, before falling back to a uniform choice
+    private static final int MAX_DRAWS = 32;
+
+    private final DagGeneratorOptions options;
+
+    public DagGenerator(DagGeneratorOptions options) {
+        this.options = options;
+    }
+
+    public GeneratedDag generate() {
+        SplittableRandom random = new SplittableRandom(options.seed());
+        int[][] dependencies = switch (options.shape()) {
+            case LAYERED -> layered(random);
+            case FAN_OUT_TREE -> fanOutTree();
+            case FAN_IN_TREE -> fanInTree();
+            case CHAINS -> chains();
+            case LATTICE -> lattice();
+            case POWER_LAW -> powerLaw(random);
+        };
+        return new GeneratedDag(dependencies);
+    }
+
+    private int[][] layered(SplittableRandom random) {
+        int nodes = options.nodes();
+        int width = options.width();
+        int[][] dependencies = new int[nodes][];
+        for (int id = 0; id < nodes; id++) {
+            int layerStart = id - id % width;
+            if (layerStart == 0) {
+                dependencies[id] = new int[0];
+                continue;
+            }
+            int previousLayerStart = layerStart - width;
+            int count = 1 + random.nextInt(Math.min(options.degree(), width));
+            dependencies[id] = distinctDraws(count, () -> previousLayerStart + random.nextInt(width));
+        }
+        return dependencies;
+    }
+
+    private int[][] fanOutTree() {
+        int[][] dependencies = new int[options.nodes()][];
+        dependencies[0] = new int[0];
+        for (int id = 1; id < options.nodes(); id++) {
+            dependencies[id] = new int[]{(id - 1) / options.degree()};
+        }
+        return dependencies;
+    }
+
+    private int[][] fanInTree() {
+        int nodes = options.nodes();
+        int degree = options.degree();
+        int[][] dependencies = new int[nodes][];
+        for (int id = 0; id < nodes; id++) {
+            long firstChild = (long) id * degree + 1;
+            int children = (int) Math.max(0, Math.min(degree, nodes - firstChild));
+            dependencies[id] = new int[children];
+            for (int i = 0; i < children; i++) {
+                dependencies[id][i] = (int) firstChild + i;
+            }
+        }
+        return dependencies;
+    }
+
+    private int[][] chains() {
+        int[][] dependencies = new int[options.nodes()][];
+        for (int id = 0; id < options.nodes(); id++) {
+            dependencies[id] = id < options.width() ? new int[0] : new int[]{id - options.width()};
+        }
+        return dependencies;
+    }
+
+    private int[][] lattice() {
+        int width = options.width();
+        int[][] dependencies = new int[options.nodes()][];
+        for (int id = 0; id < options.nodes(); id++) {
+            boolean hasAbove = id >= width;
+            boolean hasLeft = id % width > 0;
+            if (hasAbove && hasLeft) {
+                dependencies[id] = new int[]{id - width, id - 1};
+            } else if (hasAbove) {
+                dependencies[id] = new int[]{id - width};
+            } else if (hasLeft) {
+                dependencies[id] = new int[]{id - 1};
+            } else {
+                dependencies[id] = new int[0];
+            }
+        }
+        return dependencies;
+    }
+
+    /**
+     * Preferential attachment: every node appears in {@code targets} once, plus once per dependent, so drawing a
+     * target uniformly picks a node with a probability proportional to its number of dependents plus one.
+     */
+    private int[][] powerLaw(SplittableRandom random) {
+        int nodes = options.nodes();
+        int[][] dependencies = new int[nodes][];
+        int[] targets = new int[Math.max(16, nodes)];
+        int targetCount = 0;
+        for (int id = 0; id < nodes; id++) {
+            int count = Math.min(id, options.degree());
+            int candidates = targetCount;
+            int[] targetsSoFar = targets;
+            int nodeId = id;
+            dependencies[id] = distinctDraws(count, () -> targetsSoFar[random.nextInt(candidates)], () -> random.nextInt(nodeId));
+
+            int needed = targetCount + dependencies[id].length + 1;
+            if (needed > targets.length) {
+                targets = Arrays.copyOf(targets, Math.max(needed, targets.length * 2));
+            }
+            for (int dependency : dependencies[id]) {
+                targets[targetCount++] = dependency;
+            }
+            targets[targetCount++] = id;
+        }
+        return dependencies;
+    }
+
+    private static int[] distinctDraws(int count, Draw draw) {
+        return distinctDraws(count, draw, draw);
+    }
+
+    /**
+     * Draws {@code count} distinct ids, which there must be enough of, falling back to {@code fallback} once
+     * {@code draw} keeps returning ids already drawn.
+     */
+    private static int[] distinctDraws(int count, Draw draw, Draw fallback) {
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            int id;
+            int draws = 0;
+            do {
+                id = draws++ < MAX_DRAWS ? draw.next() : fallback.next();
+            } while (contains(ids, i, id));
+            ids[i] = id;
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    private static boolean contains(int[] ids, int length, int id) {
+        for (int i = 0; i < length; i++) {
+            if (ids[i] == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @FunctionalInterface
+    private interface Draw {
+        int next();
+    }
+}
@@ -0,0 +1,54 @@
+package com.microsoft.workload;
+
+/**
+ * @param shape  The structure of the DAG.
+ * @param nodes  Number of nodes of the DAG.
+ * @param width  Width of the layers, of the lattice, or number of chains, depending on the shape.
+ * @param degree Maximum number of dependencies of a node, or branching factor of the trees, depending on the shape.
+ * @param seed   Seeds the random choices: the same options generate the same DAG.
+ */
+public record DagGeneratorOptions(
+        DagShape shape,
+        int nodes,
+        int width,
+        int degree,
+        long seed
+) {
+
+    public static final DagGeneratorOptions DEFAULT = new DagGeneratorOptions(DagShape.LAYERED, 1000, 32, 3, 0);
+
+    public DagGeneratorOptions {
+        if (shape == null) {
+            throw new IllegalArgumentException("shape must not be null");
+        }
+        if (nodes <= 0) {
+            throw new IllegalArgumentException("nodes must be greater than 0");
+        }
+        if (width <= 0) {
+            throw new IllegalArgumentException("width must be greater than 0");
+        }
+        if (degree <= 0) {
+            throw new IllegalArgumentException("degree must be greater than 0");
+        }
+    }
+
+    public DagGeneratorOptions withShape(DagShape shape) {
+        return new DagGeneratorOptions(shape, nodes, width, degree, seed);
+    }
+
+    public DagGeneratorOptions withNodes(int nodes) {
+        return new DagGeneratorOptions(shape, nodes, width, degree, seed);
+    }
+
+    public DagGeneratorOptions withWidth(int width) {
+        return new DagGeneratorOptions(shape, nodes, width, degree, seed);
+    }
+
+    public DagGeneratorOptions withDegree(int degree) {
+        return new DagGeneratorOptions(shape, nodes, width, degree, seed);
+    }
+
+    public DagGeneratorOptions withSeed(long seed) {
+        return new DagGeneratorOptions(shape, nodes, width, degree, seed);
+    }
+}
@@ -0,0 +1,32 @@
+package com.microsoft.workload;
+
+/**
+ * The structure of the DAGs built by the {@link DagGenerator}.
+ */
+public enum DagShape {
+    /**
+     * Layers of {@code width} nodes, every node depending on 1 to {@code degree} random nodes of the previous layer.
+     */
+    LAYERED,
+    /**
+     * A tree growing from node 0, every node having {@code degree} dependents.
+     */
+    FAN_OUT_TREE,
+    /**
+     * A tree converging to node 0, every node depending on {@code degree} nodes.
+     */
+    FAN_IN_TREE,
+    /**
+     * {@code width} independent chains.
+     */
+    CHAINS,
+    /**
+     * A grid {@code width} nodes wide, every node depending on the node above it and the node on its left.
+     */
+    LATTICE,
+    /**
+     * Every node depends on up to {@code degree} earlier nodes picked by preferential attachment, so the number of
+     * dependents follows a power law: a few hubs gate most of the DAG.
+     */
+    POWER_LAW
+}
@@ -0,0 +1,95 @@
+package com.microsoft.workload;
+
+import com.microsoft.model.DagNode;
+import com.microsoft.model.ExecutionDag;
+import com.microsoft.model.IDagNode;
+import com.microsoft.model.INodeWithDependencies;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * An in-memory plan of a DAG built by the {@link DagGenerator}, which can be rendered as the XML accepted by the
+ * {@link com.microsoft.parser.DagParser} or turned directly into an {@link ExecutionDag}.
+ *
+ * @param dependencies The ids of the dependencies of every node, indexed by node id.
+ */
+public record GeneratedDag(int[][] dependencies) {
+
+    public int size() {
+        return dependencies.length;
+    }
+
+    public int edges() {
+        int edges = 0;
+        for (int[] nodeDependencies : dependencies) {
+            edges += nodeDependencies.length;
+        }
+        return edges;
+    }
+
+    public String toXml() {
+        StringBuilder xml = new StringBuilder(64 + 48 * size() + 16 * edges());
+        writeXml(xml);
+        return xml.toString();
+    }
+
+    /**
+     * Writes the XML node by node, so a large DAG can be streamed to a file without building the whole document.
+     */
+    public void writeXml(Appendable out) {
+        try {
+            out.append("<DAG>\n    <Nodes>\n");
+            for (int id = 0; id < dependencies.length; id++) {
+                out.append("        <Node Id=\"").append(Integer.toString(id)).append("\">");
+                if (dependencies[id].length == 0) {
+                    out.append("<dependencies/>");
+                } else {
+                    out.append("<dependencies>");
+                    for (int dependency : dependencies[id]) {
+                        out.append("<Node Id=\"").append(Integer.toString(dependency)).append("\"/>");
+                    }
+                    out.append("</dependencies>");
+                }
+                out.append("</Node>\n");
+            }
+            out.append("    </Nodes>\n</DAG>\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public ExecutionDag toExecutionDag() {
+        return toExecutionDag(node -> new DagNode(node.id()));
+    }
+
+    /**
+     * Builds the DAG without going through the XML.
+     *
+     * @param nodeFactory Builds the unit of execution of every node.
+     */
+    public ExecutionDag toExecutionDag(Function<? super INodeWithDependencies, ? extends IDagNode> nodeFactory) {
+        List<PlannedNode> references = new ArrayList<>(size());
+        for (int id = 0; id < size(); id++) {
+            references.add(new PlannedNode(id, Set.of()));
+        }
+
+        Set<PlannedNode> nodes = HashSet.newHashSet(size());
+        for (int id = 0; id < size(); id++) {
+            Set<PlannedNode> nodeDependencies = HashSet.newHashSet(dependencies[id].length);
+            for (int dependency : dependencies[id]) {
+                nodeDependencies.add(references.get(dependency));
+            }
+            nodes.add(new PlannedNode(id, nodeDependencies));
+        }
+        return ExecutionDag.create(nodes, nodeFactory);
+    }
+
+    private record PlannedNode(Integer id, Set<PlannedNode> dependencies) implements INodeWithDependencies {
+    }
+}
@@ -0,0 +1,187 @@
+package com.microsoft.workload;
+
+import com.microsoft.execution.DagRequest;
+import com.microsoft.execution.DagResponse;
+import com.microsoft.execution.IDagExecutor;
+import com.microsoft.execution.metrics.LatencyHistogram;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Submits a workload of DAG requests to an {@link IDagExecutor} in an open or closed loop, and reports the throughput,
+ * the latency percentiles and the heap and GC activity of the run.
+ * <p>
+ * Every request has a scheduled submission time, derived from the arrival rate. A request submitted late because the
+ * driver or the previous requests of its client held it back still counts from its scheduled time in the corrected
+ * latency, so a stall shows up in the percentiles instead of being hidden by the requests it delayed.
+ */
+public class LoadDriver {
+
+    private static final double BYTES_PER_MB = 1024.0 * 1024.0;
+
+    private final IDagExecutor dagExecutor;
+    private final LoadDriverOptions options;
+
+    public LoadDriver(IDagExecutor dagExecutor, LoadDriverOptions options) {
+        this.dagExecutor = dagExecutor;
+        this.options = options;
+    }
+
+    /**
+     * Submits {@code options.requests()} requests, cycling through the workload, and waits for all of them.
+     */
+    public LoadReport run(List<DagRequest> workload) throws InterruptedException {
+        if (workload.isEmpty()) {
+            throw new IllegalArgumentException("workload must not be empty");
+        }
+        Run run = new Run(workload);
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        long gcCountBefore = gcCount();
+        long gcTimeBefore = gcTimeInMillis();
+
+        long startInNanos = System.nanoTime();
+        if (options.arrivalMode() == ArrivalMode.OPEN) {
+            run.openLoop(startInNanos);
+        } else {
+            run.closedLoop(startInNanos);
+        }
+        double elapsedInMillis = (System.nanoTime() - startInNanos) / 1e6;
+
+        long peakHeapUsed = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        long heapUsedAfter = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        return new LoadReport(
+                options.requests(),
+                run.failedRequests.get(),
+                elapsedInMillis,
+                options.requests() / (elapsedInMillis / 1000.0),
+                run.latency.getP50InMillis(),
+                run.latency.getP90InMillis(),
+                run.latency.getP99InMillis(),
+                run.latency.getMaxInMillis(),
+                run.correctedLatency.getP50InMillis(),
+                run.correctedLatency.getP90InMillis(),
+                run.correctedLatency.getP99InMillis(),
+                run.correctedLatency.getMaxInMillis(),
+                peakHeapUsed / BYTES_PER_MB,
+                heapUsedAfter / BYTES_PER_MB,
+                gcCount() - gcCountBefore,
+                gcTimeInMillis() - gcTimeBefore
+        );
+    }
+
+    private static long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionCount)
+                .filter(count -> count > 0)
+                .sum();
+    }
+
+    private static long gcTimeInMillis() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime)
+                .filter(time -> time > 0)
+                .sum();
+    }
+
+    private static void sleepUntil(long timeInNanos) {
+        for (long delay = timeInNanos - System.nanoTime(); delay > 0; delay = timeInNanos - System.nanoTime()) {
+            LockSupport.parkNanos(delay);
+        }
+    }
+
+    private class Run {
+
+        private final List<DagRequest> workload;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LatencyHistogram correctedLatency = new LatencyHistogram();
+        private final AtomicLong failedRequests = new AtomicLong();
+
+        private Run(List<DagRequest> workload) {
+            this.workload = workload;
+        }
+
+        /**
+         * Submits the requests from a single thread on a fixed schedule, without waiting for them to complete.
+         */
+        private void openLoop(long startInNanos) throws InterruptedException {
+            double intervalInNanos = 1e9 / options.arrivalRatePerSecond();
+            CountDownLatch completed = new CountDownLatch(options.requests());
+            for (int i = 0; i < options.requests(); i++) {
+                long scheduledInNanos = startInNanos + (long) (i * intervalInNanos);
+                sleepUntil(scheduledInNanos);
+                long submittedInNanos = System.nanoTime();
+                dagExecutor.processRequestAsync(workload.get(i % workload.size())).whenComplete((response, ex) -> {
+                    record(scheduledInNanos, submittedInNanos, ex == null && !response.hasFailed());
+                    completed.countDown();
+                });
+            }
+            completed.await();
+        }
+
+        /**
+         * Every client waits for its request to complete before submitting the next one, at its scheduled time if the
+         * loop is paced.
+         */
+        private void closedLoop(long startInNanos) throws InterruptedException {
+            int clients = options.concurrency();
+            double intervalInNanos = options.arrivalRatePerSecond() > 0 ? clients * 1e9 / options.arrivalRatePerSecond() : 0;
+            AtomicInteger nextRequest = new AtomicInteger();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int client = 0; client < clients; client++) {
+                    // The clients are staggered over the interval, so the requests arrive evenly at the arrival rate
+                    long clientStartInNanos = startInNanos + (long) (client * intervalInNanos / clients);
+                    executor.execute(() -> {
+                        for (int sent = 0; ; sent++) {
+                            int request = nextRequest.getAndIncrement();
+                            if (request >= options.requests()) {
+                                return;
+                            }
+                            long scheduledInNanos = intervalInNanos > 0
+                                    ? clientStartInNanos + (long) (sent * intervalInNanos)
+                                    : System.nanoTime();
+                            sleepUntil(scheduledInNanos);
+                            long submittedInNanos = System.nanoTime();
+                            boolean hasSucceeded = submit(workload.get(request % workload.size()));
+                            record(scheduledInNanos, submittedInNanos, hasSucceeded);
+                        }
+                    });
+                }
+            }
+        }
+
+        private boolean submit(DagRequest request) {
+            try {
+                DagResponse response = dagExecutor.processRequestAsync(request).get();
+                return !response.hasFailed();
+            } catch (ExecutionException ex) {
+                return false;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        private void record(long scheduledInNanos, long submittedInNanos, boolean hasSucceeded) {
+            long completedInNanos = System.nanoTime();
+            latency.record(completedInNanos - submittedInNanos);
+            correctedLatency.record(completedInNanos - scheduledInNanos);
+            if (!hasSucceeded) {
+                failedRequests.incrementAndGet();
+            }
+        }
+    }
+}
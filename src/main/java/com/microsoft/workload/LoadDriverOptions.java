@@ -0,0 +1,49 @@
+package com.microsoft.workload;
+
+/**
+ * @param arrivalMode          How the requests are submitted.
+ * @param arrivalRatePerSecond Requests submitted per second. Required by the open loop; 0 lets the closed loop submit
+ *                             as fast as the requests complete.
+ * @param concurrency          Number of clients of the closed loop.
+ * @param requests             Total number of requests submitted.
+ */
+public record LoadDriverOptions(
+        ArrivalMode arrivalMode,
+        double arrivalRatePerSecond,
+        int concurrency,
+        int requests
+) {
+
+    public static final LoadDriverOptions DEFAULT = new LoadDriverOptions(ArrivalMode.CLOSED, 0, 1, 100);
+
+    public LoadDriverOptions {
+        if (arrivalMode == null) {
+            throw new IllegalArgumentException("arrivalMode must not be null");
+        }
+        if (arrivalRatePerSecond < 0 || (arrivalMode == ArrivalMode.OPEN && arrivalRatePerSecond == 0)) {
+            throw new IllegalArgumentException("arrivalRatePerSecond must be positive, or 0 in a closed loop");
+        }
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("concurrency must be greater than 0");
+        }
+        if (requests <= 0) {
+            throw new IllegalArgumentException("requests must be greater than 0");
+        }
+    }
+
+    public LoadDriverOptions withArrivalMode(ArrivalMode arrivalMode) {
+        return new LoadDriverOptions(arrivalMode, arrivalRatePerSecond, concurrency, requests);
+    }
+
+    public LoadDriverOptions withArrivalRatePerSecond(double arrivalRatePerSecond) {
+        return new LoadDriverOptions(arrivalMode, arrivalRatePerSecond, concurrency, requests);
+    }
+
+    public LoadDriverOptions withConcurrency(int concurrency) {
+        return new LoadDriverOptions(arrivalMode, arrivalRatePerSecond, concurrency, requests);
+    }
+
+    public LoadDriverOptions withRequests(int requests) {
+        return new LoadDriverOptions(arrivalMode, arrivalRatePerSecond, concurrency, requests);
+    }
+}
@@ -0,0 +1,56 @@
+package com.microsoft.workload;
+
+/**
+ * The outcome of a {@link LoadDriver} run.
+ *
+ * @param requests                  Number of requests submitted.
+ * @param failedRequests            Number of requests that failed or completed exceptionally.
+ * @param elapsedInMillis           Time from the first submission until the last completion.
+ * @param throughputPerSecond       Requests completed per second.
+ * @param latencyP50InMillis        Median time from the submission of a request to its completion.
+ * @param latencyP90InMillis        90th percentile of the time from the submission of a request to its completion.
+ * @param latencyP99InMillis        99th percentile of the time from the submission of a request to its completion.
+ * @param maxLatencyInMillis        Longest time from the submission of a request to its completion.
+ * @param correctedP50InMillis      Median time from the scheduled submission of a request to its completion, which
+ *                                  also counts how long it was held back by the previous ones (coordinated omission).
+ * @param correctedP90InMillis      90th percentile of the corrected latency.
+ * @param correctedP99InMillis      99th percentile of the corrected latency.
+ * @param correctedMaxInMillis      Longest corrected latency.
+ * @param peakHeapUsedInMb          Highest heap usage during the run.
+ * @param heapUsedAfterInMb         Heap usage at the end of the run.
+ * @param gcCount                   Number of garbage collections during the run.
+ * @param gcTimeInMillis            Time spent in garbage collections during the run.
+ */
+public record LoadReport(
+        long requests,
+        long failedRequests,
+        double elapsedInMillis,
+        double throughputPerSecond,
+        double latencyP50InMillis,
+        double latencyP90InMillis,
+        double latencyP99InMillis,
+        double maxLatencyInMillis,
+        double correctedP50InMillis,
+        double correctedP90InMillis,
+        double correctedP99InMillis,
+        double correctedMaxInMillis,
+        double peakHeapUsedInMb,
+        double heapUsedAfterInMb,
+        long gcCount,
+        long gcTimeInMillis
+) {
+
+    @Override
+    public String toString() {
+        return String.format(
+                "LoadReport[requests=%d, failedRequests=%d, elapsed=%.1fms, throughput=%.2f/s, " +
+                        "latency p50=%.1fms p90=%.1fms p99=%.1fms max=%.1fms, " +
+                        "corrected p50=%.1fms p90=%.1fms p99=%.1fms max=%.1fms, " +
+                        "peakHeap=%.1fMB, heapAfter=%.1fMB, gcCount=%d, gcTime=%dms]",
+                requests, failedRequests, elapsedInMillis, throughputPerSecond,
+                latencyP50InMillis, latencyP90InMillis, latencyP99InMillis, maxLatencyInMillis,
+                correctedP50InMillis, correctedP90InMillis, correctedP99InMillis, correctedMaxInMillis,
+                peakHeapUsedInMb, heapUsedAfterInMb, gcCount, gcTimeInMillis
+        );
+    }
+}
@@ -0,0 +1,41 @@
+package com.microsoft.execution;
+
+import com.microsoft.model.IAsyncDagNode;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class AsyncDagNode implements IAsyncDagNode {
+    private final int id;
+    private final List<CompletableFuture<Void>> attempts = new CopyOnWriteArrayList<>();
+
+    public AsyncDagNode(int id) {
+        this.id = id;
+    }
+
+    @Override
+    public Integer id() {
+        return id;
+    }
+
+    @Override
+    public CompletionStage<Void> executeAsync() {
+        CompletableFuture<Void> attempt = new CompletableFuture<>();
+        attempts.add(attempt);
+        return attempt;
+    }
+
+    public int getAttempts() {
+        return attempts.size();
+    }
+
+    public void complete() {
+        attempts.getLast().complete(null);
+    }
+
+    public void fail() {
+        attempts.getLast().completeExceptionally(new RuntimeException("Boom ??"));
+    }
+}
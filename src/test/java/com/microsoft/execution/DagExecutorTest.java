@@ -1,12 +1,27 @@
 package com.microsoft.execution;
 
+import com.microsoft.execution.fault.Fault;
+import com.microsoft.execution.history.DurationHistoryStore;
+import com.microsoft.execution.retry.NoRetryStrategy;
+import com.microsoft.model.IDagNode;
+import com.microsoft.model.partition.LdgPartitioner;
 import com.microsoft.parser.DagParser;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.*;
@@ -256,4 +271,396 @@ public class DagExecutorTest {
         assertFalse(response1.hasFailed());
         assertFalse(response2.hasFailed());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testLinearChainIsSubmittedAsSingleUnitWithChainFusion() throws ExecutionException, InterruptedException {
+        final FakeDagNodeExecutor dagNodeExecutor = new FakeDagNodeExecutor(1);
+        final DagExecutorOptions options = DagExecutorOptions.DEFAULT.withChainFusion(true);
+        final IDagExecutor dagExecutor = new DagExecutor(dagParser, dagNodeExecutor, options);
+
+        String linearDagXml = """
+            <DAG>
+                <Nodes>
+                    <Node Id="0">
+                        <dependencies>
+                            <Node Id="1"/>
+                        </dependencies>
+                    </Node>
+                    <Node Id="1">
+                        <dependencies>
+                            <Node Id="2"/>
+                        </dependencies>
+                    </Node>
+                    <Node Id="2">
+                        <dependencies/>
+                    </Node>
+                </Nodes>
+            </DAG>
+        """;
+        DagRequest request = new DagRequest(linearDagXml);
+
+        CompletableFuture<DagResponse> future = dagExecutor.processRequestAsync(request);
+        dagNodeExecutor.process(1); // The whole chain is a single unit of execution
+
+        DagResponse response = future.get();
+        assertFalse(response.hasFailed());
+        assertEquals(List.of(2), dagNodeExecutor.getNodesExecuted());
+    }
+
+    @Test
+    public void testSmallDagIsExecutedInlineBelowThreshold() throws ExecutionException, InterruptedException {
+        final List<Integer> nodesExecuted = new ArrayList<>();
+        final IDagNodeExecutor inlineOnlyExecutor = new IDagNodeExecutor() {
+            @Override
+            public CompletableFuture<Integer> executeAsync(IDagNode unitOfExecution) {
+                throw new AssertionError("Node " + unitOfExecution.id() + " should have been executed inline");
+            }
+
+            @Override
+            public int execute(IDagNode unitOfExecution) {
+                nodesExecuted.add(unitOfExecution.id());
+                return unitOfExecution.id() == 1 ? -1 : 0;
+            }
+        };
+        final DagExecutorOptions options = DagExecutorOptions.DEFAULT.withInlineExecutionThreshold(3);
+        final IDagExecutor dagExecutor = new DagExecutor(dagParser, inlineOnlyExecutor, options);
+
+        String linearDagXml = """
+            <DAG>
+                <Nodes>
+                    <Node Id="0">
+                        <dependencies>
+                            <Node Id="1"/>
+                        </dependencies>
+                    </Node>
+                    <Node Id="1">
+                        <dependencies>
+                            <Node Id="2"/>
+                        </dependencies>
+                    </Node>
+                    <Node Id="2">
+                        <dependencies/>
+                    </Node>
+                </Nodes>
+            </DAG>
+        """;
+
+        DagResponse response = dagExecutor.processRequestAsync(new DagRequest(linearDagXml)).get();
+
+        assertTrue(response.hasFailed());
+        assertEquals(List.of(2, 1), nodesExecuted);
+    }
+
+    @Test
+    public void testResponseFailsWhenTheRequestThreadThrowsAnError() {
+        final IDagNodeExecutor throwingExecutor = new IDagNodeExecutor() {
+            @Override
+            public CompletableFuture<Integer> executeAsync(IDagNode unitOfExecution) {
+                return CompletableFuture.completedFuture(0);
+            }
+
+            @Override
+            public int execute(IDagNode unitOfExecution) {
+                throw new AssertionError("Node " + unitOfExecution.id() + " failed");
+            }
+        };
+        final DagExecutorOptions options = DagExecutorOptions.DEFAULT.withInlineExecutionThreshold(1);
+        final IDagExecutor dagExecutor = new DagExecutor(dagParser, throwingExecutor, options);
+
+        String singleNodeDagXml = """
+            <DAG>
+                <Nodes>
+                    <Node Id="0">
+                        <dependencies/>
+                    </Node>
+                </Nodes>
+            </DAG>
+        """;
+
+        CompletableFuture<DagResponse> future = dagExecutor.processRequestAsync(new DagRequest(singleNodeDagXml));
+
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+        assertTrue(ex.getCause() instanceof AssertionError);
+    }
+
+    @Test
+    public void testFaultsAreSampledForTheRunOfTheNode() throws ExecutionException, InterruptedException {
+        Set<Long> runIds = ConcurrentHashMap.newKeySet();
+        DagNodeExecutorOptions nodeOptions = DagNodeExecutorOptions.DEFAULT.withFaultInjector((_, _, runId, _) -> {
+            runIds.add(runId);
+            return Fault.NONE;
+        });
+        final IDagExecutor dagExecutor = new DagExecutor(dagParser, new DagNodeExecutor(2, 0.0f, NoRetryStrategy.INSTANCE, nodeOptions));
+
+        for (int run = 0; run < 2; run++) {
+            assertFalse(dagExecutor.processRequestAsync(new DagRequest(SHARED_PREP_DAG_XML)).get().hasFailed());
+        }
+
+        assertEquals(2, runIds.size());
+        assertFalse(runIds.contains(0L));
+    }
+
+    @Test
+    public void testPartitionerKeepsDependentNodesOnTheSameShard() throws ExecutionException, InterruptedException {
+        final FakeDagNodeExecutor shard0 = new FakeDagNodeExecutor(1);
+        final FakeDagNodeExecutor shard1 = new FakeDagNodeExecutor(1);
+        shard0.process(4);
+        shard1.process(4);
+        final ShardedDagNodeExecutor dagNodeExecutor = new ShardedDagNodeExecutor(List.of(shard0, shard1));
+        final DagExecutorOptions options = DagExecutorOptions.DEFAULT.withPartitioner(new LdgPartitioner());
+        final IDagExecutor dagExecutor = new DagExecutor(dagParser, dagNodeExecutor, options);
+
+        // Two independent chains: 1 -> 0 and 3 -> 2
+        String dagXml = """
+            <DAG>
+                <Nodes>
+                    <Node Id="0">
+                        <dependencies>
+                            <Node Id="1"/>
+                        </dependencies>
+                    </Node>
+                    <Node Id="1">
+                        <dependencies/>
+                    </Node>
+                    <Node Id="2">
+                        <dependencies>
+                            <Node Id="3"/>
+                        </dependencies>
+                    </Node>
+                    <Node Id="3">
+                        <dependencies/>
+                    </Node>
+                </Nodes>
+            </DAG>
+        """;
+
+        DagResponse response = dagExecutor.processRequestAsync(new DagRequest(dagXml)).get();
+
+        assertFalse(response.hasFailed());
+        assertEquals(2, shard0.getNodesExecuted().size());
+        assertEquals(2, shard1.getNodesExecuted().size());
+        Set<Integer> onShard0 = Set.copyOf(shard0.getNodesExecuted());
+        assertTrue(onShard0.equals(Set.of(0, 1)) || onShard0.equals(Set.of(2, 3)));
+    }
+
+    @Test
+    public void testReadyNodesAreDispatchedInBatches() throws ExecutionException, InterruptedException {
+        final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        final FakeDagNodeExecutor fakeDagNodeExecutor = new FakeDagNodeExecutor(4);
+        fakeDagNodeExecutor.process(11);
+        final IDagNodeExecutor dagNodeExecutor = new IDagNodeExecutor() {
+            @Override
+            public CompletableFuture<Integer> executeAsync(IDagNode unitOfExecution) {
+                return fakeDagNodeExecutor.executeAsync(unitOfExecution);
+            }
+
+            @Override
+            public void executeBatchAsync(List<? extends IDagNode> batch, NodeExecutionListener listener, BatchCompletionHandler handler) {
+                batchSizes.add(batch.size());
+                IDagNodeExecutor.super.executeBatchAsync(batch, listener, handler);
+            }
+        };
+        final IDagExecutor dagExecutor = new DagExecutor(dagParser, dagNodeExecutor);
+
+        // Node 0 fans out to 10 dependents, which are released at once
+        StringBuilder dagXml = new StringBuilder("<DAG><Nodes><Node Id=\"0\"><dependencies/></Node>");
+        for (int i = 1; i <= 10; i++) {
+            dagXml.append("<Node Id=\"").append(i).append("\"><dependencies><Node Id=\"0\"/></dependencies></Node>");
+        }
+        dagXml.append("</Nodes></DAG>");
+
+        DagResponse response = dagExecutor.processRequestAsync(new DagRequest(dagXml.toString())).get();
+
+        assertFalse(response.hasFailed());
+        assertEquals(List.of(1, 10), batchSizes);
+    }
+
+    @Test
+    public void testInvalidMaxDispatchBatchSize() {
+        assertThrows(IllegalArgumentException.class, () -> DagExecutorOptions.DEFAULT.withMaxDispatchBatchSize(0));
+    }
+
+    @Test
+    public void testSharedNodeIsExecutedOnceAcrossConcurrentDags() throws ExecutionException, InterruptedException {
+        final FakeDagNodeExecutor dagNodeExecutor = new FakeDagNodeExecutor(2);
+        final AtomicInteger leasesAcquired = new AtomicInteger();
+        final SharedNodeRegistry registry = new SharedNodeRegistry() {
+            @Override
+            public Lease acquire(String key) {
+                Lease lease = super.acquire(key);
+                leasesAcquired.incrementAndGet();
+                return lease;
+            }
+        };
+        final IDagExecutor dagExecutor = new DagExecutor(dagParser, dagNodeExecutor, DagExecutorOptions.DEFAULT.withSharedNodes(registry));
+
+        CompletableFuture<DagResponse> first = dagExecutor.processRequestAsync(new DagRequest(SHARED_PREP_DAG_XML));
+        CompletableFuture<DagResponse> second = dagExecutor.processRequestAsync(new DagRequest(SHARED_PREP_DAG_XML));
+        await().until(() -> leasesAcquired.get() == 2);
+        dagNodeExecutor.process(3);
+
+        assertFalse(first.get().hasFailed());
+        assertFalse(second.get().hasFailed());
+        assertEquals(List.of(0, 1, 1), dagNodeExecutor.getNodesExecuted());
+    }
+
+    @Test
+    public void testCancellingOneDagKeepsTheSharedNodeForTheOther() throws ExecutionException, InterruptedException {
+        final FakeDagNodeExecutor dagNodeExecutor = new FakeDagNodeExecutor(2);
+        final AtomicInteger leasesAcquired = new AtomicInteger();
+        final SharedNodeRegistry registry = new SharedNodeRegistry() {
+            @Override
+            public Lease acquire(String key) {
+                Lease lease = super.acquire(key);
+                leasesAcquired.incrementAndGet();
+                return lease;
+            }
+        };
+        final IDagExecutor dagExecutor = new DagExecutor(dagParser, dagNodeExecutor, DagExecutorOptions.DEFAULT.withSharedNodes(registry));
+
+        CompletableFuture<DagResponse> owner = dagExecutor.processRequestAsync(new DagRequest(SHARED_PREP_DAG_XML));
+        CompletableFuture<DagResponse> other = dagExecutor.processRequestAsync(new DagRequest(SHARED_PREP_DAG_XML));
+        await().until(() -> leasesAcquired.get() == 2);
+        owner.cancel(true);
+        dagNodeExecutor.process(2);
+
+        assertFalse(other.get().hasFailed());
+        assertEquals(List.of(0, 1), dagNodeExecutor.getNodesExecuted());
+    }
+
+    private static final String SHARED_PREP_DAG_XML = """
+            <DAG>
+                <Nodes>
+                    <Node Id="0" Key="prep">
+                        <dependencies/>
+                    </Node>
+                    <Node Id="1">
+                        <dependencies>
+                            <Node Id="0"/>
+                        </dependencies>
+                    </Node>
+                </Nodes>
+            </DAG>
+        """;
+
+    @Test
+    public void testDependentsStayOnTheEngineOfTheirDependencyWithAffinity() throws ExecutionException, InterruptedException {
+        final List<String> engines = Collections.synchronizedList(new ArrayList<>());
+        final DagParser recordingParser = new DagParser(node -> new IDagNode() {
+            @Override
+            public Integer id() {
+                return node.id();
+            }
+
+            @Override
+            public void execute() {
+                engines.add(Thread.currentThread().getName());
+            }
+        });
+        final DagNodeExecutorOptions nodeExecutorOptions = DagNodeExecutorOptions.DEFAULT.withEngineMode(EngineMode.AFFINITY);
+        final DagNodeExecutor dagNodeExecutor = new DagNodeExecutor(4, 0.0f, NoRetryStrategy.INSTANCE, nodeExecutorOptions);
+        final IDagExecutor dagExecutor = new DagExecutor(recordingParser, dagNodeExecutor);
+
+        // A linear DAG: 0 -> 1 -> ... -> 19
+        StringBuilder dagXml = new StringBuilder("<DAG><Nodes><Node Id=\"0\"><dependencies/></Node>");
+        for (int i = 1; i < 20; i++) {
+            dagXml.append("<Node Id=\"").append(i).append("\"><dependencies><Node Id=\"").append(i - 1).append("\"/></dependencies></Node>");
+        }
+        dagXml.append("</Nodes></DAG>");
+
+        DagResponse response = dagExecutor.processRequestAsync(new DagRequest(dagXml.toString())).get();
+
+        assertFalse(response.hasFailed());
+        assertTrue(dagNodeExecutor.hasEngineAffinity());
+        assertEquals(20, engines.size());
+        // Idle engines may steal a node now and then, but most of the chain stays on one engine
+        long onMostUsedEngine = engines.stream()
+                .collect(Collectors.groupingBy(engine -> engine, Collectors.counting()))
+                .values().stream().max(Long::compare).orElseThrow();
+        assertTrue(onMostUsedEngine >= 10, "Only " + onMostUsedEngine + " nodes ran on the same engine: " + engines);
+    }
+
+    @Test
+    public void testNodesWithTheLongestCriticalPathRunFirst() throws ExecutionException, InterruptedException, IOException {
+        final List<Integer> executionOrder = Collections.synchronizedList(new ArrayList<>());
+        final DagParser recordingParser = new DagParser(node -> new IDagNode() {
+            @Override
+            public Integer id() {
+                return node.id();
+            }
+
+            @Override
+            public String key() {
+                return node.key();
+            }
+
+            @Override
+            public void execute() {
+                executionOrder.add(node.id());
+            }
+        });
+        final DagNodeExecutor dagNodeExecutor = new DagNodeExecutor(1, 0.0f, NoRetryStrategy.INSTANCE);
+        final Path historyFile = Files.createTempFile("duration-history", ".bin");
+        Files.delete(historyFile);
+
+        // Nodes 0 to 3 are ready at once, but only 3 leads to the slow nodes 4 and 5. Node 6 has no history.
+        final String dagXml = """
+            <DAG>
+                <Nodes>
+                    <Node Id="0" Key="fast-0"><dependencies/></Node>
+                    <Node Id="1" Key="fast-1"><dependencies/></Node>
+                    <Node Id="2" Key="fast-2"><dependencies/></Node>
+                    <Node Id="3" Key="fast-3"><dependencies/></Node>
+                    <Node Id="4" Key="slow-4"><dependencies><Node Id="3"/></dependencies></Node>
+                    <Node Id="5" Key="slow-5"><dependencies><Node Id="4"/></dependencies></Node>
+                    <Node Id="6"><dependencies/></Node>
+                </Nodes>
+            </DAG>
+        """;
+
+        try (DurationHistoryStore history = DurationHistoryStore.open(historyFile)) {
+            history.recordAsync(Map.of("fast-0", 1.0, "fast-1", 1.0, "fast-2", 1.0, "fast-3", 1.0, "slow-4", 50.0, "slow-5", 50.0, "6", 100.0)).join();
+            final IDagExecutor dagExecutor = new DagExecutor(recordingParser, dagNodeExecutor, DagExecutorOptions.DEFAULT.withDurationHistory(history));
+
+            DagResponse response = dagExecutor.processRequestAsync(new DagRequest(dagXml)).get();
+
+            assertFalse(response.hasFailed());
+            assertEquals(3, executionOrder.getFirst());
+            // The durations of the run are recorded as well, except for the node without a key, whose id says nothing
+            // about other DAGs
+            await().until(() -> history.estimate("slow-5").orElseThrow().samples() == 2);
+            assertEquals(1, history.estimate("6").orElseThrow().samples());
+        } finally {
+            Files.deleteIfExists(historyFile);
+        }
+    }
+
+    @Test
+    public void testRunSucceedsAfterTheDurationHistoryIsClosed() throws IOException, ExecutionException, InterruptedException {
+        String dagXml = """
+            <DAG>
+                <Nodes>
+                    <Node Id="0"><dependencies/></Node>
+                    <Node Id="1"><dependencies><Node Id="0"/></dependencies></Node>
+                </Nodes>
+            </DAG>
+        """;
+        Path historyFile = Files.createTempFile("duration-history", ".bin");
+        try {
+            DurationHistoryStore history = DurationHistoryStore.open(historyFile);
+            history.close();
+            IDagExecutor dagExecutor = new DagExecutor(new DagParser(), new DagNodeExecutor(2, 0.0f, NoRetryStrategy.INSTANCE), DagExecutorOptions.DEFAULT.withDurationHistory(history));
+
+            DagResponse response = dagExecutor.processRequestAsync(new DagRequest(dagXml)).get();
+
+            assertFalse(response.hasFailed());
+        } finally {
+            Files.deleteIfExists(historyFile);
+        }
+    }
+
+    @Test
+    public void testNegativeInlineExecutionThreshold() {
+        assertThrows(IllegalArgumentException.class, () -> DagExecutorOptions.DEFAULT.withInlineExecutionThreshold(-1));
+    }
+}
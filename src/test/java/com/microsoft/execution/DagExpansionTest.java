@@ -0,0 +1,151 @@
+package com.microsoft.execution;
+
+import com.microsoft.execution.events.NodeEvent;
+import com.microsoft.execution.events.NodeEventPublisher;
+import com.microsoft.execution.events.NodeEventType;
+import com.microsoft.execution.events.OverflowPolicy;
+import com.microsoft.execution.retry.NoRetryStrategy;
+import com.microsoft.model.DagExpansion;
+import com.microsoft.model.IDagNode;
+import com.microsoft.model.IExpandingDagNode;
+import com.microsoft.parser.DagParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DagExpansionTest {
+
+    // Node 1 depends on node 0
+    private static final String TWO_NODES_XML = """
+        <DAG>
+            <Nodes>
+                <Node Id="0">
+                    <dependencies/>
+                </Node>
+                <Node Id="1">
+                    <dependencies>
+                        <Node Id="0"/>
+                    </dependencies>
+                </Node>
+            </Nodes>
+        </DAG>
+    """;
+
+    @Test
+    public void testDependentsWaitForTheAddedNodes() throws ExecutionException, InterruptedException {
+        Set<Integer> completed = ConcurrentHashMap.newKeySet();
+        AtomicInteger completedBeforeReducer = new AtomicInteger(-1);
+        DagParser dagParser = new DagParser(node -> switch (node.id()) {
+            case 0 -> new ExpandingNode(0, () -> completed.add(0), expansion -> {
+                for (int i = 0; i < 100; i++) {
+                    DagExpansion.NewNode partition = expansion.addNode(id -> new RunnableDagNode(id, () -> completed.add(id)));
+                    expansion.addDependency(1, partition);
+                }
+            });
+            case 1 -> new RunnableDagNode(1, () -> completedBeforeReducer.set(completed.size()));
+            default -> throw new IllegalArgumentException();
+        });
+        IDagExecutor dagExecutor = new DagExecutor(dagParser, new DagNodeExecutor(4, 0.0f, NoRetryStrategy.INSTANCE));
+
+        DagResponse response = dagExecutor.processRequestAsync(new DagRequest(TWO_NODES_XML)).get();
+
+        assertFalse(response.hasFailed());
+        assertEquals(101, completedBeforeReducer.get());
+    }
+
+    @Test
+    public void testAddedNodesCanExpand() throws ExecutionException, InterruptedException {
+        AtomicInteger executed = new AtomicInteger();
+        DagParser dagParser = new DagParser(node -> node.id() == 0 ? tree(0, 5, executed) : new RunnableDagNode(node.id(), executed::incrementAndGet));
+        IDagExecutor dagExecutor = new DagExecutor(dagParser, new DagNodeExecutor(4, 0.0f, NoRetryStrategy.INSTANCE));
+
+        DagResponse response = dagExecutor.processRequestAsync(new DagRequest(TWO_NODES_XML)).get();
+
+        assertFalse(response.hasFailed());
+        assertEquals(64, executed.get()); // 63 nodes in the tree, and node 1
+    }
+
+    @Test
+    public void testInvalidExpansionFailsTheDag() throws ExecutionException, InterruptedException {
+        AtomicInteger executed = new AtomicInteger();
+        DagParser dagParser = new DagParser(node -> node.id() == 0
+                ? new ExpandingNode(0, executed::incrementAndGet, expansion -> {
+                    // Node 1 would wait for a node waiting for node 1
+                    DagExpansion.NewNode added = expansion.addNode(id -> new RunnableDagNode(id, executed::incrementAndGet));
+                    expansion.addDependency(1, added);
+                    expansion.addDependency(added, 1);
+                })
+                : new RunnableDagNode(node.id(), executed::incrementAndGet));
+        IDagExecutor dagExecutor = new DagExecutor(dagParser, new DagNodeExecutor(4, 0.0f, NoRetryStrategy.INSTANCE));
+        NodeEventPublisher publisher = new NodeEventPublisher(64, OverflowPolicy.DROP_NEWEST, Runnable::run);
+        List<NodeEvent> events = new CopyOnWriteArrayList<>();
+        AtomicBoolean completed = new AtomicBoolean();
+        publisher.subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(NodeEvent event) {
+                events.add(event);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+                completed.set(true);
+            }
+        });
+
+        DagResponse response = dagExecutor.processRequestAsync(new DagRequest(TWO_NODES_XML), publisher).get();
+        await().until(completed::get);
+
+        assertTrue(response.hasFailed());
+        assertEquals(1, executed.get());
+        // The node is only reported once its expansion is applied, which fails it
+        assertEquals(
+                List.of(NodeEventType.READY, NodeEventType.STARTED, NodeEventType.FAILED),
+                events.stream().filter(event -> event.nodeId() == 0).map(NodeEvent::type).toList()
+        );
+    }
+
+    /**
+     * @return A node adding two nodes like itself until the tree reaches the depth.
+     */
+    private static IDagNode tree(int id, int depth, AtomicInteger executed) {
+        return new ExpandingNode(id, executed::incrementAndGet, expansion -> {
+            if (depth > 0) {
+                expansion.addNode(childId -> tree(childId, depth - 1, executed));
+                expansion.addNode(childId -> tree(childId, depth - 1, executed));
+            }
+        });
+    }
+
+    private record ExpandingNode(Integer id, Runnable action, Consumer<DagExpansion> expander) implements IExpandingDagNode {
+
+        @Override
+        public void execute() {
+            action.run();
+        }
+
+        @Override
+        public void expand(DagExpansion expansion) {
+            expander.accept(expansion);
+        }
+    }
+}
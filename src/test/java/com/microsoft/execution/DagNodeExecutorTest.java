@@ -1,12 +1,25 @@
 package com.microsoft.execution;
 
 import com.microsoft.execution.retry.NoRetryStrategy;
+import com.microsoft.execution.retry.TimedRetryStrategy;
+import com.microsoft.model.ChainDagNode;
 import com.microsoft.model.DagNode;
+import com.microsoft.model.IAsyncDagNode;
+import com.microsoft.model.IDagNode;
+import com.microsoft.model.Resources;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
 
+import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class DagNodeExecutorTest {
@@ -49,4 +62,449 @@ public class DagNodeExecutorTest {
 
         assertEquals(-1, result, "Expected execution to fail with result -1");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testChainRetriesOnlyTheFailingNode() throws InterruptedException, ExecutionException {
+        DagNodeExecutor dagNodeExecutor = new DagNodeExecutor(4, 0.0f, new TimedRetryStrategy(2, 0));
+
+        FailingDagNode first = new FailingDagNode(0, 0);
+        FailingDagNode second = new FailingDagNode(1, 2);
+        FailingDagNode third = new FailingDagNode(2, 1);
+
+        CompletableFuture<Integer> future = dagNodeExecutor.executeAsync(new ChainDagNode(0, List.of(first, second, third)));
+        int result = future.get();
+
+        assertEquals(0, result, "Expected execution to succeed with result 0");
+        assertEquals(1, first.getAttempts());
+        assertEquals(3, second.getAttempts());
+        assertEquals(2, third.getAttempts(), "Expected the retry budget to be reset for every node of the chain");
+    }
+
+    @Test
+    public void testChainFailsWhenANodeExhaustsItsRetries() throws InterruptedException, ExecutionException {
+        DagNodeExecutor dagNodeExecutor = new DagNodeExecutor(4, 0.0f, new TimedRetryStrategy(1, 0));
+
+        FailingDagNode first = new FailingDagNode(0, 0);
+        FailingDagNode second = new FailingDagNode(1, 5);
+        FailingDagNode third = new FailingDagNode(2, 0);
+
+        CompletableFuture<Integer> future = dagNodeExecutor.executeAsync(new ChainDagNode(0, List.of(first, second, third)));
+        int result = future.get();
+
+        assertEquals(-1, result, "Expected execution to fail with result -1");
+        assertEquals(2, second.getAttempts());
+        assertEquals(0, third.getAttempts(), "Nodes after the failing one should not be executed");
+    }
+
+    @Test
+    public void testFailureRateFailsDifferentNodesOnEveryRun() {
+        DagNodeExecutor dagNodeExecutor = new DagNodeExecutor(1, 0.5f, NoRetryStrategy.INSTANCE);
+
+        List<Integer> firstRun = IntStream.range(0, 128).map(id -> dagNodeExecutor.execute(new DagNode(id))).boxed().toList();
+        List<Integer> secondRun = IntStream.range(0, 128).map(id -> dagNodeExecutor.execute(new DagNode(id))).boxed().toList();
+
+        assertNotEquals(firstRun, secondRun);
+    }
+
+    @Test
+    public void testChainFailsWhenANodeThrowsAnError() throws Exception {
+        DagNodeExecutor dagNodeExecutor = new DagNodeExecutor(1, 0.0f, NoRetryStrategy.INSTANCE);
+        IDagNode throwsError = new IDagNode() {
+            @Override
+            public Integer id() {
+                return 1;
+            }
+
+            @Override
+            public void execute() {
+                throw new AssertionError("Node 1 failed");
+            }
+        };
+        FailingDagNode last = new FailingDagNode(2, 0);
+
+        CompletableFuture<Integer> future = dagNodeExecutor.executeAsync(new ChainDagNode(0, List.of(new DagNode(0), throwsError, last)));
+
+        assertEquals(-1, future.get(10, TimeUnit.SECONDS));
+        assertEquals(0, last.getAttempts());
+    }
+
+    @Test
+    public void testExecuteRunsOnCallingThreadWithRetries() {
+        DagNodeExecutor dagNodeExecutor = new DagNodeExecutor(4, 0.0f, new TimedRetryStrategy(2, 0));
+        Thread caller = Thread.currentThread();
+        FailingDagNode node = new FailingDagNode(0, 2) {
+            @Override
+            public void execute() {
+                assertSame(caller, Thread.currentThread());
+                super.execute();
+            }
+        };
+
+        int result = dagNodeExecutor.execute(node);
+
+        assertEquals(0, result, "Expected execution to succeed with result 0");
+        assertEquals(3, node.getAttempts());
+    }
+
+    @Test
+    public void testExecuteFailsWhenRetriesAreExhausted() {
+        DagNodeExecutor dagNodeExecutor = new DagNodeExecutor(4, 0.0f, new TimedRetryStrategy(1, 0));
+        FailingDagNode node = new FailingDagNode(0, 5);
+
+        int result = dagNodeExecutor.execute(node);
+
+        assertEquals(-1, result, "Expected execution to fail with result -1");
+        assertEquals(2, node.getAttempts());
+    }
+
+    @Test
+    public void testExecuteFailsWhenTheNodeThrowsAnError() {
+        DagNodeExecutor dagNodeExecutor = new DagNodeExecutor(1, 0.0f, new TimedRetryStrategy(1, 0));
+        AtomicInteger attempts = new AtomicInteger();
+        IDagNode throwsError = new IDagNode() {
+            @Override
+            public Integer id() {
+                return 0;
+            }
+
+            @Override
+            public void execute() {
+                attempts.incrementAndGet();
+                throw new AssertionError("Node 0 failed");
+            }
+        };
+
+        assertEquals(-1, dagNodeExecutor.execute(throwsError));
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    public void testExecuteCountsAgainstTheOutstandingAsyncNodes() throws InterruptedException, ExecutionException {
+        DagNodeExecutorOptions options = DagNodeExecutorOptions.DEFAULT.withMaxOutstandingAsyncNodes(1);
+        DagNodeExecutor dagNodeExecutor = new DagNodeExecutor(1, 0.0f, NoRetryStrategy.INSTANCE, options);
+        AsyncDagNode first = new AsyncDagNode(0);
+        AsyncDagNode second = new AsyncDagNode(1);
+
+        CompletableFuture<Integer> firstFuture = dagNodeExecutor.executeAsync(first);
+        await().until(() -> first.getAttempts() == 1);
+        CompletableFuture<Integer> secondResult = CompletableFuture.supplyAsync(() -> dagNodeExecutor.execute(second));
+        Thread.sleep(50);
+        assertEquals(0, second.getAttempts(), "The inline node should wait until the first one completes");
+
+        first.complete();
+        await().until(() -> second.getAttempts() == 1);
+        second.complete();
+
+        assertEquals(0, firstFuture.get());
+        assertEquals(0, secondResult.get());
+    }
+
+    @Test
+    public void testInvalidMaxOutstandingAsyncNodes() {
+        assertThrows(IllegalArgumentException.class, () -> DagNodeExecutorOptions.DEFAULT.withMaxOutstandingAsyncNodes(0));
+    }
+
+    @Test
+    public void testAsyncNodesDoNotHoldEngines() throws InterruptedException, ExecutionException {
+        DagNodeExecutor dagNodeExecutor = new DagNodeExecutor(1, 0.0f, NoRetryStrategy.INSTANCE);
+        List<AsyncDagNode> asyncNodes = List.of(new AsyncDagNode(0), new AsyncDagNode(1), new AsyncDagNode(2));
+
+        List<CompletableFuture<Integer>> asyncFutures = asyncNodes.stream().map(dagNodeExecutor::executeAsync).toList();
+        await().until(() -> asyncNodes.stream().allMatch(node -> node.getAttempts() == 1));
+
+        // The single engine is free to execute other nodes while the asynchronous ones are in flight
+        assertEquals(0, dagNodeExecutor.executeAsync(new DagNode(3)).get());
+        assertTrue(asyncFutures.stream().noneMatch(CompletableFuture::isDone));
+
+        asyncNodes.forEach(AsyncDagNode::complete);
+        for (CompletableFuture<Integer> future : asyncFutures) {
+            assertEquals(0, future.get());
+        }
+    }
+
+    @Test
+    public void testOutstandingAsyncNodesAreLimited() throws InterruptedException, ExecutionException {
+        DagNodeExecutorOptions options = DagNodeExecutorOptions.DEFAULT.withMaxOutstandingAsyncNodes(2);
+        DagNodeExecutor dagNodeExecutor = new DagNodeExecutor(4, 0.0f, NoRetryStrategy.INSTANCE, options);
+        AsyncDagNode first = new AsyncDagNode(0);
+        AsyncDagNode second = new AsyncDagNode(1);
+        AsyncDagNode third = new AsyncDagNode(2);
+
+        dagNodeExecutor.executeAsync(first);
+        dagNodeExecutor.executeAsync(second);
+        CompletableFuture<Integer> thirdFuture = dagNodeExecutor.executeAsync(third);
+        await().until(() -> first.getAttempts() == 1 && second.getAttempts() == 1);
+        assertEquals(0, third.getAttempts(), "The third node should wait until another one completes");
+
+        first.complete();
+        await().until(() -> third.getAttempts() == 1);
+
+        third.complete();
+        assertEquals(0, thirdFuture.get());
+    }
+
+    @Test
+    public void testAsyncNodeIsRetriedWhenItCompletesExceptionally() throws InterruptedException, ExecutionException {
+        DagNodeExecutor dagNodeExecutor = new DagNodeExecutor(1, 0.0f, new TimedRetryStrategy(1, 0));
+        AsyncDagNode node = new AsyncDagNode(0);
+
+        CompletableFuture<Integer> future = dagNodeExecutor.executeAsync(node);
+        await().until(() -> node.getAttempts() == 1);
+        node.fail();
+        await().until(() -> node.getAttempts() == 2);
+        node.fail();
+
+        assertEquals(-1, future.get(), "Expected execution to fail with result -1 after retries");
+    }
+
+    @Test
+    public void testBrokenAsyncNodesReleaseTheirPermit() throws Exception {
+        DagNodeExecutorOptions options = DagNodeExecutorOptions.DEFAULT.withMaxOutstandingAsyncNodes(1);
+        DagNodeExecutor dagNodeExecutor = new DagNodeExecutor(1, 0.0f, NoRetryStrategy.INSTANCE, options);
+        IAsyncDagNode noStage = new IAsyncDagNode() {
+            @Override
+            public Integer id() {
+                return 0;
+            }
+
+            @Override
+            public CompletionStage<Void> executeAsync() {
+                return null;
+            }
+        };
+        IAsyncDagNode throwsError = new IAsyncDagNode() {
+            @Override
+            public Integer id() {
+                return 1;
+            }
+
+            @Override
+            public CompletionStage<Void> executeAsync() {
+                throw new AssertionError("Node 1 failed");
+            }
+        };
+        AsyncDagNode next = new AsyncDagNode(2);
+
+        assertEquals(-1, dagNodeExecutor.executeAsync(noStage).get(10, TimeUnit.SECONDS));
+        assertEquals(-1, dagNodeExecutor.executeAsync(throwsError).get(10, TimeUnit.SECONDS));
+
+        // The single permit is free again
+        CompletableFuture<Integer> future = dagNodeExecutor.executeAsync(next);
+        await().until(() -> next.getAttempts() == 1);
+        next.complete();
+        assertEquals(0, future.get());
+    }
+
+    @Test
+    public void testChainResumesAfterAsyncNode() throws InterruptedException, ExecutionException {
+        DagNodeExecutor dagNodeExecutor = new DagNodeExecutor(1, 0.0f, NoRetryStrategy.INSTANCE);
+        AsyncDagNode asyncNode = new AsyncDagNode(0);
+        FailingDagNode next = new FailingDagNode(1, 0);
+
+        CompletableFuture<Integer> future = dagNodeExecutor.executeAsync(new ChainDagNode(0, List.of(asyncNode, next)));
+        await().until(() -> asyncNode.getAttempts() == 1);
+        assertEquals(0, next.getAttempts());
+
+        asyncNode.complete();
+
+        assertEquals(0, future.get());
+        assertEquals(1, next.getAttempts());
+    }
+
+    @Test
+    public void testNegativeNumberOfEnginesWithVirtualThreads() {
+        DagNodeExecutorOptions options = DagNodeExecutorOptions.DEFAULT.withEngineMode(EngineMode.VIRTUAL_THREADS);
+        assertThrows(IllegalArgumentException.class, () -> new DagNodeExecutor(-1, 0.5f, NoRetryStrategy.INSTANCE, options));
+    }
+
+    @Test
+    public void testVirtualThreadEnginesLimitConcurrency() throws InterruptedException, ExecutionException {
+        DagNodeExecutorOptions options = DagNodeExecutorOptions.DEFAULT.withEngineMode(EngineMode.VIRTUAL_THREADS);
+        DagNodeExecutor dagNodeExecutor = new DagNodeExecutor(2, 0.0f, NoRetryStrategy.INSTANCE, options);
+        Semaphore release = new Semaphore(0);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        List<CompletableFuture<Integer>> futures = IntStream.range(0, 10)
+                .mapToObj(id -> dagNodeExecutor.executeAsync(new IDagNode() {
+                    @Override
+                    public Integer id() {
+                        return id;
+                    }
+
+                    @Override
+                    public void execute() {
+                        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                        assertTrue(Thread.currentThread().isVirtual());
+                        release.acquireUninterruptibly();
+                        running.decrementAndGet();
+                    }
+                }))
+                .toList();
+
+        await().until(() -> running.get() == 2);
+        release.release(10);
+        for (CompletableFuture<Integer> future : futures) {
+            assertEquals(0, future.get());
+        }
+
+        assertEquals(2, maxRunning.get());
+    }
+
+    @Test
+    public void testBatchDeliversTheResultOfEveryNode() throws InterruptedException, ExecutionException {
+        DagNodeExecutor dagNodeExecutor = new DagNodeExecutor(4, 0.0f, new TimedRetryStrategy(1, 0));
+
+        List<FailingDagNode> batch = IntStream.range(0, 100)
+                .mapToObj(id -> new FailingDagNode(id, id % 10 == 0 ? 1 : id % 10 == 1 ? 5 : 0))
+                .toList();
+
+        int[] results = dagNodeExecutor.executeBatchAsync(batch).get();
+
+        for (int i = 0; i < batch.size(); i++) {
+            assertEquals(i % 10 == 1 ? -1 : 0, results[i], "Unexpected result for node " + i);
+            assertEquals(i % 10 == 0 || i % 10 == 1 ? 2 : 1, batch.get(i).getAttempts());
+        }
+    }
+
+    @Test
+    public void testBatchIsDrainedByNoMoreThanTheNumberOfEngines() throws InterruptedException, ExecutionException {
+        DagNodeExecutor dagNodeExecutor = new DagNodeExecutor(2, 0.0f, NoRetryStrategy.INSTANCE);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        List<IDagNode> batch = IntStream.range(0, 50)
+                .mapToObj(id -> (IDagNode) new IDagNode() {
+                    @Override
+                    public Integer id() {
+                        return id;
+                    }
+
+                    @Override
+                    public void execute() {
+                        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                        Thread.onSpinWait();
+                        running.decrementAndGet();
+                    }
+                })
+                .toList();
+
+        int[] results = dagNodeExecutor.executeBatchAsync(batch).get();
+
+        assertEquals(50, results.length);
+        assertTrue(IntStream.of(results).allMatch(result -> result == 0));
+        assertTrue(maxRunning.get() <= 2);
+    }
+
+    @Test
+    public void testBatchReportsNodesThatThrowAnError() throws Exception {
+        DagNodeExecutor dagNodeExecutor = new DagNodeExecutor(2, 0.0f, NoRetryStrategy.INSTANCE);
+
+        List<IDagNode> batch = IntStream.range(0, 10)
+                .mapToObj(id -> (IDagNode) new IDagNode() {
+                    @Override
+                    public Integer id() {
+                        return id;
+                    }
+
+                    @Override
+                    public void execute() {
+                        if (id % 2 == 0) {
+                            throw new AssertionError("Node " + id + " failed");
+                        }
+                    }
+                })
+                .toList();
+
+        int[] results = dagNodeExecutor.executeBatchAsync(batch).get(10, TimeUnit.SECONDS);
+
+        for (int i = 0; i < batch.size(); i++) {
+            assertEquals(i % 2 == 0 ? -1 : 0, results[i], "Unexpected result for node " + i);
+        }
+    }
+
+    @Test
+    public void testEmptyBatch() throws InterruptedException, ExecutionException {
+        DagNodeExecutor dagNodeExecutor = new DagNodeExecutor(2, 0.0f, NoRetryStrategy.INSTANCE);
+
+        assertEquals(0, dagNodeExecutor.executeBatchAsync(List.of()).get().length);
+    }
+
+    @Test
+    public void testNodesAreAdmittedAgainstTheResourceCapacity() throws InterruptedException, ExecutionException {
+        DagNodeExecutorOptions options = DagNodeExecutorOptions.DEFAULT.withResourceCapacity(new Resources(8, 1000));
+        DagNodeExecutor dagNodeExecutor = new DagNodeExecutor(8, 0.0f, NoRetryStrategy.INSTANCE, options);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        List<CompletableFuture<Integer>> futures = IntStream.range(0, 8)
+                .mapToObj(id -> dagNodeExecutor.executeAsync(new IDagNode() {
+                    @Override
+                    public Integer id() {
+                        return id;
+                    }
+
+                    @Override
+                    public void execute() {
+                        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                        try {
+                            Thread.sleep(10);
+                        } catch (InterruptedException e) {
+                            throw new RuntimeException(e);
+                        }
+                        running.decrementAndGet();
+                    }
+
+                    @Override
+                    public Resources resources() {
+                        return new Resources(1, 400); // Only two fit in memory at a time
+                    }
+                }))
+                .toList();
+
+        for (CompletableFuture<Integer> future : futures) {
+            assertEquals(0, future.get());
+        }
+        assertTrue(maxRunning.get() <= 2);
+
+        ResourceUtilization utilization = dagNodeExecutor.getResourceUtilization().orElseThrow();
+        assertEquals(8, utilization.admittedNodes());
+        assertEquals(0, utilization.waitingNodes());
+        assertTrue(utilization.maxWaitInMillis() > 0);
+    }
+
+    @Test
+    public void testNodeThrowingAnErrorReleasesItsResources() throws ExecutionException, InterruptedException, TimeoutException {
+        DagNodeExecutorOptions options = DagNodeExecutorOptions.DEFAULT.withResourceCapacity(new Resources(1, 1000));
+        DagNodeExecutor dagNodeExecutor = new DagNodeExecutor(1, 0.0f, NoRetryStrategy.INSTANCE, options);
+        IDagNode throwsError = new IDagNode() {
+            @Override
+            public Integer id() {
+                return 0;
+            }
+
+            @Override
+            public void execute() {
+                throw new AssertionError("Node 0 failed");
+            }
+
+            @Override
+            public Resources resources() {
+                return new Resources(1, 1000);
+            }
+        };
+
+        assertEquals(-1, dagNodeExecutor.executeAsync(throwsError).get(5, TimeUnit.SECONDS));
+        assertEquals(0, dagNodeExecutor.executeAsync(new DagNode(1)).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testNoResourceUtilizationWithoutCapacity() {
+        assertTrue(new DagNodeExecutor(1, 0.0f, NoRetryStrategy.INSTANCE).getResourceUtilization().isEmpty());
+    }
+
+    @Test
+    public void testInvalidResourceCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> DagNodeExecutorOptions.DEFAULT.withResourceCapacity(new Resources(0, 1000)));
+    }
+}
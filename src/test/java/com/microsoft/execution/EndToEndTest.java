@@ -1,13 +1,16 @@
 package com.microsoft.execution;
 
 import com.microsoft.execution.retry.*;
+import com.microsoft.model.IAsyncDagNode;
 import com.microsoft.parser.DagParser;
 import org.junit.jupiter.api.RepeatedTest;
 import org.junit.jupiter.api.Test;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.IntStream;
 
 import static org.awaitility.Awaitility.await;
@@ -58,6 +61,30 @@ public class EndToEndTest {
         assertFalse(response.hasFailed());
     }
 
+    @Test
+    public void testAsyncNodesExecution() throws ExecutionException, InterruptedException {
+        String dagXml = generateRandomDAGXml(50, 5);
+
+        // Every node waits on a timer instead of an engine, so a single engine is enough for many nodes in flight
+        DagParser dagParser = new DagParser(node -> new IAsyncDagNode() {
+            @Override
+            public Integer id() {
+                return node.id();
+            }
+
+            @Override
+            public CompletionStage<Void> executeAsync() {
+                return CompletableFuture.runAsync(() -> {}, CompletableFuture.delayedExecutor(10, TimeUnit.MILLISECONDS));
+            }
+        });
+        DagNodeExecutor dagNodeExecutor = new DagNodeExecutor(1, 0.0f, NoRetryStrategy.INSTANCE);
+        IDagExecutor dagExecutor = new DagExecutor(dagParser, dagNodeExecutor);
+
+        DagResponse response = dagExecutor.processRequestAsync(new DagRequest(dagXml)).get();
+
+        assertFalse(response.hasFailed());
+    }
+
     @RepeatedTest(50)
     public void testMultipleDAGsExecution() throws ExecutionException, InterruptedException {
         testExecution(20, 10, 5, 4, 0.0f, NoRetryStrategy.INSTANCE);
@@ -116,15 +143,71 @@ public class EndToEndTest {
         testExecution(50, 20, 4, 50, 0.0f, NoRetryStrategy.INSTANCE);
     }
 
+    @RepeatedTest(50)
+    public void testChainFusion() throws ExecutionException, InterruptedException {
+        DagExecutorOptions options = DagExecutorOptions.DEFAULT.withChainFusion(true);
+        testExecution(20, 10, 1, 4, 0.0f, NoRetryStrategy.INSTANCE, options);
+    }
+
+    @RepeatedTest(50)
+    public void testChainFusionWithFailuresAndRetries() throws ExecutionException, InterruptedException {
+        DagExecutorOptions options = DagExecutorOptions.DEFAULT.withChainFusion(true);
+        testExecution(20, 10, 1, 4, 0.5f, new InfiteRetryStrategy(1), options);
+    }
+
+    @RepeatedTest(50)
+    public void testInlineExecutionWithFailuresAndRetries() throws ExecutionException, InterruptedException {
+        DagExecutorOptions options = DagExecutorOptions.DEFAULT.withInlineExecutionThreshold(10);
+        testExecution(20, 10, 5, 4, 0.5f, new InfiteRetryStrategy(1), options);
+    }
+
+    @RepeatedTest(50)
+    public void testInlineExecutionEverythingFails() throws ExecutionException, InterruptedException {
+        DagExecutorOptions options = DagExecutorOptions.DEFAULT.withInlineExecutionThreshold(10);
+        testExecution(20, 10, 5, 4, 1.0f, NoRetryStrategy.INSTANCE, options);
+    }
+
+    @RepeatedTest(50)
+    public void testVirtualThreadEngines() throws ExecutionException, InterruptedException {
+        DagNodeExecutorOptions nodeExecutorOptions = DagNodeExecutorOptions.DEFAULT.withEngineMode(EngineMode.VIRTUAL_THREADS);
+        testExecution(20, 10, 5, 4, 0.0f, NoRetryStrategy.INSTANCE, DagExecutorOptions.DEFAULT, nodeExecutorOptions);
+    }
+
+    @RepeatedTest(50)
+    public void testVirtualThreadEnginesWithFailuresAndRetries() throws ExecutionException, InterruptedException {
+        DagNodeExecutorOptions nodeExecutorOptions = DagNodeExecutorOptions.DEFAULT.withEngineMode(EngineMode.VIRTUAL_THREADS);
+        testExecution(20, 10, 5, 4, 0.5f, new InfiteRetryStrategy(1), DagExecutorOptions.DEFAULT, nodeExecutorOptions);
+    }
+
+    @RepeatedTest(50)
+    public void testAffinityEngines() throws ExecutionException, InterruptedException {
+        DagNodeExecutorOptions nodeExecutorOptions = DagNodeExecutorOptions.DEFAULT.withEngineMode(EngineMode.AFFINITY);
+        testExecution(20, 10, 5, 4, 0.0f, NoRetryStrategy.INSTANCE, DagExecutorOptions.DEFAULT, nodeExecutorOptions);
+    }
+
+    @RepeatedTest(50)
+    public void testAffinityEnginesWithFailuresAndRetries() throws ExecutionException, InterruptedException {
+        DagNodeExecutorOptions nodeExecutorOptions = DagNodeExecutorOptions.DEFAULT.withEngineMode(EngineMode.AFFINITY);
+        testExecution(20, 10, 5, 4, 0.5f, new InfiteRetryStrategy(1), DagExecutorOptions.DEFAULT, nodeExecutorOptions);
+    }
+
     public void testExecution(int numDags, int numNodes, int maxEdges, int numberOfEngines, float failureRate, RetryStrategy retryStrategy) throws ExecutionException, InterruptedException {
+        testExecution(numDags, numNodes, maxEdges, numberOfEngines, failureRate, retryStrategy, DagExecutorOptions.DEFAULT);
+    }
+
+    public void testExecution(int numDags, int numNodes, int maxEdges, int numberOfEngines, float failureRate, RetryStrategy retryStrategy, DagExecutorOptions options) throws ExecutionException, InterruptedException {
+        testExecution(numDags, numNodes, maxEdges, numberOfEngines, failureRate, retryStrategy, options, DagNodeExecutorOptions.DEFAULT);
+    }
+
+    public void testExecution(int numDags, int numNodes, int maxEdges, int numberOfEngines, float failureRate, RetryStrategy retryStrategy, DagExecutorOptions options, DagNodeExecutorOptions nodeExecutorOptions) throws ExecutionException, InterruptedException {
         // Generate N random DAG XMLs
         List<String> dagXmls = IntStream.range(0, numDags)
                 .mapToObj(_ -> generateRandomDAGXml(numNodes, maxEdges))
                 .toList();
 
         DagParser dagParser = new DagParser();
-        DagNodeExecutor dagNodeExecutor = new DagNodeExecutor(numberOfEngines, failureRate, retryStrategy);
-        IDagExecutor dagExecutor = new DagExecutor(dagParser, dagNodeExecutor);
+        DagNodeExecutor dagNodeExecutor = new DagNodeExecutor(numberOfEngines, failureRate, retryStrategy, nodeExecutorOptions);
+        IDagExecutor dagExecutor = new DagExecutor(dagParser, dagNodeExecutor, options);
 
         // Submit each DAG for execution
         List<CompletableFuture<DagResponse>> futures = dagXmls.stream()
@@ -0,0 +1,154 @@
+package com.microsoft.execution;
+
+import com.microsoft.execution.retry.NoRetryStrategy;
+import com.microsoft.model.DagNode;
+import com.microsoft.model.IDagNode;
+import com.microsoft.model.csr.CsrDag;
+import com.microsoft.model.csr.CsrDagWriter;
+import com.microsoft.workload.DagGenerator;
+import com.microsoft.workload.DagGeneratorOptions;
+import com.microsoft.workload.DagShape;
+import com.microsoft.workload.GeneratedDag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OutOfCoreDagExecutorTest {
+
+    @Test
+    public void testNodesRunAfterTheirDependencies() throws IOException, InterruptedException {
+        for (DagShape shape : DagShape.values()) {
+            GeneratedDag generated = new DagGenerator(DagGeneratorOptions.DEFAULT.withShape(shape).withNodes(2_000).withWidth(16)).generate();
+            AtomicInteger clock = new AtomicInteger();
+            AtomicIntegerArray completedAt = new AtomicIntegerArray(generated.size());
+            AtomicInteger outOfOrder = new AtomicInteger();
+            // A small window, so the dispatcher keeps waiting for the nodes in flight
+            OutOfCoreOptions options = OutOfCoreOptions.DEFAULT.withMaxInFlightNodes(8).withMaxDispatchBatchSize(3);
+            OutOfCoreDagExecutor executor = new OutOfCoreDagExecutor(new DagNodeExecutor(4, 0.0f, NoRetryStrategy.INSTANCE), options);
+
+            DagResponse response = execute(generated, executor, id -> new RunnableDagNode(id, () -> {
+                for (int dependency : generated.dependencies()[id]) {
+                    if (completedAt.get(dependency) == 0) {
+                        outOfOrder.incrementAndGet();
+                    }
+                }
+                completedAt.set(id, clock.incrementAndGet());
+            }));
+
+            assertFalse(response.hasFailed(), shape.name());
+            assertEquals(0, outOfOrder.get(), shape.name());
+            assertEquals(generated.size(), clock.get(), shape.name());
+        }
+    }
+
+    @Test
+    public void testFailureStopsTheDispatch() throws IOException, InterruptedException {
+        // A chain: nothing after the failed node may run
+        GeneratedDag generated = new DagGenerator(DagGeneratorOptions.DEFAULT.withShape(DagShape.CHAINS).withNodes(100).withWidth(1)).generate();
+        ConcurrentHashMap.KeySetView<Integer, Boolean> executed = ConcurrentHashMap.newKeySet();
+        OutOfCoreDagExecutor executor = new OutOfCoreDagExecutor(new DagNodeExecutor(2, 0.0f, NoRetryStrategy.INSTANCE));
+
+        DagResponse response = execute(generated, executor, id -> id == 10 ? new FailingDagNode(id, 1) : new RunnableDagNode(id, () -> executed.add(id)));
+
+        assertTrue(response.hasFailed());
+        assertEquals(10, executed.size());
+        assertFalse(executed.contains(11));
+    }
+
+    @Test
+    public void testCycleIsRejected() throws IOException {
+        GeneratedDag cyclic = new GeneratedDag(new int[][]{{}, {0, 3}, {1}, {2}});
+        OutOfCoreDagExecutor executor = new OutOfCoreDagExecutor(new DagNodeExecutor(1, 0.0f, NoRetryStrategy.INSTANCE));
+
+        assertThrows(IllegalArgumentException.class, () -> execute(cyclic, executor, DagNode::new));
+    }
+
+    @Test
+    public void testNodesInFlightCompleteWhenTheNodeFactoryThrows() {
+        GeneratedDag independent = new GeneratedDag(new int[20][0]);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger finished = new AtomicInteger();
+        OutOfCoreOptions options = OutOfCoreOptions.DEFAULT.withMaxDispatchBatchSize(1);
+        OutOfCoreDagExecutor executor = new OutOfCoreDagExecutor(new DagNodeExecutor(4, 0.0f, NoRetryStrategy.INSTANCE), options);
+
+        assertThrows(IllegalStateException.class, () -> execute(independent, executor, id -> {
+            if (id == 5) {
+                throw new IllegalStateException("Cannot build node " + id);
+            }
+            return slowNode(id, running, finished);
+        }));
+
+        assertEquals(0, running.get());
+        assertEquals(5, finished.get());
+    }
+
+    @Test
+    public void testNodesHandedOverCompleteWhenTheNodeExecutorThrows() {
+        GeneratedDag independent = new GeneratedDag(new int[20][0]);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger finished = new AtomicInteger();
+        DagNodeExecutor delegate = new DagNodeExecutor(4, 0.0f, NoRetryStrategy.INSTANCE);
+        AtomicInteger batches = new AtomicInteger();
+        IDagNodeExecutor rejectingExecutor = new IDagNodeExecutor() {
+            @Override
+            public CompletableFuture<Integer> executeAsync(IDagNode unitOfExecution) {
+                return delegate.executeAsync(unitOfExecution);
+            }
+
+            @Override
+            public void executeBatchAsync(List<? extends IDagNode> batch, NodeExecutionListener listener, BatchCompletionHandler handler) {
+                if (batches.incrementAndGet() > 1) {
+                    throw new RejectedExecutionException();
+                }
+                delegate.executeBatchAsync(batch, listener, handler);
+            }
+        };
+        OutOfCoreOptions options = OutOfCoreOptions.DEFAULT.withMaxDispatchBatchSize(2);
+        OutOfCoreDagExecutor executor = new OutOfCoreDagExecutor(rejectingExecutor, options);
+
+        assertThrows(RejectedExecutionException.class, () -> execute(independent, executor, id -> slowNode(id, running, finished)));
+
+        assertEquals(0, running.get());
+        assertEquals(2, finished.get());
+    }
+
+    private static IDagNode slowNode(int id, AtomicInteger running, AtomicInteger finished) {
+        return new RunnableDagNode(id, () -> {
+            running.incrementAndGet();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            running.decrementAndGet();
+            finished.incrementAndGet();
+        });
+    }
+
+    private static DagResponse execute(GeneratedDag generated, OutOfCoreDagExecutor executor, IntFunction<? extends IDagNode> nodeFactory) throws IOException, InterruptedException {
+        Path file = Files.createTempFile("dag", ".csr");
+        try {
+            CsrDagWriter.write(file, generated.size(), consumer -> {
+                for (int id = 0; id < generated.size(); id++) {
+                    consumer.accept(id, generated.dependencies()[id]);
+                }
+            });
+            try (CsrDag dag = CsrDag.open(file)) {
+                return executor.execute(dag, nodeFactory);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
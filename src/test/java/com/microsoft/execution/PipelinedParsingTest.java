@@ -0,0 +1,201 @@
+package com.microsoft.execution;
+
+import com.microsoft.execution.retry.NoRetryStrategy;
+import com.microsoft.model.IDagNode;
+import com.microsoft.parser.DagParser;
+import com.microsoft.workload.DagGenerator;
+import com.microsoft.workload.DagGeneratorOptions;
+import com.microsoft.workload.DagShape;
+import com.microsoft.workload.GeneratedDag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PipelinedParsingTest {
+
+    private static final DagExecutorOptions PIPELINED = DagExecutorOptions.DEFAULT.withPipelinedParsing(true);
+
+    @Test
+    public void testNodesRunAfterTheirDependencies() throws ExecutionException, InterruptedException {
+        // The fan-in tree lists every node before the nodes it depends on
+        for (DagShape shape : new DagShape[]{DagShape.LAYERED, DagShape.FAN_IN_TREE, DagShape.POWER_LAW}) {
+            GeneratedDag generated = new DagGenerator(DagGeneratorOptions.DEFAULT.withShape(shape).withNodes(2_000).withWidth(16)).generate();
+            AtomicIntegerArray completed = new AtomicIntegerArray(generated.size());
+            AtomicInteger outOfOrder = new AtomicInteger();
+            DagParser dagParser = new DagParser(node -> new RunnableDagNode(node.id(), () -> {
+                for (int dependency : generated.dependencies()[node.id()]) {
+                    if (completed.get(dependency) == 0) {
+                        outOfOrder.incrementAndGet();
+                    }
+                }
+                completed.set(node.id(), 1);
+            }));
+            IDagExecutor dagExecutor = new DagExecutor(dagParser, new DagNodeExecutor(4, 0.0f, NoRetryStrategy.INSTANCE), PIPELINED);
+
+            DagResponse response = dagExecutor.processRequestAsync(new DagRequest(generated.toXml())).get();
+
+            assertFalse(response.hasFailed(), shape.name());
+            assertEquals(0, outOfOrder.get(), shape.name());
+            for (int id = 0; id < generated.size(); id++) {
+                assertEquals(1, completed.get(id), shape.name());
+            }
+        }
+    }
+
+    @Test
+    public void testFirstNodeRunsBeforeTheDocumentIsParsed() throws ExecutionException, InterruptedException {
+        GeneratedDag generated = new DagGenerator(DagGeneratorOptions.DEFAULT.withNodes(1_000)).generate();
+        CountDownLatch firstNodeCompleted = new CountDownLatch(1);
+        AtomicInteger nodesParsedBeforeFirstNode = new AtomicInteger(-1);
+        AtomicInteger nodesParsed = new AtomicInteger();
+        DagParser dagParser = new DagParser(node -> {
+            if (node.id() == generated.size() - 1) {
+                // Holds the parser back until the first node ran, which only a pipelined run gets past
+                awaitQuietly(firstNodeCompleted);
+            }
+            nodesParsed.incrementAndGet();
+            return new RunnableDagNode(node.id(), () -> {
+                nodesParsedBeforeFirstNode.compareAndSet(-1, nodesParsed.get());
+                firstNodeCompleted.countDown();
+            });
+        });
+        IDagExecutor dagExecutor = new DagExecutor(dagParser, new DagNodeExecutor(2, 0.0f, NoRetryStrategy.INSTANCE), PIPELINED);
+
+        DagResponse response = dagExecutor.processRequestAsync(new DagRequest(generated.toXml())).get();
+
+        assertFalse(response.hasFailed());
+        assertTrue(nodesParsedBeforeFirstNode.get() < generated.size());
+    }
+
+    @Test
+    public void testInvalidRestOfTheDocumentFailsTheRequest() throws InterruptedException {
+        String duplicateNodeXml = """
+            <DAG>
+                <Nodes>
+                    <Node Id="0"><dependencies/></Node>
+                    <Node Id="1"><dependencies><Node Id="0"/></dependencies></Node>
+                    <Node Id="0"><dependencies/></Node>
+                </Nodes>
+            </DAG>
+        """;
+        String missingReferenceXml = """
+            <DAG>
+                <Nodes>
+                    <Node Id="0"><dependencies/></Node>
+                    <Node Id="1"><dependencies><Node Id="2"/></dependencies></Node>
+                </Nodes>
+            </DAG>
+        """;
+        String malformedXml = """
+            <DAG>
+                <Nodes>
+                    <Node Id="0"><dependencies/></Node>
+                    <Node Id="1"><dependencies>
+        """;
+
+        for (String dagXml : new String[]{duplicateNodeXml, missingReferenceXml, malformedXml}) {
+            IDagExecutor dagExecutor = new DagExecutor(new DagParser(), new DagNodeExecutor(2, 0.0f, NoRetryStrategy.INSTANCE), PIPELINED);
+
+            CompletableFuture<DagResponse> future = dagExecutor.processRequestAsync(new DagRequest(dagXml));
+
+            ExecutionException exception = assertThrows(ExecutionException.class, future::get);
+            assertTrue(exception.getCause() instanceof IllegalArgumentException, exception.getCause().toString());
+        }
+    }
+
+    @Test
+    public void testErrorWhileParsingFailsTheRequest() {
+        String dagXml = """
+            <DAG>
+                <Nodes>
+                    <Node Id="0"><dependencies/></Node>
+                    <Node Id="1"><dependencies><Node Id="0"/></dependencies></Node>
+                </Nodes>
+            </DAG>
+        """;
+        DagParser dagParser = new DagParser(node -> {
+            if (node.id() == 1) {
+                throw new AssertionError("Node 1 could not be created");
+            }
+            return new RunnableDagNode(node.id(), () -> {});
+        });
+        IDagExecutor dagExecutor = new DagExecutor(dagParser, new DagNodeExecutor(1, 0.0f, NoRetryStrategy.INSTANCE), PIPELINED);
+
+        CompletableFuture<DagResponse> future = dagExecutor.processRequestAsync(new DagRequest(dagXml));
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+        assertTrue(exception.getCause().getCause() instanceof AssertionError, exception.getCause().toString());
+    }
+
+    @Test
+    public void testCycleIsDetectedWhileParsing() throws InterruptedException {
+        // 1 -> 2 -> 3 -> 1, closed by node 3 once 1 and 2 were declared
+        String cyclicXml = """
+            <DAG>
+                <Nodes>
+                    <Node Id="0"><dependencies/></Node>
+                    <Node Id="1"><dependencies><Node Id="0"/><Node Id="3"/></dependencies></Node>
+                    <Node Id="2"><dependencies><Node Id="1"/></dependencies></Node>
+                    <Node Id="3"><dependencies><Node Id="2"/></dependencies></Node>
+                    <Node Id="4"><dependencies/></Node>
+                </Nodes>
+            </DAG>
+        """;
+        Set<Integer> executed = ConcurrentHashMap.newKeySet();
+        DagParser dagParser = new DagParser(node -> new RunnableDagNode(node.id(), () -> executed.add(node.id())));
+        IDagExecutor dagExecutor = new DagExecutor(dagParser, new DagNodeExecutor(1, 0.0f, NoRetryStrategy.INSTANCE), PIPELINED);
+
+        CompletableFuture<DagResponse> future = dagExecutor.processRequestAsync(new DagRequest(cyclicXml));
+
+        ExecutionException exception = assertThrows(ExecutionException.class, future::get);
+        assertEquals("The graph contains a cycle", exception.getCause().getMessage());
+        assertFalse(executed.contains(1));
+        assertFalse(executed.contains(4));
+    }
+
+    @Test
+    public void testFailedNodeStopsTheRun() throws ExecutionException, InterruptedException {
+        String dagXml = """
+            <DAG>
+                <Nodes>
+                    <Node Id="0"><dependencies/></Node>
+                    <Node Id="1"><dependencies><Node Id="0"/></dependencies></Node>
+                </Nodes>
+            </DAG>
+        """;
+        Set<Integer> executed = ConcurrentHashMap.newKeySet();
+        DagParser dagParser = new DagParser(node -> node.id() == 0
+                ? new FailingDagNode(0, 1)
+                : new RunnableDagNode(node.id(), () -> executed.add(node.id())));
+        IDagExecutor dagExecutor = new DagExecutor(dagParser, new DagNodeExecutor(1, 0.0f, NoRetryStrategy.INSTANCE), PIPELINED);
+
+        DagResponse response = dagExecutor.processRequestAsync(new DagRequest(dagXml)).get();
+
+        assertTrue(response.hasFailed());
+        assertTrue(executed.isEmpty());
+    }
+
+    @Test
+    public void testPipelinedParsingNeedsAStreamingParser() {
+        assertThrows(IllegalArgumentException.class, () -> new DagExecutor(
+                _ -> null,
+                new FakeDagNodeExecutor(1),
+                PIPELINED
+        ));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            if (!latch.await(10, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("The first node didn't run while parsing");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.microsoft.execution;
+
+import com.microsoft.model.Resources;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResourceSchedulerTest {
+
+    private final ResourceScheduler scheduler = new ResourceScheduler(new Resources(4, 1000));
+
+    @Test
+    public void testHeavyNodeWaitsUntilItsResourcesAreFree() {
+        List<String> started = new ArrayList<>();
+        Resources heavy = new Resources(1, 800);
+
+        scheduler.submit(heavy, () -> started.add("first"));
+        scheduler.submit(heavy, () -> started.add("second"));
+        assertEquals(List.of("first"), started);
+
+        scheduler.release(heavy);
+        assertEquals(List.of("first", "second"), started);
+    }
+
+    @Test
+    public void testLightNodesFillTheRemainingCapacity() {
+        List<String> started = new ArrayList<>();
+
+        scheduler.submit(new Resources(2, 800), () -> started.add("heavy"));
+        scheduler.submit(new Resources(1, 100), () -> started.add("light"));
+        scheduler.submit(new Resources(1, 100), () -> started.add("light"));
+        scheduler.submit(new Resources(1, 100), () -> started.add("light"));
+
+        assertEquals(List.of("heavy", "light", "light"), started);
+        assertEquals(1, scheduler.getUtilization().waitingNodes());
+    }
+
+    @Test
+    public void testNodeBestAlignedWithTheFreeResourcesIsAdmittedFirst() {
+        List<String> started = new ArrayList<>();
+        Resources blocker = new Resources(4, 1000);
+        scheduler.submit(blocker, () -> started.add("blocker"));
+
+        scheduler.submit(new Resources(1, 100), () -> started.add("small"));
+        scheduler.submit(new Resources(4, 900), () -> started.add("big"));
+        scheduler.release(blocker);
+
+        assertEquals(List.of("blocker", "big"), started);
+    }
+
+    @Test
+    public void testDemandBiggerThanTheCapacityRunsAlone() {
+        List<String> started = new ArrayList<>();
+        Resources huge = new Resources(16, 4000);
+
+        scheduler.submit(huge, () -> started.add("huge"));
+        scheduler.submit(Resources.DEFAULT, () -> started.add("default"));
+        assertEquals(List.of("huge"), started);
+
+        scheduler.release(huge);
+        assertEquals(List.of("huge", "default"), started);
+    }
+
+    @Test
+    public void testBypassedNodeEventuallyReservesItsResources() {
+        List<String> started = new ArrayList<>();
+        Resources light = new Resources(1, 100);
+        Resources heavy = new Resources(4, 1000);
+
+        scheduler.submit(light, () -> started.add("light"));
+        scheduler.submit(heavy, () -> started.add("heavy"));
+
+        // A steady stream of light nodes keeps some resources in use, overtaking the heavy node
+        for (int i = 0; i < 32; i++) {
+            scheduler.submit(light, () -> started.add("light"));
+            scheduler.release(light);
+        }
+        assertFalse(started.contains("heavy"));
+
+        // The heavy node now holds its reservation: new light nodes wait behind it
+        scheduler.submit(light, () -> started.add("late"));
+        assertFalse(started.contains("late"));
+
+        scheduler.release(light);
+        assertEquals("heavy", started.getLast());
+    }
+
+    @Test
+    public void testUtilizationAndWaitTimeAreReported() {
+        Resources demand = new Resources(2, 500);
+        scheduler.submit(demand, () -> {});
+        scheduler.submit(demand, () -> {});
+        scheduler.submit(demand, () -> {});
+
+        ResourceUtilization utilization = scheduler.getUtilization();
+
+        assertEquals(new Resources(4, 1000), utilization.inUse());
+        assertEquals(2, utilization.admittedNodes());
+        assertEquals(1, utilization.waitingNodes());
+        assertTrue(utilization.averageCpuUtilization() <= 1.0);
+
+        scheduler.release(demand);
+        assertEquals(3, scheduler.getUtilization().admittedNodes());
+        assertTrue(scheduler.getUtilization().maxWaitInMillis() >= 0);
+    }
+}
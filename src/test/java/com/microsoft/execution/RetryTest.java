@@ -7,6 +7,7 @@ import org.junit.jupiter.api.Test;
 
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.*;
@@ -137,4 +138,66 @@ public class RetryTest {
         assertEquals(0, result, "Expected execution to succeed with result 0");
     }
 
+    @Test
+    public void testTimedRetriesWithVirtualThreadEngines() throws InterruptedException, ExecutionException {
+        TimedRetryStrategy retryStrategy = new TimedRetryStrategy(2, 500);
+        DagNodeExecutorOptions options = DagNodeExecutorOptions.DEFAULT.withEngineMode(EngineMode.VIRTUAL_THREADS);
+        DagNodeExecutor dagNodeExecutor = new DagNodeExecutor(1, 0.0f, retryStrategy, options);
+
+        FailingDagNode node = new FailingDagNode(0, 2);
+
+        long startTime = System.currentTimeMillis();
+        CompletableFuture<Integer> future = dagNodeExecutor.executeAsync(node);
+
+        // The only engine is not held while waiting for the retries
+        assertEquals(0, dagNodeExecutor.executeAsync(new FailingDagNode(1, 0)).get());
+
+        int result = future.get();
+        long totalTime = System.currentTimeMillis() - startTime;
+
+        assertEquals(0, result, "Expected execution to succeed with result 0");
+        assertEquals(3, node.getAttempts(), "Expected number of attempts differ");
+        assertTrue(totalTime >= 1000);
+    }
+
+    @Test
+    public void testTimedRetriesOnVirtualClock() throws InterruptedException, ExecutionException {
+        VirtualClock clock = new VirtualClock();
+        TimedRetryStrategy retryStrategy = new TimedRetryStrategy(2, 500);
+        DagNodeExecutorOptions options = DagNodeExecutorOptions.DEFAULT.withVirtualClock(clock);
+        DagNodeExecutor dagNodeExecutor = new DagNodeExecutor(4, 0.0f, retryStrategy, options);
+
+        FailingDagNode node = new FailingDagNode(0, 2);
+
+        CompletableFuture<Integer> future = dagNodeExecutor.executeAsync(node);
+
+        clock.runUntil(TimeUnit.MILLISECONDS.toNanos(499));
+        assertEquals(1, node.getAttempts());
+
+        clock.runUntil(TimeUnit.MILLISECONDS.toNanos(500));
+        assertEquals(2, node.getAttempts()); // Attempts is set to 2 when executing the first retry
+
+        clock.runUntilIdle();
+
+        assertEquals(3, node.getAttempts());
+        assertEquals(1000, clock.millis());
+        assertEquals(0, future.get(), "Expected execution to succeed with result 0");
+    }
+
+    @Test
+    public void testExponentialBackoffRetriesOnVirtualClock() throws InterruptedException, ExecutionException {
+        VirtualClock clock = new VirtualClock();
+        ExponentialBackoffRetryStrategy retryStrategy = new ExponentialBackoffRetryStrategy(3, 500, 2);
+        DagNodeExecutorOptions options = DagNodeExecutorOptions.DEFAULT.withVirtualClock(clock);
+        DagNodeExecutor dagNodeExecutor = new DagNodeExecutor(4, 0.0f, retryStrategy, options);
+
+        FailingDagNode node = new FailingDagNode(0, 5);
+
+        CompletableFuture<Integer> future = dagNodeExecutor.executeAsync(node);
+        clock.runUntilIdle();
+
+        assertEquals(4, node.getAttempts());
+        assertEquals(3500, clock.millis()); // 500ms + 1000ms + 2000ms
+        assertEquals(-1, future.get(), "Expected execution to fail with result -1 after retries");
+    }
 }
@@ -0,0 +1,11 @@
+package com.microsoft.execution;
+
+import com.microsoft.model.IDagNode;
+
+public record RunnableDagNode(Integer id, Runnable action) implements IDagNode {
+
+    @Override
+    public void execute() {
+        action.run();
+    }
+}
@@ -0,0 +1,64 @@
+package com.microsoft.execution;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SharedNodeRegistryTest {
+
+    private final SharedNodeRegistry registry = new SharedNodeRegistry();
+
+    @Test
+    public void testSecondLeaseJoinsTheExecution() {
+        SharedNodeRegistry.Lease first = registry.acquire("prep");
+        SharedNodeRegistry.Lease second = registry.acquire("prep");
+
+        assertTrue(first.isOwner());
+        assertFalse(second.isOwner());
+
+        first.complete(0);
+
+        assertEquals(0, second.result().join());
+        assertEquals(0, registry.getInFlight());
+    }
+
+    @Test
+    public void testCompletedNodeIsExecutedAgain() {
+        registry.acquire("prep").complete(0);
+
+        assertTrue(registry.acquire("prep").isOwner());
+    }
+
+    @Test
+    public void testExecutionSurvivesWhileALeaseIsHeld() {
+        SharedNodeRegistry.Lease owner = registry.acquire("prep");
+        SharedNodeRegistry.Lease other = registry.acquire("prep");
+
+        owner.release();
+        owner.release(); // Releasing twice only drops one reference
+        assertFalse(other.result().isDone());
+
+        owner.complete(0);
+        assertEquals(0, other.result().join());
+    }
+
+    @Test
+    public void testExecutionIsCancelledOnceEveryLeaseIsReleased() {
+        SharedNodeRegistry.Lease owner = registry.acquire("prep");
+        SharedNodeRegistry.Lease other = registry.acquire("prep");
+
+        owner.release();
+        other.release();
+
+        assertTrue(owner.result().isCancelled());
+        assertEquals(0, registry.getInFlight());
+        assertTrue(registry.acquire("prep").isOwner());
+    }
+
+    @Test
+    public void testDifferentKeysAreIndependent() {
+        assertTrue(registry.acquire("prep").isOwner());
+        assertTrue(registry.acquire("train").isOwner());
+        assertEquals(2, registry.getInFlight());
+    }
+}
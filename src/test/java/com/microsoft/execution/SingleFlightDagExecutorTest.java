@@ -0,0 +1,118 @@
+package com.microsoft.execution;
+
+import com.microsoft.parser.DagParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightDagExecutorTest {
+
+    private static final String DAG_XML = """
+            <DAG>
+                <Nodes>
+                    <Node Id="0">
+                        <dependencies>
+                            <Node Id="1"/>
+                        </dependencies>
+                    </Node>
+                    <Node Id="1">
+                        <dependencies/>
+                    </Node>
+                </Nodes>
+            </DAG>
+        """;
+
+    private final DagParser dagParser = new DagParser();
+
+    @Test
+    public void testConcurrentIdenticalRequestsShareOneExecution() throws ExecutionException, InterruptedException {
+        final FakeDagNodeExecutor dagNodeExecutor = new FakeDagNodeExecutor(1);
+        final SingleFlightDagExecutor dagExecutor = new SingleFlightDagExecutor(new DagExecutor(dagParser, dagNodeExecutor), 0);
+
+        CompletableFuture<DagResponse> first = dagExecutor.processRequestAsync(new DagRequest(DAG_XML));
+        CompletableFuture<DagResponse> second = dagExecutor.processRequestAsync(new DagRequest(DAG_XML));
+        dagNodeExecutor.process(2);
+
+        assertSame(first.get(), second.get());
+        assertFalse(first.get().hasFailed());
+        assertEquals(List.of(1, 0), dagNodeExecutor.getNodesExecuted());
+        assertEquals(1, dagExecutor.getCoalescedRequests());
+    }
+
+    @Test
+    public void testDifferentIdempotencyKeysAreExecutedSeparately() throws ExecutionException, InterruptedException {
+        final FakeDagNodeExecutor dagNodeExecutor = new FakeDagNodeExecutor(1);
+        final SingleFlightDagExecutor dagExecutor = new SingleFlightDagExecutor(new DagExecutor(dagParser, dagNodeExecutor), 0);
+
+        CompletableFuture<DagResponse> first = dagExecutor.processRequestAsync(new DagRequest(DAG_XML, "deploy-1"));
+        CompletableFuture<DagResponse> second = dagExecutor.processRequestAsync(new DagRequest(DAG_XML, "deploy-2"));
+        dagNodeExecutor.process(4);
+
+        assertFalse(first.get().hasFailed());
+        assertFalse(second.get().hasFailed());
+        assertEquals(4, dagNodeExecutor.getNodesExecuted().size());
+        assertEquals(0, dagExecutor.getCoalescedRequests());
+    }
+
+    @Test
+    public void testRecentResultIsReusedWithinTheWindow() throws ExecutionException, InterruptedException {
+        final FakeDagNodeExecutor dagNodeExecutor = new FakeDagNodeExecutor(1);
+        final SingleFlightDagExecutor dagExecutor = new SingleFlightDagExecutor(new DagExecutor(dagParser, dagNodeExecutor), 60_000);
+        dagNodeExecutor.process(2);
+
+        DagResponse first = dagExecutor.processRequestAsync(new DagRequest(DAG_XML)).get();
+        DagResponse second = dagExecutor.processRequestAsync(new DagRequest(DAG_XML)).get();
+
+        assertSame(first, second);
+        assertEquals(2, dagNodeExecutor.getNodesExecuted().size());
+    }
+
+    @Test
+    public void testResultIsNotReusedAfterTheWindow() throws ExecutionException, InterruptedException {
+        final FakeDagNodeExecutor dagNodeExecutor = new FakeDagNodeExecutor(1);
+        final SingleFlightDagExecutor dagExecutor = new SingleFlightDagExecutor(new DagExecutor(dagParser, dagNodeExecutor), 0);
+        dagNodeExecutor.process(4);
+
+        dagExecutor.processRequestAsync(new DagRequest(DAG_XML)).get();
+        dagExecutor.processRequestAsync(new DagRequest(DAG_XML)).get();
+
+        assertEquals(4, dagNodeExecutor.getNodesExecuted().size());
+    }
+
+    @Test
+    public void testFailedResultIsNotReused() throws ExecutionException, InterruptedException {
+        final FakeDagNodeExecutor dagNodeExecutor = new FakeDagNodeExecutor(1, Set.of(1));
+        final SingleFlightDagExecutor dagExecutor = new SingleFlightDagExecutor(new DagExecutor(dagParser, dagNodeExecutor), 60_000);
+        dagNodeExecutor.process(2);
+
+        assertTrue(dagExecutor.processRequestAsync(new DagRequest(DAG_XML)).get().hasFailed());
+        assertTrue(dagExecutor.processRequestAsync(new DagRequest(DAG_XML)).get().hasFailed());
+
+        assertEquals(List.of(1, 1), dagNodeExecutor.getNodesExecuted());
+    }
+
+    @Test
+    public void testCancellingOneCallerDoesNotAffectTheOthers() throws ExecutionException, InterruptedException {
+        final FakeDagNodeExecutor dagNodeExecutor = new FakeDagNodeExecutor(1);
+        final SingleFlightDagExecutor dagExecutor = new SingleFlightDagExecutor(new DagExecutor(dagParser, dagNodeExecutor), 0);
+
+        CompletableFuture<DagResponse> first = dagExecutor.processRequestAsync(new DagRequest(DAG_XML));
+        CompletableFuture<DagResponse> second = dagExecutor.processRequestAsync(new DagRequest(DAG_XML));
+        first.cancel(true);
+        dagNodeExecutor.process(2);
+
+        assertFalse(second.get().hasFailed());
+        await().until(() -> dagNodeExecutor.getNodesExecuted().size() == 2);
+    }
+
+    @Test
+    public void testNegativeResultWindow() {
+        assertThrows(IllegalArgumentException.class, () -> new SingleFlightDagExecutor(new DagExecutor(dagParser, new FakeDagNodeExecutor(1)), -1));
+    }
+}
@@ -0,0 +1,245 @@
+package com.microsoft.execution.distributed;
+
+import com.microsoft.execution.*;
+import com.microsoft.execution.retry.*;
+import com.microsoft.model.DagNode;
+import com.microsoft.parser.DagParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.IntStream;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DistributedExecutionTest {
+
+    private static final CoordinatorOptions FAST_HEARTBEATS = new CoordinatorOptions(50, 300, 64, 10_000);
+
+    @Test
+    public void testDagExecutionOnWorkerProcesses() throws Exception {
+        try (RemoteDagNodeExecutor coordinator = new RemoteDagNodeExecutor(new InetSocketAddress("127.0.0.1", 0))) {
+            List<Process> workers = LocalWorkerLauncher.launch(3, coordinator.getAddress(), 2, 0.0f);
+            try {
+                await().until(() -> coordinator.getAliveWorkers() == 3);
+
+                IDagExecutor dagExecutor = new DagExecutor(new DagParser(), coordinator);
+                List<CompletableFuture<DagResponse>> futures = IntStream.range(0, 10)
+                        .mapToObj(_ -> dagExecutor.processRequestAsync(new DagRequest(layeredDagXml(5, 20))))
+                        .toList();
+
+                for (CompletableFuture<DagResponse> future : futures) {
+                    assertFalse(future.get().hasFailed());
+                }
+            } finally {
+                workers.forEach(Process::destroyForcibly);
+            }
+        }
+    }
+
+    @Test
+    public void testDagExecutionOverUnixDomainSocket() throws Exception {
+        SocketAddress address = UnixDomainSocketAddress.of(Files.createTempDirectory("dag").resolve("coordinator.sock"));
+        try (RemoteDagNodeExecutor coordinator = new RemoteDagNodeExecutor(address)) {
+            List<Process> workers = LocalWorkerLauncher.launch(2, coordinator.getAddress(), 2, 0.0f);
+            try {
+                await().until(() -> coordinator.getAliveWorkers() == 2);
+
+                DagExecutorOptions options = DagExecutorOptions.DEFAULT.withChainFusion(true);
+                IDagExecutor dagExecutor = new DagExecutor(new DagParser(), coordinator, options);
+
+                assertFalse(dagExecutor.processRequestAsync(new DagRequest(layeredDagXml(10, 1))).get().hasFailed());
+            } finally {
+                workers.forEach(Process::destroyForcibly);
+            }
+        }
+    }
+
+    @Test
+    public void testFailuresAreReportedByWorkers() throws Exception {
+        try (RemoteDagNodeExecutor coordinator = new RemoteDagNodeExecutor(new InetSocketAddress("127.0.0.1", 0))) {
+            List<Process> workers = LocalWorkerLauncher.launch(1, coordinator.getAddress(), 2, 1.0f);
+            try {
+                await().until(() -> coordinator.getAliveWorkers() == 1);
+
+                IDagExecutor dagExecutor = new DagExecutor(new DagParser(), coordinator);
+
+                assertTrue(dagExecutor.processRequestAsync(new DagRequest(layeredDagXml(3, 3))).get().hasFailed());
+            } finally {
+                workers.forEach(Process::destroyForcibly);
+            }
+        }
+    }
+
+    @Test
+    public void testNodesOfDeadWorkerAreDispatchedAgain() throws Exception {
+        try (RemoteDagNodeExecutor coordinator = new RemoteDagNodeExecutor(new InetSocketAddress("127.0.0.1", 0), FAST_HEARTBEATS)) {
+            // The first worker accepts nodes but never executes them
+            FakeDagNodeExecutor stuckExecutor = new FakeDagNodeExecutor(1);
+            DagWorker stuckWorker = new DagWorker(coordinator.getAddress(), stuckExecutor, FAST_HEARTBEATS);
+            Thread.ofVirtual().start(() -> runQuietly(stuckWorker));
+            await().until(() -> coordinator.getAliveWorkers() == 1);
+
+            CompletableFuture<Integer> future = coordinator.executeAsync(new DagNode(0));
+            await().until(() -> stuckExecutor.getThreadsWaiting() == 1);
+
+            DagWorker worker = new DagWorker(coordinator.getAddress(), new DagNodeExecutor(1, 0.0f, NoRetryStrategy.INSTANCE), FAST_HEARTBEATS);
+            Thread.ofVirtual().start(() -> runQuietly(worker));
+            await().until(() -> coordinator.getAliveWorkers() == 2);
+
+            stuckWorker.close();
+
+            assertEquals(0, future.get());
+            await().until(() -> coordinator.getAliveWorkers() == 1);
+            worker.close();
+        }
+    }
+
+    @Test
+    public void testNodesInFlightFailWhenTheCoordinatorIsClosed() throws Exception {
+        RemoteDagNodeExecutor coordinator = new RemoteDagNodeExecutor(new InetSocketAddress("127.0.0.1", 0), FAST_HEARTBEATS);
+        FakeDagNodeExecutor stuckExecutor = new FakeDagNodeExecutor(1);
+        DagWorker stuckWorker = new DagWorker(coordinator.getAddress(), stuckExecutor, FAST_HEARTBEATS);
+        Thread.ofVirtual().start(() -> runQuietly(stuckWorker));
+        await().until(() -> coordinator.getAliveWorkers() == 1);
+
+        CompletableFuture<Integer> future = coordinator.executeAsync(new DagNode(0));
+        await().until(() -> stuckExecutor.getThreadsWaiting() == 1);
+        coordinator.close();
+
+        assertThrows(ExecutionException.class, future::get);
+        stuckWorker.close();
+    }
+
+    @Test
+    public void testNodesFailWhenNoWorkerIsAliveAfterTheGracePeriod() throws Exception {
+        CoordinatorOptions options = FAST_HEARTBEATS.withWorkerLossGracePeriodInMillis(200);
+        try (RemoteDagNodeExecutor coordinator = new RemoteDagNodeExecutor(new InetSocketAddress("127.0.0.1", 0), options)) {
+            FakeDagNodeExecutor stuckExecutor = new FakeDagNodeExecutor(1);
+            DagWorker stuckWorker = new DagWorker(coordinator.getAddress(), stuckExecutor, options);
+            Thread.ofVirtual().start(() -> runQuietly(stuckWorker));
+            await().until(() -> coordinator.getAliveWorkers() == 1);
+
+            CompletableFuture<Integer> inFlight = coordinator.executeAsync(new DagNode(0));
+            await().until(() -> stuckExecutor.getThreadsWaiting() == 1);
+            stuckWorker.close();
+            CompletableFuture<Integer> queued = coordinator.executeAsync(new DagNode(1));
+
+            for (CompletableFuture<Integer> future : List.of(inFlight, queued)) {
+                ExecutionException ex = assertThrows(ExecutionException.class, future::get);
+                assertTrue(ex.getCause() instanceof IllegalStateException);
+            }
+            assertEquals(0, coordinator.getAliveWorkers());
+        }
+    }
+
+    @Test
+    public void testSilentWorkerIsDetectedByHeartbeats() throws Exception {
+        try (RemoteDagNodeExecutor coordinator = new RemoteDagNodeExecutor(new InetSocketAddress("127.0.0.1", 0), FAST_HEARTBEATS);
+             SocketChannel silentWorker = SocketChannel.open(coordinator.getAddress())) {
+            // A worker that says hello and then hangs without ever answering
+            DataOutputStream out = new DataOutputStream(silentWorker.socket().getOutputStream());
+            out.writeByte(1);
+            out.writeLong(42);
+            out.flush();
+            await().until(() -> coordinator.getAliveWorkers() == 1);
+
+            CompletableFuture<Integer> future = coordinator.executeAsync(new DagNode(7));
+            DataInputStream in = new DataInputStream(silentWorker.socket().getInputStream());
+            while (in.readByte() != 2) {
+                // Skip heartbeats until the node is dispatched
+            }
+
+            await().until(() -> coordinator.getAliveWorkers() == 0);
+
+            DagWorker worker = new DagWorker(coordinator.getAddress(), new DagNodeExecutor(1, 0.0f, NoRetryStrategy.INSTANCE), FAST_HEARTBEATS);
+            Thread.ofVirtual().start(() -> runQuietly(worker));
+
+            assertEquals(0, future.get());
+            worker.close();
+        }
+    }
+
+    @Test
+    public void testWorkerRunsTheNodesOfItsFactory() throws Exception {
+        try (RemoteDagNodeExecutor coordinator = new RemoteDagNodeExecutor(new InetSocketAddress("127.0.0.1", 0), FAST_HEARTBEATS)) {
+            Set<Integer> executed = ConcurrentHashMap.newKeySet();
+            DagWorker worker = new DagWorker(coordinator.getAddress(), new DagNodeExecutor(1, 0.0f, NoRetryStrategy.INSTANCE), FAST_HEARTBEATS,
+                    id -> new RunnableDagNode(id, () -> executed.add(id)));
+            Thread.ofVirtual().start(() -> runQuietly(worker));
+            await().until(() -> coordinator.getAliveWorkers() == 1);
+
+            assertEquals(0, coordinator.executeAsync(new DagNode(5)).get());
+            assertEquals(Set.of(5), executed);
+            worker.close();
+        }
+    }
+
+    @Test
+    public void testRetryStrategiesAreFormattedForWorkerProcesses() {
+        List<RetryStrategy> retryStrategies = List.of(
+                NoRetryStrategy.INSTANCE,
+                new TimedRetryStrategy(3, 100),
+                new ExponentialBackoffRetryStrategy(4, 10, 2.5f),
+                new InfiteRetryStrategy(50)
+        );
+
+        for (RetryStrategy retryStrategy : retryStrategies) {
+            assertEquals(retryStrategy, WireProtocol.parseRetryStrategy(WireProtocol.formatRetryStrategy(retryStrategy)));
+        }
+        assertThrows(IllegalArgumentException.class, () -> WireProtocol.parseRetryStrategy("timed:3"));
+    }
+
+    @Test
+    public void testInvalidCoordinatorOptions() {
+        assertThrows(IllegalArgumentException.class, () -> new CoordinatorOptions(0, 100, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new CoordinatorOptions(100, 100, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new CoordinatorOptions(100, 200, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new CoordinatorOptions(100, 200, 1, -1));
+    }
+
+    @Test
+    public void testAddressRoundTrip() {
+        SocketAddress tcp = WireProtocol.parseAddress("tcp:127.0.0.1:4000");
+        SocketAddress unix = WireProtocol.parseAddress("unix:/tmp/coordinator.sock");
+
+        assertEquals(new InetSocketAddress("127.0.0.1", 4000), tcp);
+        assertEquals("unix:/tmp/coordinator.sock", WireProtocol.formatAddress(unix));
+        assertThrows(IllegalArgumentException.class, () -> WireProtocol.parseAddress("udp:127.0.0.1:4000"));
+    }
+
+    private static void runQuietly(DagWorker worker) {
+        try {
+            worker.run();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // Every node of a layer depends on every node of the previous one
+    private static String layeredDagXml(int layers, int nodesPerLayer) {
+        StringBuilder xmlBuilder = new StringBuilder("<DAG><Nodes>");
+        for (int layer = 0; layer < layers; layer++) {
+            for (int i = 0; i < nodesPerLayer; i++) {
+                xmlBuilder.append("<Node Id=\"").append(layer * nodesPerLayer + i).append("\"><dependencies>");
+                for (int j = 0; layer > 0 && j < nodesPerLayer; j++) {
+                    xmlBuilder.append("<Node Id=\"").append((layer - 1) * nodesPerLayer + j).append("\"/>");
+                }
+                xmlBuilder.append("</dependencies></Node>");
+            }
+        }
+        return xmlBuilder.append("</Nodes></DAG>").toString();
+    }
+}
@@ -0,0 +1,259 @@
+package com.microsoft.execution.events;
+
+import com.microsoft.execution.*;
+import com.microsoft.execution.retry.NoRetryStrategy;
+import com.microsoft.execution.retry.TimedRetryStrategy;
+import com.microsoft.model.DagNode;
+import com.microsoft.parser.DagParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.stream.IntStream;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NodeEventPublisherTest {
+
+    private static final String DAG_XML = """
+            <DAG>
+                <Nodes>
+                    <Node Id="0">
+                        <dependencies>
+                            <Node Id="1"/>
+                            <Node Id="2"/>
+                        </dependencies>
+                    </Node>
+                    <Node Id="1">
+                        <dependencies/>
+                    </Node>
+                    <Node Id="2">
+                        <dependencies/>
+                    </Node>
+                </Nodes>
+            </DAG>
+        """;
+
+    @Test
+    public void testLifecycleEventsOfSuccessfulRun() throws ExecutionException, InterruptedException {
+        IDagExecutor dagExecutor = new DagExecutor(new DagParser(), new DagNodeExecutor(4, 0.0f, NoRetryStrategy.INSTANCE));
+        NodeEventPublisher publisher = new NodeEventPublisher(64, OverflowPolicy.DROP_NEWEST);
+        CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+        publisher.subscribe(subscriber);
+
+        DagResponse response = dagExecutor.processRequestAsync(new DagRequest(DAG_XML), publisher).get();
+        await().until(() -> subscriber.completed);
+
+        assertFalse(response.hasFailed());
+        for (int nodeId = 0; nodeId < 3; nodeId++) {
+            assertEquals(
+                    List.of(NodeEventType.READY, NodeEventType.STARTED, NodeEventType.SUCCEEDED),
+                    subscriber.typesOf(nodeId)
+            );
+        }
+
+        // Node 0 can only be ready once both of its dependencies have succeeded
+        long node0Ready = subscriber.events.stream().filter(e -> e.nodeId() == 0).findFirst().orElseThrow().timestampNanos();
+        assertTrue(subscriber.events.stream()
+                .filter(e -> e.type() == NodeEventType.SUCCEEDED && e.nodeId() != 0)
+                .allMatch(e -> e.timestampNanos() <= node0Ready));
+    }
+
+    @Test
+    public void testLifecycleEventsOfFailedRun() throws ExecutionException, InterruptedException {
+        IDagExecutor dagExecutor = new DagExecutor(new DagParser(), new DagNodeExecutor(1, 1.0f, new TimedRetryStrategy(1, 0)));
+        NodeEventPublisher publisher = new NodeEventPublisher(64, OverflowPolicy.DROP_NEWEST);
+        CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+        publisher.subscribe(subscriber);
+
+        DagResponse response = dagExecutor.processRequestAsync(new DagRequest(DAG_XML), publisher).get();
+        await().until(() -> subscriber.completed);
+
+        assertTrue(response.hasFailed());
+        assertTrue(subscriber.typesOf(0).isEmpty(), "Node 0 should never be ready");
+        List<NodeEvent> failures = subscriber.events.stream().filter(e -> e.type() == NodeEventType.FAILED).toList();
+        assertFalse(failures.isEmpty());
+        assertTrue(failures.stream().allMatch(e -> e.attempt() == 1));
+        assertTrue(subscriber.events.stream().anyMatch(e -> e.type() == NodeEventType.RETRYING && e.attempt() == 0));
+    }
+
+    @Test
+    public void testDropNewestWhenBufferIsFull() {
+        NodeEventPublisher publisher = new NodeEventPublisher(2, OverflowPolicy.DROP_NEWEST, Runnable::run);
+        CollectingSubscriber subscriber = new CollectingSubscriber(0);
+        publisher.subscribe(subscriber);
+
+        for (int nodeId = 0; nodeId < 5; nodeId++) {
+            publisher.onNodeReady(new DagNode(nodeId));
+        }
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        assertEquals(List.of(0, 1), subscriber.nodeIds());
+        assertEquals(3, publisher.getDroppedEvents());
+    }
+
+    @Test
+    public void testDropOldestWhenBufferIsFull() {
+        NodeEventPublisher publisher = new NodeEventPublisher(2, OverflowPolicy.DROP_OLDEST, Runnable::run);
+        CollectingSubscriber subscriber = new CollectingSubscriber(0);
+        publisher.subscribe(subscriber);
+
+        for (int nodeId = 0; nodeId < 5; nodeId++) {
+            publisher.onNodeReady(new DagNode(nodeId));
+        }
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        assertEquals(List.of(3, 4), subscriber.nodeIds());
+        assertEquals(3, publisher.getDroppedEvents());
+    }
+
+    @Test
+    public void testConcurrentPublishersNeverOverfillTheBuffer() throws InterruptedException {
+        for (OverflowPolicy policy : new OverflowPolicy[]{OverflowPolicy.DROP_NEWEST, OverflowPolicy.DROP_OLDEST}) {
+            NodeEventPublisher publisher = new NodeEventPublisher(8, policy, Runnable::run);
+            CollectingSubscriber subscriber = new CollectingSubscriber(0);
+            publisher.subscribe(subscriber);
+
+            List<Thread> publishers = IntStream.range(0, 4)
+                    .mapToObj(thread -> Thread.ofPlatform().start(() -> {
+                        for (int nodeId = 0; nodeId < 10_000; nodeId++) {
+                            publisher.onNodeReady(new DagNode(thread * 10_000 + nodeId));
+                        }
+                    }))
+                    .toList();
+            for (Thread thread : publishers) {
+                thread.join();
+            }
+            subscriber.subscription.request(Long.MAX_VALUE);
+
+            assertEquals(8, subscriber.nodeIds().size(), policy.name());
+            assertEquals(40_000 - 8, publisher.getDroppedEvents(), policy.name());
+        }
+    }
+
+    @Test
+    public void testConflateKeepsLatestEventOfEveryNode() {
+        NodeEventPublisher publisher = new NodeEventPublisher(1, OverflowPolicy.CONFLATE, Runnable::run);
+        CollectingSubscriber subscriber = new CollectingSubscriber(0);
+        publisher.subscribe(subscriber);
+
+        publisher.onNodeStarted(new DagNode(0), 0);
+        publisher.onNodeStarted(new DagNode(1), 0);
+        publisher.onNodeSucceeded(new DagNode(0), 0);
+        publisher.onNodeSucceeded(new DagNode(1), 0);
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        assertEquals(List.of(NodeEventType.STARTED, NodeEventType.SUCCEEDED), subscriber.typesOf(0));
+        assertEquals(List.of(NodeEventType.SUCCEEDED), subscriber.typesOf(1));
+        assertEquals(1, publisher.getDroppedEvents());
+    }
+
+    @Test
+    public void testConflatedEventsAreNotOvertakenOnceTheBufferHasRoom() {
+        NodeEventPublisher publisher = new NodeEventPublisher(1, OverflowPolicy.CONFLATE, Runnable::run);
+        CollectingSubscriber subscriber = new CollectingSubscriber(0);
+        publisher.subscribe(subscriber);
+
+        publisher.onNodeStarted(new DagNode(0), 0);
+        publisher.onNodeStarted(new DagNode(1), 0);
+        subscriber.subscription.request(1);
+        publisher.onNodeSucceeded(new DagNode(1), 0);
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        assertEquals(List.of(NodeEventType.STARTED), subscriber.typesOf(0));
+        assertEquals(List.of(NodeEventType.SUCCEEDED), subscriber.typesOf(1));
+    }
+
+    @Test
+    public void testEventsAreDeliveredOnDemand() {
+        NodeEventPublisher publisher = new NodeEventPublisher(8, OverflowPolicy.DROP_NEWEST, Runnable::run);
+        CollectingSubscriber subscriber = new CollectingSubscriber(1);
+        publisher.subscribe(subscriber);
+
+        publisher.onNodeReady(new DagNode(0));
+        publisher.onNodeReady(new DagNode(1));
+        publisher.close();
+
+        assertEquals(List.of(0), subscriber.nodeIds());
+        assertFalse(subscriber.completed, "Buffered events must be delivered before completing");
+
+        subscriber.subscription.request(1);
+
+        assertEquals(List.of(0, 1), subscriber.nodeIds());
+        assertTrue(subscriber.completed);
+    }
+
+    @Test
+    public void testInvalidRequestIsSignalledByTheDeliveryLoop() {
+        List<Runnable> deliveries = new CopyOnWriteArrayList<>();
+        NodeEventPublisher publisher = new NodeEventPublisher(8, OverflowPolicy.DROP_NEWEST, deliveries::add);
+        List<Throwable> errors = new CopyOnWriteArrayList<>();
+        CollectingSubscriber subscriber = new CollectingSubscriber(0) {
+            @Override
+            public void onError(Throwable throwable) {
+                errors.add(throwable);
+            }
+        };
+        publisher.subscribe(subscriber);
+
+        subscriber.subscription.request(0);
+        assertTrue(errors.isEmpty(), "The error must not be signalled on the requesting thread");
+
+        deliveries.forEach(Runnable::run);
+        publisher.onNodeReady(new DagNode(0));
+
+        assertEquals(1, errors.size());
+        assertTrue(errors.getFirst() instanceof IllegalArgumentException);
+        assertTrue(subscriber.events.isEmpty());
+    }
+
+    @Test
+    public void testInvalidBufferSize() {
+        assertThrows(IllegalArgumentException.class, () -> new NodeEventPublisher(0, OverflowPolicy.CONFLATE));
+    }
+
+    private static class CollectingSubscriber implements Flow.Subscriber<NodeEvent> {
+        private final long initialDemand;
+        private final List<NodeEvent> events = new CopyOnWriteArrayList<>();
+        private Flow.Subscription subscription;
+        private volatile boolean completed;
+
+        CollectingSubscriber(long initialDemand) {
+            this.initialDemand = initialDemand;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (initialDemand > 0) {
+                subscription.request(initialDemand);
+            }
+        }
+
+        @Override
+        public void onNext(NodeEvent item) {
+            events.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            throw new AssertionError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+
+        List<Integer> nodeIds() {
+            return events.stream().map(NodeEvent::nodeId).toList();
+        }
+
+        List<NodeEventType> typesOf(int nodeId) {
+            return events.stream().filter(e -> e.nodeId() == nodeId).map(NodeEvent::type).toList();
+        }
+    }
+}
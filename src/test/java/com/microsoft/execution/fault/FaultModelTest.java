@@ -0,0 +1,186 @@
+package com.microsoft.execution.fault;
+
+import com.microsoft.execution.DagNodeExecutor;
+import com.microsoft.execution.DagNodeExecutorOptions;
+import com.microsoft.execution.FailingDagNode;
+import com.microsoft.execution.VirtualClock;
+import com.microsoft.execution.retry.NoRetryStrategy;
+import com.microsoft.model.DagNode;
+import com.microsoft.model.IDagNode;
+import com.microsoft.simulation.INodeDurationModel;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FaultModelTest {
+
+    @Test
+    public void testSameSeedInjectsTheSameFaults() {
+        FaultModel model = FaultModel.DEFAULT.withFailureRate(0.5).withSeed(42);
+
+        boolean[] first = failures(model, 1000);
+        boolean[] second = failures(model, 1000);
+        boolean[] otherSeed = failures(model.withSeed(43), 1000);
+
+        assertArrayEquals(first, second);
+        assertFalse(Arrays.equals(first, otherSeed));
+    }
+
+    @Test
+    public void testEveryRunGetsItsOwnFaults() {
+        FaultModel model = FaultModel.DEFAULT.withFailureRate(0.5).withSeed(42);
+
+        boolean[] firstRun = failures(model, 1000, 1);
+        boolean[] sameRun = failures(model, 1000, 1);
+        boolean[] nextRun = failures(model, 1000, 2);
+
+        assertArrayEquals(firstRun, sameRun);
+        assertFalse(Arrays.equals(firstRun, nextRun));
+    }
+
+    @Test
+    public void testFailureRate() {
+        FaultModel model = FaultModel.DEFAULT.withFailureRate(0.3).withSeed(7);
+
+        int failures = 0;
+        for (boolean fails : failures(model, 10_000)) {
+            failures += fails ? 1 : 0;
+        }
+
+        assertEquals(3000, failures, 300);
+        assertSame(Fault.NONE, FaultModel.DEFAULT.sample(new DagNode(1), 0, 0, 0));
+    }
+
+    @Test
+    public void testRetriesDrawAgain() {
+        FaultModel model = FaultModel.DEFAULT.withFailureRate(0.5);
+        IDagNode node = new DagNode(1);
+
+        long failedAttempts = IntStream.range(0, 1000).filter(attempt -> model.sample(node, attempt, 0, 0).fails()).count();
+
+        assertEquals(500, failedAttempts, 100);
+    }
+
+    @Test
+    public void testFailureRateByNodeAndClass() {
+        FaultModel model = FaultModel.DEFAULT
+                .withFailureRate(FailingDagNode.class, 1)
+                .withFailureRate("2", 1)
+                .withFailureRate("reliable", 0)
+                .withFailureRate(1);
+
+        assertTrue(model.sample(new FailingDagNode(1, 0), 0, 0, 0).fails());
+        assertTrue(model.sample(new DagNode(2), 0, 0, 0).fails());
+        assertFalse(model.sample(new DagNode(3, "reliable"), 0, 0, 0).fails());
+        assertTrue(model.sample(new DagNode(4), 0, 0, 0).fails());
+    }
+
+    @Test
+    public void testWindows() {
+        FaultModel model = FaultModel.DEFAULT
+                .withWindow(FaultWindow.outage(100, 50).withPeriodInMillis(1000))
+                .withWindow(FaultWindow.slowdown(0, 10, 5));
+        IDagNode node = new DagNode(1);
+
+        assertEquals(new Fault(5, false), model.sample(node, 0, 0, 0));
+        assertSame(Fault.NONE, model.sample(node, 0, 0, 10));
+        assertTrue(model.sample(node, 0, 0, 100).fails());
+        assertTrue(model.sample(node, 0, 0, 149).fails());
+        assertFalse(model.sample(node, 0, 0, 150).fails());
+        assertTrue(model.sample(node, 0, 0, 1120).fails());
+    }
+
+    @Test
+    public void testLatency() {
+        FaultModel constant = FaultModel.DEFAULT.withLatency(INodeDurationModel.constant(5));
+        FaultModel longTail = FaultModel.DEFAULT.withLatency(INodeDurationModel.pareto(10, 1.5));
+
+        assertEquals(new Fault(5, false), constant.sample(new DagNode(1), 0, 0, 0));
+        long maxLatency = 0;
+        for (int id = 0; id < 1000; id++) {
+            long latency = longTail.sample(new DagNode(id), 0, 0, 0).latencyInMillis();
+            assertTrue(latency >= 10);
+            maxLatency = Math.max(maxLatency, latency);
+        }
+        assertTrue(maxLatency > 100, "max latency: " + maxLatency);
+    }
+
+    @Test
+    public void testNodeExecutorInjectsTheFaults() {
+        FaultModel model = FaultModel.DEFAULT.withFailureRate("1", 1).withLatency(INodeDurationModel.constant(50));
+        DagNodeExecutorOptions options = DagNodeExecutorOptions.DEFAULT.withFaultInjector(model);
+        DagNodeExecutor dagNodeExecutor = new DagNodeExecutor(1, 0.0f, NoRetryStrategy.INSTANCE, options);
+
+        assertEquals(-1, dagNodeExecutor.execute(new DagNode(1)));
+        long start = System.nanoTime();
+        assertEquals(0, dagNodeExecutor.execute(new DagNode(2)));
+        assertTrue(System.nanoTime() - start >= 50_000_000L);
+    }
+
+    @Test
+    public void testLatencyPassesOnTheVirtualClock() throws ExecutionException, InterruptedException {
+        VirtualClock clock = new VirtualClock();
+        FaultModel model = FaultModel.DEFAULT.withLatency(INodeDurationModel.constant(50));
+        DagNodeExecutorOptions options = DagNodeExecutorOptions.DEFAULT.withFaultInjector(model).withVirtualClock(clock);
+        DagNodeExecutor dagNodeExecutor = new DagNodeExecutor(1, 0.0f, NoRetryStrategy.INSTANCE, options);
+
+        CompletableFuture<Integer> future = dagNodeExecutor.executeAsync(new DagNode(1));
+
+        clock.runUntil(TimeUnit.MILLISECONDS.toNanos(49));
+        assertFalse(future.isDone());
+
+        clock.runUntilIdle();
+        assertEquals(50, clock.millis());
+        assertEquals(0, future.get());
+    }
+
+    @Test
+    public void testLatencyHoldsTheEnginesOnTheVirtualClock() throws ExecutionException, InterruptedException {
+        VirtualClock clock = new VirtualClock();
+        FaultModel model = FaultModel.DEFAULT.withLatency(INodeDurationModel.constant(50));
+        DagNodeExecutorOptions options = DagNodeExecutorOptions.DEFAULT.withFaultInjector(model).withVirtualClock(clock);
+        DagNodeExecutor dagNodeExecutor = new DagNodeExecutor(2, 0.0f, NoRetryStrategy.INSTANCE, options);
+
+        List<CompletableFuture<Integer>> futures = IntStream.range(0, 5)
+                .mapToObj(id -> dagNodeExecutor.executeAsync(new DagNode(id)))
+                .toList();
+
+        // Two nodes at a time, so the fifth one only starts once the first four are done
+        clock.runUntil(TimeUnit.MILLISECONDS.toNanos(100));
+        assertEquals(4, futures.stream().filter(CompletableFuture::isDone).count());
+
+        clock.runUntilIdle();
+        assertEquals(150, clock.millis());
+        for (CompletableFuture<Integer> future : futures) {
+            assertEquals(0, future.get());
+        }
+    }
+
+    @Test
+    public void testInvalidModels() {
+        assertThrows(IllegalArgumentException.class, () -> FaultModel.DEFAULT.withFailureRate(1.5));
+        assertThrows(IllegalArgumentException.class, () -> FaultModel.DEFAULT.withFailureRate("1", -0.1));
+        assertThrows(IllegalArgumentException.class, () -> FaultWindow.outage(0, 0));
+        assertThrows(IllegalArgumentException.class, () -> FaultWindow.outage(0, 100).withPeriodInMillis(50));
+        assertThrows(IllegalArgumentException.class, () -> INodeDurationModel.pareto(0, 1));
+    }
+
+    private static boolean[] failures(IFaultInjector injector, int nodes) {
+        return failures(injector, nodes, 0);
+    }
+
+    private static boolean[] failures(IFaultInjector injector, int nodes, long runId) {
+        boolean[] failures = new boolean[nodes];
+        for (int id = 0; id < nodes; id++) {
+            failures[id] = injector.sample(new DagNode(id), 0, runId, 0).fails();
+        }
+        return failures;
+    }
+}
@@ -0,0 +1,153 @@
+package com.microsoft.execution.history;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DurationHistoryStoreTest {
+
+    @Test
+    public void testEstimatesFollowTheRecordedDurations() throws IOException {
+        try (DurationHistoryStore store = DurationHistoryStore.open(newHistoryFile(), DurationHistoryOptions.DEFAULT.withEwmaAlpha(0.5))) {
+            assertTrue(store.estimate("prep").isEmpty());
+
+            store.recordAsync(Map.of("prep", 10.0)).join();
+            store.recordAsync(Map.of("prep", 20.0)).join();
+
+            DurationEstimate estimate = store.estimate("prep").orElseThrow();
+            assertEquals(2, estimate.samples());
+            assertEquals(15.0, estimate.ewmaInMillis(), 1e-9);
+        }
+    }
+
+    @Test
+    public void testQuantilesAreWithinTheRelativeAccuracy() throws IOException {
+        try (DurationHistoryStore store = DurationHistoryStore.open(newHistoryFile())) {
+            for (int i = 1; i <= 1000; i++) {
+                store.recordAsync(Map.of("node", (double) i));
+            }
+            store.compactAsync().join();
+
+            DurationEstimate estimate = store.estimate("node").orElseThrow();
+            assertEquals(1000, estimate.samples());
+            assertEquals(500.0, estimate.p50InMillis(), 500 * 0.021);
+            assertEquals(900.0, estimate.p90InMillis(), 900 * 0.021);
+            assertEquals(990.0, estimate.p99InMillis(), 990 * 0.021);
+        }
+    }
+
+    @Test
+    public void testSketchStaysSmall() {
+        DurationSketch sketch = new DurationSketch();
+        for (int i = 0; i < 100_000; i++) {
+            sketch.add(Math.pow(1.001, i) / 1000);
+        }
+
+        assertEquals(DurationSketch.MAX_BUCKETS, sketch.buckets());
+        assertEquals(Math.pow(1.001, 99_000) / 1000, sketch.quantile(0.99), Math.pow(1.001, 99_000) / 1000 * 0.021);
+    }
+
+    @Test
+    public void testEstimatesSurviveReopening() throws IOException {
+        Path file = newHistoryFile();
+        try (DurationHistoryStore store = DurationHistoryStore.open(file)) {
+            store.recordAsync(Map.of("a", 10.0, "b", 5.0));
+            store.recordAsync(Map.of("a", 30.0));
+        }
+
+        try (DurationHistoryStore store = DurationHistoryStore.open(file)) {
+            assertEquals(2, store.estimate("a").orElseThrow().samples());
+            assertEquals(14.0, store.estimate("a").orElseThrow().ewmaInMillis(), 1e-9);
+            assertEquals(5.0, store.estimate("b").orElseThrow().ewmaInMillis(), 1e-9);
+        }
+    }
+
+    @Test
+    public void testFileIsCompactedPeriodically() throws IOException {
+        Path file = newHistoryFile();
+        DurationHistoryOptions options = DurationHistoryOptions.DEFAULT.withCompactionThreshold(100);
+        try (DurationHistoryStore store = DurationHistoryStore.open(file, options)) {
+            for (int i = 0; i < 1000; i++) {
+                store.recordAsync(Map.of("a", 1.0, "b", 2.0));
+            }
+            store.recordAsync(Map.of()).join();
+
+            // 2000 samples were recorded, but the file never holds many more records than the threshold
+            assertTrue(Files.size(file) < 100 * 20, "The history file wasn't compacted: " + Files.size(file) + " bytes");
+            assertEquals(1000, store.estimate("a").orElseThrow().samples());
+        }
+
+        try (DurationHistoryStore store = DurationHistoryStore.open(file, options)) {
+            assertEquals(1000, store.estimate("b").orElseThrow().samples());
+        }
+    }
+
+    @Test
+    public void testTornRecordIsDropped() throws IOException {
+        Path file = newHistoryFile();
+        try (DurationHistoryStore store = DurationHistoryStore.open(file)) {
+            store.recordAsync(Map.of("a", 10.0));
+        }
+        try (OutputStream out = Files.newOutputStream(file, StandardOpenOption.APPEND)) {
+            out.write(new byte[]{1, 0, 1, 'a', 0x40}); // A sample of "a" cut in the middle of its duration
+        }
+
+        try (DurationHistoryStore store = DurationHistoryStore.open(file)) {
+            assertEquals(1, store.estimate("a").orElseThrow().samples());
+            store.recordAsync(Map.of("a", 20.0)).join();
+        }
+
+        try (DurationHistoryStore store = DurationHistoryStore.open(file)) {
+            assertEquals(2, store.estimate("a").orElseThrow().samples());
+        }
+    }
+
+    @Test
+    public void testWritesAfterCloseFailTheirFuture() throws IOException {
+        DurationHistoryStore store = DurationHistoryStore.open(newHistoryFile());
+        store.close();
+
+        assertTrue(store.recordAsync(Map.of("prep", 10.0)).isCompletedExceptionally());
+        assertTrue(store.compactAsync().isCompletedExceptionally());
+        assertTrue(store.estimate("prep").isEmpty());
+    }
+
+    @Test
+    public void testCloseIsIdempotent() throws IOException {
+        DurationHistoryStore store = DurationHistoryStore.open(newHistoryFile());
+        store.recordAsync(Map.of("prep", 10.0));
+
+        store.close();
+        store.close();
+
+        assertEquals(1, store.estimate("prep").orElseThrow().samples());
+    }
+
+    @Test
+    public void testNotAHistoryFile() throws IOException {
+        Path file = newHistoryFile();
+        Files.writeString(file, "not a history");
+
+        assertThrows(IOException.class, () -> DurationHistoryStore.open(file));
+    }
+
+    @Test
+    public void testInvalidOptions() {
+        assertThrows(IllegalArgumentException.class, () -> DurationHistoryOptions.DEFAULT.withEwmaAlpha(0));
+        assertThrows(IllegalArgumentException.class, () -> DurationHistoryOptions.DEFAULT.withCompactionThreshold(0));
+    }
+
+    private static Path newHistoryFile() throws IOException {
+        Path file = Files.createTempFile("duration-history", ".bin");
+        Files.delete(file);
+        file.toFile().deleteOnExit();
+        return file;
+    }
+}
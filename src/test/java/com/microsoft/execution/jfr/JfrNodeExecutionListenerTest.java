@@ -0,0 +1,85 @@
+package com.microsoft.execution.jfr;
+
+import com.microsoft.execution.*;
+import com.microsoft.execution.retry.TimedRetryStrategy;
+import com.microsoft.model.DagNode;
+import com.microsoft.parser.DagParser;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JfrNodeExecutionListenerTest {
+
+    private static final String DAG_XML = """
+            <DAG>
+                <Nodes>
+                    <Node Id="0"><dependencies/></Node>
+                    <Node Id="1"><dependencies><Node Id="0"/></dependencies></Node>
+                    <Node Id="2"><dependencies><Node Id="0"/></dependencies></Node>
+                </Nodes>
+            </DAG>
+        """;
+
+    @Test
+    public void testNodeEventsAreOffWithoutRecording() {
+        NodeExecutionListener listener = new NodeExecutionListener() {
+        };
+
+        assertSame(listener, JfrNodeExecutionListener.wrap(1, listener));
+    }
+
+    @Test
+    public void testDagAndNodeEventsAreRecorded() throws Exception {
+        // Node 1 fails its first attempt
+        DagParser dagParser = new DagParser(node -> node.id() == 1 ? new FailingDagNode(1, 1) : new DagNode(node.id()));
+        DagNodeExecutor dagNodeExecutor = new DagNodeExecutor(2, 0.0f, new TimedRetryStrategy(1, 0));
+        IDagExecutor dagExecutor = new DagExecutor(dagParser, dagNodeExecutor);
+        Path dump = Files.createTempFile("dag-executor", ".jfr");
+
+        try (Recording recording = new Recording()) {
+            List.of(DagParseEvent.class, DagPlanEvent.class, DagExecutionEvent.class, NodeEnqueueEvent.class,
+                    NodeDispatchEvent.class, NodeExecutionEvent.class, NodeRetryEvent.class).forEach(recording::enable);
+            recording.start();
+
+            assertFalse(dagExecutor.processRequestAsync(new DagRequest(DAG_XML)).get().hasFailed());
+
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+        Files.delete(dump);
+        Map<String, Long> eventCounts = events.stream()
+                .collect(Collectors.groupingBy(event -> event.getEventType().getName(), Collectors.counting()));
+
+        assertEquals(1, eventCounts.get("com.microsoft.dag.DagParse"));
+        assertEquals(1, eventCounts.get("com.microsoft.dag.DagPlan"));
+        assertEquals(1, eventCounts.get("com.microsoft.dag.DagExecution"));
+        assertEquals(3, eventCounts.get("com.microsoft.dag.NodeEnqueue"));
+        assertEquals(3, eventCounts.get("com.microsoft.dag.NodeDispatch"));
+        assertEquals(4, eventCounts.get("com.microsoft.dag.NodeExecution"));
+        assertEquals(1, eventCounts.get("com.microsoft.dag.NodeRetry"));
+
+        RecordedEvent retry = events.stream()
+                .filter(event -> event.getEventType().getName().equals("com.microsoft.dag.NodeRetry"))
+                .findFirst().orElseThrow();
+        assertEquals(1, retry.getInt("nodeId"));
+        assertEquals(0, retry.getInt("attempt"));
+
+        long failedAttempts = events.stream()
+                .filter(event -> event.getEventType().getName().equals("com.microsoft.dag.NodeExecution"))
+                .filter(event -> !event.getBoolean("succeeded"))
+                .count();
+        assertEquals(1, failedAttempts);
+        assertTrue(events.stream().allMatch(event -> event.getLong("dagId") == retry.getLong("dagId")));
+    }
+}
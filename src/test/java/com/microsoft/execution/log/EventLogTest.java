@@ -0,0 +1,86 @@
+package com.microsoft.execution.log;
+
+import com.microsoft.execution.DagNodeExecutor;
+import com.microsoft.execution.DagNodeExecutorOptions;
+import com.microsoft.execution.FailingDagNode;
+import com.microsoft.execution.retry.TimedRetryStrategy;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventLogTest {
+
+    private static final EventLogOptions NEVER_DRAINED = EventLogOptions.DEFAULT.withDrainInterval(Duration.ofHours(1));
+
+    @Test
+    public void testEventsAreWrittenInTheBackground() {
+        try (EventLog eventLog = new EventLog(EventLogOptions.DEFAULT.withDrainInterval(Duration.ofMillis(1)))) {
+            eventLog.nodeRetrying(1, 0, 10, new RuntimeException("first"));
+            eventLog.nodeFailed(1, 1, new RuntimeException("second"));
+
+            await().until(() -> eventLog.getWrittenEvents() == 2);
+        }
+    }
+
+    @Test
+    public void testRetriesAreSampled() {
+        EventLog eventLog = new EventLog(NEVER_DRAINED.withRetrySampling(10));
+        for (int i = 0; i < 100; i++) {
+            eventLog.nodeRetrying(i, 0, 0, null);
+        }
+        eventLog.nodeFailed(0, 1, null);
+        eventLog.close();
+
+        assertEquals(11, eventLog.getWrittenEvents()); // Failures are never sampled out
+        assertEquals(90, eventLog.getSampledOutEvents());
+    }
+
+    @Test
+    public void testOutputIsRateLimited() {
+        EventLog eventLog = new EventLog(NEVER_DRAINED.withMaxLinesPerSecond(5));
+        for (int i = 0; i < 100; i++) {
+            eventLog.nodeFailed(i, 0, null);
+        }
+        eventLog.close();
+
+        assertEquals(5, eventLog.getWrittenEvents());
+        assertEquals(95, eventLog.getSuppressedEvents());
+    }
+
+    @Test
+    public void testEventsAreDroppedWhenTheRingIsFull() {
+        EventLog eventLog = new EventLog(NEVER_DRAINED.withCapacity(4));
+        for (int i = 0; i < 10; i++) {
+            eventLog.nodeFailed(i, 0, null);
+        }
+        eventLog.close();
+        eventLog.nodeFailed(10, 0, null);
+
+        assertEquals(4, eventLog.getWrittenEvents());
+        assertEquals(7, eventLog.getDroppedEvents());
+    }
+
+    @Test
+    public void testFailedAttemptsOfTheNodeExecutorAreLogged() throws Exception {
+        EventLog eventLog = new EventLog(NEVER_DRAINED);
+        DagNodeExecutorOptions options = DagNodeExecutorOptions.DEFAULT.withEventLog(eventLog);
+        DagNodeExecutor dagNodeExecutor = new DagNodeExecutor(1, 0.0f, new TimedRetryStrategy(2, 0), options);
+
+        assertEquals(0, dagNodeExecutor.executeAsync(new FailingDagNode(1, 2)).get());
+        assertEquals(-1, dagNodeExecutor.executeAsync(new FailingDagNode(2, 3)).get());
+        eventLog.close();
+
+        assertEquals(5, eventLog.getWrittenEvents()); // Two retries of each node and the failure of the second
+    }
+
+    @Test
+    public void testInvalidOptions() {
+        assertThrows(IllegalArgumentException.class, () -> EventLogOptions.DEFAULT.withCapacity(0));
+        assertThrows(IllegalArgumentException.class, () -> EventLogOptions.DEFAULT.withMaxLinesPerSecond(0));
+        assertThrows(IllegalArgumentException.class, () -> EventLogOptions.DEFAULT.withRetrySampling(0));
+        assertThrows(IllegalArgumentException.class, () -> EventLogOptions.DEFAULT.withDrainInterval(Duration.ZERO));
+    }
+}
@@ -0,0 +1,109 @@
+package com.microsoft.execution.metrics;
+
+import com.microsoft.execution.*;
+import com.microsoft.execution.retry.TimedRetryStrategy;
+import com.microsoft.model.DagNode;
+import com.microsoft.parser.DagParser;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DagMetricsTest {
+
+    private static final String DAG_XML = """
+            <DAG>
+                <Nodes>
+                    <Node Id="0"><dependencies/></Node>
+                    <Node Id="1"><dependencies><Node Id="0"/></dependencies></Node>
+                    <Node Id="2"><dependencies><Node Id="0"/></dependencies></Node>
+                </Nodes>
+            </DAG>
+        """;
+
+    @Test
+    public void testDagRunIsCounted() throws Exception {
+        DagMetrics metrics = new DagMetrics("test");
+        IDagExecutor dagExecutor = createDagExecutor(metrics);
+
+        assertFalse(dagExecutor.processRequestAsync(new DagRequest(DAG_XML)).get().hasFailed());
+
+        await().until(() -> metrics.getDagsSucceeded() == 1);
+        assertEquals(1, metrics.getDagsStarted());
+        assertEquals(3, metrics.getNodesDispatched());
+        assertEquals(4, metrics.getNodesStarted()); // Node 1 fails its first attempt
+        assertEquals(3, metrics.getNodesSucceeded());
+        assertEquals(0, metrics.getNodesFailed());
+        assertEquals(1, metrics.getRetries());
+        assertEquals(1L, metrics.getRetriesByStrategy().get("TimedRetryStrategy"));
+        assertEquals(0, metrics.getReadyQueueDepth());
+        assertEquals(0, metrics.getInFlightNodes());
+        assertEquals(2, metrics.getEngines());
+        // A spare drainer of a batch may still be queued, and find no node left once it runs
+        await().until(() -> metrics.getBusyEngines() == 0 && metrics.getQueuedEngineTasks() == 0);
+        assertEquals(4, metrics.getQueueWait().getCount());
+        assertEquals(4, metrics.getRunTime().getCount());
+        assertEquals(1, metrics.getDagLatency().getCount());
+    }
+
+    @Test
+    public void testMetricsAreExposedOverJmx() throws Exception {
+        DagMetrics metrics = new DagMetrics("jmx-test");
+        IDagExecutor dagExecutor = createDagExecutor(metrics);
+        metrics.registerMBeans();
+        try {
+            dagExecutor.processRequestAsync(new DagRequest(DAG_XML)).get();
+            await().until(() -> metrics.getDagsSucceeded() == 1);
+
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName metricsName = new ObjectName("com.microsoft.dag:type=DagMetrics,name=\"jmx-test\"");
+            ObjectName dagLatencyName = new ObjectName("com.microsoft.dag:type=Latency,metrics=\"jmx-test\",name=DagLatency");
+
+            assertEquals(1L, server.getAttribute(metricsName, "DagsSucceeded"));
+            assertEquals(2L, server.getAttribute(metricsName, "Engines"));
+            assertEquals(1, ((TabularData) server.getAttribute(metricsName, "RetriesByStrategy")).size());
+            assertEquals(1L, server.getAttribute(dagLatencyName, "Count"));
+        } finally {
+            metrics.unregisterMBeans();
+        }
+
+        assertTrue(ManagementFactory.getPlatformMBeanServer().queryNames(new ObjectName("com.microsoft.dag:*"), null).isEmpty());
+    }
+
+    @Test
+    public void testMetricsAreDumpedPeriodically() throws Exception {
+        DagMetrics metrics = new DagMetrics("file-test");
+        metrics.onDagStarted();
+        Path file = Files.createTempFile("dag-metrics", ".log");
+
+        try (MetricsFileReporter _ = new MetricsFileReporter(metrics, file, Duration.ofMillis(10))) {
+            await().until(() -> Files.readAllLines(file).size() >= 2);
+        }
+
+        List<String> lines = Files.readAllLines(file);
+        Files.delete(file);
+        assertTrue(lines.getFirst().contains(" dagsStarted=1 "), lines.getFirst());
+        assertTrue(lines.getFirst().contains(" dagLatency.p99Ms="), lines.getFirst());
+    }
+
+    @Test
+    public void testInvalidReportingInterval() {
+        assertThrows(IllegalArgumentException.class, () -> new MetricsFileReporter(new DagMetrics("test"), Path.of("metrics.log"), Duration.ZERO));
+    }
+
+    private static IDagExecutor createDagExecutor(DagMetrics metrics) {
+        DagParser dagParser = new DagParser(node -> node.id() == 1 ? new FailingDagNode(1, 1) : new DagNode(node.id()));
+        DagNodeExecutorOptions nodeExecutorOptions = DagNodeExecutorOptions.DEFAULT.withMetrics(metrics);
+        DagNodeExecutor dagNodeExecutor = new DagNodeExecutor(2, 0.0f, new TimedRetryStrategy(1, 0), nodeExecutorOptions);
+        return new DagExecutor(dagParser, dagNodeExecutor, DagExecutorOptions.DEFAULT.withMetrics(metrics));
+    }
+}
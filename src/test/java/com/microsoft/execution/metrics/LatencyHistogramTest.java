@@ -0,0 +1,60 @@
+package com.microsoft.execution.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testEmptyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0.0, histogram.getP99InMillis(), 0.0);
+        assertEquals(0.0, histogram.getMeanInMillis(), 0.0);
+    }
+
+    @Test
+    public void testPercentilesAreWithinTheRelativeAccuracy() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long millis = 1; millis <= 1000; millis++) {
+            histogram.record(millis * 1_000_000);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500.5, histogram.getMeanInMillis(), 1e-9);
+        assertEquals(500.0, histogram.getP50InMillis(), 500 * 0.016);
+        assertEquals(900.0, histogram.getP90InMillis(), 900 * 0.016);
+        assertEquals(990.0, histogram.getP99InMillis(), 990 * 0.016);
+        assertEquals(1000.0, histogram.getMaxInMillis(), 0.0);
+    }
+
+    @Test
+    public void testBucketsCoverEveryValue() {
+        long[] values = {0, 1, 127, 128, 129, 255, 256, 1_000_000, Long.MAX_VALUE};
+        for (long value : values) {
+            long midpoint = LatencyHistogram.midpointOf(LatencyHistogram.indexOf(value));
+            assertTrue(Math.abs(midpoint - (double) value) <= value / 64.0, "Value " + value + " is in the bucket of " + midpoint);
+        }
+    }
+
+    @Test
+    public void testConcurrentRecording() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        CompletableFuture.allOf(IntStream.range(0, 4)
+                .mapToObj(_ -> CompletableFuture.runAsync(() -> {
+                    for (int i = 0; i < 100_000; i++) {
+                        histogram.record(1_000);
+                    }
+                }))
+                .toArray(CompletableFuture[]::new)).join();
+
+        assertEquals(400_000, histogram.getCount());
+        assertEquals(0.001, histogram.getP999InMillis(), 0.001 * 0.016);
+    }
+}
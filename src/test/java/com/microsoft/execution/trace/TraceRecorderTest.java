@@ -0,0 +1,110 @@
+package com.microsoft.execution.trace;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microsoft.execution.*;
+import com.microsoft.execution.retry.TimedRetryStrategy;
+import com.microsoft.model.DagNode;
+import com.microsoft.parser.DagParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TraceRecorderTest {
+
+    private static final String DAG_XML = """
+            <DAG>
+                <Nodes>
+                    <Node Id="0"><dependencies/></Node>
+                    <Node Id="1"><dependencies><Node Id="0"/></dependencies></Node>
+                    <Node Id="2"><dependencies><Node Id="0"/></dependencies></Node>
+                </Nodes>
+            </DAG>
+        """;
+
+    @Test
+    public void testNodeAttemptsAreWrittenAsChromeTrace() throws Exception {
+        TraceRecorder traceRecorder = new TraceRecorder(1024);
+        IDagExecutor dagExecutor = createDagExecutor(traceRecorder);
+
+        assertFalse(dagExecutor.processRequestAsync(new DagRequest(DAG_XML)).get().hasFailed());
+
+        assertEquals(8, traceRecorder.getRecordedEvents()); // Node 1 fails its first attempt
+        assertEquals(0, traceRecorder.getOverwrittenEvents());
+        List<JsonNode> events = writeTrace(traceRecorder);
+
+        List<JsonNode> slices = ofPhase(events, "X");
+        assertEquals(4, slices.size());
+        assertEquals(3, slices.stream().filter(slice -> slice.get("args").get("succeeded").asBoolean()).count());
+        for (JsonNode slice : slices) {
+            assertEquals("node", slice.get("cat").asText());
+            assertTrue(slice.get("ts").asDouble() >= 0);
+            assertTrue(slice.get("dur").asDouble() >= 0);
+        }
+        JsonNode failedAttempt = slices.stream().filter(slice -> !slice.get("args").get("succeeded").asBoolean()).findFirst().orElseThrow();
+        assertEquals("Node 1", failedAttempt.get("name").asText());
+        assertEquals(0, failedAttempt.get("args").get("attempt").asInt());
+
+        // One arrow from node 0 to each of its dependents
+        List<JsonNode> flowStarts = ofPhase(events, "s");
+        List<JsonNode> flowEnds = ofPhase(events, "f");
+        assertEquals(2, flowStarts.size());
+        assertEquals(2, flowEnds.size());
+        assertEquals(flowStarts.get(0).get("id"), flowEnds.get(0).get("id"));
+        assertEquals("e", flowEnds.get(0).get("bp").asText());
+
+        List<JsonNode> metadata = ofPhase(events, "M");
+        assertTrue(metadata.stream().anyMatch(event -> event.get("name").asText().equals("process_name")
+                && event.get("args").get("name").asText().startsWith("DAG ")));
+        assertTrue(metadata.stream().anyMatch(event -> event.get("name").asText().equals("thread_name")
+                && event.get("tid").asLong() == slices.getFirst().get("tid").asLong()));
+    }
+
+    @Test
+    public void testOldestEventsAreOverwritten() throws Exception {
+        TraceRecorder traceRecorder = new TraceRecorder(3);
+        IDagExecutor dagExecutor = createDagExecutor(traceRecorder);
+
+        assertFalse(dagExecutor.processRequestAsync(new DagRequest(DAG_XML)).get().hasFailed());
+
+        assertEquals(4, traceRecorder.getCapacity());
+        assertEquals(4, traceRecorder.getOverwrittenEvents());
+        List<JsonNode> slices = ofPhase(writeTrace(traceRecorder), "X");
+        assertTrue(slices.size() <= 2, slices.toString());
+    }
+
+    @Test
+    public void testEmptyTrace() throws Exception {
+        assertTrue(writeTrace(new TraceRecorder(16)).isEmpty());
+    }
+
+    @Test
+    public void testInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new TraceRecorder(0));
+        assertThrows(IllegalArgumentException.class, () -> new TraceRecorder(16, 0));
+    }
+
+    private static List<JsonNode> writeTrace(TraceRecorder traceRecorder) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        traceRecorder.writeChromeTrace(out);
+        JsonNode trace = new ObjectMapper().readTree(out.toByteArray());
+        assertEquals("ms", trace.get("displayTimeUnit").asText());
+        List<JsonNode> events = new ArrayList<>();
+        trace.get("traceEvents").forEach(events::add);
+        return events;
+    }
+
+    private static List<JsonNode> ofPhase(List<JsonNode> events, String phase) {
+        return events.stream().filter(event -> event.get("ph").asText().equals(phase)).toList();
+    }
+
+    private static IDagExecutor createDagExecutor(TraceRecorder traceRecorder) {
+        DagParser dagParser = new DagParser(node -> node.id() == 1 ? new FailingDagNode(1, 1) : new DagNode(node.id()));
+        DagNodeExecutor dagNodeExecutor = new DagNodeExecutor(2, 0.0f, new TimedRetryStrategy(1, 0));
+        return new DagExecutor(dagParser, dagNodeExecutor, DagExecutorOptions.DEFAULT.withTraceRecorder(traceRecorder));
+    }
+}
@@ -2,6 +2,7 @@ package com.microsoft.model;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -11,6 +12,16 @@ import static org.junit.jupiter.api.Assertions.*;
 
 public class ExecutionDagTest {
 
+    private static final ExecutionDag.ExpansionListener NO_EXPANSION_LISTENER = new ExecutionDag.ExpansionListener() {
+        @Override
+        public void onNodeAdded(int id) {
+        }
+
+        @Override
+        public void onDependencyAdded(int dependent, int dependency) {
+        }
+    };
+
     @Test
     public void testGetInDegreeValidDag() {
         NodeWithDependencies node2 = new NodeWithDependencies(2, Set.of());
@@ -213,4 +224,193 @@ public class ExecutionDagTest {
         assertTrue(adjacencyList.get(2).isEmpty());
         assertIterableEquals(List.of(2), adjacencyList.get(3));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testFindChainsLinearDag() {
+        NodeWithDependencies node2 = new NodeWithDependencies(2, Set.of());
+        NodeWithDependencies node1 = new NodeWithDependencies(1, Set.of(node2));
+        NodeWithDependencies node0 = new NodeWithDependencies(0, Set.of(node1));
+
+        ExecutionDag dag = ExecutionDag.create(Set.of(node0, node1, node2));
+        Map<Integer, List<Integer>> chains = dag.findChains();
+
+        assertEquals(Map.of(2, List.of(2, 1, 0)), chains);
+    }
+
+    @Test
+    public void testFindChainsStopsAtForksAndJoins() {
+        // 0 -> 1 -> 2 -> {3, 4} -> 5 -> 6
+        NodeWithDependencies node0 = new NodeWithDependencies(0, Set.of());
+        NodeWithDependencies node1 = new NodeWithDependencies(1, Set.of(node0));
+        NodeWithDependencies node2 = new NodeWithDependencies(2, Set.of(node1));
+        NodeWithDependencies node3 = new NodeWithDependencies(3, Set.of(node2));
+        NodeWithDependencies node4 = new NodeWithDependencies(4, Set.of(node2));
+        NodeWithDependencies node5 = new NodeWithDependencies(5, Set.of(node3, node4));
+        NodeWithDependencies node6 = new NodeWithDependencies(6, Set.of(node5));
+
+        ExecutionDag dag = ExecutionDag.create(Set.of(node0, node1, node2, node3, node4, node5, node6));
+        Map<Integer, List<Integer>> chains = dag.findChains();
+
+        assertEquals(Map.of(0, List.of(0, 1, 2), 5, List.of(5, 6)), chains);
+    }
+
+    @Test
+    public void testComputeLevels() {
+        // 0 -> 1 -> 2 -> {3, 4} -> 5, 0 -> 5
+        NodeWithDependencies node0 = new NodeWithDependencies(0, Set.of());
+        NodeWithDependencies node1 = new NodeWithDependencies(1, Set.of(node0));
+        NodeWithDependencies node2 = new NodeWithDependencies(2, Set.of(node1));
+        NodeWithDependencies node3 = new NodeWithDependencies(3, Set.of(node2));
+        NodeWithDependencies node4 = new NodeWithDependencies(4, Set.of(node2));
+        NodeWithDependencies node5 = new NodeWithDependencies(5, Set.of(node0, node3, node4));
+
+        ExecutionDag dag = ExecutionDag.create(Set.of(node0, node1, node2, node3, node4, node5));
+
+        assertArrayEquals(new int[]{0, 1, 2, 3, 3, 4}, dag.computeLevels());
+    }
+
+    @Test
+    public void testComputeCriticalPaths() {
+        // 0 -> 1 -> 2 -> {3, 4} -> 5, 0 -> 5
+        NodeWithDependencies node0 = new NodeWithDependencies(0, Set.of());
+        NodeWithDependencies node1 = new NodeWithDependencies(1, Set.of(node0));
+        NodeWithDependencies node2 = new NodeWithDependencies(2, Set.of(node1));
+        NodeWithDependencies node3 = new NodeWithDependencies(3, Set.of(node2));
+        NodeWithDependencies node4 = new NodeWithDependencies(4, Set.of(node2));
+        NodeWithDependencies node5 = new NodeWithDependencies(5, Set.of(node0, node3, node4));
+
+        ExecutionDag dag = ExecutionDag.create(Set.of(node0, node1, node2, node3, node4, node5));
+
+        // Node i takes i + 1
+        double[] criticalPaths = dag.computeCriticalPaths(node -> node.id() + 1);
+
+        assertArrayEquals(new double[]{17, 16, 14, 10, 11, 6}, criticalPaths, 0.0);
+    }
+
+    @Test
+    public void testFindChainsWithoutChains() {
+        NodeWithDependencies node2 = new NodeWithDependencies(2, Set.of());
+        NodeWithDependencies node1 = new NodeWithDependencies(1, Set.of());
+        NodeWithDependencies node0 = new NodeWithDependencies(0, Set.of(node1, node2));
+
+        ExecutionDag dag = ExecutionDag.create(Set.of(node0, node1, node2));
+
+        assertTrue(dag.findChains().isEmpty());
+    }
+
+    @Test
+    public void testCreateWithNodeFactory() {
+        NodeWithDependencies node1 = new NodeWithDependencies(1, Set.of());
+        NodeWithDependencies node0 = new NodeWithDependencies(0, Set.of(node1));
+
+        ExecutionDag dag = ExecutionDag.create(Set.of(node0, node1), node -> new DagNode(node.id()));
+
+        assertEquals(new DagNode(1), dag.getNode(1));
+    }
+
+    @Test
+    public void testCreateWithNodeFactoryThatChangesIds() {
+        NodeWithDependencies node0 = new NodeWithDependencies(0, Set.of());
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> ExecutionDag.create(Set.of(node0), node -> new DagNode(node.id() + 1)));
+        assertEquals("The node factory must preserve the id of the nodes", exception.getMessage());
+    }
+
+    @Test
+    public void testCreateLongChain() {
+        Set<INodeWithDependencies> nodes = new HashSet<>();
+        NodeWithDependencies previous = new NodeWithDependencies(0, Set.of());
+        nodes.add(previous);
+        for (int i = 1; i < 100_000; i++) {
+            previous = new NodeWithDependencies(i, Set.of(previous));
+            nodes.add(previous);
+        }
+
+        ExecutionDag dag = ExecutionDag.create(nodes);
+
+        assertEquals(99_999, dag.computeLevels()[99_999]);
+    }
+
+    @Test
+    public void testExpand() {
+        NodeWithDependencies node0 = new NodeWithDependencies(0, Set.of());
+        NodeWithDependencies node1 = new NodeWithDependencies(1, Set.of(node0));
+        ExecutionDag dag = ExecutionDag.create(Set.of(node0, node1));
+
+        DagExpansion expansion = new DagExpansion();
+        DagExpansion.NewNode first = expansion.addNode(DagNode::new);
+        DagExpansion.NewNode second = expansion.addNode(DagNode::new);
+        expansion.addDependency(second, first);
+        expansion.addDependency(first, 0);
+        expansion.addDependency(1, second);
+        List<String> events = new ArrayList<>();
+        int[] ids = dag.expand(0, expansion, new ExecutionDag.ExpansionListener() {
+            @Override
+            public void onNodeAdded(int id) {
+                events.add("node " + id);
+            }
+
+            @Override
+            public void onDependencyAdded(int dependent, int dependency) {
+                events.add(dependent + " -> " + dependency);
+            }
+        });
+
+        assertArrayEquals(new int[]{2, 3}, ids);
+        assertEquals(List.of("node 2", "node 3", "3 -> 2", "2 -> 0", "1 -> 3"), events);
+        assertEquals(new DagNode(3), dag.getNode(3));
+        assertEquals(List.of(1, 2), dag.getAdjacencyList().get(0));
+        assertEquals(2, dag.getInDegree().get(1));
+        assertEquals(1, dag.getInDegree().get(3));
+    }
+
+    @Test
+    public void testExpandGrowsTheDagPastManyChunks() {
+        NodeWithDependencies node0 = new NodeWithDependencies(0, Set.of());
+        ExecutionDag dag = ExecutionDag.create(Set.of(node0));
+        assertFalse(dag.isExpandable());
+
+        for (int i = 0; i < 3_000; i++) {
+            DagExpansion expansion = new DagExpansion();
+            expansion.addDependency(expansion.addNode(DagNode::new), i);
+            dag.expand(i, expansion, NO_EXPANSION_LISTENER);
+        }
+
+        assertTrue(dag.isExpandable());
+        assertEquals(3_001, dag.getAdjacencyList().size());
+        for (int i = 0; i < 3_000; i++) {
+            assertEquals(List.of(i + 1), dag.getAdjacencyList().get(i));
+        }
+        assertEquals(3_000, dag.computeLevels()[3_000]);
+    }
+
+    @Test
+    public void testExpandRejectsCycles() {
+        NodeWithDependencies node0 = new NodeWithDependencies(0, Set.of());
+        NodeWithDependencies node1 = new NodeWithDependencies(1, Set.of(node0));
+        NodeWithDependencies node2 = new NodeWithDependencies(2, Set.of(node1));
+        ExecutionDag dag = ExecutionDag.create(Set.of(node0, node1, node2));
+
+        DagExpansion expansion = new DagExpansion();
+        DagExpansion.NewNode node = expansion.addNode(DagNode::new);
+        expansion.addDependency(1, node);
+        expansion.addDependency(node, 2);
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> dag.expand(0, expansion, NO_EXPANSION_LISTENER));
+        assertEquals("The graph contains a cycle", exception.getMessage());
+        assertEquals(3, dag.getAdjacencyList().size());
+    }
+
+    @Test
+    public void testExpandRejectsNodesNotDependingOnTheSpawningNode() {
+        NodeWithDependencies node0 = new NodeWithDependencies(0, Set.of());
+        NodeWithDependencies node1 = new NodeWithDependencies(1, Set.of());
+        ExecutionDag dag = ExecutionDag.create(Set.of(node0, node1));
+
+        DagExpansion expansion = new DagExpansion();
+        expansion.addDependency(1, expansion.addNode(DagNode::new));
+
+        assertThrows(IllegalArgumentException.class, () -> dag.expand(0, expansion, NO_EXPANSION_LISTENER));
+        assertEquals(0, dag.getInDegree().get(1));
+    }
+}
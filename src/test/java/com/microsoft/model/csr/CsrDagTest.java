@@ -0,0 +1,76 @@
+package com.microsoft.model.csr;
+
+import com.microsoft.model.ExecutionDag;
+import com.microsoft.workload.DagGenerator;
+import com.microsoft.workload.DagGeneratorOptions;
+import com.microsoft.workload.DagShape;
+import com.microsoft.workload.GeneratedDag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CsrDagTest {
+
+    @Test
+    public void testRoundTripMatchesTheExecutionDag() throws IOException {
+        for (DagShape shape : DagShape.values()) {
+            GeneratedDag generated = new DagGenerator(DagGeneratorOptions.DEFAULT.withShape(shape).withNodes(500).withWidth(10)).generate();
+            ExecutionDag executionDag = generated.toExecutionDag();
+            Path file = Files.createTempFile("dag", ".csr");
+            try {
+                CsrDagWriter.write(file, generated.size(), sourceOf(generated.dependencies()));
+
+                try (CsrDag dag = CsrDag.open(file)) {
+                    assertEquals(generated.size(), dag.size(), shape.name());
+                    assertEquals(generated.edges(), dag.edges(), shape.name());
+                    for (int node = 0; node < dag.size(); node++) {
+                        assertEquals(generated.dependencies()[node].length, dag.inDegree(node), shape.name());
+
+                        List<Integer> dependents = new ArrayList<>();
+                        for (long i = dag.dependentsStart(node); i < dag.dependentsEnd(node); i++) {
+                            dependents.add(dag.dependentAt(i));
+                        }
+                        assertEquals(executionDag.getAdjacencyList().get(node).stream().sorted().toList(), dependents.stream().sorted().toList(), shape.name());
+                    }
+                }
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Test
+    public void testInvalidDagsAreRejected() throws IOException {
+        Path file = Files.createTempFile("dag", ".csr");
+        Files.delete(file);
+        try {
+            assertThrows(IllegalArgumentException.class, () -> CsrDagWriter.write(file, 2, sourceOf(new int[][]{{}, {2}})));
+            assertThrows(IllegalArgumentException.class, () -> CsrDagWriter.write(file, 2, consumer -> {
+                consumer.accept(0, new int[0]);
+                consumer.accept(0, new int[0]);
+            }));
+            assertThrows(IllegalArgumentException.class, () -> CsrDagWriter.write(file, 3, sourceOf(new int[][]{{}, {0}})));
+            assertFalse(Files.exists(file));
+            assertFalse(Files.exists(file.resolveSibling(file.getFileName() + ".writing")));
+
+            Files.writeString(file, "<DAG/>");
+            assertThrows(IllegalArgumentException.class, () -> CsrDag.open(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    static IDependencySource sourceOf(int[][] dependencies) {
+        return consumer -> {
+            for (int id = 0; id < dependencies.length; id++) {
+                consumer.accept(id, dependencies[id]);
+            }
+        };
+    }
+}
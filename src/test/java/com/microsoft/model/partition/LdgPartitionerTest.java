@@ -0,0 +1,105 @@
+package com.microsoft.model.partition;
+
+import com.microsoft.model.ExecutionDag;
+import com.microsoft.model.INodeWithDependencies;
+import com.microsoft.model.NodeWithDependencies;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LdgPartitionerTest {
+
+    private final LdgPartitioner partitioner = new LdgPartitioner(0);
+
+    @Test
+    public void testIndependentChainsAreNotCut() {
+        ExecutionDag dag = parallelChains(4, 8);
+
+        Partitioning partitioning = partitioner.partition(dag, 4);
+
+        assertEquals(0, partitioning.cutEdges());
+        assertEquals(28, partitioning.totalEdges());
+        assertEquals(1.0, partitioning.imbalance());
+        for (int chain = 0; chain < 4; chain++) {
+            int shard = partitioning.shardOf(chain * 8);
+            for (int i = 1; i < 8; i++) {
+                assertEquals(shard, partitioning.shardOf(chain * 8 + i));
+            }
+        }
+    }
+
+    @Test
+    public void testCutsFewerEdgesThanRoundRobin() {
+        ExecutionDag dag = parallelChains(4, 8);
+
+        Partitioning ldg = partitioner.partition(dag, 4);
+        Partitioning roundRobin = RoundRobinPartitioner.INSTANCE.partition(dag, 4);
+
+        assertEquals(1.0, roundRobin.cutRatio());
+        assertTrue(ldg.cutRatio() < roundRobin.cutRatio());
+    }
+
+    @Test
+    public void testEveryLevelIsSpreadOverTheShards() {
+        // A single root fanning out to 8 independent nodes, which are then joined
+        List<NodeWithDependencies> nodes = new ArrayList<>();
+        NodeWithDependencies root = new NodeWithDependencies(0, Set.of());
+        nodes.add(root);
+        Set<INodeWithDependencies> fanOut = new HashSet<>();
+        for (int i = 1; i <= 8; i++) {
+            NodeWithDependencies node = new NodeWithDependencies(i, Set.of(root));
+            fanOut.add(node);
+            nodes.add(node);
+        }
+        nodes.add(new NodeWithDependencies(9, fanOut));
+        ExecutionDag dag = ExecutionDag.create(new HashSet<>(nodes));
+
+        Partitioning partitioning = partitioner.partition(dag, 2);
+
+        int onFirstShard = 0;
+        for (int i = 1; i <= 8; i++) {
+            if (partitioning.shardOf(i) == 0) {
+                onFirstShard++;
+            }
+        }
+        assertEquals(4, onFirstShard);
+        assertArrayEquals(new int[]{5, 5}, partitioning.shardSizes());
+    }
+
+    @Test
+    public void testSingleShard() {
+        Partitioning partitioning = partitioner.partition(parallelChains(2, 3), 1);
+
+        assertEquals(0.0, partitioning.cutRatio());
+        assertEquals(1.0, partitioning.imbalance());
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        ExecutionDag dag = parallelChains(1, 2);
+
+        assertThrows(IllegalArgumentException.class, () -> partitioner.partition(dag, 0));
+        assertThrows(IllegalArgumentException.class, () -> new LdgPartitioner(-1));
+    }
+
+    private static ExecutionDag parallelChains(int numberOfChains, int chainLength) {
+        Set<NodeWithDependencies> nodes = new HashSet<>();
+        for (int chain = 0; chain < numberOfChains; chain++) {
+            NodeWithDependencies previous = null;
+            for (int i = 0; i < chainLength; i++) {
+                NodeWithDependencies node = new NodeWithDependencies(
+                        chain * chainLength + i,
+                        previous == null ? Set.of() : Set.of(previous)
+                );
+                nodes.add(node);
+                previous = node;
+            }
+        }
+        return ExecutionDag.create(nodes);
+    }
+}
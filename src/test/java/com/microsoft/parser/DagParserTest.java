@@ -1,9 +1,14 @@
 package com.microsoft.parser;
 
 import com.microsoft.model.ExecutionDag;
+import com.microsoft.model.IDagNode;
+import com.microsoft.model.Resources;
 import org.junit.jupiter.api.Test;
 
+import java.io.StringReader;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -141,6 +146,65 @@ public class DagParserTest {
         assertIterableEquals(adjacencyList.get(3), List.of(2));
     }
 
+    @Test
+    public void testParseNodeKey() {
+        String keyedDagXml = """
+            <DAG>
+                <Nodes>
+                    <Node Id="0" Key="data-prep">
+                        <dependencies/>
+                    </Node>
+                    <Node Id="1">
+                        <dependencies>
+                            <Node Id="0"/>
+                        </dependencies>
+                    </Node>
+                </Nodes>
+            </DAG>
+        """;
+
+        ExecutionDag dag = dagParser.parseDag(keyedDagXml);
+
+        assertEquals("data-prep", dag.getNode(0).key());
+        assertNull(dag.getNode(1).key());
+    }
+
+    @Test
+    public void testParseNodeResources() {
+        String dagXml = """
+            <DAG>
+                <Nodes>
+                    <Node Id="0" Cpu="4" Memory="2048">
+                        <dependencies/>
+                    </Node>
+                    <Node Id="1">
+                        <dependencies/>
+                    </Node>
+                </Nodes>
+            </DAG>
+        """;
+
+        ExecutionDag dag = dagParser.parseDag(dagXml);
+
+        assertEquals(new Resources(4, 2048), dag.getNode(0).resources());
+        assertEquals(Resources.DEFAULT, dag.getNode(1).resources());
+    }
+
+    @Test
+    public void testParseNegativeResources() {
+        String dagXml = """
+            <DAG>
+                <Nodes>
+                    <Node Id="0" Cpu="-1">
+                        <dependencies/>
+                    </Node>
+                </Nodes>
+            </DAG>
+        """;
+
+        assertThrows(IllegalArgumentException.class, () -> dagParser.parseDag(dagXml));
+    }
+
     @Test
     public void testParseEmptyDag() {
         String emptyDagXml = """
@@ -331,8 +395,361 @@ public class DagParserTest {
             </DAG>
         """;
 
-        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> dagParser.parseDag(nestedDependenciesXml));
-        assertEquals("Failed to parse DAG XML", exception.getMessage());
+        ExecutionDag dag = dagParser.parseDag(nestedDependenciesXml);
+
+        assertEquals(3, dag.getAdjacencyList().size());
+        assertEquals(List.of(0), dag.getAdjacencyList().get(1));
+        assertEquals(List.of(1), dag.getAdjacencyList().get(2));
+    }
+
+    @Test
+    public void testParseDependencyTree() {
+        // Node 3 is declared under both nodes depending on it, and only referred to at the top level
+        String dependencyTreeXml = """
+            <DAG>
+                <Nodes>
+                    <Node Id="0">
+                        <dependencies>
+                            <Node Id="1" Key="left">
+                                <dependencies>
+                                    <Node Id="3" Cpu="2">
+                                        <dependencies/>
+                                    </Node>
+                                </dependencies>
+                            </Node>
+                            <Node Id="2">
+                                <dependencies>
+                                    <Node Id="3" Cpu="2">
+                                        <dependencies>
+                                            <Node Id="4"/>
+                                        </dependencies>
+                                    </Node>
+                                </dependencies>
+                            </Node>
+                        </dependencies>
+                    </Node>
+                    <Node Id="4"/>
+                </Nodes>
+            </DAG>
+        """;
+
+        ExecutionDag dag = dagParser.parseDag(dependencyTreeXml);
+        List<List<Integer>> adjacencyList = dag.getAdjacencyList();
+
+        assertEquals(5, adjacencyList.size());
+        assertEquals(List.of(0), adjacencyList.get(1));
+        assertEquals(List.of(0), adjacencyList.get(2));
+        assertEquals(Set.of(1, 2), Set.copyOf(adjacencyList.get(3)));
+        assertEquals(List.of(3), adjacencyList.get(4));
+        assertEquals("left", dag.getNode(1).key());
+        assertEquals(new Resources(2, 0), dag.getNode(3).resources());
+    }
+
+    @Test
+    public void testParseMergesRepeatedDependencies() {
+        // Node 0 lists node 2 twice, and its second declaration repeats node 2 and adds node 1
+        String repeatedDependenciesXml = """
+            <DAG>
+                <Nodes>
+                    <Node Id="0">
+                        <dependencies>
+                            <Node Id="2"/>
+                            <Node Id="3"/>
+                            <Node Id="2"/>
+                        </dependencies>
+                    </Node>
+                    <Node Id="4">
+                        <dependencies>
+                            <Node Id="0">
+                                <dependencies>
+                                    <Node Id="1"/>
+                                    <Node Id="2"/>
+                                </dependencies>
+                            </Node>
+                        </dependencies>
+                    </Node>
+                    <Node Id="1"/>
+                    <Node Id="2"/>
+                    <Node Id="3"/>
+                </Nodes>
+            </DAG>
+        """;
+
+        List<List<Integer>> adjacencyList = dagParser.parseDag(repeatedDependenciesXml).getAdjacencyList();
+
+        assertEquals(List.of(0), adjacencyList.get(1));
+        assertEquals(List.of(0), adjacencyList.get(2));
+        assertEquals(List.of(0), adjacencyList.get(3));
+        assertEquals(List.of(4), adjacencyList.get(0));
+    }
+
+    @Test
+    public void testParseDeeplyNestedDeclarations() {
+        // Every node is declared in the dependencies of the previous one, several thousand levels deep
+        int depth = 5000;
+        StringBuilder deepDagXml = new StringBuilder("<DAG><Nodes>");
+        for (int id = 0; id < depth; id++) {
+            deepDagXml.append("<Node Id=\"").append(id).append("\"><dependencies>");
+        }
+        for (int id = 0; id < depth; id++) {
+            deepDagXml.append("</dependencies></Node>");
+        }
+        deepDagXml.append("</Nodes></DAG>");
+
+        List<List<Integer>> adjacencyList = dagParser.parseDag(deepDagXml.toString()).getAdjacencyList();
+
+        assertEquals(depth, adjacencyList.size());
+        for (int id = 1; id < depth; id++) {
+            assertEquals(List.of(id - 1), adjacencyList.get(id));
+        }
+        assertEquals(List.of(), adjacencyList.get(0));
+    }
+
+    @Test
+    public void testParseConflictingDeclarations() {
+        String conflictingDeclarationsXml = """
+            <DAG>
+                <Nodes>
+                    <Node Id="0">
+                        <dependencies>
+                            <Node Id="1" Key="left"/>
+                        </dependencies>
+                    </Node>
+                    <Node Id="1" Key="right"/>
+                </Nodes>
+            </DAG>
+        """;
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> dagParser.parseDag(conflictingDeclarationsXml));
+        assertEquals("The XML declares node 1 with different properties", exception.getMessage());
+    }
+
+    @Test
+    public void testStreamingParseFlattensDependencyTrees() {
+        String dagXml = """
+            <DAG>
+                <Nodes>
+                    <Node Id="0">
+                        <dependencies>
+                            <Node Id="1">
+                                <dependencies>
+                                    <Node Id="2"/>
+                                </dependencies>
+                            </Node>
+                        </dependencies>
+                    </Node>
+                    <Node Id="1">
+                        <dependencies>
+                            <Node Id="2"/>
+                        </dependencies>
+                    </Node>
+                    <Node Id="2"/>
+                </Nodes>
+            </DAG>
+        """;
+
+        List<Integer> ids = new ArrayList<>();
+        List<int[]> dependencies = new ArrayList<>();
+        dagParser.parseDag(new StringReader(dagXml), (node, nodeDependencies) -> {
+            ids.add(node.id());
+            dependencies.add(nodeDependencies);
+            return true;
+        });
+
+        // Node 1 is handed over before the node depending on it, and only once
+        assertEquals(List.of(1, 0, 2), ids);
+        assertArrayEquals(new int[]{2}, dependencies.get(0));
+        assertArrayEquals(new int[]{1}, dependencies.get(1));
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testStreamingParseRejectsDependenciesAddedAfterTheNodeWasRead() {
+        String dagXml = """
+            <DAG>
+                <Nodes>
+                    <Node Id="1"/>
+                    <Node Id="0">
+                        <dependencies>
+                            <Node Id="1">
+                                <dependencies>
+                                    <Node Id="2"/>
+                                </dependencies>
+                            </Node>
+                        </dependencies>
+                    </Node>
+                    <Node Id="2"/>
+                </Nodes>
+            </DAG>
+        """;
+
+        assertThrows(IllegalArgumentException.class, () -> dagParser.parseDag(new StringReader(dagXml), (_, _) -> true));
+        // Parsing the whole document first merges the declarations
+        assertEquals(List.of(1), dagParser.parseDag(dagXml).getAdjacencyList().get(2));
+    }
+
+    @Test
+    public void testStreamingParseHandsOverTheNodesInDocumentOrder() {
+        String dagXml = """
+            <DAG>
+                <Nodes>
+                    <Node Id="2" Key="data-prep" Cpu="4">
+                        <dependencies>
+                            <Node Id="0"/>
+                            <Node Id="1"/>
+                        </dependencies>
+                    </Node>
+                    <Node>
+                        <Id>0</Id>
+                        <Memory>512</Memory>
+                        <dependencies/>
+                    </Node>
+                    <Node Id="1"/>
+                </Nodes>
+            </DAG>
+        """;
+
+        List<IDagNode> nodes = new ArrayList<>();
+        List<int[]> dependencies = new ArrayList<>();
+        dagParser.parseDag(new StringReader(dagXml), (node, nodeDependencies) -> {
+            nodes.add(node);
+            dependencies.add(nodeDependencies);
+            return true;
+        });
+
+        assertEquals(List.of(2, 0, 1), nodes.stream().map(IDagNode::id).toList());
+        assertArrayEquals(new int[]{0, 1}, dependencies.get(0));
+        assertEquals(0, dependencies.get(1).length);
+        assertEquals("data-prep", nodes.get(0).key());
+        assertEquals(new Resources(4, 0), nodes.get(0).resources());
+        assertEquals(new Resources(1, 512), nodes.get(1).resources());
+    }
+
+    @Test
+    public void testStreamingParseStopsWhenTheConsumerDoes() {
+        String dagXml = """
+            <DAG>
+                <Nodes>
+                    <Node Id="0"/>
+                    <Node Id="1"/>
+                    <Node Id="2"/>
+                </Nodes>
+            </DAG>
+        """;
+
+        List<Integer> ids = new ArrayList<>();
+        dagParser.parseDag(new StringReader(dagXml), (node, _) -> {
+            ids.add(node.id());
+            return node.id() < 1;
+        });
+
+        assertEquals(List.of(0, 1), ids);
+    }
+
+    @Test
+    public void testStreamingParseInvalidDocuments() {
+        String[] invalidDagXmls = {
+                "<DAG></DAG>",
+                "<DAG><Nodes><Node/></Nodes></DAG>",
+                "<DAG><Nodes><Node Id=\"0\" Color=\"red\"/></Nodes></DAG>",
+                "<DAG><Nodes><Node Id=\"0\" Cpu=\"-1\"/></Nodes></DAG>",
+                "<DAG><Nodes><Node Id=\"0\"><dependencies>",
+        };
+
+        for (String dagXml : invalidDagXmls) {
+            assertThrows(IllegalArgumentException.class, () -> dagParser.parseDag(new StringReader(dagXml), (_, _) -> true), dagXml);
+        }
+    }
+
+    // 6 map nodes, 2 reducers taking every other map node, and a node waiting for both reducers
+    private static final String MAP_REDUCE_DAG_XML = """
+        <DAG>
+            <NodeRanges>
+                <NodeRange FirstId="0" Count="6" Key="map-" Cpu="2"/>
+                <NodeRange FirstId="6" Count="2">
+                    <dependencies>
+                        <Range FirstId="0" Count="6" Pattern="Modulo"/>
+                    </dependencies>
+                </NodeRange>
+                <NodeRange FirstId="8" Count="1">
+                    <dependencies>
+                        <Range FirstId="6" Count="2"/>
+                    </dependencies>
+                </NodeRange>
+            </NodeRanges>
+        </DAG>
+    """;
+
+    @Test
+    public void testParseNodeRanges() {
+        ExecutionDag dag = dagParser.parseDag(MAP_REDUCE_DAG_XML);
+
+        List<List<Integer>> adjacencyList = dag.getAdjacencyList();
+        assertEquals(9, adjacencyList.size());
+        for (int map = 0; map < 6; map++) {
+            assertEquals(List.of(6 + map % 2), adjacencyList.get(map));
+        }
+        assertEquals(List.of(8), adjacencyList.get(6));
+        assertEquals(List.of(8), adjacencyList.get(7));
+        assertEquals(3, dag.getInDegree().get(6));
+        assertEquals(2, dag.getInDegree().get(8));
+        assertEquals("map-4", dag.getNode(4).key());
+        assertEquals(new Resources(2, 0), dag.getNode(4).resources());
+        assertNull(dag.getNode(6).key());
+    }
+
+    @Test
+    public void testParseModuloOverASmallerRange() {
+        String dagXml = """
+            <DAG>
+                <Nodes>
+                    <Node Id="0"/>
+                    <Node Id="1"/>
+                </Nodes>
+                <NodeRanges>
+                    <NodeRange FirstId="2" Count="5">
+                        <dependencies>
+                            <Range FirstId="0" Count="2" Pattern="Modulo"/>
+                        </dependencies>
+                    </NodeRange>
+                </NodeRanges>
+            </DAG>
+        """;
+
+        ExecutionDag dag = dagParser.parseDag(dagXml);
+
+        assertEquals(List.of(2, 4, 6), dag.getAdjacencyList().get(0));
+        assertEquals(List.of(3, 5), dag.getAdjacencyList().get(1));
+    }
+
+    @Test
+    public void testParseOverlappingNodeRanges() {
+        String dagXml = """
+            <DAG>
+                <Nodes>
+                    <Node Id="3"/>
+                </Nodes>
+                <NodeRanges>
+                    <NodeRange FirstId="0" Count="4"/>
+                </NodeRanges>
+            </DAG>
+        """;
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> dagParser.parseDag(dagXml));
+        assertEquals("The graph contains duplicate nodes", exception.getMessage());
+    }
+
+    @Test
+    public void testStreamingParseExpandsNodeRanges() {
+        List<Integer> ids = new ArrayList<>();
+        List<int[]> dependencies = new ArrayList<>();
+        dagParser.parseDag(new StringReader(MAP_REDUCE_DAG_XML), (node, nodeDependencies) -> {
+            ids.add(node.id());
+            dependencies.add(nodeDependencies);
+            return true;
+        });
+
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8), ids);
+        assertArrayEquals(new int[]{1, 3, 5}, dependencies.get(7));
+        assertArrayEquals(new int[]{6, 7}, dependencies.get(8));
+    }
+}
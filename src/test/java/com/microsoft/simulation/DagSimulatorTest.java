@@ -0,0 +1,185 @@
+package com.microsoft.simulation;
+
+import com.microsoft.execution.retry.ExponentialBackoffRetryStrategy;
+import com.microsoft.execution.retry.TimedRetryStrategy;
+import com.microsoft.model.ExecutionDag;
+import com.microsoft.model.INodeWithDependencies;
+import com.microsoft.model.NodeWithDependencies;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DagSimulatorTest {
+
+    private static final double DELTA = 1e-6;
+
+    @Test
+    public void testChainRunsOneNodeAtATime() {
+        SimulationOptions options = SimulationOptions.DEFAULT
+                .withNumberOfEngines(4)
+                .withDurations(INodeDurationModel.constant(5))
+                .withUtilizationIntervals(10);
+
+        SimulationReport report = new DagSimulator(options).simulate(createChain(10));
+
+        assertFalse(report.hasFailed());
+        assertEquals(50.0, report.makespanInMillis(), DELTA);
+        assertEquals(10, report.completedNodes());
+        assertEquals(10, report.attempts());
+        assertEquals(0.25, report.averageUtilization(), DELTA);
+        assertEquals(5.0, report.utilizationIntervalInMillis(), DELTA);
+        for (double utilization : report.utilizationOverTime()) {
+            assertEquals(0.25, utilization, DELTA);
+        }
+        assertEquals(0.0, report.maxQueueWaitInMillis(), DELTA);
+    }
+
+    @Test
+    public void testIndependentNodesQueueForEngines() {
+        SimulationOptions options = SimulationOptions.DEFAULT
+                .withNumberOfEngines(2)
+                .withDurations(INodeDurationModel.constant(10));
+
+        SimulationReport report = new DagSimulator(options).simulate(createIndependentNodes(8));
+
+        // The nodes start in pairs, at 0, 10, 20 and 30ms
+        assertEquals(40.0, report.makespanInMillis(), DELTA);
+        assertEquals(1.0, report.averageUtilization(), DELTA);
+        assertEquals(10.0, report.queueWaitP50InMillis(), DELTA);
+        assertEquals(30.0, report.queueWaitP90InMillis(), DELTA);
+        assertEquals(30.0, report.queueWaitP99InMillis(), DELTA);
+        assertEquals(30.0, report.maxQueueWaitInMillis(), DELTA);
+    }
+
+    @Test
+    public void testFailureAfterRetriesStopsTheDag() {
+        SimulationOptions options = SimulationOptions.DEFAULT
+                .withNumberOfEngines(1)
+                .withFailureRate(1.0f)
+                .withRetryStrategy(new ExponentialBackoffRetryStrategy(2, 100, 2));
+
+        SimulationReport report = new DagSimulator(options).simulate(createChain(3));
+
+        assertTrue(report.hasFailed());
+        assertEquals(0, report.completedNodes());
+        assertEquals(3, report.attempts());
+        assertEquals(3, report.failedAttempts());
+        assertEquals(300.0, report.makespanInMillis(), DELTA); // 100ms + 200ms of backoff
+    }
+
+    @Test
+    public void testRetriesDoNotHoldTheEngine() {
+        SimulationOptions options = SimulationOptions.DEFAULT
+                .withNumberOfEngines(1)
+                .withFailureRate(0.5f)
+                .withRetryStrategy(new TimedRetryStrategy(Integer.MAX_VALUE - 1, 1_000))
+                .withDurations(INodeDurationModel.constant(1));
+
+        SimulationReport report = new DagSimulator(options).simulate(createIndependentNodes(100));
+
+        assertFalse(report.hasFailed());
+        assertEquals(100, report.completedNodes());
+        assertEquals(100 + report.failedAttempts(), report.attempts());
+        assertTrue(report.failedAttempts() > 0);
+    }
+
+    @Test
+    public void testSameSeedSimulatesTheSameRun() {
+        SimulationOptions options = SimulationOptions.DEFAULT
+                .withNumberOfEngines(3)
+                .withFailureRate(0.1f)
+                .withRetryStrategy(new TimedRetryStrategy(10, 50))
+                .withDurations(INodeDurationModel.logNormal(20, 1))
+                .withSeed(42);
+        ExecutionDag dag = createLayers(10, 20);
+
+        SimulationReport first = new DagSimulator(options).simulate(dag);
+        SimulationReport second = new DagSimulator(options).simulate(dag);
+
+        assertEquals(first.makespanInMillis(), second.makespanInMillis(), 0.0);
+        assertEquals(first.failedAttempts(), second.failedAttempts());
+        assertArrayEquals(first.utilizationOverTime(), second.utilizationOverTime(), 0.0);
+        assertEquals(first.queueWaitP99InMillis(), second.queueWaitP99InMillis(), 0.0);
+    }
+
+    @Test
+    public void testProfileDurations() {
+        INodeDurationModel durations = INodeDurationModel.profile(Map.of("0", 30.0), INodeDurationModel.constant(10));
+        SimulationOptions options = SimulationOptions.DEFAULT.withNumberOfEngines(2).withDurations(durations);
+
+        SimulationReport report = new DagSimulator(options).simulate(createIndependentNodes(3));
+
+        // Node 0 takes 30ms on one engine while nodes 1 and 2 take 10ms each on the other
+        assertEquals(30.0, report.makespanInMillis(), DELTA);
+        assertEquals(50.0 / 60.0, report.averageUtilization(), DELTA);
+    }
+
+    @Test
+    public void testLargeDag() {
+        SimulationOptions options = SimulationOptions.DEFAULT
+                .withNumberOfEngines(64)
+                .withFailureRate(0.01f)
+                .withRetryStrategy(new TimedRetryStrategy(100, 10))
+                .withDurations(INodeDurationModel.exponential(5));
+
+        SimulationReport report = new DagSimulator(options).simulate(createLayers(100, 1_000));
+
+        assertFalse(report.hasFailed());
+        assertEquals(100_000, report.completedNodes());
+        assertTrue(report.averageUtilization() > 0 && report.averageUtilization() <= 1);
+        assertTrue(report.queueWaitP50InMillis() <= report.queueWaitP99InMillis());
+    }
+
+    @Test
+    public void testInvalidOptions() {
+        assertThrows(IllegalArgumentException.class, () -> SimulationOptions.DEFAULT.withNumberOfEngines(0));
+        assertThrows(IllegalArgumentException.class, () -> SimulationOptions.DEFAULT.withFailureRate(1.5f));
+        assertThrows(IllegalArgumentException.class, () -> SimulationOptions.DEFAULT.withUtilizationIntervals(0));
+        assertThrows(IllegalArgumentException.class, () -> INodeDurationModel.exponential(0));
+    }
+
+    private static ExecutionDag createChain(int size) {
+        Set<INodeWithDependencies> nodes = new HashSet<>();
+        NodeWithDependencies previous = null;
+        for (int i = 0; i < size; i++) {
+            NodeWithDependencies node = new NodeWithDependencies(i, previous == null ? Set.of() : Set.of(previous));
+            nodes.add(node);
+            previous = node;
+        }
+        return ExecutionDag.create(nodes);
+    }
+
+    private static ExecutionDag createIndependentNodes(int size) {
+        Set<INodeWithDependencies> nodes = new HashSet<>();
+        for (int i = 0; i < size; i++) {
+            nodes.add(new NodeWithDependencies(i, Set.of()));
+        }
+        return ExecutionDag.create(nodes);
+    }
+
+    /**
+     * Every node depends on two nodes of the previous layer.
+     */
+    private static ExecutionDag createLayers(int layers, int width) {
+        Set<INodeWithDependencies> nodes = new HashSet<>();
+        List<NodeWithDependencies> previous = new ArrayList<>();
+        for (int layer = 0; layer < layers; layer++) {
+            List<NodeWithDependencies> current = new ArrayList<>();
+            for (int i = 0; i < width; i++) {
+                Set<INodeWithDependencies> dependencies = previous.isEmpty()
+                        ? Set.of()
+                        : Set.of(previous.get(i), previous.get((i + 1) % width));
+                current.add(new NodeWithDependencies(layer * width + i, dependencies));
+            }
+            nodes.addAll(current);
+            previous = current;
+        }
+        return ExecutionDag.create(nodes);
+    }
+}
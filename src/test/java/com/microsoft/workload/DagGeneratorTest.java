@@ -0,0 +1,97 @@
+package com.microsoft.workload;
+
+import com.microsoft.model.ExecutionDag;
+import com.microsoft.parser.DagParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DagGeneratorTest {
+
+    @Test
+    public void testEveryShapeGeneratesAValidDag() {
+        for (DagShape shape : DagShape.values()) {
+            GeneratedDag dag = generate(DagGeneratorOptions.DEFAULT.withShape(shape).withNodes(500).withWidth(10));
+
+            ExecutionDag executionDag = dag.toExecutionDag();
+            assertEquals(500, executionDag.getAdjacencyList().size(), shape.name());
+            assertEquals(dag.edges(), executionDag.getAdjacencyList().stream().mapToInt(List::size).sum(), shape.name());
+        }
+    }
+
+    @Test
+    public void testXmlIsAcceptedByTheParser() {
+        GeneratedDag dag = generate(DagGeneratorOptions.DEFAULT.withNodes(200).withWidth(20));
+
+        ExecutionDag executionDag = new DagParser().parseDag(dag.toXml());
+
+        assertEquals(200, executionDag.getAdjacencyList().size());
+        assertArrayEquals(dag.toExecutionDag().computeLevels(), executionDag.computeLevels());
+    }
+
+    @Test
+    public void testSameSeedGeneratesTheSameDag() {
+        DagGeneratorOptions options = DagGeneratorOptions.DEFAULT.withShape(DagShape.POWER_LAW).withSeed(42);
+
+        GeneratedDag first = generate(options);
+        GeneratedDag second = generate(options);
+        GeneratedDag otherSeed = generate(options.withSeed(43));
+
+        assertTrue(Arrays.deepEquals(first.dependencies(), second.dependencies()));
+        assertFalse(Arrays.deepEquals(first.dependencies(), otherSeed.dependencies()));
+    }
+
+    @Test
+    public void testLayeredDependsOnThePreviousLayer() {
+        GeneratedDag dag = generate(DagGeneratorOptions.DEFAULT.withNodes(100).withWidth(10).withDegree(3));
+
+        int[] levels = dag.toExecutionDag().computeLevels();
+        for (int id = 0; id < dag.size(); id++) {
+            assertEquals(id / 10, levels[id]);
+            assertTrue(dag.dependencies()[id].length <= 3);
+        }
+    }
+
+    @Test
+    public void testStructuredShapes() {
+        int[] chainLevels = generate(DagGeneratorOptions.DEFAULT.withShape(DagShape.CHAINS).withNodes(100).withWidth(4))
+                .toExecutionDag().computeLevels();
+        assertEquals(24, Arrays.stream(chainLevels).max().orElseThrow());
+
+        int[] latticeLevels = generate(DagGeneratorOptions.DEFAULT.withShape(DagShape.LATTICE).withNodes(100).withWidth(10))
+                .toExecutionDag().computeLevels();
+        assertEquals(18, latticeLevels[99]); // Both the rows and the columns have to be walked
+
+        GeneratedDag fanOut = generate(DagGeneratorOptions.DEFAULT.withShape(DagShape.FAN_OUT_TREE).withNodes(15).withDegree(2));
+        assertEquals(14, fanOut.edges());
+        assertEquals(2, fanOut.toExecutionDag().getAdjacencyList().get(0).size());
+        assertEquals(3, Arrays.stream(fanOut.toExecutionDag().computeLevels()).max().orElseThrow());
+
+        GeneratedDag fanIn = generate(DagGeneratorOptions.DEFAULT.withShape(DagShape.FAN_IN_TREE).withNodes(15).withDegree(2));
+        assertArrayEquals(new int[]{1, 2}, fanIn.dependencies()[0]);
+        assertEquals(3, fanIn.toExecutionDag().computeLevels()[0]); // The root runs last
+    }
+
+    @Test
+    public void testPowerLawHasHubs() {
+        GeneratedDag dag = generate(DagGeneratorOptions.DEFAULT.withShape(DagShape.POWER_LAW).withNodes(10_000).withDegree(2));
+
+        int maxDependents = dag.toExecutionDag().getAdjacencyList().stream().mapToInt(List::size).max().orElseThrow();
+        assertTrue(maxDependents > 100, "max dependents: " + maxDependents);
+    }
+
+    @Test
+    public void testInvalidOptions() {
+        assertThrows(IllegalArgumentException.class, () -> DagGeneratorOptions.DEFAULT.withNodes(0));
+        assertThrows(IllegalArgumentException.class, () -> DagGeneratorOptions.DEFAULT.withWidth(0));
+        assertThrows(IllegalArgumentException.class, () -> DagGeneratorOptions.DEFAULT.withDegree(0));
+        assertThrows(IllegalArgumentException.class, () -> DagGeneratorOptions.DEFAULT.withShape(null));
+    }
+
+    private static GeneratedDag generate(DagGeneratorOptions options) {
+        return new DagGenerator(options).generate();
+    }
+}
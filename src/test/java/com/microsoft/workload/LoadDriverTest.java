@@ -0,0 +1,96 @@
+package com.microsoft.workload;
+
+import com.microsoft.execution.*;
+import com.microsoft.execution.retry.NoRetryStrategy;
+import com.microsoft.parser.DagParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LoadDriverTest {
+
+    @Test
+    public void testClosedLoop() throws Exception {
+        GeneratedDag dag = new DagGenerator(DagGeneratorOptions.DEFAULT.withNodes(100).withWidth(10)).generate();
+        IDagExecutor dagExecutor = new DagExecutor(new DagParser(), new DagNodeExecutor(2, 0.0f, NoRetryStrategy.INSTANCE));
+        LoadDriverOptions options = LoadDriverOptions.DEFAULT.withConcurrency(3).withRequests(20);
+
+        LoadReport report = new LoadDriver(dagExecutor, options).run(List.of(new DagRequest(dag.toXml())));
+
+        assertEquals(20, report.requests());
+        assertEquals(0, report.failedRequests());
+        assertTrue(report.throughputPerSecond() > 0);
+        assertTrue(report.latencyP50InMillis() <= report.latencyP99InMillis());
+        assertTrue(report.peakHeapUsedInMb() > 0);
+    }
+
+    @Test
+    public void testOpenLoopCorrectsForCoordinatedOmission() throws Exception {
+        // Requests are served one at a time in 20ms, but arrive every 5ms, so they queue up behind each other
+        IDagExecutor dagExecutor = serialExecutor(20);
+        LoadDriverOptions options = LoadDriverOptions.DEFAULT
+                .withArrivalRatePerSecond(200)
+                .withArrivalMode(ArrivalMode.OPEN)
+                .withRequests(10);
+
+        LoadReport report = new LoadDriver(dagExecutor, options).run(List.of(new DagRequest("")));
+
+        assertEquals(10, report.requests());
+        assertTrue(report.elapsedInMillis() >= 200, report.toString());
+        assertTrue(report.correctedMaxInMillis() >= 150, report.toString());
+        assertTrue(report.correctedP99InMillis() >= report.latencyP99InMillis() * 0.9, report.toString());
+    }
+
+    @Test
+    public void testPacedClosedLoopCountsTheRequestsHeldBack() throws Exception {
+        // A single client can't keep up with the rate, so every request starts later than scheduled
+        IDagExecutor dagExecutor = serialExecutor(20);
+        LoadDriverOptions options = LoadDriverOptions.DEFAULT.withArrivalRatePerSecond(200).withRequests(10);
+
+        LoadReport report = new LoadDriver(dagExecutor, options).run(List.of(new DagRequest("")));
+
+        assertTrue(report.maxLatencyInMillis() < 100, report.toString());
+        assertTrue(report.correctedMaxInMillis() >= 150, report.toString());
+    }
+
+    @Test
+    public void testFailedRequestsAreCounted() throws Exception {
+        IDagExecutor dagExecutor = new DagExecutor(new DagParser(), new DagNodeExecutor(1, 0.0f, NoRetryStrategy.INSTANCE));
+        List<DagRequest> workload = List.of(new DagRequest("<DAG>"), new DagRequest(
+                new DagGenerator(DagGeneratorOptions.DEFAULT.withNodes(10)).generate().toXml()
+        ));
+
+        LoadReport report = new LoadDriver(dagExecutor, LoadDriverOptions.DEFAULT.withRequests(10)).run(workload);
+
+        assertEquals(5, report.failedRequests());
+    }
+
+    @Test
+    public void testInvalidOptions() {
+        assertThrows(IllegalArgumentException.class, () -> LoadDriverOptions.DEFAULT.withArrivalMode(ArrivalMode.OPEN));
+        assertThrows(IllegalArgumentException.class, () -> LoadDriverOptions.DEFAULT.withArrivalRatePerSecond(-1));
+        assertThrows(IllegalArgumentException.class, () -> LoadDriverOptions.DEFAULT.withConcurrency(0));
+        assertThrows(IllegalArgumentException.class, () -> LoadDriverOptions.DEFAULT.withRequests(0));
+    }
+
+    /**
+     * Serves the requests one after the other, each taking {@code serviceTimeInMillis}.
+     */
+    private static IDagExecutor serialExecutor(long serviceTimeInMillis) {
+        Object lock = new Object();
+        return request -> CompletableFuture.supplyAsync(() -> {
+            synchronized (lock) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(serviceTimeInMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return new DagResponse(false);
+            }
+        });
+    }
+}